@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the number of times reads were paused and resumed on source and target channels due to back pressure
+ * from the opposite channel.
+ */
+public class BackPressureStatistics {
+
+    private static BackPressureStatistics instance = new BackPressureStatistics();
+
+    private final AtomicLong sourceReadPauseCount = new AtomicLong();
+    private final AtomicLong sourceReadResumeCount = new AtomicLong();
+    private final AtomicLong targetReadPauseCount = new AtomicLong();
+    private final AtomicLong targetReadResumeCount = new AtomicLong();
+
+    private BackPressureStatistics() {
+    }
+
+    public static BackPressureStatistics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record a pause or resume of reads on a channel.
+     *
+     * @param sourceChannel true if the reads of a source (listener side) channel were toggled.
+     * @param paused        true if reads were paused, false if they were resumed.
+     */
+    public void record(boolean sourceChannel, boolean paused) {
+        if (sourceChannel) {
+            (paused ? sourceReadPauseCount : sourceReadResumeCount).incrementAndGet();
+        } else {
+            (paused ? targetReadPauseCount : targetReadResumeCount).incrementAndGet();
+        }
+    }
+
+    public long getSourceReadPauseCount() {
+        return sourceReadPauseCount.get();
+    }
+
+    public long getSourceReadResumeCount() {
+        return sourceReadResumeCount.get();
+    }
+
+    public long getTargetReadPauseCount() {
+        return targetReadPauseCount.get();
+    }
+
+    public long getTargetReadResumeCount() {
+        return targetReadResumeCount.get();
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundInvoker;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Hands over outbound content to the event loop in batches.
+ *
+ * Producers add content to a multi producer single consumer queue and a single drain task is submitted to the
+ * event loop per wakeup. The task writes every chunk that is ready and flushes once for the whole batch, instead of
+ * submitting one task and doing one flush per chunk.
+ *
+ * Headers handed over through {@link #writeHeaders(HttpMessage, int)} are held back until the first batch. If that
+ * batch holds the complete body and the body is small, headers and body are written as a single full message so
+ * that the encoder can merge them into one buffer.
+ *
+ * Content is written to the channel pipeline by default. Protocols which do not write {@link HttpObject}s through the
+ * pipeline, such as HTTP/2 streams, provide a {@link ContentSink} instead.
+ */
+public class BatchedContentWriter {
+
+    private final ContentSink contentSink;
+    private final EventLoop eventLoop;
+    private final Consumer<ChannelFuture> lastContentListener;
+    private final Queue<HttpContent> pendingContent = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private HttpMessage pendingHeaders;
+    private int combineThreshold;
+
+    /**
+     * @param outboundInvoker     channel or channel handler context to write the content to.
+     * @param eventLoop           event loop of the channel.
+     * @param lastContentListener notified with the write future of the last content.
+     */
+    public BatchedContentWriter(ChannelOutboundInvoker outboundInvoker, EventLoop eventLoop,
+                                Consumer<ChannelFuture> lastContentListener) {
+        this(new PipelineSink(outboundInvoker), eventLoop, lastContentListener);
+    }
+
+    /**
+     * @param contentSink         writes the content of a batch.
+     * @param eventLoop           event loop of the channel.
+     * @param lastContentListener notified with the write future of the last content.
+     */
+    public BatchedContentWriter(ContentSink contentSink, EventLoop eventLoop,
+                                Consumer<ChannelFuture> lastContentListener) {
+        this.contentSink = contentSink;
+        this.eventLoop = eventLoop;
+        this.lastContentListener = lastContentListener;
+    }
+
+    /**
+     * Hand over the headers of the message. Must be called from the event loop before any content is written.
+     *
+     * @param httpMessage      headers of the message.
+     * @param combineThreshold maximum body size to be written together with the headers, 0 to disable.
+     */
+    public void writeHeaders(HttpMessage httpMessage, int combineThreshold) {
+        this.pendingHeaders = httpMessage;
+        this.combineThreshold = combineThreshold;
+    }
+
+    /**
+     * Queue content to be written. Can be called from any thread.
+     *
+     * @param httpContent content to be written.
+     */
+    public void write(HttpContent httpContent) {
+        pendingContent.offer(httpContent);
+        if (drainScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(drainTask);
+        }
+    }
+
+    private void drain() {
+        // Reset before polling so that content added while draining schedules a new task
+        drainScheduled.set(false);
+        boolean flushPending = false;
+        if (pendingHeaders != null) {
+            HttpMessage httpMessage = pendingHeaders;
+            pendingHeaders = null;
+            flushPending = writeHeadersWithContent(httpMessage);
+        }
+        HttpContent httpContent;
+        while ((httpContent = pendingContent.poll()) != null) {
+            flushPending = writeContent(httpContent);
+        }
+        if (flushPending) {
+            contentSink.flush();
+        }
+    }
+
+    private boolean writeContent(HttpContent httpContent) {
+        if (Util.isLastHttpContent(httpContent)) {
+            writeAndFlushLast(httpContent);
+            return false;
+        }
+        contentSink.write(httpContent);
+        return true;
+    }
+
+    private boolean writeHeadersWithContent(HttpMessage httpMessage) {
+        if (combineThreshold <= 0) {
+            contentSink.write(httpMessage);
+            return true;
+        }
+        List<HttpContent> batch = new ArrayList<>();
+        long contentLength = 0;
+        HttpContent lastContent = null;
+        HttpContent httpContent;
+        while (lastContent == null && contentLength <= combineThreshold
+                && (httpContent = pendingContent.poll()) != null) {
+            batch.add(httpContent);
+            contentLength += httpContent.content().readableBytes();
+            if (Util.isLastHttpContent(httpContent)) {
+                lastContent = httpContent;
+            }
+        }
+
+        if (lastContent != null && contentLength <= combineThreshold
+                && (httpMessage instanceof HttpResponse || httpMessage instanceof HttpRequest)) {
+            FullHttpMessage fullHttpMessage = toFullHttpMessage(httpMessage, batch, (int) contentLength,
+                    ((LastHttpContent) lastContent).trailingHeaders());
+            writeAndFlushLast(fullHttpMessage);
+            return false;
+        }
+
+        contentSink.write(httpMessage);
+        boolean flushPending = true;
+        for (HttpContent content : batch) {
+            flushPending = writeContent(content);
+        }
+        return flushPending;
+    }
+
+    private void writeAndFlushLast(HttpObject lastHttpObject) {
+        ChannelFuture future = contentSink.write(lastHttpObject);
+        contentSink.flush();
+        lastContentListener.accept(future);
+    }
+
+    /**
+     * Copy the small body into a single buffer and release each content through its own wrapper, as content types
+     * such as HTTP/2 data may act on their release.
+     */
+    private FullHttpMessage toFullHttpMessage(HttpMessage httpMessage, List<HttpContent> batch, int contentLength,
+                                              HttpHeaders trailingHeaders) {
+        ByteBuf body = Unpooled.directBuffer(contentLength);
+        for (HttpContent httpContent : batch) {
+            try {
+                body.writeBytes(httpContent.content());
+            } finally {
+                httpContent.release();
+            }
+        }
+        if (httpMessage instanceof HttpResponse) {
+            HttpResponse httpResponse = (HttpResponse) httpMessage;
+            return new DefaultFullHttpResponse(httpResponse.protocolVersion(), httpResponse.status(), body,
+                    httpResponse.headers(), trailingHeaders);
+        }
+        HttpRequest httpRequest = (HttpRequest) httpMessage;
+        return new DefaultFullHttpRequest(httpRequest.protocolVersion(), httpRequest.method(), httpRequest.uri(),
+                body, httpRequest.headers(), trailingHeaders);
+    }
+
+    /**
+     * Writes the messages and content of a batch, which are flushed once the batch is written.
+     */
+    public interface ContentSink {
+
+        /**
+         * Write a message or content without flushing it.
+         *
+         * @param httpObject message or content to write.
+         * @return future of the write.
+         */
+        ChannelFuture write(HttpObject httpObject);
+
+        /**
+         * Flush the writes of the batch.
+         */
+        void flush();
+    }
+
+    /**
+     * Writes to the channel pipeline.
+     */
+    private static class PipelineSink implements ContentSink {
+
+        private final ChannelOutboundInvoker outboundInvoker;
+
+        PipelineSink(ChannelOutboundInvoker outboundInvoker) {
+            this.outboundInvoker = outboundInvoker;
+        }
+
+        @Override
+        public ChannelFuture write(HttpObject httpObject) {
+            return outboundInvoker.write(httpObject);
+        }
+
+        @Override
+        public void flush() {
+            outboundInvoker.flush();
+        }
+    }
+}
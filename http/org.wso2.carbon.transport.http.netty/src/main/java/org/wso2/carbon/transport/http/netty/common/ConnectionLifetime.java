@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the age and the number of requests of a keep-alive connection, so that the connection can be retired once
+ * it exceeds either limit and its clients get spread over the instances which are currently available.
+ */
+public class ConnectionLifetime {
+
+    // Jitter of the maximum age, as a fraction of it, so that connections opened together are not retired together
+    private static final double MAX_AGE_JITTER = 0.1;
+
+    private final long expiryTime;
+    private final boolean ageLimited;
+    private final int maxRequests;
+    private volatile int requestCount;
+
+    /**
+     * @param maxAgeMillis maximum age of the connection in milliseconds, 0 for no limit. A random jitter of up to
+     *                     10% either way is applied.
+     * @param maxRequests  maximum number of requests served by the connection, 0 for no limit.
+     */
+    public ConnectionLifetime(long maxAgeMillis, int maxRequests) {
+        this.maxRequests = maxRequests;
+        this.ageLimited = maxAgeMillis > 0;
+        if (ageLimited) {
+            double jitter = 1 + MAX_AGE_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+            this.expiryTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long) (maxAgeMillis * jitter));
+        } else {
+            this.expiryTime = 0;
+        }
+    }
+
+    /**
+     * Count a request served by the connection. Requests of a connection are counted by one thread at a time.
+     */
+    public void recordRequest() {
+        requestCount++;
+    }
+
+    /**
+     * @return true if the connection should not be used for further requests.
+     */
+    public boolean isExpired() {
+        return (maxRequests > 0 && requestCount >= maxRequests)
+                || (ageLimited && System.nanoTime() - expiryTime >= 0);
+    }
+}
@@ -15,8 +15,10 @@
 
 package org.wso2.carbon.transport.http.netty.common;
 
+import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
 import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.listener.PipelinedResponseQueue;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 
@@ -49,6 +51,24 @@ public final class Constants {
 
     public static final String CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE = "client.bootstrap.worker.group.size";
 
+    // CPUs the worker group threads of the client bootstrap are pinned to
+    public static final String CLIENT_BOOTSTRAP_WORKER_GROUP_CPUS = "client.bootstrap.worker.group.cpus";
+
+    public static final String CLIENT_BOOTSTRAP_WRITE_BUFFER_HIGH_WATER_MARK =
+            "client.bootstrap.write.buffer.high.water.mark";
+
+    public static final String CLIENT_BOOTSTRAP_WRITE_BUFFER_LOW_WATER_MARK =
+            "client.bootstrap.write.buffer.low.water.mark";
+
+    public static final String CLIENT_BOOTSTRAP_FLUSH_CONSOLIDATION_THRESHOLD =
+            "client.bootstrap.flush.consolidation.threshold";
+
+    public static final String CLIENT_BOOTSTRAP_FLUSH_CONSOLIDATION_WHEN_NO_READ =
+            "client.bootstrap.flush.consolidation.when.no.read.in.progress";
+
+    // none, decompress or pass_through, see ResponseDecompressionMode
+    public static final String CLIENT_RESPONSE_DECOMPRESSION = "client.response.decompression";
+
     //Server side SSL Parameters
     public static final String SSL_HANDLER = "ssl";
     public static final String CLIENT_SUPPORT_CIPHERS = "ciphers";
@@ -72,12 +92,76 @@ public final class Constants {
 
     public static final String SERVER_BOOTSTRAP_SO_TIMEOUT = "server.bootstrap.socket.timeout";
 
+    public static final String SERVER_BOOTSTRAP_WRITE_BUFFER_HIGH_WATER_MARK =
+            "server.bootstrap.write.buffer.high.water.mark";
+
+    public static final String SERVER_BOOTSTRAP_WRITE_BUFFER_LOW_WATER_MARK =
+            "server.bootstrap.write.buffer.low.water.mark";
+
+    public static final String SERVER_BOOTSTRAP_FLUSH_CONSOLIDATION_THRESHOLD =
+            "server.bootstrap.flush.consolidation.threshold";
+
+    public static final String SERVER_BOOTSTRAP_FLUSH_CONSOLIDATION_WHEN_NO_READ =
+            "server.bootstrap.flush.consolidation.when.no.read.in.progress";
+
+    // Responses with a body up to this size are written together with the headers in a single buffer
+    public static final String SERVER_BOOTSTRAP_RESPONSE_COMBINE_THRESHOLD =
+            "server.bootstrap.response.combine.threshold";
+
+    // Maximum number of pipelined requests read ahead on a connection while earlier responses are pending
+    public static final String SERVER_BOOTSTRAP_PIPELINING_LIMIT = "server.bootstrap.pipelining.limit";
+
+    public static final int DEFAULT_PIPELINING_LIMIT = 16;
+
+    // Number of requests waiting for a dispatch thread beyond which listener connections stop reading
+    public static final int DEFAULT_DISPATCH_QUEUE_DEPTH = 1024;
+
+    // Priority lanes of requests with their weights, e.g. critical:8,default:2,bulk:1
+    public static final String PRIORITY_LANES = "priority.lanes";
+
+    // Number of access log records buffered for the writer of a listener
+    public static final int DEFAULT_ACCESS_LOG_BUFFER_SIZE = 8192;
+
+    // Size in bytes beyond which an access log file is rotated, and the number of rotated files kept
+    public static final long DEFAULT_ACCESS_LOG_MAX_FILE_SIZE = 100 * 1024 * 1024;
+
+    public static final int DEFAULT_ACCESS_LOG_MAX_FILES = 10;
+
+    // Time to live (ms) of the responses in the micro-cache of a listener, and its maximum number of responses
+    public static final int DEFAULT_RESPONSE_CACHE_TTL = 1000;
+
+    public static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRIES = 1024;
+
+    // Responses with larger bodies are not cached
+    public static final int RESPONSE_CACHE_MAX_BODY_SIZE = 64 * 1024;
+
+    // Listener connections are closed after the response which exceeds their maximum age (ms) or number of requests
+    public static final String SERVER_BOOTSTRAP_CONNECTION_MAX_AGE = "server.bootstrap.connection.max.age";
+
+    public static final String SERVER_BOOTSTRAP_CONNECTION_MAX_REQUESTS = "server.bootstrap.connection.max.requests";
+
+    // Number of flushes after which an explicit flush is done, 0 disables flush consolidation
+    public static final int DEFAULT_FLUSH_CONSOLIDATION_THRESHOLD = 256;
+
+    public static final int DEFAULT_RESPONSE_COMBINE_THRESHOLD = 8 * 1024;
+
+    // Netty defaults for the write buffer water marks
+    public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+
+    public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+
     // Boss group size of the server bootstrap
     public static final String SERVER_BOOTSTRAP_BOSS_GROUP_SIZE = "server.bootstrap.boss.group.size";
 
     //Worker group size of the server bootstrap
     public static final String SERVER_BOOTSTRAP_WORKER_GROUP_SIZE = "server.bootstrap.worker.group.size";
 
+    // CPUs the boss group threads of the server bootstrap are pinned to
+    public static final String SERVER_BOOTSTRAP_BOSS_GROUP_CPUS = "server.bootstrap.boss.group.cpus";
+
+    // CPUs the worker group threads of the server bootstrap are pinned to
+    public static final String SERVER_BOOTSTRAP_WORKER_GROUP_CPUS = "server.bootstrap.worker.group.cpus";
+
     //Event group size of server bootstrap
     public static final String EVENT_GROUP_EXECUTOR_THREAD_SIZE = "event.group.executor.thread.size";
 
@@ -107,6 +191,17 @@ public final class Constants {
 
     public static final String MIN_EVICTION_IDLE_TIME = "client.min.eviction.idle.time";
 
+    // Pooled connections are evicted once they exceed their maximum age (ms) or number of requests
+    public static final String MAX_CONNECTION_AGE = "client.max.connection.age";
+
+    public static final String MAX_REQUESTS_PER_CONNECTION = "client.max.requests.per.connection";
+
+    // Routes the client connectors open connections to ahead of traffic, e.g. https://host:443=4,http://host:80=2
+    public static final String CLIENT_WARMUP_ROUTES = "client.warmup.routes";
+
+    // Maximum number of connections opened a second to keep the idle connections of a warmed up route
+    public static final String CLIENT_WARMUP_CONNECTS_PER_SECOND = "client.warmup.connects.per.second";
+
     public static final String ENABLE_GLOBAL_CONNECTION_POOLING = "enable.global.client.connection.pooling";
 
     public static final String NO_THREADS_IN_EXECUTOR_SERVICE = "sender.thread.count";
@@ -132,6 +227,12 @@ public final class Constants {
 
     public static final String PORT = "PORT";
 
+    // Path of the Unix domain socket to send a request to, instead of its HOST and PORT
+    public static final String UNIX_DOMAIN_SOCKET_PATH = "UNIX_DOMAIN_SOCKET_PATH";
+
+    // Index of the priority lane a request is classified into by its listener
+    public static final String PRIORITY_LANE = "PRIORITY_LANE";
+
     public static final int DEFAULT_HTTP_PORT = 80;
 
     public static final int DEFAULT_HTTPS_PORT = 443;
@@ -262,11 +363,22 @@ public final class Constants {
     public static final String HTTP2_SCHEME = ":scheme";
 
     public static final String HTTP_SOURCE_HANDLER = "SourceHandler";
+    public static final String HTTP2_SOURCE_HANDLER = "http2SourceHandler";
+    public static final String HTTP_PROTOCOL_NEGOTIATION_HANDLER = "protocolNegotiationHandler";
+    public static final String HTTP2_UPGRADE_HANDLER = "http2UpgradeHandler";
     public static final String WEBSOCKET_SOURCE_HANDLER = "ws_handler";
     public static final String TARGET_HANDLER = "targetHandler";
+    public static final String HTTP2_TARGET_HANDLER = "http2TargetHandler";
     public static final String REDIRECT_HANDLER = "redirectHandler";
     public static final String IDLE_STATE_HANDLER = "idleStateHandler";
+    public static final String REQUEST_SIZE_LIMIT_HANDLER = "request-size-limit-handler";
+    public static final String FLUSH_CONSOLIDATION_HANDLER = "flush-consolidation-handler";
+    public static final String PROXY_TUNNEL_TIMER = "proxy-tunnel-timer";
     public static final String HTTP_TRACE_LOG_HANDLER = "http-trace-logger";
+
+    public static final String ACCESS_LOG_HANDLER = "access-logger";
+
+    public static final String RESPONSE_CACHE_HANDLER = "response-cache";
     public static final String WEBSOCKET_SERVER_HANDSHAKE_HANDLER = "websocket-server-handshake-handler";
 
     public static final AttributeKey<Integer> REDIRECT_COUNT = AttributeKey.<Integer>valueOf
@@ -285,6 +397,12 @@ public final class Constants {
     public static final AttributeKey<TargetChannel> TARGET_CHANNEL_REFERENCE = AttributeKey
             .<TargetChannel>valueOf
                     ("TARGET_CHANNEL_REFERENCE");
+    public static final AttributeKey<Channel> BACK_PRESSURE_PEER_CHANNEL = AttributeKey
+            .<Channel>valueOf
+                    ("BACK_PRESSURE_PEER_CHANNEL");
+    public static final AttributeKey<PipelinedResponseQueue> PIPELINED_RESPONSE_QUEUE = AttributeKey
+            .<PipelinedResponseQueue>valueOf
+                    ("PIPELINED_RESPONSE_QUEUE");
 
     public static final String UTF8 = "UTF-8";
     public static final String URL_AUTHORITY = "://";
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import java.util.BitSet;
+
+/**
+ * Pins threads to a set of CPUs.
+ */
+public interface CpuAffinity {
+
+    /**
+     * Pin the calling thread to the given CPUs.
+     *
+     * @param cpus CPUs the thread may run on, by their index.
+     * @return true if the thread was pinned.
+     */
+    boolean pinCurrentThread(BitSet cpus);
+
+    /**
+     * @return the affinity of the platform, i.e. sched_setaffinity called through JNA where JNA is on the class path
+     * of a Linux JVM, otherwise one which leaves threads unpinned and logs so.
+     */
+    static CpuAffinity getPlatformAffinity() {
+        return NativeCpuAffinity.PLATFORM_AFFINITY;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Thread factory for the event loops of the transport, which names threads by their role, the event loop group and
+ * their index in the group, e.g. http-io-2-1, and optionally pins them to a set of CPUs.
+ * <p>
+ * Threads pin themselves when they start, through the given {@link CpuAffinity}. Where the platform affinity is not
+ * available, threads are left unpinned, and the JVM may still be pinned at deployment, e.g. through taskset.
+ */
+public class EventLoopThreadFactory implements ThreadFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoopThreadFactory.class);
+
+    private static final Pattern CPU_LIST = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+
+    // Event loop groups created so far, which tells the threads of different groups of a role apart
+    private static final AtomicInteger groups = new AtomicInteger();
+
+    private final String prefix;
+    private final AtomicInteger index = new AtomicInteger();
+    private final BitSet cpus;
+    private final CpuAffinity cpuAffinity;
+
+    /**
+     * @param role role of the threads, e.g. http-acceptor, which prefixes their names.
+     */
+    public EventLoopThreadFactory(String role) {
+        this(role, null);
+    }
+
+    /**
+     * @param role    role of the threads, e.g. http-acceptor, which prefixes their names.
+     * @param cpuList CPUs the threads are pinned to, in the Linux CPU list format e.g. 0-3,8. Null or empty to leave
+     *                the threads unpinned.
+     */
+    public EventLoopThreadFactory(String role, String cpuList) {
+        this(role, cpuList, CpuAffinity.getPlatformAffinity());
+    }
+
+    EventLoopThreadFactory(String role, String cpuList, CpuAffinity cpuAffinity) {
+        this.prefix = role + "-" + groups.incrementAndGet() + "-";
+        this.cpus = parseCpuList(role, cpuList);
+        this.cpuAffinity = cpuAffinity;
+    }
+
+    private static BitSet parseCpuList(String role, String cpuList) {
+        if (cpuList == null || cpuList.trim().isEmpty()) {
+            return null;
+        }
+        String cpuRanges = cpuList.replaceAll("\\s", "");
+        if (!CPU_LIST.matcher(cpuRanges).matches()) {
+            throw new IllegalArgumentException("Invalid CPU list for " + role + " threads: " + cpuList);
+        }
+        BitSet cpus = new BitSet();
+        for (String range : cpuRanges.split(",")) {
+            int separator = range.indexOf('-');
+            if (separator < 0) {
+                cpus.set(Integer.parseInt(range));
+            } else {
+                int first = Integer.parseInt(range.substring(0, separator));
+                int last = Integer.parseInt(range.substring(separator + 1));
+                if (first > last) {
+                    throw new IllegalArgumentException("Invalid CPU range for " + role + " threads: " + range);
+                }
+                cpus.set(first, last + 1);
+            }
+        }
+        return cpus;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        String name = prefix + index.incrementAndGet();
+        Runnable task = cpus == null ? runnable : () -> {
+            if (cpuAffinity.pinCurrentThread(cpus)) {
+                log.debug("Pinned {} to CPUs {}", name, cpus);
+            }
+            runnable.run();
+        };
+        // FastThreadLocalThread keeps the FastThreadLocal lookups of Netty on their fast path
+        return new FastThreadLocalThread(task, name);
+    }
+}
@@ -15,21 +15,59 @@
 
 package org.wso2.carbon.transport.http.netty.common;
 
+import io.netty.channel.unix.DomainSocketAddress;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
 /**
  * Class encapsulates the Endpoint address.
  */
 public class HttpRoute {
     private String host;
     private int port;
-
+    private String domainSocketPath;
+    private ProxyServerConfiguration proxyServerConfiguration;
 
     public HttpRoute(String host, int port) {
         this.host = host;
         this.port = port;
     }
 
+    /**
+     * @param host             host of the endpoint, used for the Host header and SNI.
+     * @param port             port of the endpoint.
+     * @param domainSocketPath path of the Unix domain socket to connect to instead of host and port, or null.
+     */
+    public HttpRoute(String host, int port, String domainSocketPath) {
+        this(host, port);
+        this.domainSocketPath = domainSocketPath;
+    }
+
+    /**
+     * Connections of a route through a proxy are pooled apart from direct connections to the same endpoint, and from
+     * connections through other proxies or as other proxy users, as each of them holds a tunnel through its own proxy.
+     *
+     * @param host                     host of the endpoint.
+     * @param port                     port of the endpoint.
+     * @param proxyServerConfiguration proxy through which the endpoint is reached, or null.
+     */
+    public HttpRoute(String host, int port, ProxyServerConfiguration proxyServerConfiguration) {
+        this(host, port);
+        this.proxyServerConfiguration = proxyServerConfiguration;
+    }
+
     @Override
     public String toString() {
+        if (domainSocketPath != null) {
+            return "unix:" + domainSocketPath;
+        }
+        if (proxyServerConfiguration != null) {
+            // Tunnels of different proxy users are not interchangeable, as each is authorized for its own user
+            String proxyUser = proxyServerConfiguration.getProxyUsername();
+            return host + "-" + port + "-via-" + (proxyUser != null ? proxyUser + "@" : "")
+                    + proxyServerConfiguration.getProxyHost() + "-" + proxyServerConfiguration.getProxyPort();
+        }
         return host + "-" + port;
     }
 
@@ -40,8 +78,26 @@ public class HttpRoute {
     public int getPort() {
         return port;
     }
-}
 
+    public String getDomainSocketPath() {
+        return domainSocketPath;
+    }
 
+    public ProxyServerConfiguration getProxyServerConfiguration() {
+        return proxyServerConfiguration;
+    }
 
+    public boolean isUnixDomainSocket() {
+        return domainSocketPath != null;
+    }
 
+    /**
+     * @return the address the connections of this route are made to.
+     */
+    public SocketAddress getSocketAddress() {
+        if (domainSocketPath != null) {
+            return new DomainSocketAddress(domainSocketPath);
+        }
+        return new InetSocketAddress(host, port);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * CPU affinity which calls sched_setaffinity of the C library through JNA.
+ * <p>
+ * JNA is looked up reflectively, so that the transport does not depend on it. Where it is not on the class path, or
+ * the JVM does not run on Linux, threads are left unpinned.
+ */
+final class NativeCpuAffinity implements CpuAffinity {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeCpuAffinity.class);
+
+    // Leaves threads unpinned, for platforms without sched_setaffinity
+    private static final CpuAffinity NO_AFFINITY = cpus -> {
+        log.warn("CPU affinity is not available, hence {} is not pinned to CPUs {}", Thread.currentThread().getName(),
+                cpus);
+        return false;
+    };
+
+    // Pid 0 stands for the calling thread
+    private static final Integer CALLING_THREAD = 0;
+
+    static final CpuAffinity PLATFORM_AFFINITY = load();
+
+    private final Object schedSetAffinity;
+    private final Method invokeInt;
+    private final Constructor<?> nativeLong;
+
+    private NativeCpuAffinity(Object schedSetAffinity, Method invokeInt, Constructor<?> nativeLong) {
+        this.schedSetAffinity = schedSetAffinity;
+        this.invokeInt = invokeInt;
+        this.nativeLong = nativeLong;
+    }
+
+    private static CpuAffinity load() {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).startsWith("linux")) {
+            log.debug("CPU affinity is only supported on Linux");
+            return NO_AFFINITY;
+        }
+        try {
+            Class<?> function = Class.forName("com.sun.jna.Function");
+            Object schedSetAffinity = function.getMethod("getFunction", String.class, String.class)
+                    .invoke(null, "c", "sched_setaffinity");
+            // cpusetsize is a size_t, which is as wide as a C long on Linux
+            Constructor<?> nativeLong = Class.forName("com.sun.jna.NativeLong").getConstructor(long.class);
+            return new NativeCpuAffinity(schedSetAffinity, function.getMethod("invokeInt", Object[].class),
+                    nativeLong);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.debug("CPU affinity is not available through JNA: {}", e.toString());
+            return NO_AFFINITY;
+        }
+    }
+
+    @Override
+    public boolean pinCurrentThread(BitSet cpus) {
+        long[] mask = cpus.toLongArray();
+        try {
+            Object[] args = { CALLING_THREAD, nativeLong.newInstance((long) mask.length * Long.BYTES), mask };
+            if ((Integer) invokeInt.invoke(schedSetAffinity, new Object[] { args }) == 0) {
+                return true;
+            }
+            log.warn("Failed to pin {} to CPUs {}", Thread.currentThread().getName(), cpus);
+        } catch (InvocationTargetException e) {
+            log.warn("Failed to pin {} to CPUs {}", Thread.currentThread().getName(), cpus, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            log.warn("Failed to pin {} to CPUs {}", Thread.currentThread().getName(), cpus, e);
+        }
+        return false;
+    }
+}
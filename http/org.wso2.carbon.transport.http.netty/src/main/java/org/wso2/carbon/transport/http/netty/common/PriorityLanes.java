@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Priority classes of requests, each of which gets a share of the dispatch executor and of the connection pools in
+ * proportion to its weight while they are contended for.
+ * <p>
+ * Lanes are given as a comma separated list of name:weight pairs, e.g. critical:8,premium:4,default:2,bulk:1. Requests
+ * which are not classified into a lane go to the last one.
+ */
+public class PriorityLanes {
+
+    private final String[] names;
+    private final int[] weights;
+
+    private PriorityLanes(String[] names, int[] weights) {
+        this.names = names;
+        this.weights = weights;
+    }
+
+    /**
+     * Parse lanes from their configuration.
+     *
+     * @param lanes comma separated list of name:weight pairs.
+     * @return the lanes, or null if none are given.
+     */
+    public static PriorityLanes parse(String lanes) {
+        if (lanes == null || lanes.trim().isEmpty()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String lane : lanes.split(",")) {
+            String[] nameAndWeight = lane.trim().split(":");
+            int weight;
+            try {
+                weight = nameAndWeight.length == 2 ? Integer.parseInt(nameAndWeight[1].trim()) : 0;
+            } catch (NumberFormatException e) {
+                weight = 0;
+            }
+            if (weight <= 0 || nameAndWeight[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid priority lane: " + lane + ", expected name:weight");
+            }
+            names.add(nameAndWeight[0].trim());
+            weights.add(weight);
+        }
+        return new PriorityLanes(names.toArray(new String[0]), weights.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * @return number of lanes.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param name name of a lane.
+     * @return index of the lane, or -1 if there is no such lane.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the lane of requests which are not classified.
+     */
+    public int getDefaultLane() {
+        return names.length - 1;
+    }
+
+    /**
+     * @return a selector which picks lanes in proportion to their weights.
+     */
+    public Selector newSelector() {
+        return new Selector();
+    }
+
+    /**
+     * Picks the next lane to serve among those with pending work, using smooth weighted round robin so that lanes are
+     * interleaved rather than served in bursts. It is not thread safe.
+     */
+    public class Selector {
+
+        private final int[] current = new int[weights.length];
+
+        /**
+         * @param pending amount of pending work per lane.
+         * @return index of the lane to serve next, or -1 if no lane has pending work.
+         */
+        public int next(int[] pending) {
+            int selected = -1;
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (pending[i] <= 0) {
+                    continue;
+                }
+                current[i] += weights[i];
+                total += weights[i];
+                if (selected < 0 || current[i] > current[selected]) {
+                    selected = i;
+                }
+            }
+            if (selected >= 0) {
+                current[selected] -= total;
+            }
+            return selected;
+        }
+    }
+}
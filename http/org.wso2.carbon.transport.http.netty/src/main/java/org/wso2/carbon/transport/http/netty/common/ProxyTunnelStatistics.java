@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the number of tunnels set up through proxy servers for pooled target connections, and the time it took to
+ * set them up, apart from the time to connect to the proxy itself.
+ */
+public class ProxyTunnelStatistics {
+
+    private static ProxyTunnelStatistics instance = new ProxyTunnelStatistics();
+
+    private final AtomicLong tunnelCount = new AtomicLong();
+    private final AtomicLong tunnelFailureCount = new AtomicLong();
+    private final AtomicLong tunnelSetupNanos = new AtomicLong();
+    private final AtomicLong maxTunnelSetupNanos = new AtomicLong();
+
+    private ProxyTunnelStatistics() {
+    }
+
+    public static ProxyTunnelStatistics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record the outcome of a CONNECT handshake with a proxy server.
+     *
+     * @param setupNanos time from the connection to the proxy until the tunnel was established or failed.
+     * @param success    true if the tunnel was established.
+     */
+    public void record(long setupNanos, boolean success) {
+        if (!success) {
+            tunnelFailureCount.incrementAndGet();
+            return;
+        }
+        tunnelCount.incrementAndGet();
+        tunnelSetupNanos.addAndGet(setupNanos);
+        maxTunnelSetupNanos.accumulateAndGet(setupNanos, Math::max);
+    }
+
+    public long getTunnelCount() {
+        return tunnelCount.get();
+    }
+
+    public long getTunnelFailureCount() {
+        return tunnelFailureCount.get();
+    }
+
+    /**
+     * @return mean time to establish a tunnel in milliseconds, 0 if none was established yet.
+     */
+    public double getMeanTunnelSetupMillis() {
+        long count = tunnelCount.get();
+        return count == 0 ? 0 : (double) tunnelSetupNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return longest time to establish a tunnel in milliseconds.
+     */
+    public double getMaxTunnelSetupMillis() {
+        return (double) maxTunnelSetupNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
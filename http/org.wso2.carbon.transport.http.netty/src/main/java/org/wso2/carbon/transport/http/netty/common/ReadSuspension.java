@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * Reasons for which reading from a channel is suspended.
+ *
+ * Each feature which pauses reads suspends and resumes them under its own reason, and auto read is enabled on the
+ * channel only while no reason is in effect, so that one feature resuming reads does not cancel the pause of another.
+ * The reasons can be changed from any thread, auto read is updated on the event loop of the channel.
+ */
+public enum ReadSuspension {
+
+    /** The correlated peer channel cannot take more writes. */
+    BACK_PRESSURE,
+    /** A body subscriber reads the content as it demands. */
+    BODY_DEMAND,
+    /** The pipelined requests awaiting a response are at the pipelining limit. */
+    PIPELINING,
+    /** The dispatched requests waiting to run are beyond the maximum queue depth. */
+    DISPATCH_QUEUE,
+    /** The connection serves no more requests, as it exceeds its maximum age or number of requests. */
+    CONNECTION_EXPIRY;
+
+    private static final AttributeKey<State> READ_SUSPENSION = AttributeKey.valueOf("READ_SUSPENSION");
+
+    private final int mask = 1 << ordinal();
+
+    /**
+     * Suspend reads from the channel for this reason.
+     *
+     * @param channel channel to stop reading from.
+     * @return true if reads were not already suspended for this reason.
+     */
+    public boolean suspend(Channel channel) {
+        return stateOf(channel).update(channel, mask, true);
+    }
+
+    /**
+     * Withdraw this reason, reads resume once no other reason is in effect.
+     *
+     * @param channel channel to resume reading from.
+     * @return true if reads were suspended for this reason.
+     */
+    public boolean resume(Channel channel) {
+        State state = channel.attr(READ_SUSPENSION).get();
+        return state != null && state.update(channel, mask, false);
+    }
+
+    /**
+     * @param channel channel to check.
+     * @return true if reads from the channel are suspended for this reason.
+     */
+    public boolean isSuspending(Channel channel) {
+        State state = channel.attr(READ_SUSPENSION).get();
+        return state != null && state.isSuspending(mask);
+    }
+
+    /**
+     * Issue a single read on behalf of this reason. The read is held back while another reason is in effect, and
+     * is issued once only the reasons which asked for a read remain.
+     *
+     * @param channel channel to read from.
+     */
+    public void read(Channel channel) {
+        stateOf(channel).read(channel, mask);
+    }
+
+    private static State stateOf(Channel channel) {
+        Attribute<State> attribute = channel.attr(READ_SUSPENSION);
+        State state = attribute.get();
+        if (state == null) {
+            State newState = new State();
+            state = attribute.setIfAbsent(newState);
+            if (state == null) {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Reasons in effect on a channel.
+     */
+    private static class State {
+
+        // Guarded by this
+        private int reasons;
+        private int pendingReads;
+
+        boolean update(Channel channel, int mask, boolean suspend) {
+            synchronized (this) {
+                int updated = suspend ? reasons | mask : reasons & ~mask;
+                if (updated == reasons) {
+                    return false;
+                }
+                reasons = updated;
+                pendingReads &= updated;
+            }
+            apply(channel);
+            return true;
+        }
+
+        synchronized boolean isSuspending(int mask) {
+            return (reasons & mask) != 0;
+        }
+
+        void read(Channel channel, int mask) {
+            synchronized (this) {
+                pendingReads |= mask & reasons;
+            }
+            apply(channel);
+        }
+
+        private void apply(Channel channel) {
+            Util.runOnEventLoop(channel.eventLoop(), () -> {
+                boolean autoRead;
+                boolean read;
+                synchronized (this) {
+                    autoRead = reasons == 0;
+                    read = !autoRead && pendingReads != 0 && (reasons & ~pendingReads) == 0;
+                    if (read) {
+                        pendingReads = 0;
+                    }
+                }
+                if (channel.config().isAutoRead() != autoRead) {
+                    // Enabling auto read triggers a read on the channel
+                    channel.config().setAutoRead(autoRead);
+                }
+                if (read) {
+                    channel.read();
+                }
+            });
+        }
+    }
+}
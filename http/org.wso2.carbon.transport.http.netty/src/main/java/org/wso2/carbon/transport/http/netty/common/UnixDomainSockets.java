@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketChannel;
+
+/**
+ * Helpers for listeners and routes bound to Unix domain sockets, which are served by the native epoll transport.
+ * <p>
+ * Epoll channels can only be registered with epoll event loops, hence the event loop and the channel class of an
+ * outbound connection are chosen together.
+ */
+public final class UnixDomainSockets {
+
+    private UnixDomainSockets() {
+    }
+
+    /**
+     * Create an event loop group which can serve Unix domain socket channels.
+     *
+     * @param nThreads number of event loops.
+     * @return the epoll event loop group.
+     * @throws IllegalStateException if the native epoll transport is not available on this platform.
+     */
+    public static EventLoopGroup newEventLoopGroup(int nThreads) {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException("Unix domain sockets require the native epoll transport",
+                    Epoll.unavailabilityCause());
+        }
+        return new EpollEventLoopGroup(nThreads);
+    }
+
+    /**
+     * @param inboundChannel channel of the request which triggers the outbound connection.
+     * @return true if the channel is registered with an epoll event loop, i.e. it was accepted on a domain socket.
+     */
+    public static boolean isEpollChannel(Channel inboundChannel) {
+        return inboundChannel instanceof DomainSocketChannel;
+    }
+
+    /**
+     * @param httpRoute      route of the outbound connection.
+     * @param epollEventLoop  whether the connection is registered with an epoll event loop.
+     * @return the channel class which connects to the route on the given kind of event loop.
+     */
+    public static Class<? extends Channel> getClientChannelClass(HttpRoute httpRoute, boolean epollEventLoop) {
+        if (httpRoute.isUnixDomainSocket()) {
+            return EpollDomainSocketChannel.class;
+        }
+        return epollEventLoop ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+}
@@ -15,10 +15,13 @@
 
 package org.wso2.carbon.transport.http.netty.common;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpMethod;
@@ -49,9 +52,6 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
  */
 public class Util {
 
-    private static final String DEFAULT_HTTP_METHOD_POST = "POST";
-    private static final String DEFAULT_VERSION_HTTP_1_1 = "HTTP/1.1";
-
     public static Headers getHeaders(HttpMessage message) {
         List<Header> headers = new LinkedList<>();
         if (message.headers() != null) {
@@ -91,51 +91,57 @@ public class Util {
         return createHttpResponse(msg, false);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Create the outbound response of the given message. The headers of the message are shared with the outbound
+     * response rather than copied. Each of the message and the response copies them before changing them.
+     *
+     * @param msg                          response message.
+     * @param connectionCloseAfterResponse whether the connection is closed once the response is written.
+     * @return HTTP response which carries the headers of the message.
+     */
     public static HttpResponse createHttpResponse(HTTPCarbonMessage msg, boolean connectionCloseAfterResponse) {
-        HttpVersion httpVersion = new HttpVersion(Util.getStringValue(msg, Constants.HTTP_VERSION, HTTP_1_1.text()),
-                true);
+        HttpVersion httpVersion = HttpVersion.valueOf(Util.getStringValue(msg, Constants.HTTP_VERSION,
+                HTTP_1_1.text()));
 
         int statusCode = Util.getIntValue(msg, Constants.HTTP_STATUS_CODE, 200);
-
-        String reasonPhrase = Util.getStringValue(msg, Constants.HTTP_REASON_PHRASE,
-                HttpResponseStatus.valueOf(statusCode).reasonPhrase());
-
-        HttpResponseStatus httpResponseStatus = new HttpResponseStatus(statusCode, reasonPhrase);
-
-        DefaultHttpResponse outgoingResponse = new DefaultHttpResponse(httpVersion, httpResponseStatus, false);
+        String reasonPhrase = (String) msg.getProperty(Constants.HTTP_REASON_PHRASE);
+        // Well known statuses are shared instances unless a custom reason phrase is given
+        HttpResponseStatus httpResponseStatus = reasonPhrase == null ? HttpResponseStatus.valueOf(statusCode)
+                : new HttpResponseStatus(statusCode, reasonPhrase);
 
         if (connectionCloseAfterResponse) {
-            msg.setHeader(Constants.HTTP_CONNECTION, Constants.CONNECTION_CLOSE);
+            msg.setHeader(HttpHeaderNames.CONNECTION, Constants.CONNECTION_CLOSE);
         }
 
-        outgoingResponse.headers().setAll(msg.getHeaders());
-
-        return outgoingResponse;
+        return new DefaultHttpResponse(httpVersion, httpResponseStatus, msg.shareHeaders());
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Create the outbound request of the given message. The headers of the message are shared with the outbound
+     * request rather than copied, so headers of an inbound request are forwarded as they are. Each of the message and
+     * the request copies them before changing them.
+     *
+     * @param msg request message.
+     * @return HTTP request which carries the headers of the message.
+     */
     public static HttpRequest createHttpRequest(HTTPCarbonMessage msg) {
         HttpMethod httpMethod;
         if (null != msg.getProperty(Constants.HTTP_METHOD)) {
-            httpMethod = new HttpMethod((String) msg.getProperty(Constants.HTTP_METHOD));
+            httpMethod = HttpMethod.valueOf((String) msg.getProperty(Constants.HTTP_METHOD));
         } else {
-            httpMethod = new HttpMethod(DEFAULT_HTTP_METHOD_POST);
+            httpMethod = HttpMethod.POST;
         }
         HttpVersion httpVersion;
         if (null != msg.getProperty(Constants.HTTP_VERSION)) {
-            httpVersion = new HttpVersion((String) msg.getProperty(Constants.HTTP_VERSION), true);
+            httpVersion = HttpVersion.valueOf((String) msg.getProperty(Constants.HTTP_VERSION));
         } else {
-            httpVersion = new HttpVersion(DEFAULT_VERSION_HTTP_1_1, true);
+            httpVersion = HTTP_1_1;
         }
         if ((String) msg.getProperty(Constants.TO) == null) {
             msg.setProperty(Constants.TO, "/");
         }
-        HttpRequest outgoingRequest = new DefaultHttpRequest(httpVersion, httpMethod,
-                (String) msg.getProperty(Constants.TO), false);
-        HttpHeaders headers = msg.getHeaders();
-        outgoingRequest.headers().setAll(headers);
-        return outgoingRequest;
+        return new DefaultHttpRequest(httpVersion, httpMethod, (String) msg.getProperty(Constants.TO),
+                msg.shareHeaders());
     }
 
     /**
@@ -145,33 +151,33 @@ public class Util {
      */
     public static void setupTransferEncodingForRequest(HTTPCarbonMessage cMsg, boolean chunkDisabled) {
         if (chunkDisabled) {
-            cMsg.removeHeader(Constants.HTTP_TRANSFER_ENCODING);
+            cMsg.removeHeader(HttpHeaderNames.TRANSFER_ENCODING);
             setContentLength(cMsg);
         } else {
-            cMsg.removeHeader(Constants.HTTP_CONTENT_LENGTH);
+            cMsg.removeHeader(HttpHeaderNames.CONTENT_LENGTH);
             setTransferEncodingHeader(cMsg);
         }
     }
 
     private static void  setContentLength(HTTPCarbonMessage cMsg) {
-        if (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null && !cMsg.isEmpty())) {
+        if (cMsg.isAlreadyRead() || (cMsg.getHeader(HttpHeaderNames.CONTENT_LENGTH) == null && !cMsg.isEmpty())) {
             Util.prepareBuiltMessageForTransfer(cMsg);
             int contentLength = cMsg.getFullMessageLength();
             if (contentLength > 0) {
-                cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
+                cMsg.setHeader(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(contentLength));
             }
         }
     }
 
     private static void  setTransferEncodingHeader(HTTPCarbonMessage cMsg) {
-        if (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_TRANSFER_ENCODING) == null && !cMsg.isEmpty())) {
+        if (cMsg.isAlreadyRead() || (cMsg.getHeader(HttpHeaderNames.TRANSFER_ENCODING) == null && !cMsg.isEmpty())) {
             HttpContent httpContent = cMsg.peek();
             if (httpContent instanceof LastHttpContent) {
                 if (httpContent.content().readableBytes() == 0) {
                     return;
                 }
             }
-            cMsg.setHeader(Constants.HTTP_TRANSFER_ENCODING, Constants.CHUNKED);
+            cMsg.setHeader(HttpHeaderNames.TRANSFER_ENCODING, Constants.CHUNKED);
         }
     }
 
@@ -189,8 +195,8 @@ public class Util {
         if (statusCode == 204 ||
             statusCode >= 100 && statusCode < 200 ||
             (HttpMethod.CONNECT.name().equals(httpMethod) && statusCode >= 200 && statusCode < 300)) {
-            cMsg.removeHeader(Constants.HTTP_TRANSFER_ENCODING);
-            cMsg.removeHeader(Constants.HTTP_CONTENT_LENGTH);
+            cMsg.removeHeader(HttpHeaderNames.TRANSFER_ENCODING);
+            cMsg.removeHeader(HttpHeaderNames.CONTENT_LENGTH);
             return;
         }
 
@@ -200,36 +206,36 @@ public class Util {
         String requestTransferEncodingHeader = requestDataHolder.getTransferEncodingHeader();
         if (requestTransferEncodingHeader != null &&
             !Constants.HTTP_TRANSFER_ENCODING_IDENTITY.equalsIgnoreCase(requestTransferEncodingHeader)) {
-            cMsg.setHeader(Constants.HTTP_TRANSFER_ENCODING, requestTransferEncodingHeader);
-            cMsg.removeHeader(Constants.HTTP_CONTENT_LENGTH);
+            cMsg.setHeader(HttpHeaderNames.TRANSFER_ENCODING, requestTransferEncodingHeader);
+            cMsg.removeHeader(HttpHeaderNames.CONTENT_LENGTH);
             return;
         }
 
         // 3. Check for request Content-Length header
         String requestContentLength = requestDataHolder.getContentLengthHeader();
         if (requestContentLength != null &&
-            (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null))) {
+            (cMsg.isAlreadyRead() || (cMsg.getHeader(HttpHeaderNames.CONTENT_LENGTH) == null))) {
             Util.prepareBuiltMessageForTransfer(cMsg);
             if (!cMsg.isEmpty()) {
                 int contentLength = cMsg.getFullMessageLength();
                 if (contentLength > 0) {
-                    cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
+                    cMsg.setHeader(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(contentLength));
                 }
-                cMsg.removeHeader(Constants.HTTP_TRANSFER_ENCODING);
+                cMsg.removeHeader(HttpHeaderNames.TRANSFER_ENCODING);
                 return;
             }
         }
 
         // 4. If request doesn't have Transfer-Encoding or Content-Length header look for response properties
-        if (cMsg.getHeader(Constants.HTTP_TRANSFER_ENCODING) != null) {
-            cMsg.getHeaders().remove(Constants.HTTP_CONTENT_LENGTH);  // remove Content-Length if present
-        } else if (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null)) {
+        if (cMsg.getHeader(HttpHeaderNames.TRANSFER_ENCODING) != null) {
+            cMsg.getHeaders().remove(HttpHeaderNames.CONTENT_LENGTH);  // remove Content-Length if present
+        } else if (cMsg.isAlreadyRead() || (cMsg.getHeader(HttpHeaderNames.CONTENT_LENGTH) == null)) {
             Util.prepareBuiltMessageForTransfer(cMsg);
             if (!cMsg.isEmpty()) {
                 int contentLength = cMsg.getFullMessageLength();
-                cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
+                cMsg.setHeader(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(contentLength));
             } else {
-                cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(0));
+                cMsg.setHeader(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(0));
             }
         }
     }
@@ -546,6 +552,76 @@ public class Util {
         ctx.channel().attr(Constants.ORIGINAL_CHANNEL_TIMEOUT).set(null);
     }
 
+    /**
+     * Correlate a source channel with the target channel serving its request, so that a slow peer can throttle
+     * reads from the faster one.
+     *
+     * @param sourceChannel inbound channel from the client.
+     * @param targetChannel outbound channel to the backend.
+     */
+    public static void correlateChannelsForBackPressure(Channel sourceChannel, Channel targetChannel) {
+        sourceChannel.attr(Constants.BACK_PRESSURE_PEER_CHANNEL).set(targetChannel);
+        targetChannel.attr(Constants.BACK_PRESSURE_PEER_CHANNEL).set(sourceChannel);
+        // The peer may already be backed up before the correlation is made
+        applyBackPressure(sourceChannel, true);
+        applyBackPressure(targetChannel, false);
+    }
+
+    /**
+     * Remove the back pressure correlation of a target channel and resume reads on both channels.
+     *
+     * @param targetChannel outbound channel to the backend.
+     */
+    public static void decorrelateChannelsForBackPressure(Channel targetChannel) {
+        Channel sourceChannel = targetChannel.attr(Constants.BACK_PRESSURE_PEER_CHANNEL).getAndSet(null);
+        resumeReads(targetChannel, false);
+        if (sourceChannel != null) {
+            sourceChannel.attr(Constants.BACK_PRESSURE_PEER_CHANNEL).compareAndSet(targetChannel, null);
+            resumeReads(sourceChannel, true);
+        }
+    }
+
+    /**
+     * Pause or resume reads of the correlated peer channel based on the writability of the given channel.
+     * Netty fires writability changes when the outbound buffer crosses the configured water marks.
+     *
+     * @param channel       channel whose writability changed.
+     * @param sourceChannel true if the given channel is a source (listener side) channel.
+     */
+    public static void applyBackPressure(Channel channel, boolean sourceChannel) {
+        Channel peer = channel.attr(Constants.BACK_PRESSURE_PEER_CHANNEL).get();
+        if (peer == null) {
+            return;
+        }
+        if (channel.isWritable()) {
+            resumeReads(peer, !sourceChannel);
+        } else if (ReadSuspension.BACK_PRESSURE.suspend(peer)) {
+            BackPressureStatistics.getInstance().record(!sourceChannel, true);
+        }
+    }
+
+    private static void resumeReads(Channel channel, boolean sourceChannel) {
+        // Reads stay suspended if another feature, such as the pipelining limit, paused them as well
+        if (ReadSuspension.BACK_PRESSURE.resume(channel)) {
+            BackPressureStatistics.getInstance().record(sourceChannel, false);
+        }
+    }
+
+    /**
+     * Run a task on the given event loop. The task runs right away if the caller is already on the event loop, so
+     * that a response which is proxied on the event loop of its request does not hop threads.
+     *
+     * @param eventLoop event loop of the channel the task belongs to.
+     * @param task      task to run.
+     */
+    public static void runOnEventLoop(EventLoop eventLoop, Runnable task) {
+        if (eventLoop.inEventLoop()) {
+            task.run();
+        } else {
+            eventLoop.execute(task);
+        }
+    }
+
     /**
      * Check if a given content is last httpContent.
      *
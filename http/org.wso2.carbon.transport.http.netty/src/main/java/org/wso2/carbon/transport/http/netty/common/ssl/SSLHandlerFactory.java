@@ -154,14 +154,41 @@ public class SSLHandlerFactory {
                 .ciphers(ciphers,
                         SupportedCipherSuiteFilter.INSTANCE)
                 .clientAuth(needClientAuth ? ClientAuth.REQUIRE : ClientAuth.NONE)
-                .applicationProtocolConfig(new ApplicationProtocolConfig(
-                        ApplicationProtocolConfig.Protocol.ALPN,
-                        // NO_ADVERTISE is currently the only mode supported by both OpenSsl and JDK providers.
-                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
-                        // ACCEPT is currently the only mode supported by both OpenSsl and JDK providers.
-                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
-                        ApplicationProtocolNames.HTTP_2,
-                        ApplicationProtocolNames.HTTP_1_1)).build();
+                .applicationProtocolConfig(getHttp2ApplicationProtocolConfig()).build();
+    }
+
+    /**
+     * This method will provide netty ssl context for clients which negotiate HTTP2 over TLS using
+     * Application Layer Protocol Negotiation (ALPN)
+     *
+     * @return instance of {@link SslContext}
+     * @throws SSLException if any error occurred during building SSL context.
+     */
+    public SslContext createHttp2TLSContextForClient() throws SSLException {
+        List<String> ciphers = sslConfig.getCipherSuites() != null && sslConfig.getCipherSuites().length > 0 ? Arrays
+                .asList(sslConfig.getCipherSuites()) : Http2SecurityUtil.CIPHERS;
+        SslProvider provider = OpenSsl.isAlpnSupported() ? SslProvider.OPENSSL : SslProvider.JDK;
+        SslContextBuilder sslContextBuilder = SslContextBuilder.forClient()
+                .trustManager(this.getTrustStoreFactory())
+                .sslProvider(provider)
+                .ciphers(ciphers, SupportedCipherSuiteFilter.INSTANCE)
+                .applicationProtocolConfig(getHttp2ApplicationProtocolConfig());
+        // Client certificate is only presented when a key store is configured
+        if (sslConfig.getKeyStore() != null) {
+            sslContextBuilder.keyManager(this.getKeyManagerFactory());
+        }
+        return sslContextBuilder.build();
+    }
+
+    private ApplicationProtocolConfig getHttp2ApplicationProtocolConfig() {
+        return new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                // NO_ADVERTISE is currently the only mode supported by both OpenSsl and JDK providers.
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                // ACCEPT is currently the only mode supported by both OpenSsl and JDK providers.
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1);
     }
 
     public KeyManagerFactory getKeyManagerFactory() {
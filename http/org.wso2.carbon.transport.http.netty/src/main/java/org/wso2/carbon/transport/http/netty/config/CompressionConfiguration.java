@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.config;
+
+import java.util.Locale;
+
+/**
+ * Policy of a listener for compressing response bodies.
+ */
+public class CompressionConfiguration {
+
+    // Media types which are compressed already
+    private static final String DEFAULT_DENIED_CONTENT_TYPES = "image/png,image/jpeg,image/gif,image/webp,video/,"
+            + "audio/,application/zip,application/gzip,application/x-gzip,application/octet-stream,font/woff2";
+
+    private boolean enabled = true;
+    private int minimumSize = 1024;
+    private int level = 6;
+    private String[] allowedContentTypes;
+    private String[] deniedContentTypes = split(DEFAULT_DENIED_CONTENT_TYPES);
+    private int precompressedCacheSize;
+    private int precompressedMaxSize = 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return size in bytes below which bodies with a known length are not compressed.
+     */
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    public void setMinimumSize(int minimumSize) {
+        this.minimumSize = minimumSize;
+    }
+
+    /**
+     * @return compression level from 1, the fastest, to 9, the best compression.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("Compression level must be from 1 to 9: " + level);
+        }
+        this.level = level;
+    }
+
+    /**
+     * @param allowedContentTypes comma separated media types or prefixes, e.g. text/,application/json, which are the
+     *                            only ones compressed. Null to compress any media type which is not denied.
+     */
+    public void setAllowedContentTypes(String allowedContentTypes) {
+        this.allowedContentTypes = allowedContentTypes == null ? null : split(allowedContentTypes);
+    }
+
+    /**
+     * @param deniedContentTypes comma separated media types or prefixes which are never compressed.
+     */
+    public void setDeniedContentTypes(String deniedContentTypes) {
+        this.deniedContentTypes = deniedContentTypes == null ? new String[0] : split(deniedContentTypes);
+    }
+
+    /**
+     * @return number of compressed bodies cached by their ETag, 0 to not cache them.
+     */
+    public int getPrecompressedCacheSize() {
+        return precompressedCacheSize;
+    }
+
+    public void setPrecompressedCacheSize(int precompressedCacheSize) {
+        this.precompressedCacheSize = precompressedCacheSize;
+    }
+
+    /**
+     * @return size in bytes beyond which a compressed body is not cached.
+     */
+    public int getPrecompressedMaxSize() {
+        return precompressedMaxSize;
+    }
+
+    public void setPrecompressedMaxSize(int precompressedMaxSize) {
+        this.precompressedMaxSize = precompressedMaxSize;
+    }
+
+    /**
+     * @param contentType content type of a response, null if it has none.
+     * @return whether a body of the content type is compressed.
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return allowedContentTypes == null;
+        }
+        String mediaType = contentType.toLowerCase(Locale.ENGLISH);
+        for (String denied : deniedContentTypes) {
+            if (mediaType.startsWith(denied)) {
+                return false;
+            }
+        }
+        if (allowedContentTypes == null) {
+            return true;
+        }
+        for (String allowed : allowedContentTypes) {
+            if (mediaType.startsWith(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] split(String contentTypes) {
+        return contentTypes.trim().toLowerCase(Locale.ENGLISH).split("\\s*,\\s*");
+    }
+}
@@ -62,6 +62,12 @@ public class ListenerConfiguration {
     @XmlAttribute
     private boolean http2 = false;
 
+    @XmlAttribute
+    private int http2MaxConcurrentStreams;
+
+    @XmlAttribute
+    private int http2InitialWindowSize;
+
     @XmlAttribute
     private String keyStoreFile;
 
@@ -95,12 +101,47 @@ public class ListenerConfiguration {
     @XmlAttribute
     private String tlsStoreType;
 
+    @XmlAttribute
+    private String unixDomainSocketPath;
+
+    @XmlAttribute
+    private int dispatchThreads;
+
+    @XmlAttribute
+    private int dispatchQueueDepth;
+
+    @XmlAttribute
+    private String priorityLane;
+
+    @XmlAttribute
+    private String priorityRules;
+
+    @XmlAttribute
+    private String accessLogPath;
+
+    @XmlAttribute
+    private String accessLogFormat;
+
+    @XmlAttribute
+    private String responseCachePaths;
+
+    @XmlAttribute
+    private int responseCacheTtl;
+
+    @XmlAttribute
+    private int responseCacheStaleTtl;
+
+    @XmlAttribute
+    private int responseCacheMaxEntries;
+
     @XmlElementWrapper(name = "parameters")
     @XmlElement(name = "parameter")
     private List<Parameter> parameters = getDefaultParameters();
 
     private RequestSizeValidationConfiguration requestSizeValidationConfig;
 
+    private CompressionConfiguration compressionConfig;
+
     public ListenerConfiguration() {
     }
 
@@ -222,6 +263,150 @@ public class ListenerConfiguration {
         this.http2 = http2;
     }
 
+    /**
+     * @return SETTINGS_MAX_CONCURRENT_STREAMS advertised to HTTP/2 clients, 0 for the default.
+     */
+    public int getHttp2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    public void setHttp2MaxConcurrentStreams(int http2MaxConcurrentStreams) {
+        this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+    }
+
+    /**
+     * @return SETTINGS_INITIAL_WINDOW_SIZE advertised to HTTP/2 clients, 0 for the default.
+     */
+    public int getHttp2InitialWindowSize() {
+        return http2InitialWindowSize;
+    }
+
+    public void setHttp2InitialWindowSize(int http2InitialWindowSize) {
+        this.http2InitialWindowSize = http2InitialWindowSize;
+    }
+
+    /**
+     * @return path of the Unix domain socket to bind to instead of the host and port, null for a TCP listener.
+     */
+    public String getUnixDomainSocketPath() {
+        return unixDomainSocketPath;
+    }
+
+    public void setUnixDomainSocketPath(String unixDomainSocketPath) {
+        this.unixDomainSocketPath = unixDomainSocketPath;
+    }
+
+    /**
+     * @return number of threads which run the listener on requests, 0 to run it on the I/O threads.
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public int getDispatchQueueDepth(int defaultVal) {
+        if (dispatchQueueDepth == 0) {
+            return defaultVal;
+        }
+        return dispatchQueueDepth;
+    }
+
+    public void setDispatchQueueDepth(int dispatchQueueDepth) {
+        this.dispatchQueueDepth = dispatchQueueDepth;
+    }
+
+    /**
+     * @return name of the priority lane of the requests of the listener which match none of its priority rules.
+     */
+    public String getPriorityLane() {
+        return priorityLane;
+    }
+
+    public void setPriorityLane(String priorityLane) {
+        this.priorityLane = priorityLane;
+    }
+
+    /**
+     * @return comma separated rules which classify requests into priority lanes, each of which is either
+     * /path-prefix=lane or header-name:value=lane, e.g. /health=critical,x-tier:gold=premium.
+     */
+    public String getPriorityRules() {
+        return priorityRules;
+    }
+
+    public void setPriorityRules(String priorityRules) {
+        this.priorityRules = priorityRules;
+    }
+
+    /**
+     * @return path of the access log file of the listener, null if requests are not logged.
+     */
+    public String getAccessLogPath() {
+        return accessLogPath;
+    }
+
+    public void setAccessLogPath(String accessLogPath) {
+        this.accessLogPath = accessLogPath;
+    }
+
+    /**
+     * @return format of the access log, i.e. common or json.
+     */
+    public String getAccessLogFormat() {
+        return accessLogFormat;
+    }
+
+    public void setAccessLogFormat(String accessLogFormat) {
+        this.accessLogFormat = accessLogFormat;
+    }
+
+    /**
+     * @return comma separated path prefixes of the endpoints whose responses are cached, null to not cache responses.
+     */
+    public String getResponseCachePaths() {
+        return responseCachePaths;
+    }
+
+    public void setResponseCachePaths(String responseCachePaths) {
+        this.responseCachePaths = responseCachePaths;
+    }
+
+    public int getResponseCacheTtl(int defaultVal) {
+        if (responseCacheTtl == 0) {
+            return defaultVal;
+        }
+        return responseCacheTtl;
+    }
+
+    public void setResponseCacheTtl(int responseCacheTtl) {
+        this.responseCacheTtl = responseCacheTtl;
+    }
+
+    /**
+     * @return time in milliseconds an expired response is still served while a request refreshes it.
+     */
+    public int getResponseCacheStaleTtl() {
+        return responseCacheStaleTtl;
+    }
+
+    public void setResponseCacheStaleTtl(int responseCacheStaleTtl) {
+        this.responseCacheStaleTtl = responseCacheStaleTtl;
+    }
+
+    public int getResponseCacheMaxEntries(int defaultVal) {
+        if (responseCacheMaxEntries == 0) {
+            return defaultVal;
+        }
+        return responseCacheMaxEntries;
+    }
+
+    public void setResponseCacheMaxEntries(int responseCacheMaxEntries) {
+        this.responseCacheMaxEntries = responseCacheMaxEntries;
+    }
+
     public List<Parameter> getParameters() {
         return parameters;
     }
@@ -279,4 +464,16 @@ public class ListenerConfiguration {
     public void setRequestSizeValidationConfig(RequestSizeValidationConfiguration requestSizeValidationConfig) {
         this.requestSizeValidationConfig = requestSizeValidationConfig;
     }
+
+    /**
+     * @return compression policy of the listener, or null to compress every response the client accepts compressed
+     * as the listener always did.
+     */
+    public CompressionConfiguration getCompressionConfig() {
+        return compressionConfig;
+    }
+
+    public void setCompressionConfig(CompressionConfiguration compressionConfig) {
+        this.compressionConfig = compressionConfig;
+    }
 }
@@ -27,7 +27,7 @@ public class RequestSizeValidationConfiguration {
 
     private boolean requestSizeValidation = false;
     private int requestMaxSize = Integer.MAX_VALUE;
-    private int requestRejectStatusCode = 401;
+    private int requestRejectStatusCode = 413;
     private String requestRejectMessage = "Message is bigger than the valid size";
     private String requestRejectMsgContentType = "plain/text";
 
@@ -79,6 +79,9 @@ public class SenderConfiguration {
     @XmlAttribute
     private String sslProtocol;
 
+    @XmlAttribute
+    private boolean http2 = false;
+
     @XmlElementWrapper(name = "parameters")
     @XmlElement(name = "parameter")
     private List<Parameter> parameters;
@@ -206,6 +209,18 @@ public class SenderConfiguration {
         this.httpTraceLogEnabled = httpTraceLogEnabled;
     }
 
+    /**
+     * @return true if requests are multiplexed over HTTP/2 connections, negotiated through ALPN for HTTPS and
+     * with prior knowledge for HTTP.
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
     public boolean isChunkDisabled() {
         return chunkDisabled;
     }
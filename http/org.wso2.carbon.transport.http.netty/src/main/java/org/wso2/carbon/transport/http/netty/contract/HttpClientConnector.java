@@ -31,6 +31,18 @@ public interface HttpClientConnector {
      */
     HttpResponseFuture connect();
 
+    /**
+     * Open connections to a back-end ahead of traffic and keep the given number of them idle, so that the first
+     * requests after a deploy or a scale-out do not wait for connections to be set up. Connectors which do not pool
+     * connections ignore it.
+     *
+     * @param host        host of the back-end.
+     * @param port        port of the back-end.
+     * @param connections number of idle connections to keep.
+     */
+    default void warmUp(String host, int port, int connections) {
+    }
+
     /**
      * Send httpMessages to the back-end in asynchronous manner.
      *
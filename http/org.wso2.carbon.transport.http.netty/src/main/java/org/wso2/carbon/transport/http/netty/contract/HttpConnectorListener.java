@@ -36,4 +36,16 @@ public interface HttpConnectorListener {
      * @param throwable contains the error details of the event.
      */
     void onError(Throwable throwable);
+
+    /**
+     * Invoked with the headers of a request which expects {@code 100-continue}, before the body of the request is
+     * read. All requests are let through by default.
+     *
+     * @param httpRequest request of which the body is not read yet.
+     * @return null to let the client send the body, or a complete response which rejects the request. The body of a
+     * rejected request is never read, and the connection is closed once the response is written.
+     */
+    default HTTPCarbonMessage validateRequestContinuation(HTTPCarbonMessage httpRequest) {
+        return null;
+    }
 }
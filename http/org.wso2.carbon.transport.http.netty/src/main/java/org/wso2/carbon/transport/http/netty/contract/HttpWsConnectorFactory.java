@@ -26,6 +26,7 @@ import org.wso2.carbon.transport.http.netty.contract.websocket.WsClientConnector
 import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Allows you create server and client connectors.
@@ -41,6 +42,18 @@ public interface HttpWsConnectorFactory {
     ServerConnector createServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
             ListenerConfiguration listenerConfiguration);
 
+    /**
+     * This method can be used to get new server connectors which notify their listener on the given executor instead
+     * of the I/O threads. Requests of a connection are still notified in order.
+     *
+     * @param serverBootstrapConfiguration configTargetHandler socket related stuff.
+     * @param listenerConfiguration contains SSL and socket bindings.
+     * @param dispatchExecutor executor which runs the listener, e.g. a thread pool or a Disruptor backed executor.
+     * @return connector that represents the server socket and additional details.
+     */
+    ServerConnector createServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
+            ListenerConfiguration listenerConfiguration, Executor dispatchExecutor);
+
     /**
      * This method can be used to get http client connectors.
      *
@@ -46,6 +46,15 @@ public interface ServerConnectorFuture {
      */
     void notifyHttpListener(HTTPCarbonMessage httpMessage) throws ServerConnectorException;
 
+    /**
+     * Let the HTTP listener decide on a request which expects 100-continue, before its body is read.
+     *
+     * @param httpRequest HTTP request with headers only.
+     * @return response rejecting the request, or null if the request should continue.
+     * @throws ServerConnectorException if any error occurred during the notification.
+     */
+    HTTPCarbonMessage validateRequestContinuation(HTTPCarbonMessage httpRequest) throws ServerConnectorException;
+
     /**
      *  Set Connector listener for WebSocket.
      * @param connectorListener Connector listener for WebSocket.
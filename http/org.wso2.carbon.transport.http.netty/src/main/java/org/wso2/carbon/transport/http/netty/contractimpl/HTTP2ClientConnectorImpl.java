@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.contractimpl;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.SslContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLHandlerFactory;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2ClientChannel;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2ConnectionManager;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * Implementation of the client connector which multiplexes requests over HTTP/2 connections.
+ */
+public class HTTP2ClientConnectorImpl implements HttpClientConnector {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2ClientConnectorImpl.class);
+
+    private HTTP2ConnectionManager connectionManager;
+    private SslContext sslContext;
+    private String tlsIdentity;
+    private int socketIdleTimeout;
+
+    public HTTP2ClientConnectorImpl(HTTP2ConnectionManager connectionManager, SSLConfig sslConfig,
+                                    int socketIdleTimeout) {
+        this.connectionManager = connectionManager;
+        this.socketIdleTimeout = socketIdleTimeout;
+        if (sslConfig != null) {
+            try {
+                this.sslContext = new SSLHandlerFactory(sslConfig).createHttp2TLSContextForClient();
+                this.tlsIdentity = HTTP2ConnectionManager.getTlsIdentity(sslConfig);
+            } catch (SSLException e) {
+                throw new IllegalArgumentException("Failed to initialize the HTTP/2 client SSL context", e);
+            }
+        }
+    }
+
+    @Override
+    public HttpResponseFuture connect() {
+        return null;
+    }
+
+    @Override
+    public HttpResponseFuture send(HTTPCarbonMessage httpCarbonRequest) {
+        HttpResponseFuture httpResponseFuture = new HttpResponseFutureImpl();
+        try {
+            final HttpRoute route = getTargetRoute(httpCarbonRequest);
+            Channel inboundChannel = getInboundChannel(httpCarbonRequest);
+            connectionManager.borrowChannel(route, sslContext, tlsIdentity, inboundChannel).addListener(future -> {
+                if (future.isSuccess()) {
+                    ((HTTP2ClientChannel) future.getNow())
+                            .writeRequest(httpCarbonRequest, httpResponseFuture, socketIdleTimeout);
+                } else {
+                    ClientConnectorException cause = new ClientConnectorException(
+                            "Connection refused, " + route.toString(), HttpResponseStatus.BAD_GATEWAY.code());
+                    cause.initCause(future.cause());
+                    httpResponseFuture.notifyHttpListener(cause);
+                }
+            });
+            Util.prepareBuiltMessageForTransfer(httpCarbonRequest);
+        } catch (Exception failedCause) {
+            httpResponseFuture.notifyHttpListener(failedCause);
+        }
+        return httpResponseFuture;
+    }
+
+    @Override
+    public boolean close() {
+        return false;
+    }
+
+    // Listener channel of a request which is being proxied, null for a request which originates here
+    private Channel getInboundChannel(HTTPCarbonMessage httpCarbonMessage) {
+        Object channelContext = httpCarbonMessage.getProperty(Constants.CHNL_HNDLR_CTX);
+        return channelContext instanceof ChannelHandlerContext ? ((ChannelHandlerContext) channelContext).channel()
+                : null;
+    }
+
+    private HttpRoute getTargetRoute(HTTPCarbonMessage httpCarbonMessage) {
+        String host;
+        Object hostProperty = httpCarbonMessage.getProperty(Constants.HOST);
+        if (hostProperty instanceof String) {
+            host = (String) hostProperty;
+        } else {
+            host = Constants.LOCALHOST;
+            httpCarbonMessage.setProperty(Constants.HOST, Constants.LOCALHOST);
+            log.debug("Cannot find property HOST of type string, hence using localhost as the host");
+        }
+
+        int port;
+        Object intProperty = httpCarbonMessage.getProperty(Constants.PORT);
+        if (intProperty instanceof Integer) {
+            port = (int) intProperty;
+        } else {
+            port = sslContext != null ? Constants.DEFAULT_HTTPS_PORT : Constants.DEFAULT_HTTP_PORT;
+            httpCarbonMessage.setProperty(Constants.PORT, port);
+            log.debug("Cannot find property PORT of type integer, hence using " + port);
+        }
+
+        Object domainSocketProperty = httpCarbonMessage.getProperty(Constants.UNIX_DOMAIN_SOCKET_PATH);
+        if (domainSocketProperty instanceof String) {
+            // Host and port remain as the authority of the request
+            return new HttpRoute(host, port, (String) domainSocketProperty);
+        }
+        return new HttpRoute(host, port);
+    }
+}
@@ -38,6 +38,9 @@ import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 /**
  * Implementation of the client connector.
  */
@@ -53,6 +56,8 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ProxyServerConfiguration proxyServerConfiguration;
+    // Routes warmed up through this connector, which are not kept warm anymore once it is closed
+    private final Queue<HttpRoute> warmedRoutes = new ConcurrentLinkedQueue<>();
 
     /*This needs to be refactored to hold all the channel properties in a separate bean as there are too many
      arguments here*/
@@ -74,6 +79,14 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
         return null;
     }
 
+    @Override
+    public void warmUp(String host, int port, int connections) {
+        HttpRoute route = new HttpRoute(host, port, proxyServerConfiguration);
+        warmedRoutes.add(route);
+        connectionManager.warmUp(this, route, sslConfig, httpTraceLogEnabled, chunkDisabled, followRedirect,
+                maxRedirectCount, proxyServerConfiguration, connections);
+    }
+
     @Override
     public HttpResponseFuture send(HTTPCarbonMessage httpCarbonRequest) {
         HttpResponseFuture httpResponseFuture = new HttpResponseFutureImpl();
@@ -89,9 +102,11 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
         try {
             final HttpRoute route = getTargetRoute(httpCarbonRequest);
             Util.setupTransferEncodingForRequest(httpCarbonRequest, chunkDisabled);
+            Object priorityLane = httpCarbonRequest.getProperty(Constants.PRIORITY_LANE);
             TargetChannel targetChannel = connectionManager
                     .borrowTargetChannel(route, srcHandler, sslConfig, httpTraceLogEnabled, chunkDisabled
-                            , followRedirect, maxRedirectCount, proxyServerConfiguration);
+                            , followRedirect, maxRedirectCount, proxyServerConfiguration,
+                            priorityLane instanceof Integer ? (Integer) priorityLane : -1);
             targetChannel.getChannelFuture().addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture channelFuture) throws Exception {
@@ -100,6 +115,7 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
                         targetChannel.configTargetHandler(httpCarbonRequest, httpResponseFuture);
                         targetChannel.setEndPointTimeout(socketIdleTimeout, followRedirect);
                         targetChannel.setCorrelationIdForLogging();
+                        targetChannel.setCorrelationForBackPressure();
                         targetChannel.setChunkDisabled(chunkDisabled);
                         targetChannel.setRequestWritten(true);
                         if (followRedirect) {
@@ -156,6 +172,10 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
 
     @Override
     public boolean close() {
+        HttpRoute route;
+        while ((route = warmedRoutes.poll()) != null) {
+            connectionManager.stopWarmUp(this, route);
+        }
         return false;
     }
 
@@ -182,7 +202,12 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
             log.debug("Cannot find property PORT of type integer, hence using " + port);
         }
 
-        return new HttpRoute(host, port);
+        Object domainSocketProperty = httpCarbonMessage.getProperty(Constants.UNIX_DOMAIN_SOCKET_PATH);
+        if (domainSocketProperty instanceof String) {
+            // Host and port remain as the authority of the request
+            return new HttpRoute(host, port, (String) domainSocketProperty);
+        }
+        return new HttpRoute(host, port, proxyServerConfiguration);
     }
 
     /**
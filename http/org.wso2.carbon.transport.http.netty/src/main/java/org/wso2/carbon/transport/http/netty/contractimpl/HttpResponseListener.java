@@ -19,16 +19,19 @@
 
 package org.wso2.carbon.transport.http.netty.contractimpl;
 
-import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponse;
+import org.wso2.carbon.transport.http.netty.common.BatchedContentWriter;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.listener.PipelinedResponseQueue;
 import org.wso2.carbon.transport.http.netty.listener.RequestDataHolder;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 
 /**
@@ -39,49 +42,58 @@ public class HttpResponseListener implements HttpConnectorListener {
     private ChannelHandlerContext sourceContext;
     private RequestDataHolder requestDataHolder;
     private HandlerExecutor handlerExecutor;
+    private PipelinedResponseQueue responseQueue;
+    private long sequence;
 
-    public HttpResponseListener(ChannelHandlerContext channelHandlerContext, HTTPCarbonMessage requestMsg) {
+    public HttpResponseListener(ChannelHandlerContext channelHandlerContext, HTTPCarbonMessage requestMsg,
+                                PipelinedResponseQueue responseQueue, long sequence) {
         this.sourceContext = channelHandlerContext;
         this.requestDataHolder = new RequestDataHolder(requestMsg);
         this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        this.responseQueue = responseQueue;
+        this.sequence = sequence;
     }
 
     @Override
     public void onMessage(HTTPCarbonMessage httpResponseMessage) {
         Util.setupTransferEncodingForResponse(httpResponseMessage, requestDataHolder);
+        Util.prepareBuiltMessageForTransfer(httpResponseMessage);
 
-        sourceContext.channel().eventLoop().execute(() -> {
-            boolean connectionCloseAfterResponse = shouldConnectionClose(httpResponseMessage);
-
+        Util.runOnEventLoop(sourceContext.channel().eventLoop(), () -> {
             if (handlerExecutor != null) {
                 handlerExecutor.executeAtSourceResponseReceiving(httpResponseMessage);
             }
+            // Responses of pipelined requests are written in the order the requests were received
+            responseQueue.schedule(sequence, () -> writeResponse(httpResponseMessage));
+        });
+    }
 
-            final HttpResponse response = Util
-                    .createHttpResponse(httpResponseMessage, connectionCloseAfterResponse);
-            sourceContext.write(response);
+    private void writeResponse(HTTPCarbonMessage httpResponseMessage) {
+        boolean connectionCloseAfterResponse = shouldConnectionClose(httpResponseMessage);
+        final HttpResponse response = Util.createHttpResponse(httpResponseMessage, connectionCloseAfterResponse);
 
-            httpResponseMessage.getHttpContentAsync().setMessageListener(httpContent ->
-                    this.sourceContext.channel().eventLoop().execute(() -> {
-                if (Util.isLastHttpContent(httpContent)) {
-                    ChannelFuture future = sourceContext.writeAndFlush(httpContent);
-                    if (connectionCloseAfterResponse) {
-                        future.addListener(ChannelFutureListener.CLOSE);
-                    }
-                    if (handlerExecutor != null) {
-                        handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
-                    }
-                } else {
-                    sourceContext.write(httpContent);
-                }
-            }));
+        BatchedContentWriter contentWriter = new BatchedContentWriter(sourceContext,
+                sourceContext.channel().eventLoop(), future -> {
+            if (connectionCloseAfterResponse) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+            if (handlerExecutor != null) {
+                handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
+            }
+            responseQueue.complete(sequence);
         });
-        Util.prepareBuiltMessageForTransfer(httpResponseMessage);
+        // Headers are written along with the first batch of content, merged with the body if it is small
+        contentWriter.writeHeaders(response, ServerBootstrapConfiguration.getInstance().getResponseCombineThreshold());
+        httpResponseMessage.getHttpContentAsync().setMessageListener(contentWriter::write);
     }
 
     // Decides whether to close the connection after sending the response
     private boolean shouldConnectionClose(HTTPCarbonMessage responseMsg) {
-        String responseConnectionHeader = responseMsg.getHeader(Constants.HTTP_CONNECTION);
+        if (responseQueue.isClosingAfter(sequence)) {
+            // Last request of a retired connection, so that the client reconnects, possibly to another instance
+            return true;
+        }
+        String responseConnectionHeader = responseMsg.getHeader(HttpHeaderNames.CONNECTION);
         String requestConnectionHeader = requestDataHolder.getConnectionHeader();
         if ((responseConnectionHeader != null &&
                 Constants.CONNECTION_CLOSE.equalsIgnoreCase(responseConnectionHeader))
@@ -22,7 +22,11 @@ package org.wso2.carbon.transport.http.netty.contractimpl;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopThreadFactory;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.UnixDomainSockets;
+import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
 import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
@@ -32,45 +36,152 @@ import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
 import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketClientConnector;
 import org.wso2.carbon.transport.http.netty.contract.websocket.WsClientConnectorConfig;
 import org.wso2.carbon.transport.http.netty.contractimpl.websocket.WebSocketClientConnectorImpl;
+import org.wso2.carbon.transport.http.netty.listener.RequestClassifier;
+import org.wso2.carbon.transport.http.netty.listener.RequestDispatcher;
 import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.listener.ServerConnectorBootstrap;
 import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2ConnectionManager;
 
+import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Implementation of HttpWsConnectorFactory interface
+ * <p>
+ * Client connectors of every factory share the connection managers of the JVM, which are created along with the first
+ * client connector. Requests which do not come through a listener are hence sent on the event loops of the factory
+ * which created the first client connector, and a single factory is expected per JVM.
  */
 public class HttpWsConnectorFactoryImpl implements HttpWsConnectorFactory {
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private EventLoopGroup domainSocketBossGroup;
+    private EventLoopGroup domainSocketWorkerGroup;
+    private final int serverSocketThreads;
+    private final int childSocketThreads;
+    private PriorityLanes priorityLanes;
 
     public HttpWsConnectorFactoryImpl() {
-        bossGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
-        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 2);
     }
 
     public HttpWsConnectorFactoryImpl(int serverSocketThreads, int childSocketThreads) {
-        bossGroup = new NioEventLoopGroup(serverSocketThreads);
-        workerGroup = new NioEventLoopGroup(childSocketThreads);
+        this(serverSocketThreads, childSocketThreads, null, null);
+    }
+
+    /**
+     * Create a factory whose event loops are sized and pinned to CPUs as per the given transport properties, i.e.
+     * server.bootstrap.boss.group.size, server.bootstrap.worker.group.size, server.bootstrap.boss.group.cpus and
+     * server.bootstrap.worker.group.cpus. CPUs are given in the Linux CPU list format e.g. 0-3,8, and are applied
+     * where {@link org.wso2.carbon.transport.http.netty.common.CpuAffinity#getPlatformAffinity()} can pin threads.
+     * Requests of listeners are classified into the priority lanes given by the priority.lanes property.
+     *
+     * @param transportProperties transport properties
+     */
+    public HttpWsConnectorFactoryImpl(Map<String, Object> transportProperties) {
+        this(Util.getIntProperty(transportProperties, Constants.SERVER_BOOTSTRAP_BOSS_GROUP_SIZE,
+                        Runtime.getRuntime().availableProcessors()),
+                Util.getIntProperty(transportProperties, Constants.SERVER_BOOTSTRAP_WORKER_GROUP_SIZE,
+                        Runtime.getRuntime().availableProcessors() * 2),
+                Util.getStringProperty(transportProperties, Constants.SERVER_BOOTSTRAP_BOSS_GROUP_CPUS, null),
+                Util.getStringProperty(transportProperties, Constants.SERVER_BOOTSTRAP_WORKER_GROUP_CPUS, null));
+        this.priorityLanes = PriorityLanes.parse(Util.getStringProperty(transportProperties,
+                Constants.PRIORITY_LANES, null));
+    }
+
+    private HttpWsConnectorFactoryImpl(int serverSocketThreads, int childSocketThreads, String bossCpus,
+            String workerCpus) {
+        this(new NioEventLoopGroup(serverSocketThreads, new EventLoopThreadFactory("http-acceptor", bossCpus)),
+                new NioEventLoopGroup(childSocketThreads, new EventLoopThreadFactory("http-io", workerCpus)),
+                serverSocketThreads, childSocketThreads);
+    }
+
+    /**
+     * Create a factory whose connectors share the given NIO event loops. Listener connections are served by the worker
+     * group, and so are the connections of client connectors and WebSocket clients, provided this is the only factory
+     * of the JVM. A client connection opened for a request received by a listener is served by the event loop of that
+     * request.
+     *
+     * @param bossGroup   event loops which accept listener connections
+     * @param workerGroup event loops which serve listener and client connections
+     */
+    public HttpWsConnectorFactoryImpl(EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        this(bossGroup, workerGroup, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    // Thread counts are applied to the epoll event loops of Unix domain socket listeners
+    private HttpWsConnectorFactoryImpl(EventLoopGroup bossGroup, EventLoopGroup workerGroup, int serverSocketThreads,
+            int childSocketThreads) {
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+        this.serverSocketThreads = serverSocketThreads;
+        this.childSocketThreads = childSocketThreads;
     }
 
     @Override
     public ServerConnector createServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
             ListenerConfiguration listenerConfig) {
+        RequestDispatcher requestDispatcher = null;
+        if (listenerConfig.getDispatchThreads() > 0) {
+            requestDispatcher = RequestDispatcher.newThreadPoolDispatcher(
+                    "http-dispatch-" + Util.createServerConnectorID(listenerConfig.getHost(), listenerConfig.getPort()),
+                    listenerConfig.getDispatchThreads(),
+                    listenerConfig.getDispatchQueueDepth(Constants.DEFAULT_DISPATCH_QUEUE_DEPTH), priorityLanes);
+        }
+        return newServerConnector(serverBootstrapConfiguration, listenerConfig, requestDispatcher);
+    }
+
+    @Override
+    public ServerConnector createServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
+            ListenerConfiguration listenerConfig, Executor dispatchExecutor) {
+        return newServerConnector(serverBootstrapConfiguration, listenerConfig, new RequestDispatcher(
+                dispatchExecutor, listenerConfig.getDispatchQueueDepth(Constants.DEFAULT_DISPATCH_QUEUE_DEPTH),
+                priorityLanes));
+    }
+
+    private ServerConnector newServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
+            ListenerConfiguration listenerConfig, RequestDispatcher requestDispatcher) {
         ServerConnectorBootstrap serverConnectorBootstrap = new ServerConnectorBootstrap();
+        if (listenerConfig.getUnixDomainSocketPath() != null) {
+            initDomainSocketGroups();
+            serverConnectorBootstrap.addUnixDomainSocket(listenerConfig.getUnixDomainSocketPath(),
+                    domainSocketBossGroup, domainSocketWorkerGroup);
+        } else {
+            serverConnectorBootstrap.addThreadPools(bossGroup, workerGroup);
+        }
         serverConnectorBootstrap.addSocketConfiguration(serverBootstrapConfiguration);
         serverConnectorBootstrap.addSecurity(listenerConfig.getSslConfig());
+        serverConnectorBootstrap.addHttp2Support(listenerConfig);
         serverConnectorBootstrap.addIdleTimeout(listenerConfig.getSocketIdleTimeout(120000));
         serverConnectorBootstrap.addHttpTraceLogHandler(listenerConfig.isHttpTraceLogEnabled());
-        serverConnectorBootstrap.addThreadPools(bossGroup, workerGroup);
+        serverConnectorBootstrap.addAccessLog(listenerConfig);
+        serverConnectorBootstrap.addResponseCache(listenerConfig);
+        serverConnectorBootstrap.addCompression(listenerConfig);
         serverConnectorBootstrap.addHeaderAndEntitySizeValidation(listenerConfig.getRequestSizeValidationConfig());
+        serverConnectorBootstrap.addRequestDispatcher(requestDispatcher);
+        if (priorityLanes != null) {
+            serverConnectorBootstrap.addRequestClassifier(new RequestClassifier(priorityLanes,
+                    listenerConfig.getPriorityRules(), listenerConfig.getPriorityLane()));
+        }
+        serverConnectorBootstrap.addFlushConsolidation(serverBootstrapConfiguration.getFlushConsolidationThreshold(),
+                serverBootstrapConfiguration.isFlushConsolidationWhenNoReadInProgress());
 
         return serverConnectorBootstrap.getServerConnector(listenerConfig.getHost(), listenerConfig.getPort());
     }
 
+    // Domain socket listeners need epoll event loops, which are only created once such a listener is configured
+    private synchronized void initDomainSocketGroups() {
+        if (domainSocketBossGroup == null) {
+            domainSocketBossGroup = UnixDomainSockets.newEventLoopGroup(serverSocketThreads);
+            domainSocketWorkerGroup = UnixDomainSockets.newEventLoopGroup(childSocketThreads);
+        }
+    }
+
     @Override
     public HttpClientConnector createHttpClientConnector(Map<String, Object> transportProperties,
             SenderConfiguration senderConfiguration) {
@@ -82,16 +193,53 @@ public class HttpWsConnectorFactoryImpl implements HttpWsConnectorFactory {
         boolean chunkDisabled = senderConfiguration.isChunkDisabled();
         ProxyServerConfiguration proxyServerConfiguration = senderConfiguration.getProxyServerConfiguration();
 
-        ConnectionManager.init(transportProperties);
-        ConnectionManager connectionManager = ConnectionManager.getInstance();
         BootstrapConfiguration.createBootStrapConfiguration(transportProperties);
+        if (senderConfiguration.isHttp2()) {
+            HTTP2ConnectionManager.init(transportProperties, workerGroup);
+            return new HTTP2ClientConnectorImpl(HTTP2ConnectionManager.getInstance(), sslConfig, socketIdleTimeout);
+        }
+
+        ConnectionManager.init(transportProperties, workerGroup);
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+
+        HttpClientConnector httpClientConnector = new HttpClientConnectorImpl(connectionManager, sslConfig,
+                socketIdleTimeout, httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount,
+                proxyServerConfiguration);
+        warmUpRoutes(httpClientConnector, senderConfiguration.getScheme(),
+                Util.getStringProperty(transportProperties, Constants.CLIENT_WARMUP_ROUTES, null));
+        return httpClientConnector;
+    }
 
-        return new HttpClientConnectorImpl(connectionManager, sslConfig, socketIdleTimeout, httpTraceLogEnabled
-                , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+    /**
+     * Open connections ahead of traffic to the routes of the given scheme in a list of routes.
+     *
+     * @param routes routes and their numbers of idle connections, e.g. https://host:443=4,http://host:80=2
+     */
+    private static void warmUpRoutes(HttpClientConnector httpClientConnector, String scheme, String routes) {
+        if (routes == null || routes.trim().isEmpty()) {
+            return;
+        }
+        for (String route : routes.split(",")) {
+            int separator = route.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid warm-up route '" + route
+                        + "', expected scheme://host:port=connections");
+            }
+            URI uri = URI.create(route.substring(0, separator).trim());
+            if (!scheme.equalsIgnoreCase(uri.getScheme())) {
+                continue;
+            }
+            int port = uri.getPort();
+            if (port == -1) {
+                port = Constants.HTTPS_SCHEME.equalsIgnoreCase(scheme) ? Constants.DEFAULT_HTTPS_PORT
+                        : Constants.DEFAULT_HTTP_PORT;
+            }
+            httpClientConnector.warmUp(uri.getHost(), port, Integer.parseInt(route.substring(separator + 1).trim()));
+        }
     }
 
     @Override
     public WebSocketClientConnector createWsClientConnector(WsClientConnectorConfig clientConnectorConfig) {
-        return new WebSocketClientConnectorImpl(clientConnectorConfig);
+        return new WebSocketClientConnectorImpl(clientConnectorConfig, workerGroup);
     }
 }
@@ -69,6 +69,15 @@ public class HttpWsServerConnectorFuture implements ServerConnectorFuture {
         httpConnectorListener.onMessage(httpMessage);
     }
 
+    @Override
+    public HTTPCarbonMessage validateRequestContinuation(HTTPCarbonMessage httpRequest)
+            throws ServerConnectorException {
+        if (httpConnectorListener == null) {
+            throw new ServerConnectorException("HTTP connector listener is not set");
+        }
+        return httpConnectorListener.validateRequestContinuation(httpRequest);
+    }
+
     @Override
     public void setWSConnectorListener(WebSocketConnectorListener wsConnectorListener) {
         this.wsConnectorListener = wsConnectorListener;
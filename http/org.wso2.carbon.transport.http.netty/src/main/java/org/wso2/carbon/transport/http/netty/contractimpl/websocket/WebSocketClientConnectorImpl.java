@@ -19,6 +19,7 @@
 
 package org.wso2.carbon.transport.http.netty.contractimpl.websocket;
 
+import io.netty.channel.EventLoopGroup;
 import org.wso2.carbon.transport.http.netty.contract.websocket.HandshakeFuture;
 import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketClientConnector;
 import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketConnectorListener;
@@ -37,19 +38,22 @@ public class WebSocketClientConnectorImpl implements WebSocketClientConnector {
     private final String target;
     private final int idleTimeout;
     private final Map<String, String> customHeaders;
+    private final EventLoopGroup eventLoopGroup;
 
-    public WebSocketClientConnectorImpl(WsClientConnectorConfig clientConnectorConfig) {
+    public WebSocketClientConnectorImpl(WsClientConnectorConfig clientConnectorConfig,
+                                        EventLoopGroup eventLoopGroup) {
         this.remoteUrl = clientConnectorConfig.getRemoteAddress();
         this.target = clientConnectorConfig.getTarget();
         this.subProtocols = clientConnectorConfig.getSubProtocolsAsCSV();
         this.customHeaders = clientConnectorConfig.getHeaders();
         this.idleTimeout = clientConnectorConfig.getIdleTimeoutInMillis();
+        this.eventLoopGroup = eventLoopGroup;
     }
 
     @Override
     public HandshakeFuture connect(WebSocketConnectorListener connectorListener) {
         WebSocketClient webSocketClient = new WebSocketClient(remoteUrl, target, subProtocols, idleTimeout,
-                                                              customHeaders, connectorListener);
+                                                              customHeaders, connectorListener, eventLoopGroup);
         return webSocketClient.handshake();
     }
 }
@@ -1,47 +1,207 @@
 package org.wso2.carbon.transport.http.netty.listener;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.wso2.carbon.transport.http.netty.config.CompressionConfiguration;
 
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
 
 /**
- * Custom Http Content Compressor to handle the content-length and transfer encoding.
+ * Custom Http Content Compressor to handle the content-length and transfer encoding. With a compression policy, small
+ * bodies and media types which are compressed already are sent as they are, and compressed bodies of responses with a
+ * strong ETag may be served from a cache instead of being compressed again.
  */
 public class CustomHttpContentCompressor extends HttpContentCompressor {
 
     private HttpMethod method;
-    private boolean chunkDisabled = false;
+    private CompressionConfiguration compressionConfig;
+    private PrecompressedBodyCache precompressedBodyCache;
+    private boolean encodingLastContent = false;
+    // Host and URI of the requests awaiting their responses, which are received in the order of the requests
+    private final Queue<String> requestTargets = new ArrayDeque<>();
+    private String requestTarget;
 
     public CustomHttpContentCompressor() {
         super();
     }
 
-    public CustomHttpContentCompressor(boolean chunkDisabled) {
-        super();
-        this.chunkDisabled = chunkDisabled;
+    /**
+     * @param compressionConfig      compression policy of the listener
+     * @param precompressedBodyCache cache of compressed bodies of the listener, null to compress every response
+     */
+    public CustomHttpContentCompressor(CompressionConfiguration compressionConfig,
+                                       PrecompressedBodyCache precompressedBodyCache) {
+        super(compressionConfig.getLevel());
+        this.compressionConfig = compressionConfig;
+        this.precompressedBodyCache = precompressedBodyCache;
     }
 
     @Override
     protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
-        if (chunkDisabled) {
+        if (method == HttpMethod.OPTIONS && headers.headers().contains(HttpHeaderNames.ALLOW)
+                && headers.headers().containsValue(HttpHeaderNames.CONTENT_LENGTH, HttpHeaderValues.ZERO, false)) {
             return null;
         }
-        String allowHeader = headers.headers().get("Allow");
-        String contentLength = headers.headers().get("Content-Length");
-        if (method == HttpMethod.OPTIONS && allowHeader != null && contentLength.equals("0")) {
+        if (compressionConfig != null && !isCompressible(headers.headers())) {
             return null;
         }
-        return super.beginEncode(headers, acceptEncoding);
+        String etag = headers.headers().get(HttpHeaderNames.ETAG);
+        if (precompressedBodyCache == null || etag == null || etag.startsWith("W/")
+                || headers.headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return super.beginEncode(headers, acceptEncoding);
+        }
+        ZlibWrapper wrapper = determineWrapper(acceptEncoding);
+        if (wrapper == null) {
+            return null;
+        }
+        String contentEncoding = wrapper == ZlibWrapper.GZIP ? "gzip" : "deflate";
+        String key = PrecompressedBodyCache.key(requestTarget, etag, contentEncoding);
+        ByteBuf compressedBody = precompressedBodyCache.get(key);
+        if (compressedBody != null) {
+            return new Result(contentEncoding, new EmbeddedChannel(new CachedBodyWriter(compressedBody)));
+        }
+        Result result = super.beginEncode(headers, acceptEncoding);
+        if (result != null) {
+            // Sees the compressed body on its way out of the compressor
+            result.contentEncoder().pipeline().addFirst(new CompressedBodyCollector(key));
+        }
+        return result;
+    }
+
+    private boolean isCompressible(HttpHeaders headers) {
+        if (!compressionConfig.isEnabled()) {
+            return false;
+        }
+        String contentLength = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength) < compressionConfig.getMinimumSize()) {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return compressionConfig.isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE));
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+        // The compressor is closed on the last content of a body, or on cleanup once the connection has gone away
+        encodingLastContent = msg instanceof LastHttpContent;
+        if (msg instanceof HttpResponse
+                && ((HttpResponse) msg).status().code() != HttpResponseStatus.CONTINUE.code()) {
+            requestTarget = requestTargets.poll();
+        }
+        try {
+            super.encode(ctx, msg, out);
+        } finally {
+            encodingLastContent = false;
+        }
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, HttpRequest msg, List<Object> out)
             throws Exception {
         this.method = msg.method();
+        if (precompressedBodyCache != null) {
+            String host = msg.headers().get(HttpHeaderNames.HOST, "");
+            requestTargets.add(host.toLowerCase(Locale.ENGLISH) + ' ' + msg.uri());
+        }
         super.decode(ctx, msg, out);
     }
+
+    /**
+     * Writes a cached compressed body in place of compressing the body of the response.
+     */
+    private static class CachedBodyWriter extends ChannelOutboundHandlerAdapter {
+
+        private ByteBuf compressedBody;
+
+        CachedBodyWriter(ByteBuf compressedBody) {
+            this.compressedBody = compressedBody;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            if (compressedBody != null) {
+                ctx.write(compressedBody, promise);
+                compressedBody = null;
+            } else {
+                promise.setSuccess();
+            }
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            if (compressedBody != null) {
+                ctx.writeAndFlush(compressedBody);
+                compressedBody = null;
+            }
+            ctx.close(promise);
+        }
+    }
+
+    /**
+     * Copies the compressed body of a response, and caches it once the compressor is closed at the end of the body.
+     */
+    private class CompressedBodyCollector extends ChannelOutboundHandlerAdapter {
+
+        private final String key;
+        private CompositeByteBuf compressedBody = Unpooled.compositeBuffer();
+
+        CompressedBodyCollector(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (compressedBody != null && msg instanceof ByteBuf) {
+                ByteBuf chunk = (ByteBuf) msg;
+                if (compressedBody.readableBytes() + chunk.readableBytes() > precompressedBodyCache.getMaxBodySize()) {
+                    compressedBody.release();
+                    compressedBody = null;
+                } else {
+                    compressedBody.addComponent(true, Unpooled.copiedBuffer(chunk));
+                }
+            }
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            if (compressedBody != null && !encodingLastContent) {
+                compressedBody.release();
+                compressedBody = null;
+            } else if (compressedBody != null) {
+                ByteBuf body = Unpooled.directBuffer(compressedBody.readableBytes());
+                body.writeBytes(compressedBody);
+                compressedBody.release();
+                compressedBody = null;
+                precompressedBodyCache.put(key, body);
+            }
+            ctx.close(promise);
+        }
+    }
 }
@@ -39,7 +39,11 @@ import java.util.Map;
 
 /**
  * Custom Http Object Aggregator to validate the message size.
+ *
+ * @deprecated the listener enforces the request size with {@link RequestSizeLimitHandler} without aggregating the
+ * content. This aggregator is only useful where the full message is needed in memory.
  */
+@Deprecated
 public class CustomHttpObjectAggregator extends HttpObjectAggregator {
 
     private static final Logger log = LoggerFactory.getLogger(CustomHttpObjectAggregator.class);
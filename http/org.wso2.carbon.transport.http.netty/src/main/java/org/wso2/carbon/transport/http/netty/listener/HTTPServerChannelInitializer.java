@@ -15,12 +15,14 @@
 
 package org.wso2.carbon.transport.http.netty.listener;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -30,8 +32,16 @@ import org.wso2.carbon.messaging.CarbonTransportInitializer;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLHandlerFactory;
+import org.wso2.carbon.transport.http.netty.config.CompressionConfiguration;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
 import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLog;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLogHandler;
+import org.wso2.carbon.transport.http.netty.listener.cache.ResponseCache;
+import org.wso2.carbon.transport.http.netty.listener.cache.ResponseCacheHandler;
+import org.wso2.carbon.transport.http.netty.listener.http2.HTTPCleartextNegotiationHandler;
+import org.wso2.carbon.transport.http.netty.listener.http2.HTTPProtocolNegotiationHandler;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -39,7 +49,7 @@ import java.util.concurrent.TimeUnit;
 /**
  * A class that responsible for build server side channels.
  */
-public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChannel>
+public class HTTPServerChannelInitializer extends ChannelInitializer<Channel>
         implements CarbonTransportInitializer {
 
     private static final Logger log = LoggerFactory.getLogger(HTTPServerChannelInitializer.class);
@@ -50,19 +60,56 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
     private SSLConfig sslConfig;
     private ServerConnectorFuture serverConnectorFuture;
     private RequestSizeValidationConfiguration requestSizeValidationConfig;
+    private int flushConsolidationThreshold;
+    private boolean flushConsolidationWhenNoReadInProgress;
+    private ListenerConfiguration http2ListenerConfig;
+    private SslContext http2SslContext;
+    private RequestDispatcher requestDispatcher;
+    private RequestClassifier requestClassifier;
+    private AccessLog accessLog;
+    private ResponseCache responseCache;
+    private CompressionConfiguration compressionConfig;
+    private PrecompressedBodyCache precompressedBodyCache;
 
     @Override
     public void setup(Map<String, String> parameters) {
     }
 
     @Override
-    public void initChannel(SocketChannel ch) throws Exception {
+    public void initChannel(Channel ch) throws Exception {
         if (log.isDebugEnabled()) {
             log.debug("Initializing source channel pipeline");
         }
 
         ChannelPipeline pipeline = ch.pipeline();
 
+        if (flushConsolidationThreshold > 0) {
+            pipeline.addLast(Constants.FLUSH_CONSOLIDATION_HANDLER,
+                             new FlushConsolidationHandler(flushConsolidationThreshold,
+                                                           flushConsolidationWhenNoReadInProgress));
+        }
+
+        if (http2SslContext != null) {
+            // HTTP/2 or HTTP/1.1 pipeline is configured once the protocol is negotiated through ALPN
+            pipeline.addLast(Constants.SSL_HANDLER, http2SslContext.newHandler(ch.alloc()));
+            if (socketIdleTimeout > 0) {
+                pipeline.addLast(Constants.IDLE_STATE_HANDLER, newIdleStateHandler());
+            }
+            pipeline.addLast(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER,
+                             new HTTPProtocolNegotiationHandler(this, http2ListenerConfig));
+            return;
+        }
+
+        if (http2ListenerConfig != null && sslConfig == null) {
+            // Cleartext HTTP/2 through prior knowledge or an HTTP/1.1 upgrade, decided on the first bytes received
+            if (socketIdleTimeout > 0) {
+                pipeline.addLast(Constants.IDLE_STATE_HANDLER, newIdleStateHandler());
+            }
+            pipeline.addLast(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER,
+                             new HTTPCleartextNegotiationHandler(this, http2ListenerConfig));
+            return;
+        }
+
         if (sslConfig != null) {
             pipeline.addLast(Constants.SSL_HANDLER, new SslHandler(new SSLHandlerFactory(sslConfig).build()));
         }
@@ -71,13 +118,14 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         configureHTTPPipeline(pipeline);
 
         if (socketIdleTimeout > 0) {
-            pipeline.addBefore(
-                    Constants.HTTP_SOURCE_HANDLER, Constants.IDLE_STATE_HANDLER,
-                    new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, socketIdleTimeout,
-                                         TimeUnit.MILLISECONDS));
+            pipeline.addBefore(Constants.HTTP_SOURCE_HANDLER, Constants.IDLE_STATE_HANDLER, newIdleStateHandler());
         }
     }
 
+    private IdleStateHandler newIdleStateHandler() {
+        return new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, socketIdleTimeout, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Configure the pipeline if user sent HTTP requests
      *
@@ -91,9 +139,23 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
             pipeline.addLast("decoder", new HttpRequestDecoder());
         }
         if (requestSizeValidationConfig != null && requestSizeValidationConfig.isRequestSizeValidation()) {
-            pipeline.addLast("custom-aggregator", new CustomHttpObjectAggregator(requestSizeValidationConfig));
+            pipeline.addLast(Constants.REQUEST_SIZE_LIMIT_HANDLER,
+                             new RequestSizeLimitHandler(requestSizeValidationConfig));
+        }
+        AccessLogHandler accessLogHandler = accessLog != null ? new AccessLogHandler(accessLog, interfaceId) : null;
+        if (responseCache != null) {
+            // Ahead of the access log, which is handed the requests served from the cache as they do not reach it
+            pipeline.addLast(Constants.RESPONSE_CACHE_HANDLER, new ResponseCacheHandler(responseCache,
+                    accessLogHandler));
+        }
+        if (accessLogHandler != null) {
+            pipeline.addLast(Constants.ACCESS_LOG_HANDLER, accessLogHandler);
+        }
+        if (compressionConfig != null) {
+            pipeline.addLast("compressor", new CustomHttpContentCompressor(compressionConfig, precompressedBodyCache));
+        } else {
+            pipeline.addLast("compressor", new CustomHttpContentCompressor());
         }
-        pipeline.addLast("compressor", new CustomHttpContentCompressor());
         pipeline.addLast("chunkWriter", new ChunkedWriteHandler());
 
         if (httpTraceLogEnabled) {
@@ -106,7 +168,8 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
 
         try {
             pipeline.addLast(Constants.HTTP_SOURCE_HANDLER,
-                             new SourceHandler(this.serverConnectorFuture, this.interfaceId));
+                             new SourceHandler(this.serverConnectorFuture, this.interfaceId, this.requestDispatcher,
+                                               this.requestClassifier));
         } catch (Exception e) {
             log.error("Cannot Create SourceHandler ", e);
         }
@@ -117,6 +180,10 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         return true;
     }
 
+    public ServerConnectorFuture getServerConnectorFuture() {
+        return serverConnectorFuture;
+    }
+
     public void setServerConnectorFuture(ServerConnectorFuture serverConnectorFuture) {
         this.serverConnectorFuture = serverConnectorFuture;
     }
@@ -137,10 +204,69 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         this.interfaceId = interfaceId;
     }
 
+    public RequestDispatcher getRequestDispatcher() {
+        return requestDispatcher;
+    }
+
+    public void setRequestDispatcher(RequestDispatcher requestDispatcher) {
+        this.requestDispatcher = requestDispatcher;
+    }
+
+    public RequestClassifier getRequestClassifier() {
+        return requestClassifier;
+    }
+
+    public void setRequestClassifier(RequestClassifier requestClassifier) {
+        this.requestClassifier = requestClassifier;
+    }
+
+    public AccessLog getAccessLog() {
+        return accessLog;
+    }
+
+    public void setAccessLog(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public PrecompressedBodyCache getPrecompressedBodyCache() {
+        return precompressedBodyCache;
+    }
+
+    public void setCompression(CompressionConfiguration compressionConfig,
+                               PrecompressedBodyCache precompressedBodyCache) {
+        this.compressionConfig = compressionConfig;
+        this.precompressedBodyCache = precompressedBodyCache;
+    }
+
     public void setSslConfig(SSLConfig sslConfig) {
         this.sslConfig = sslConfig;
     }
 
+    public void setFlushConsolidation(int flushConsolidationThreshold, boolean whenNoReadInProgress) {
+        this.flushConsolidationThreshold = flushConsolidationThreshold;
+        this.flushConsolidationWhenNoReadInProgress = whenNoReadInProgress;
+    }
+
+    /**
+     * Enable HTTP/2 for the listener. HTTP/2 is negotiated through ALPN when an SSL context is given, otherwise
+     * cleartext HTTP/2 (h2c) is accepted alongside HTTP/1.1.
+     *
+     * @param listenerConfiguration configuration of the listener, including the HTTP/2 SETTINGS.
+     * @param http2SslContext       SSL context which advertises h2 and http/1.1 through ALPN, null for h2c.
+     */
+    public void setHttp2Config(ListenerConfiguration listenerConfiguration, SslContext http2SslContext) {
+        this.http2ListenerConfig = listenerConfiguration;
+        this.http2SslContext = http2SslContext;
+    }
+
     public void setRequestSizeValidationConfig(RequestSizeValidationConfiguration requestSizeValidationConfig) {
         this.requestSizeValidationConfig = requestSizeValidationConfig;
     }
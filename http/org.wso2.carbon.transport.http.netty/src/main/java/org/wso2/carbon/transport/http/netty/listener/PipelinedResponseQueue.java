@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the responses of pipelined requests on a connection in request order.
+ *
+ * Each request gets a sequence number when it is read. A response is written only after the responses of all the
+ * earlier requests have been written, until then its writer is parked here. Reading from the connection is
+ * suspended while the number of requests awaiting a response is at the pipelining limit. Responses of the transport
+ * itself, such as the rejection of a request, are written through the queue as well, so that they do not overtake the
+ * responses of earlier requests.
+ * All the methods must be called from the event loop of the connection.
+ */
+public class PipelinedResponseQueue {
+
+    private final Channel channel;
+    private final int pipeliningLimit;
+    private final Map<Long, Runnable> pendingWriters = new HashMap<>();
+    private final Map<Long, Runnable> pendingInterimWriters = new HashMap<>();
+    private long nextRequestSequence;
+    private long nextResponseSequence;
+    private boolean readSuspended;
+    private boolean responseInProgress;
+    private long rejectedSequence = -1;
+    private long closingSequence = -1;
+
+    /**
+     * @param channel         source channel.
+     * @param pipeliningLimit maximum number of requests awaiting a response, 0 for no limit.
+     */
+    public PipelinedResponseQueue(Channel channel, int pipeliningLimit) {
+        this.channel = channel;
+        this.pipeliningLimit = pipeliningLimit;
+    }
+
+    /**
+     * Assign the sequence number of a newly read request.
+     *
+     * @return sequence number of the request.
+     */
+    public long nextRequestSequence() {
+        long sequence = nextRequestSequence++;
+        if (pipeliningLimit > 0 && nextRequestSequence - nextResponseSequence >= pipeliningLimit) {
+            readSuspended = true;
+            ReadSuspension.PIPELINING.suspend(channel);
+        }
+        return sequence;
+    }
+
+    /**
+     * Write the response right away if it is the next in order, otherwise park it until its turn.
+     *
+     * @param sequence       sequence number of the request.
+     * @param responseWriter writes the response to the channel.
+     */
+    public void schedule(long sequence, Runnable responseWriter) {
+        if (sequence == rejectedSequence) {
+            // Request is already answered by the transport
+            return;
+        }
+        runInTurn(sequence, responseWriter);
+    }
+
+    /**
+     * Write an interim response, such as 100 Continue, once the responses of all the earlier requests are written.
+     * It does not complete the turn of the request, which ends with its final response.
+     *
+     * @param sequence      sequence number of the request.
+     * @param interimWriter writes the interim response to the channel.
+     */
+    public void scheduleInterim(long sequence, Runnable interimWriter) {
+        if (sequence == nextResponseSequence) {
+            interimWriter.run();
+        } else {
+            pendingInterimWriters.put(sequence, interimWriter);
+        }
+    }
+
+    /**
+     * Answer a request with a rejection of the transport in place of the response of the listener, which is
+     * discarded. The rejection writer closes the connection, as the rest of the request is not read. If the response
+     * of the listener is already being written, the connection is closed once it is written instead.
+     *
+     * @param sequence       sequence number of the request.
+     * @param responseWriter writes the rejection and closes the connection.
+     */
+    public void reject(long sequence, Runnable responseWriter) {
+        rejectedSequence = sequence;
+        if (sequence < nextResponseSequence) {
+            closeConnection();
+        } else if (sequence == nextResponseSequence && responseInProgress) {
+            closingSequence = sequence;
+        } else {
+            runInTurn(sequence, responseWriter);
+        }
+    }
+
+    /**
+     * Close the connection once the response of the given request is written, as no more requests are served on it.
+     *
+     * @param sequence sequence number of the last request served on the connection.
+     */
+    public void closeAfter(long sequence) {
+        closingSequence = sequence;
+        if (sequence < nextResponseSequence) {
+            closeConnection();
+        }
+    }
+
+    /**
+     * @param sequence sequence number of a request.
+     * @return true if the connection is closed once the response of the request is written.
+     */
+    public boolean isClosingAfter(long sequence) {
+        return sequence == closingSequence;
+    }
+
+    /**
+     * @return sequence number of the request which is read last.
+     */
+    public long lastRequestSequence() {
+        return nextRequestSequence - 1;
+    }
+
+    private void runInTurn(long sequence, Runnable responseWriter) {
+        if (sequence == nextResponseSequence) {
+            responseInProgress = true;
+            responseWriter.run();
+        } else {
+            pendingWriters.put(sequence, responseWriter);
+        }
+    }
+
+    /**
+     * Mark the response as written and start writing the next response, if it is already available.
+     *
+     * @param sequence sequence number of the request.
+     */
+    public void complete(long sequence) {
+        nextResponseSequence = sequence + 1;
+        responseInProgress = false;
+        if (sequence == closingSequence) {
+            closeConnection();
+            return;
+        }
+        if (readSuspended && nextRequestSequence - nextResponseSequence < pipeliningLimit) {
+            readSuspended = false;
+            ReadSuspension.PIPELINING.resume(channel);
+        }
+        Runnable interimWriter = pendingInterimWriters.remove(nextResponseSequence);
+        if (interimWriter != null) {
+            interimWriter.run();
+        }
+        Runnable responseWriter = pendingWriters.remove(nextResponseSequence);
+        if (responseWriter != null) {
+            responseInProgress = true;
+            responseWriter.run();
+        }
+    }
+
+    private void closeConnection() {
+        // Closed once the responses written so far are flushed
+        channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * Discard the parked responses once the connection is closed.
+     */
+    public void clear() {
+        pendingWriters.clear();
+        pendingInterimWriters.clear();
+    }
+}
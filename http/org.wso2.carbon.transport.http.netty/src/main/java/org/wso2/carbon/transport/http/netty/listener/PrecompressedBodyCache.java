@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bodies of a listener's responses compressed already, keyed by the host and URI of their request, their strong ETag
+ * and content encoding, so that an identical large response is not compressed over and over again. An ETag is only
+ * meaningful for the resource it was issued for, hence responses of other resources never share a body. The least
+ * recently used bodies are evicted.
+ */
+public class PrecompressedBodyCache {
+
+    private final int maxBodySize;
+    private final Map<String, ByteBuf> bodies;
+
+    /**
+     * @param maxEntries  maximum number of cached bodies.
+     * @param maxBodySize size in bytes beyond which a compressed body is not cached.
+     */
+    public PrecompressedBodyCache(int maxEntries, int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        this.bodies = new LinkedHashMap<String, ByteBuf>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ByteBuf> eldest) {
+                if (size() > maxEntries) {
+                    eldest.getValue().release();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param target   lower-cased host and URI of the request, separated by a space.
+     * @param etag     strong ETag of the response.
+     * @param encoding content encoding, e.g. gzip.
+     * @return key of the compressed body.
+     */
+    static String key(String target, String etag, String encoding) {
+        return encoding + ' ' + etag + ' ' + target;
+    }
+
+    /**
+     * @param key key of the compressed body.
+     * @return a retained duplicate of the compressed body, or null if it is not cached.
+     */
+    synchronized ByteBuf get(String key) {
+        ByteBuf body = bodies.get(key);
+        return body == null ? null : body.retainedDuplicate();
+    }
+
+    /**
+     * @param key  key of the compressed body.
+     * @param body compressed body, which the cache takes over.
+     */
+    synchronized void put(String key, ByteBuf body) {
+        ByteBuf previous = bodies.put(key, body);
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Release all cached bodies.
+     */
+    public synchronized void clear() {
+        bodies.values().forEach(ByteBuf::release);
+        bodies.clear();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.handler.codec.http.HttpRequest;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classifies the requests of a listener into priority lanes by their path prefix or a header, falling back to the
+ * lane of the listener. Rules are evaluated in the order they are given and the first match wins.
+ */
+public class RequestClassifier {
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final int listenerLane;
+
+    /**
+     * @param priorityLanes lanes requests are classified into.
+     * @param rules         comma separated rules, each of which is either /path-prefix=lane or header-name:value=lane.
+     * @param listenerLane  name of the lane of requests which match no rule, null for the last lane.
+     */
+    public RequestClassifier(PriorityLanes priorityLanes, String rules, String listenerLane) {
+        this.listenerLane = listenerLane == null ? priorityLanes.getDefaultLane() : lane(priorityLanes, listenerLane);
+        if (rules == null || rules.trim().isEmpty()) {
+            return;
+        }
+        for (String rule : rules.split(",")) {
+            int separator = rule.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid priority rule: " + rule + ", expected matcher=lane");
+            }
+            String matcher = rule.substring(0, separator).trim();
+            int lane = lane(priorityLanes, rule.substring(separator + 1).trim());
+            if (matcher.startsWith("/")) {
+                this.rules.add(new Rule(null, matcher, lane));
+            } else {
+                int colon = matcher.indexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Invalid priority rule: " + rule
+                            + ", expected /path-prefix or header-name:value");
+                }
+                this.rules.add(new Rule(matcher.substring(0, colon).trim(), matcher.substring(colon + 1).trim(),
+                        lane));
+            }
+        }
+    }
+
+    private static int lane(PriorityLanes priorityLanes, String name) {
+        int lane = priorityLanes.indexOf(name);
+        if (lane < 0) {
+            throw new IllegalArgumentException("Unknown priority lane: " + name);
+        }
+        return lane;
+    }
+
+    /**
+     * @param request request to classify.
+     * @return index of the priority lane of the request.
+     */
+    public int classify(HttpRequest request) {
+        for (Rule rule : rules) {
+            if (rule.matches(request)) {
+                return rule.lane;
+            }
+        }
+        return listenerLane;
+    }
+
+    /**
+     * Matches a path prefix if it has no header name, or else the value of the header.
+     */
+    private static class Rule {
+
+        private final String headerName;
+        private final String value;
+        private final int lane;
+
+        Rule(String headerName, String value, int lane) {
+            this.headerName = headerName;
+            this.value = value;
+            this.lane = lane;
+        }
+
+        boolean matches(HttpRequest request) {
+            if (headerName == null) {
+                return request.uri().startsWith(value);
+            }
+            return request.headers().containsValue(headerName, value, true);
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.transport.http.netty.listener;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 
@@ -35,11 +36,11 @@ public class RequestDataHolder {
     private String httpMethod;
 
     public RequestDataHolder(HTTPCarbonMessage requestMessage) {
-        acceptEncodingHeader = requestMessage.getHeader(Constants.ACCEPT_ENCODING);
-        connectionHeader = requestMessage.getHeader(Constants.HTTP_CONNECTION);
-        contentTypeHeader = requestMessage.getHeader(Constants.HTTP_CONTENT_TYPE);
-        transferEncodingHeader = requestMessage.getHeader(Constants.HTTP_TRANSFER_ENCODING);
-        contentLengthHeader = requestMessage.getHeader(Constants.HTTP_CONTENT_LENGTH);
+        acceptEncodingHeader = requestMessage.getHeader(HttpHeaderNames.ACCEPT_ENCODING);
+        connectionHeader = requestMessage.getHeader(HttpHeaderNames.CONNECTION);
+        contentTypeHeader = requestMessage.getHeader(HttpHeaderNames.CONTENT_TYPE);
+        transferEncodingHeader = requestMessage.getHeader(HttpHeaderNames.TRANSFER_ENCODING);
+        contentLengthHeader = requestMessage.getHeader(HttpHeaderNames.CONTENT_LENGTH);
         httpMethod = (String) requestMessage.getProperty(Constants.HTTP_METHOD);
     }
 
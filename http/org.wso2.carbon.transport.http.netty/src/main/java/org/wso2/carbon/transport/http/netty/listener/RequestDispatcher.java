@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+import org.wso2.carbon.transport.http.netty.common.TransportThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches the requests of a listener to its {@code HttpConnectorListener} on a worker executor, so that blocking
+ * application logic does not stall the I/O threads.
+ * <p>
+ * The requests of an HTTP/1.x connection are run one after the other, in the order they were read, while the requests
+ * of different connections, and of different streams of an HTTP/2 connection, run in parallel. Once the number of
+ * dispatched requests which have not run yet exceeds the maximum queue depth, a connection which dispatches another
+ * request stops reading under {@link ReadSuspension#DISPATCH_QUEUE} until its own requests have run. The source
+ * handlers keep reading the body of a dispatched request regardless, as its handler may wait for it.
+ * <p>
+ * With priority lanes, requests tagged through {@link #prioritize(Runnable, int)} are run one at a time, and each
+ * worker which becomes free picks the next request among the lanes in proportion to their weights. Requests which are
+ * not tagged go to the last lane.
+ */
+public class RequestDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestDispatcher.class);
+
+    private final Executor executor;
+    private final int maxQueueDepth;
+    private final boolean ownedExecutor;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final PriorityLanes priorityLanes;
+    // Request queues with a request to run, per lane. Guarded by the selector
+    private final Queue<SerialQueue>[] laneQueues;
+    private final int[] laneDepths;
+    private final PriorityLanes.Selector selector;
+
+    /**
+     * @param executor      executor which runs the requests, e.g. a thread pool or a Disruptor backed executor. It is
+     *                      expected not to reject tasks, a connection whose requests are rejected is closed.
+     * @param maxQueueDepth number of requests waiting to run beyond which connections stop reading, 0 for no limit.
+     */
+    public RequestDispatcher(Executor executor, int maxQueueDepth) {
+        this(executor, maxQueueDepth, null, false);
+    }
+
+    /**
+     * @param executor      executor which runs the requests. It is expected not to reject tasks.
+     * @param maxQueueDepth number of requests waiting to run beyond which connections stop reading, 0 for no limit.
+     * @param priorityLanes lanes which share the executor by their weights, null to run requests in arrival order.
+     */
+    public RequestDispatcher(Executor executor, int maxQueueDepth, PriorityLanes priorityLanes) {
+        this(executor, maxQueueDepth, priorityLanes, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RequestDispatcher(Executor executor, int maxQueueDepth, PriorityLanes priorityLanes,
+            boolean ownedExecutor) {
+        this.executor = executor;
+        this.maxQueueDepth = maxQueueDepth;
+        this.ownedExecutor = ownedExecutor;
+        this.priorityLanes = priorityLanes;
+        if (priorityLanes != null) {
+            laneQueues = new Queue[priorityLanes.size()];
+            for (int i = 0; i < laneQueues.length; i++) {
+                laneQueues[i] = new ArrayDeque<>();
+            }
+            laneDepths = new int[priorityLanes.size()];
+            selector = priorityLanes.newSelector();
+        } else {
+            laneQueues = null;
+            laneDepths = null;
+            selector = null;
+        }
+    }
+
+    /**
+     * Create a dispatcher with a fixed size thread pool of its own, which is shut down along with the dispatcher.
+     *
+     * @param name          name of the thread group of the workers.
+     * @param threads       number of worker threads.
+     * @param maxQueueDepth number of requests waiting to run beyond which connections stop reading, 0 for no limit.
+     * @return the dispatcher.
+     */
+    public static RequestDispatcher newThreadPoolDispatcher(String name, int threads, int maxQueueDepth) {
+        return newThreadPoolDispatcher(name, threads, maxQueueDepth, null);
+    }
+
+    /**
+     * Create a dispatcher with a fixed size thread pool of its own, which is shared by the given priority lanes.
+     *
+     * @param name          name of the thread group of the workers.
+     * @param threads       number of worker threads.
+     * @param maxQueueDepth number of requests waiting to run beyond which connections stop reading, 0 for no limit.
+     * @param priorityLanes lanes which share the workers by their weights, null to run requests in arrival order.
+     * @return the dispatcher.
+     */
+    public static RequestDispatcher newThreadPoolDispatcher(String name, int threads, int maxQueueDepth,
+            PriorityLanes priorityLanes) {
+        ExecutorService threadPool = Executors.newFixedThreadPool(threads,
+                new TransportThreadFactory(new ThreadGroup(name)));
+        return new RequestDispatcher(threadPool, maxQueueDepth, priorityLanes, true);
+    }
+
+    /**
+     * Tag a request with its priority lane, before it is dispatched through a connection executor.
+     *
+     * @param request      request to run.
+     * @param priorityLane index of the priority lane of the request.
+     * @return the tagged request.
+     */
+    public static Runnable prioritize(Runnable request, int priorityLane) {
+        return new PrioritizedRequest(request, priorityLane);
+    }
+
+    /**
+     * Create the executor through which the requests of a connection are dispatched. It must be called from the
+     * event loop of the connection.
+     *
+     * @param channel source channel.
+     * @return executor which runs the requests of the connection in order.
+     */
+    public Executor newConnectionExecutor(Channel channel) {
+        return new ConnectionExecutor(channel, false);
+    }
+
+    /**
+     * Create the executor through which the requests of a multiplexed connection are dispatched. Each stream carries
+     * a single request, hence the requests run independently of each other, and a slow stream does not hold back the
+     * other streams of the connection. It must be called from the event loop of the connection.
+     *
+     * @param channel source channel.
+     * @return executor which runs the requests of the connection per stream.
+     */
+    public Executor newStreamExecutor(Channel channel) {
+        return new ConnectionExecutor(channel, true);
+    }
+
+    /**
+     * @return number of dispatched requests which have not run yet.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Stop the worker threads, if the executor was created by the dispatcher.
+     */
+    public void shutdown() {
+        if (ownedExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private void runNextLane() {
+        SerialQueue serialQueue;
+        synchronized (selector) {
+            int lane = selector.next(laneDepths);
+            if (lane < 0) {
+                return;
+            }
+            laneDepths[lane]--;
+            serialQueue = laneQueues[lane].poll();
+        }
+        serialQueue.run();
+    }
+
+    private int laneOf(Runnable request) {
+        if (request instanceof PrioritizedRequest) {
+            int lane = ((PrioritizedRequest) request).priorityLane;
+            if (lane >= 0 && lane < laneQueues.length) {
+                return lane;
+            }
+        }
+        return priorityLanes.getDefaultLane();
+    }
+
+    /**
+     * Request tagged with its priority lane.
+     */
+    private static class PrioritizedRequest implements Runnable {
+
+        private final Runnable request;
+        private final int priorityLane;
+
+        PrioritizedRequest(Runnable request, int priorityLane) {
+            this.request = request;
+            this.priorityLane = priorityLane;
+        }
+
+        @Override
+        public void run() {
+            request.run();
+        }
+    }
+
+    /**
+     * Dispatches the requests of a connection, and stops reading from it while the dispatched requests which have not
+     * run yet exceed the maximum queue depth.
+     */
+    private class ConnectionExecutor implements Executor {
+
+        private final Channel channel;
+        // Serial queue of all the requests of the connection, null if each request is run on a queue of its own
+        private final SerialQueue connectionQueue;
+        // Requests of the connection which have not run yet
+        private final AtomicInteger pendingRequests = new AtomicInteger();
+
+        ConnectionExecutor(Channel channel, boolean multiplexed) {
+            this.channel = channel;
+            this.connectionQueue = multiplexed ? null : new SerialQueue(this);
+        }
+
+        @Override
+        public void execute(Runnable request) {
+            pendingRequests.incrementAndGet();
+            // Suspended before the request is queued, so that it cannot run and resume reads ahead of the suspension
+            if (queueDepth.incrementAndGet() > maxQueueDepth && maxQueueDepth > 0) {
+                ReadSuspension.DISPATCH_QUEUE.suspend(channel);
+            }
+            SerialQueue queue = connectionQueue != null ? connectionQueue : new SerialQueue(this);
+            queue.add(request);
+        }
+
+        private void requestsDone(int count) {
+            queueDepth.addAndGet(-count);
+            if (pendingRequests.addAndGet(-count) == 0) {
+                channel.eventLoop().execute(this::resumeReads);
+            }
+        }
+
+        private void resumeReads() {
+            // Requests are dispatched from the event loop, hence none is dispatched while this runs
+            if (pendingRequests.get() == 0) {
+                ReadSuspension.DISPATCH_QUEUE.resume(channel);
+            }
+        }
+    }
+
+    /**
+     * Runs requests serially on the shared executor. Requests are queued from the event loop and the queue is drained
+     * by at most one worker at a time.
+     */
+    private class SerialQueue implements Runnable {
+
+        private final ConnectionExecutor connectionExecutor;
+        private final Queue<Runnable> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        SerialQueue(ConnectionExecutor connectionExecutor) {
+            this.connectionExecutor = connectionExecutor;
+        }
+
+        void add(Runnable request) {
+            requests.add(request);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            int lane = -1;
+            try {
+                if (laneQueues == null) {
+                    executor.execute(this);
+                } else {
+                    lane = laneOf(requests.peek());
+                    synchronized (selector) {
+                        laneQueues[lane].add(this);
+                        laneDepths[lane]++;
+                    }
+                    // Which queue the worker runs is decided by the time it is free
+                    executor.execute(RequestDispatcher.this::runNextLane);
+                }
+            } catch (RejectedExecutionException e) {
+                if (lane >= 0) {
+                    synchronized (selector) {
+                        if (laneQueues[lane].remove(this)) {
+                            laneDepths[lane]--;
+                        }
+                    }
+                }
+                scheduled.set(false);
+                int dropped = 0;
+                while (requests.poll() != null) {
+                    dropped++;
+                }
+                Channel channel = connectionExecutor.channel;
+                log.error("Dispatch executor rejected the requests of " + channel + ", hence closing it", e);
+                channel.close();
+                connectionExecutor.requestsDone(dropped);
+            }
+        }
+
+        @Override
+        public void run() {
+            // With priority lanes a single request is run per turn, so that the next one competes by its own lane
+            int batch = laneQueues == null ? Integer.MAX_VALUE : 1;
+            Runnable request;
+            while (batch-- > 0 && (request = requests.poll()) != null) {
+                try {
+                    request.run();
+                } catch (Exception e) {
+                    log.error("Error while dispatching a request", e);
+                } finally {
+                    connectionExecutor.requestsDone(1);
+                }
+            }
+            scheduled.set(false);
+            if (!requests.isEmpty()) {
+                // A request is left over from the turn, or was queued after the loop above but before the flag was
+                // cleared
+                schedule();
+            }
+        }
+    }
+}
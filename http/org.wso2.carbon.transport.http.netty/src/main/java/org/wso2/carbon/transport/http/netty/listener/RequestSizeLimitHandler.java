@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
+
+import java.nio.charset.Charset;
+
+/**
+ * Enforces the maximum request size while the request is streamed to the {@code SourceHandler}. The Content-Length
+ * header is checked as soon as the request head arrives, and the content is counted as chunks pass, hence an
+ * oversized request is rejected without buffering its content. The rejection is written in turn with the responses of
+ * the earlier requests on the connection.
+ */
+public class RequestSizeLimitHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestSizeLimitHandler.class);
+
+    private RequestSizeValidationConfiguration requestSizeValidationConfig;
+    private long receivedBytes;
+    private boolean rejected;
+
+    public RequestSizeLimitHandler(RequestSizeValidationConfiguration requestSizeValidationConfig) {
+        this.requestSizeValidationConfig = requestSizeValidationConfig;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (rejected) {
+            // Remaining content of a rejected request is discarded until the connection is closed
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        int maxSize = requestSizeValidationConfig.getRequestMaxSize();
+        if (msg instanceof HttpRequest) {
+            receivedBytes = 0;
+            if (getContentLength((HttpRequest) msg) > maxSize) {
+                ReferenceCountUtil.release(msg);
+                PipelinedResponseQueue responseQueue = ctx.channel().attr(Constants.PIPELINED_RESPONSE_QUEUE).get();
+                // Request is not passed on, hence it takes its turn here
+                reject(ctx, responseQueue, responseQueue != null ? responseQueue.nextRequestSequence() : -1);
+                return;
+            }
+        }
+        if (msg instanceof HttpContent) {
+            receivedBytes += ((HttpContent) msg).content().readableBytes();
+            if (receivedBytes > maxSize) {
+                ReferenceCountUtil.release(msg);
+                PipelinedResponseQueue responseQueue = ctx.channel().attr(Constants.PIPELINED_RESPONSE_QUEUE).get();
+                long sequence = -1;
+                if (!(msg instanceof HttpRequest)) {
+                    // The request is already dispatched, hence its content is terminated with a failed last content
+                    LastHttpContent lastHttpContent = new DefaultLastHttpContent();
+                    lastHttpContent.setDecoderResult(DecoderResult.failure(
+                            new TooLongFrameException("Request content exceeds " + maxSize + " bytes")));
+                    ctx.fireChannelRead(lastHttpContent);
+                    sequence = responseQueue != null ? responseQueue.lastRequestSequence() : -1;
+                } else if (responseQueue != null) {
+                    sequence = responseQueue.nextRequestSequence();
+                }
+                reject(ctx, responseQueue, sequence);
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private static long getContentLength(HttpRequest httpRequest) {
+        try {
+            return HttpUtil.getContentLength(httpRequest, -1L);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private void reject(ChannelHandlerContext ctx, PipelinedResponseQueue responseQueue, long sequence) {
+        log.warn("Message length validation failed");
+        rejected = true;
+
+        byte[] errorMessageBytes = requestSizeValidationConfig.getRequestRejectMessage()
+                .getBytes(Charset.defaultCharset());
+        ByteBuf content = Unpooled.wrappedBuffer(errorMessageBytes);
+        DefaultFullHttpResponse rejectResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf(requestSizeValidationConfig.getRequestRejectStatusCode()), content);
+        rejectResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, errorMessageBytes.length);
+        rejectResponse.headers().set(HttpHeaderNames.CONTENT_TYPE,
+                requestSizeValidationConfig.getRequestRejectMsgContentType());
+        rejectResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+
+        // The rest of the request is not read, hence the connection cannot be reused
+        Runnable rejectionWriter = () -> ctx.writeAndFlush(rejectResponse).addListener(ChannelFutureListener.CLOSE);
+        if (responseQueue != null) {
+            responseQueue.reject(sequence, rejectionWriter);
+        } else {
+            rejectionWriter.run();
+        }
+    }
+}
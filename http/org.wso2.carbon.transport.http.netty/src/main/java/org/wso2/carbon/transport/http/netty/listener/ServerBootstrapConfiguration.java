@@ -15,6 +15,7 @@
 
 package org.wso2.carbon.transport.http.netty.listener;
 
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
 
@@ -33,6 +34,16 @@ public class ServerBootstrapConfiguration {
 
     private int connectTimeOut, receiveBufferSize, sendBufferSize, soBackLog, socketTimeOut;
 
+    private int writeBufferHighWaterMark, writeBufferLowWaterMark;
+
+    private int flushConsolidationThreshold, responseCombineThreshold;
+
+    private int pipeliningLimit;
+
+    private int connectionMaxAge, connectionMaxRequests;
+
+    private boolean flushConsolidationWhenNoReadInProgress;
+
     private ServerBootstrapConfiguration(Map<String, Object> properties) {
 
         connectTimeOut = Util.getIntProperty(
@@ -57,6 +68,32 @@ public class ServerBootstrapConfiguration {
 
         socketTimeOut = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_SO_TIMEOUT, 15);
 
+        writeBufferHighWaterMark = Util.getIntProperty(properties,
+                Constants.SERVER_BOOTSTRAP_WRITE_BUFFER_HIGH_WATER_MARK,
+                Constants.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK);
+
+        writeBufferLowWaterMark = Util.getIntProperty(properties,
+                Constants.SERVER_BOOTSTRAP_WRITE_BUFFER_LOW_WATER_MARK,
+                Constants.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK);
+
+        flushConsolidationThreshold = Util.getIntProperty(properties,
+                Constants.SERVER_BOOTSTRAP_FLUSH_CONSOLIDATION_THRESHOLD,
+                Constants.DEFAULT_FLUSH_CONSOLIDATION_THRESHOLD);
+
+        flushConsolidationWhenNoReadInProgress = Util.getBooleanProperty(properties,
+                Constants.SERVER_BOOTSTRAP_FLUSH_CONSOLIDATION_WHEN_NO_READ, false);
+
+        responseCombineThreshold = Util.getIntProperty(properties,
+                Constants.SERVER_BOOTSTRAP_RESPONSE_COMBINE_THRESHOLD,
+                Constants.DEFAULT_RESPONSE_COMBINE_THRESHOLD);
+
+        pipeliningLimit = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_PIPELINING_LIMIT,
+                Constants.DEFAULT_PIPELINING_LIMIT);
+
+        connectionMaxAge = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_CONNECTION_MAX_AGE, 0);
+
+        connectionMaxRequests = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_CONNECTION_MAX_REQUESTS, 0);
+
     }
 
     public boolean isTcpNoDelay() {
@@ -95,6 +132,45 @@ public class ServerBootstrapConfiguration {
         return socketTimeOut;
     }
 
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getFlushConsolidationThreshold() {
+        return flushConsolidationThreshold;
+    }
+
+    public boolean isFlushConsolidationWhenNoReadInProgress() {
+        return flushConsolidationWhenNoReadInProgress;
+    }
+
+    public int getResponseCombineThreshold() {
+        return responseCombineThreshold;
+    }
+
+    public int getPipeliningLimit() {
+        return pipeliningLimit;
+    }
+
+    public int getConnectionMaxAge() {
+        return connectionMaxAge;
+    }
+
+    public int getConnectionMaxRequests() {
+        return connectionMaxRequests;
+    }
+
+    /**
+     * @return lifetime of a new listener connection, as per the configured maximum age and number of requests.
+     */
+    public ConnectionLifetime newConnectionLifetime() {
+        return new ConnectionLifetime(connectionMaxAge, connectionMaxRequests);
+    }
+
     /**
      * configTargetHandler transport level properties such as socket timeouts, tcp no delay
      *
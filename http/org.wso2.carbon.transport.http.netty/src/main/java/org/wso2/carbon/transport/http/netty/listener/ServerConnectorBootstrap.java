@@ -22,11 +22,18 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLHandlerFactory;
+import org.wso2.carbon.transport.http.netty.config.CompressionConfiguration;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
 import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
@@ -34,8 +41,17 @@ import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLog;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLogFormat;
+import org.wso2.carbon.transport.http.netty.listener.cache.ResponseCache;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import javax.net.ssl.SSLException;
 
 /**
  * {@code ServerConnectorBootstrap} is the heart of the HTTP Server Connector.
@@ -50,6 +66,7 @@ public class ServerConnectorBootstrap {
     private HTTPServerChannelInitializer httpServerChannelInitializer;
     private boolean initialized = false;
     private boolean isHttps = false;
+    private String domainSocketPath;
 
     public ServerConnectorBootstrap() {
         serverBootstrap = new ServerBootstrap();
@@ -66,23 +83,11 @@ public class ServerConnectorBootstrap {
             return null;
         }
 
-        ChannelFuture future = serverBootstrap
-                .bind(new InetSocketAddress(serverConnector.getHost(), serverConnector.getPort()));
+        SocketAddress bindAddress = domainSocketPath != null ? new DomainSocketAddress(domainSocketPath)
+                : new InetSocketAddress(serverConnector.getHost(), serverConnector.getPort());
+        ChannelFuture future = serverBootstrap.bind(bindAddress);
 
         return future;
-
-        // TODO: Fix this with HTTP2
-//            ListenerConfiguration listenerConfiguration = serverConnector.getListenerConfiguration();
-//            SslContext http2sslContext = null;
-//            // Create HTTP/2 ssl context during interface binding.
-//            if (listenerConfiguration.isHttp2() && listenerConfiguration.getSslConfig() != null) {
-//                http2sslContext = new SSLHandlerFactory(listenerConfiguration.getSslConfig())
-//                        .createHttp2TLSContext();
-//            }
-
-//            httpServerChannelInitializer.registerListenerConfig(listenerConfiguration, http2sslContext);
-//            httpServerChannelInitializer.setSslContext(http2sslContext);
-//            httpServerChannelInitializer.setServerConnectorFuture(serverConnector.getServerConnectorFuture());
     }
 
     public boolean unBindInterface(HTTPServerConnector serverConnector) throws InterruptedException {
@@ -96,8 +101,19 @@ public class ServerConnectorBootstrap {
         if (future != null) {
             ChannelFuture channelFuture = future.channel().close();
             channelFuture.sync();
-            log.info("HttpConnectorListener stopped listening on host " + serverConnector.getHost()
-                    + " and port " + serverConnector.getPort());
+            if (httpServerChannelInitializer.getRequestDispatcher() != null) {
+                httpServerChannelInitializer.getRequestDispatcher().shutdown();
+            }
+            if (httpServerChannelInitializer.getAccessLog() != null) {
+                httpServerChannelInitializer.getAccessLog().close();
+            }
+            if (httpServerChannelInitializer.getResponseCache() != null) {
+                httpServerChannelInitializer.getResponseCache().clear();
+            }
+            if (httpServerChannelInitializer.getPrecompressedBodyCache() != null) {
+                httpServerChannelInitializer.getPrecompressedBodyCache().clear();
+            }
+            log.info("HttpConnectorListener stopped listening on " + serverConnector.getBindAddressDescription());
             return true;
         }
         return false;
@@ -111,13 +127,18 @@ public class ServerConnectorBootstrap {
     public void addSocketConfiguration(ServerBootstrapConfiguration serverBootstrapConfiguration) {
         // Set other serverBootstrap parameters
         serverBootstrap.option(ChannelOption.SO_BACKLOG, serverBootstrapConfiguration.getSoBackLog());
-        serverBootstrap.childOption(ChannelOption.TCP_NODELAY, serverBootstrapConfiguration.isTcpNoDelay());
-        serverBootstrap.option(ChannelOption.SO_KEEPALIVE, serverBootstrapConfiguration.isKeepAlive());
+        if (domainSocketPath == null) {
+            serverBootstrap.childOption(ChannelOption.TCP_NODELAY, serverBootstrapConfiguration.isTcpNoDelay());
+            serverBootstrap.option(ChannelOption.SO_KEEPALIVE, serverBootstrapConfiguration.isKeepAlive());
+        }
         serverBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, serverBootstrapConfiguration.getConnectTimeOut());
         serverBootstrap.option(ChannelOption.SO_SNDBUF, serverBootstrapConfiguration.getSendBufferSize());
         serverBootstrap.option(ChannelOption.SO_RCVBUF, serverBootstrapConfiguration.getReceiveBufferSize());
         serverBootstrap.childOption(ChannelOption.SO_RCVBUF, serverBootstrapConfiguration.getReceiveBufferSize());
         serverBootstrap.childOption(ChannelOption.SO_SNDBUF, serverBootstrapConfiguration.getSendBufferSize());
+        serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(serverBootstrapConfiguration.getWriteBufferLowWaterMark(),
+                        serverBootstrapConfiguration.getWriteBufferHighWaterMark()));
 
         log.debug("Netty Server Socket BACKLOG " + serverBootstrapConfiguration.getSoBackLog());
         log.debug("Netty Server Socket TCP_NODELAY " + serverBootstrapConfiguration.isTcpNoDelay());
@@ -127,6 +148,10 @@ public class ServerConnectorBootstrap {
         log.debug("Netty Server Socket SO_RCVBUF " + serverBootstrapConfiguration.getReceiveBufferSize());
         log.debug("Netty Server Socket SO_RCVBUF " + serverBootstrapConfiguration.getReceiveBufferSize());
         log.debug("Netty Server Socket SO_SNDBUF " + serverBootstrapConfiguration.getSendBufferSize());
+        log.debug("Netty Server Socket WRITE_BUFFER_HIGH_WATER_MARK "
+                + serverBootstrapConfiguration.getWriteBufferHighWaterMark());
+        log.debug("Netty Server Socket WRITE_BUFFER_LOW_WATER_MARK "
+                + serverBootstrapConfiguration.getWriteBufferLowWaterMark());
     }
 
     public void addSecurity(SSLConfig sslConfig) {
@@ -144,10 +169,123 @@ public class ServerConnectorBootstrap {
         serverBootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class);
     }
 
+    /**
+     * Bind to a Unix domain socket instead of the host and port. The connections accepted on it go through the same
+     * pipeline as TCP connections.
+     *
+     * @param socketPath  path of the socket file
+     * @param bossGroup   epoll event loops accepting the connections
+     * @param workerGroup epoll event loops serving the accepted connections
+     */
+    public void addUnixDomainSocket(String socketPath, EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        domainSocketPath = socketPath;
+        serverBootstrap.group(bossGroup, workerGroup).channel(EpollServerDomainSocketChannel.class);
+    }
+
     public void addHttpTraceLogHandler(Boolean isHttpTraceLogEnabled) {
         httpServerChannelInitializer.setHttpTraceLogEnabled(isHttpTraceLogEnabled);
     }
 
+    public void addFlushConsolidation(int flushConsolidationThreshold, boolean whenNoReadInProgress) {
+        httpServerChannelInitializer.setFlushConsolidation(flushConsolidationThreshold, whenNoReadInProgress);
+    }
+
+    public void addHttp2Support(ListenerConfiguration listenerConfig) {
+        SSLConfig sslConfig = listenerConfig.getSslConfig();
+        if (!listenerConfig.isHttp2()) {
+            return;
+        }
+        if (sslConfig == null) {
+            // Cleartext HTTP/2 (h2c) by prior knowledge or upgrade
+            httpServerChannelInitializer.setHttp2Config(listenerConfig, null);
+            return;
+        }
+        try {
+            httpServerChannelInitializer.setHttp2Config(listenerConfig,
+                    new SSLHandlerFactory(sslConfig).createHttp2TLSContext());
+        } catch (SSLException e) {
+            throw new IllegalArgumentException("Failed to initialize the HTTP/2 SSL context", e);
+        }
+    }
+
+    /**
+     * Log the requests of the listener, if it has an access log path. The log is closed when the listener stops.
+     *
+     * @param listenerConfig configuration of the listener
+     */
+    public void addAccessLog(ListenerConfiguration listenerConfig) {
+        if (listenerConfig.getAccessLogPath() == null) {
+            return;
+        }
+        AccessLogFormat format = AccessLogFormat.COMMON;
+        if (listenerConfig.getAccessLogFormat() != null) {
+            format = AccessLogFormat.valueOf(listenerConfig.getAccessLogFormat().toUpperCase(Locale.ENGLISH));
+        }
+        try {
+            httpServerChannelInitializer.setAccessLog(new AccessLog(Paths.get(listenerConfig.getAccessLogPath()),
+                    format, Constants.DEFAULT_ACCESS_LOG_BUFFER_SIZE, Constants.DEFAULT_ACCESS_LOG_MAX_FILE_SIZE,
+                    Constants.DEFAULT_ACCESS_LOG_MAX_FILES));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to open the access log " + listenerConfig.getAccessLogPath(),
+                    e);
+        }
+    }
+
+    /**
+     * Serve the responses of hot endpoints of the listener from a micro-cache, if it has response cache paths.
+     *
+     * @param listenerConfig configuration of the listener
+     */
+    public void addResponseCache(ListenerConfiguration listenerConfig) {
+        if (listenerConfig.getResponseCachePaths() == null) {
+            return;
+        }
+        httpServerChannelInitializer.setResponseCache(new ResponseCache(listenerConfig.getResponseCachePaths(),
+                listenerConfig.getResponseCacheTtl(Constants.DEFAULT_RESPONSE_CACHE_TTL),
+                listenerConfig.getResponseCacheStaleTtl(),
+                listenerConfig.getResponseCacheMaxEntries(Constants.DEFAULT_RESPONSE_CACHE_MAX_ENTRIES),
+                Constants.RESPONSE_CACHE_MAX_BODY_SIZE));
+    }
+
+    /**
+     * Compress the responses of the listener according to its compression policy. Compressed bodies of responses with
+     * a strong ETag are cached, if the policy has a precompressed cache size.
+     *
+     * @param listenerConfig configuration of the listener
+     */
+    public void addCompression(ListenerConfiguration listenerConfig) {
+        CompressionConfiguration compressionConfig = listenerConfig.getCompressionConfig();
+        if (compressionConfig == null) {
+            return;
+        }
+        PrecompressedBodyCache precompressedBodyCache = null;
+        if (compressionConfig.getPrecompressedCacheSize() > 0) {
+            precompressedBodyCache = new PrecompressedBodyCache(compressionConfig.getPrecompressedCacheSize(),
+                    compressionConfig.getPrecompressedMaxSize());
+        }
+        httpServerChannelInitializer.setCompression(compressionConfig, precompressedBodyCache);
+    }
+
+    /**
+     * Dispatch the requests of the listener to its {@code HttpConnectorListener} off the I/O threads. The dispatcher
+     * is shut down when the listener stops.
+     *
+     * @param requestDispatcher dispatcher of the listener, null to notify the listener on the I/O threads
+     */
+    public void addRequestDispatcher(RequestDispatcher requestDispatcher) {
+        httpServerChannelInitializer.setRequestDispatcher(requestDispatcher);
+    }
+
+    /**
+     * Classify the requests of the listener into priority lanes, which are honoured by the request dispatcher and by
+     * the connection pools of client connectors.
+     *
+     * @param requestClassifier classifier of the listener, null if requests are not prioritized
+     */
+    public void addRequestClassifier(RequestClassifier requestClassifier) {
+        httpServerChannelInitializer.setRequestClassifier(requestClassifier);
+    }
+
     public void addHeaderAndEntitySizeValidation(RequestSizeValidationConfiguration requestSizeValidationConfig) {
         httpServerChannelInitializer.setRequestSizeValidationConfig(requestSizeValidationConfig);
     }
@@ -178,7 +316,7 @@ public class ServerConnectorBootstrap {
             serverConnectorFuture = new HttpWsServerConnectorFuture(channelFuture);
             channelFuture.addListener(channelFuture -> {
                 if (channelFuture.isSuccess()) {
-                    log.info("HTTP(S) Interface starting on host " + this.getHost() + " and port " + this.getPort());
+                    log.info("HTTP(S) Interface starting on " + getBindAddressDescription());
                     serverConnectorFuture.notifyPortBindingEvent(this.connectorID, isHttps);
                 } else {
                     serverConnectorFuture.notifyPortBindingError(channelFuture.cause());
@@ -228,5 +366,12 @@ public class ServerConnectorBootstrap {
         public int getPort() {
             return port;
         }
+
+        private String getBindAddressDescription() {
+            if (domainSocketPath != null) {
+                return "unix domain socket " + domainSocketPath;
+            }
+            return "host " + host + " and port " + port;
+        }
     }
 }
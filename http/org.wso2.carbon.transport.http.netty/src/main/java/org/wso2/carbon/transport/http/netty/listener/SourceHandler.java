@@ -21,19 +21,28 @@ package org.wso2.carbon.transport.http.netty.listener;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpMessage;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseListener;
@@ -46,6 +55,7 @@ import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * A Class responsible for handle  incoming message through netty inbound pipeline.
@@ -59,15 +69,58 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
     private ServerConnectorFuture serverConnectorFuture;
     private String interfaceId;
     private HandlerExecutor handlerExecutor;
+    private PipelinedResponseQueue responseQueue;
+    private ConnectionLifetime connectionLifetime;
+    // Set once a request finds the connection expired, the requests which follow it are not served
+    private boolean lastRequestReceived;
+    private RequestDispatcher requestDispatcher;
+    private Executor dispatchExecutor;
+    private RequestClassifier requestClassifier;
 
     public SourceHandler(ServerConnectorFuture serverConnectorFuture, String interfaceId) throws Exception {
+        this(serverConnectorFuture, interfaceId, null);
+    }
+
+    /**
+     * @param serverConnectorFuture future of the server connector
+     * @param interfaceId           id of the listener interface
+     * @param requestDispatcher     dispatches requests to the listener off the I/O thread, null to notify the
+     *                              listener on the I/O thread
+     */
+    public SourceHandler(ServerConnectorFuture serverConnectorFuture, String interfaceId,
+                         RequestDispatcher requestDispatcher) throws Exception {
+        this(serverConnectorFuture, interfaceId, requestDispatcher, null);
+    }
+
+    /**
+     * @param serverConnectorFuture future of the server connector
+     * @param interfaceId           id of the listener interface
+     * @param requestDispatcher     dispatches requests to the listener off the I/O thread, null to notify the
+     *                              listener on the I/O thread
+     * @param requestClassifier     classifies requests into priority lanes, null if requests are not prioritized
+     */
+    public SourceHandler(ServerConnectorFuture serverConnectorFuture, String interfaceId,
+                         RequestDispatcher requestDispatcher, RequestClassifier requestClassifier) throws Exception {
+        this.requestClassifier = requestClassifier;
         this.serverConnectorFuture = serverConnectorFuture;
         this.interfaceId = interfaceId;
+        this.requestDispatcher = requestDispatcher;
         this.targetChannelPool = new ConcurrentHashMap<>();
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        // Handler is added to an already active channel when HTTP/1.1 is negotiated through ALPN
+        this.ctx = ctx;
+        ServerBootstrapConfiguration serverBootstrapConfiguration = ServerBootstrapConfiguration.getInstance();
+        this.responseQueue = new PipelinedResponseQueue(ctx.channel(),
+                serverBootstrapConfiguration.getPipeliningLimit());
+        // Shared with the handlers ahead, which answer requests on their own
+        ctx.channel().attr(Constants.PIPELINED_RESPONSE_QUEUE).set(responseQueue);
+        this.connectionLifetime = serverBootstrapConfiguration.newConnectionLifetime();
+        if (requestDispatcher != null) {
+            this.dispatchExecutor = requestDispatcher.newConnectionExecutor(ctx.channel());
+        }
         super.handlerAdded(ctx);
     }
 
@@ -84,21 +137,38 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
     @SuppressWarnings("unchecked")
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (lastRequestReceived && msg instanceof HttpRequest) {
+            // Sent ahead by the client before it got the response which closes the connection
+            ReferenceCountUtil.release(msg);
+            sourceReqCmsg = null;
+            return;
+        }
 
         if (msg instanceof FullHttpMessage) {
             FullHttpMessage fullHttpMessage = (FullHttpMessage) msg;
             sourceReqCmsg = setupCarbonMessage(fullHttpMessage);
-            notifyRequestListener(sourceReqCmsg, ctx);
+            long sequence = responseQueue.nextRequestSequence();
+            retireIfExpired(sequence);
+            notifyRequestListener(sourceReqCmsg, ctx, sequence);
             ByteBuf content = ((FullHttpMessage) msg).content();
             sourceReqCmsg.addHttpContent(new DefaultLastHttpContent(content));
             if (handlerExecutor != null) {
                 handlerExecutor.executeAtSourceRequestSending(sourceReqCmsg);
             }
+            stopReadingIfRetired(ctx);
 
         } else if (msg instanceof HttpRequest) {
             HttpRequest httpRequest = (HttpRequest) msg;
             sourceReqCmsg = setupCarbonMessage(httpRequest);
-            notifyRequestListener(sourceReqCmsg, ctx);
+            long sequence = responseQueue.nextRequestSequence();
+            retireIfExpired(sequence);
+            if (HttpUtil.is100ContinueExpected(httpRequest) && !continueRequest(sourceReqCmsg, ctx, sequence)) {
+                // Content of the rejected request which is already read is discarded until the connection is closed
+                sourceReqCmsg = null;
+                return;
+            }
+            notifyRequestListener(sourceReqCmsg, ctx, sequence);
+            readBodyOfDispatchedRequest(ctx);
         } else {
             if (sourceReqCmsg != null) {
                 if (msg instanceof HttpContent) {
@@ -108,53 +178,137 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
                         if (handlerExecutor != null) {
                             handlerExecutor.executeAtSourceRequestSending(sourceReqCmsg);
                         }
+                        stopReadingIfRetired(ctx);
+                    } else {
+                        readBodyOfDispatchedRequest(ctx);
                     }
                 }
+            } else {
+                ReferenceCountUtil.release(msg);
             }
         }
     }
 
-    //Carbon Message is published to registered message processor and Message Processor should return transport thread
-    //immediately
-    private void notifyRequestListener(HTTPCarbonMessage httpRequestMsg, ChannelHandlerContext ctx)
+    /**
+     * Make the request the last one served on the connection if it finds the connection expired. Decided as the
+     * request is received, so that the requests received before it are answered in full, and the connection is
+     * closed once its response is written.
+     *
+     * @param sequence sequence of the request on the connection
+     */
+    private void retireIfExpired(long sequence) {
+        if (connectionLifetime.isExpired()) {
+            lastRequestReceived = true;
+            responseQueue.closeAfter(sequence);
+        }
+    }
+
+    /**
+     * Keep reading the body of a request while reads are suspended for the dispatch queue, as the request may be
+     * running already with its handler waiting for the body.
+     *
+     * @param ctx channel handler context
+     */
+    private void readBodyOfDispatchedRequest(ChannelHandlerContext ctx) {
+        if (dispatchExecutor != null && ReadSuspension.DISPATCH_QUEUE.isSuspending(ctx.channel())) {
+            ReadSuspension.DISPATCH_QUEUE.read(ctx.channel());
+        }
+    }
+
+    private void stopReadingIfRetired(ChannelHandlerContext ctx) {
+        if (lastRequestReceived) {
+            ReadSuspension.CONNECTION_EXPIRY.suspend(ctx.channel());
+        }
+    }
+
+    /**
+     * Decide on a request which expects 100-continue with its headers alone, so that the body of a rejected request
+     * is never sent by the client.
+     *
+     * @param httpRequestMsg request of which the body is not read yet
+     * @param ctx            channel handler context
+     * @param sequence       sequence of the request on the connection
+     * @return true if the client is asked to send the body
+     */
+    private boolean continueRequest(HTTPCarbonMessage httpRequestMsg, ChannelHandlerContext ctx, long sequence) {
+        HTTPCarbonMessage rejectResponse = null;
+        if (serverConnectorFuture != null) {
+            try {
+                rejectResponse = serverConnectorFuture.validateRequestContinuation(httpRequestMsg);
+            } catch (Exception e) {
+                log.error("Error while validating the request continuation", e);
+            }
+        }
+
+        if (rejectResponse == null) {
+            // Not ahead of the responses of earlier pipelined requests
+            responseQueue.scheduleInterim(sequence, () -> ctx.writeAndFlush(new DefaultFullHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER)));
+            // The expectation is met at this hop, hence it is not forwarded
+            httpRequestMsg.removeHeader(HttpHeaderNames.EXPECT);
+            return true;
+        }
+
+        // The body is left unread, hence the connection cannot be reused. It is retired as an expired one is, so that
+        // it is closed once the rejection is written, and nothing more is read from it
+        lastRequestReceived = true;
+        responseQueue.closeAfter(sequence);
+        rejectResponse.setHeader(HttpHeaderNames.CONNECTION, Constants.CONNECTION_CLOSE);
+        new HttpResponseListener(ctx, httpRequestMsg, responseQueue, sequence)
+                .onMessage(rejectResponse);
+        stopReadingIfRetired(ctx);
+        return false;
+    }
+
+    //Carbon Message is published to registered message processor on the dispatch executor if there is one, otherwise
+    //Message Processor should return transport thread immediately
+    private void notifyRequestListener(HTTPCarbonMessage httpRequestMsg, ChannelHandlerContext ctx, long sequence)
             throws URISyntaxException {
 
         if (handlerExecutor != null) {
             handlerExecutor.executeAtSourceRequestReceiving(httpRequestMsg);
         }
 
-//        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//
-//            continueRequest = HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-//                    .executeRequestContinuationValidator(httpRequestMsg, carbonMessage -> {
-//                        CarbonCallback responseCallback = (CarbonCallback) httpRequestMsg
-//                                .getProperty(org.wso2.carbon.messaging.Constants.CALL_BACK);
-//                        responseCallback.done(carbonMessage);
-//                    });
-//
-//        }
-
-        boolean continueRequest = true;
-        if (continueRequest) {
-            if (serverConnectorFuture != null) {
+        if (serverConnectorFuture != null) {
+            HttpResponseListener responseListener =
+                    new HttpResponseListener(ctx, httpRequestMsg, responseQueue, sequence);
+            Runnable notification = () -> {
                 try {
-                    ServerConnectorFuture serverConnectorFuture = httpRequestMsg.getHTTPConnectorFuture();
-                    serverConnectorFuture.setHttpConnectorListener(new HttpResponseListener(ctx, httpRequestMsg));
+                    httpRequestMsg.getHTTPConnectorFuture().setHttpConnectorListener(responseListener);
                     this.serverConnectorFuture.notifyHttpListener(httpRequestMsg);
                 } catch (Exception e) {
                     log.error("Error while notifying listeners", e);
                 }
+            };
+            Object priorityLane = httpRequestMsg.getProperty(Constants.PRIORITY_LANE);
+            if (dispatchExecutor != null && priorityLane instanceof Integer) {
+                dispatchExecutor.execute(RequestDispatcher.prioritize(notification, (Integer) priorityLane));
+            } else if (dispatchExecutor != null) {
+                dispatchExecutor.execute(notification);
             } else {
-                log.error("Cannot find registered listener to forward the message");
+                notification.run();
             }
+        } else {
+            log.error("Cannot find registered listener to forward the message");
         }
+    }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // Throttle the backend channel when the client is slower than the backend
+        Util.applyBackPressure(ctx.channel(), true);
+        super.channelWritabilityChanged(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         // Stop the connector timer
         ctx.close();
+        responseQueue.clear();
+        Channel targetChannel = ctx.channel().attr(Constants.BACK_PRESSURE_PEER_CHANNEL).get();
+        if (targetChannel != null) {
+            Util.decorrelateChannelsForBackPressure(targetChannel);
+        }
         if (handlerExecutor != null) {
             handlerExecutor.executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
             handlerExecutor = null;
@@ -192,15 +346,22 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
         }
 
         sourceReqCmsg = new HttpCarbonRequest((HttpRequest) httpMessage);
+        connectionLifetime.recordRequest();
 
         HttpRequest httpRequest = (HttpRequest) httpMessage;
         sourceReqCmsg.setProperty(Constants.CHNL_HNDLR_CTX, this.ctx);
         sourceReqCmsg.setProperty(Constants.SRC_HANDLER, this);
         sourceReqCmsg.setProperty(Constants.HTTP_VERSION, httpRequest.getProtocolVersion().text());
         sourceReqCmsg.setProperty(Constants.HTTP_METHOD, httpRequest.getMethod().name());
+        if (requestClassifier != null) {
+            sourceReqCmsg.setProperty(Constants.PRIORITY_LANE, requestClassifier.classify(httpRequest));
+        }
 
-        InetSocketAddress localAddress = (InetSocketAddress) ctx.channel().localAddress();
-        sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT, localAddress.getPort());
+        if (ctx.channel().localAddress() instanceof InetSocketAddress) {
+            // Not available on connections accepted on a Unix domain socket
+            InetSocketAddress localAddress = (InetSocketAddress) ctx.channel().localAddress();
+            sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT, localAddress.getPort());
+        }
         sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, interfaceId);
         sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.PROTOCOL, Constants.HTTP_SCHEME);
 
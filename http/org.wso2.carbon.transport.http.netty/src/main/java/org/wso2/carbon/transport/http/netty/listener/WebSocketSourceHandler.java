@@ -226,11 +226,12 @@ public class WebSocketSourceHandler extends SourceHandler {
         webSocketMessage.setSessionlID(channelSession.getId());
 
         webSocketMessage.setProperty(Constants.SRC_HANDLER, this);
-        webSocketMessage.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT,
-                                            ((InetSocketAddress) ctx.channel().localAddress()).getPort());
         webSocketMessage.setProperty(Constants.LOCAL_ADDRESS, ctx.channel().localAddress());
-        webSocketMessage.setProperty(
-                Constants.LOCAL_NAME, ((InetSocketAddress) ctx.channel().localAddress()).getHostName());
+        if (ctx.channel().localAddress() instanceof InetSocketAddress) {
+            InetSocketAddress localAddress = (InetSocketAddress) ctx.channel().localAddress();
+            webSocketMessage.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT, localAddress.getPort());
+            webSocketMessage.setProperty(Constants.LOCAL_NAME, localAddress.getHostName());
+        }
         return webSocketMessage;
     }
 
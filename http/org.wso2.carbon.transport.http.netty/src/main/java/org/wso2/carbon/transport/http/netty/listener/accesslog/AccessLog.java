@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log of a listener. Event loops record requests into a bounded lock-free ring buffer of preallocated records,
+ * which a background thread formats into a rotating file. When the writer falls behind, records are dropped and
+ * counted rather than blocking the event loops.
+ */
+public class AccessLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AccessLogRecord[] records;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    // Only written by the writer thread
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private long reportedDropped;
+
+    private final AccessLogFormat format;
+    private final Path path;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private Writer writer;
+    private long fileSize;
+
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * @param path        path of the log file.
+     * @param format      format of the lines.
+     * @param bufferSize  number of records buffered for the writer, rounded up to a power of two.
+     * @param maxFileSize size in bytes beyond which the file is rotated, 0 or less to never rotate.
+     * @param maxFiles    number of rotated files kept along with the current one.
+     * @throws IOException if the log file cannot be opened.
+     */
+    public AccessLog(Path path, AccessLogFormat format, int bufferSize, long maxFileSize, int maxFiles)
+            throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.records = new AccessLogRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            records[i] = new AccessLogRecord();
+        }
+        this.mask = capacity - 1;
+        this.format = format;
+        this.path = path;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        openFile();
+        this.writerThread = new Thread(this::writeRecords, "http-access-log-" + path.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Claim the record of a request to fill in. Must be followed by {@link #publish(AccessLogRecord)}.
+     *
+     * @return the record, or null if the buffer is full and the request is dropped from the log.
+     */
+    AccessLogRecord claim() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (closed || sequence - consumed >= records.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        AccessLogRecord record = records[(int) (sequence & mask)];
+        record.sequence = sequence;
+        return record;
+    }
+
+    /**
+     * Hand a filled in record over to the writer.
+     *
+     * @param record claimed record.
+     */
+    void publish(AccessLogRecord record) {
+        record.published = record.sequence;
+    }
+
+    /**
+     * @return number of records dropped since the log was opened, as the writer could not keep up.
+     */
+    public long getDroppedRecords() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write out the records published so far and close the file.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRecords() {
+        StringBuilder line = new StringBuilder(256);
+        try {
+            while (true) {
+                long sequence = consumed;
+                AccessLogRecord record = records[(int) (sequence & mask)];
+                if (record.published != sequence) {
+                    writer.flush();
+                    reportDropped();
+                    if (closed) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                line.setLength(0);
+                format.format(record, line);
+                line.append(System.lineSeparator());
+                record.clear();
+                consumed = sequence + 1;
+                write(line);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write the access log " + path + ", hence it is closed", e);
+            closed = true;
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("Failed to close the access log " + path, e);
+            }
+        }
+    }
+
+    private void write(CharSequence line) throws IOException {
+        int lineSize = utf8Length(line);
+        if (maxFileSize > 0 && fileSize + lineSize > maxFileSize && fileSize > 0) {
+            rotate();
+        }
+        writer.append(line);
+        fileSize += lineSize;
+    }
+
+    // Size of the line in the file, counted without encoding it a second time
+    private static int utf8Length(CharSequence line) {
+        int length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length()
+                    && Character.isLowSurrogate(line.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path rotated = rotatedPath(i);
+            if (Files.exists(rotated)) {
+                Files.move(rotated, rotatedPath(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(path, rotatedPath(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(path);
+        }
+        openFile();
+    }
+
+    private Path rotatedPath(int index) {
+        return Paths.get(path.toString() + "." + index);
+    }
+
+    private void openFile() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        fileSize = Files.size(path);
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total != reportedDropped) {
+            log.warn("Dropped {} records of the access log {}, as its writer could not keep up",
+                    total - reportedDropped, path);
+            reportedDropped = total;
+        }
+    }
+}
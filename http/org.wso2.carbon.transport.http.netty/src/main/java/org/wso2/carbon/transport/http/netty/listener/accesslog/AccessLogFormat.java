@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.accesslog;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats of the lines of an access log.
+ */
+public enum AccessLogFormat {
+
+    /**
+     * Common log format, i.e. remote host, time, request line, status and response bytes.
+     */
+    COMMON {
+        private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z",
+                Locale.ENGLISH).withZone(ZoneId.systemDefault());
+
+        @Override
+        void format(AccessLogRecord record, StringBuilder line) {
+            line.append(host(record.remoteAddress)).append(" - - [");
+            timeFormatter.formatTo(Instant.ofEpochMilli(record.startTime), line);
+            line.append("] \"").append(record.method).append(' ').append(record.uri).append(' ')
+                    .append(record.protocol).append("\" ").append(record.status).append(' ');
+            if (record.responseBytes > 0) {
+                line.append(record.responseBytes);
+            } else {
+                line.append('-');
+            }
+        }
+    },
+
+    /**
+     * One JSON object per line, which also holds the request bytes, the duration and the listener.
+     */
+    JSON {
+        @Override
+        void format(AccessLogRecord record, StringBuilder line) {
+            line.append("{\"time\":\"");
+            DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(record.startTime), line);
+            line.append("\",\"remote\":");
+            appendString(line, host(record.remoteAddress));
+            line.append(",\"method\":");
+            appendString(line, record.method);
+            line.append(",\"uri\":");
+            appendString(line, record.uri);
+            line.append(",\"protocol\":");
+            appendString(line, record.protocol);
+            line.append(",\"status\":").append(record.status)
+                    .append(",\"requestBytes\":").append(record.requestBytes)
+                    .append(",\"responseBytes\":").append(record.responseBytes)
+                    .append(",\"durationMicros\":").append(TimeUnit.NANOSECONDS.toMicros(record.durationNanos))
+                    .append(",\"listener\":");
+            appendString(line, record.listener);
+            line.append('}');
+        }
+
+        private void appendString(StringBuilder line, String value) {
+            if (value == null) {
+                line.append("null");
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 0x20) {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    };
+
+    /**
+     * Append the line of a record, without the line separator.
+     *
+     * @param record record to format.
+     * @param line   builder of the line.
+     */
+    abstract void format(AccessLogRecord record, StringBuilder line);
+
+    private static String host(SocketAddress remoteAddress) {
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getHostString();
+        }
+        // Clients of Unix domain sockets have no address
+        return "-";
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.accesslog;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Records the requests of a listener connection into an {@link AccessLog}, once their responses are written out. It
+ * sits next to the HTTP codec, so that response bodies are counted as they are sent, i.e. after compression.
+ * Pipelined requests are matched with their responses in order.
+ */
+public class AccessLogHandler extends ChannelDuplexHandler {
+
+    private final AccessLog accessLog;
+    private final String listener;
+    private final Queue<PendingRequest> pendingRequests = new ArrayDeque<>();
+    private PendingRequest reading;
+    private PendingRequest responding;
+
+    /**
+     * @param accessLog log of the listener.
+     * @param listener  id of the listener, e.g. its host and port.
+     */
+    public AccessLogHandler(AccessLog accessLog, String listener) {
+        this.accessLog = accessLog;
+        this.listener = listener;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            reading = new PendingRequest(request.method().name(), request.uri(), request.protocolVersion().text());
+            pendingRequests.add(reading);
+        }
+        if (msg instanceof HttpContent && reading != null) {
+            reading.requestBytes += ((HttpContent) msg).content().readableBytes();
+            if (msg instanceof LastHttpContent) {
+                reading = null;
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse) {
+            HttpResponse response = (HttpResponse) msg;
+            if (response.status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+                // An interim response, e.g. 100-continue, is not the response of the request
+                super.write(ctx, msg, promise);
+                return;
+            }
+            responding = pendingRequests.poll();
+            if (responding != null) {
+                responding.status = response.status().code();
+            }
+        }
+        if (msg instanceof HttpContent && responding != null) {
+            responding.responseBytes += ((HttpContent) msg).content().readableBytes();
+            if (msg instanceof LastHttpContent) {
+                PendingRequest completed = responding;
+                responding = null;
+                if (promise.isVoid()) {
+                    record(ctx.channel(), completed);
+                } else {
+                    promise.addListener(future -> record(ctx.channel(), completed));
+                }
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    /**
+     * Record a request which is answered by a handler ahead of this one, e.g. from the response cache, and hence
+     * never reaches this handler.
+     *
+     * @param channel       channel of the request.
+     * @param request       the request.
+     * @param status        status code of the response.
+     * @param responseBytes size of the response body.
+     * @param written       future of writing the response out.
+     */
+    public void recordAnswered(Channel channel, HttpRequest request, int status, long responseBytes,
+            ChannelFuture written) {
+        PendingRequest answered = new PendingRequest(request.method().name(), request.uri(),
+                request.protocolVersion().text());
+        answered.status = status;
+        answered.responseBytes = responseBytes;
+        written.addListener(future -> record(channel, answered));
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // Requests which were not responded to are not logged
+        pendingRequests.clear();
+        super.channelInactive(ctx);
+    }
+
+    private void record(Channel channel, PendingRequest request) {
+        AccessLogRecord record = accessLog.claim();
+        if (record == null) {
+            return;
+        }
+        record.startTime = request.startTime;
+        record.durationNanos = System.nanoTime() - request.startNanos;
+        record.status = request.status;
+        record.requestBytes = request.requestBytes;
+        record.responseBytes = request.responseBytes;
+        record.method = request.method;
+        record.uri = request.uri;
+        record.protocol = request.protocol;
+        record.remoteAddress = channel.remoteAddress();
+        record.listener = listener;
+        accessLog.publish(record);
+    }
+
+    /**
+     * Request whose response is not written out yet.
+     */
+    private static class PendingRequest {
+
+        private final String method;
+        private final String uri;
+        private final String protocol;
+        private final long startTime = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private long requestBytes;
+        private long responseBytes;
+        private int status;
+
+        PendingRequest(String method, String uri, String protocol) {
+            this.method = method;
+            this.uri = uri;
+            this.protocol = protocol;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.accesslog;
+
+import java.net.SocketAddress;
+
+/**
+ * Slot of the ring buffer of an {@link AccessLog}. Slots are allocated once and filled in place by the event loops,
+ * so that recording a request neither allocates nor formats anything on the I/O threads.
+ */
+final class AccessLogRecord {
+
+    // Sequence the slot is claimed for, and the sequence it was last published for
+    long sequence;
+    volatile long published = -1;
+
+    long startTime;
+    long durationNanos;
+    int status;
+    long requestBytes;
+    long responseBytes;
+    String method;
+    String uri;
+    String protocol;
+    SocketAddress remoteAddress;
+    String listener;
+
+    void clear() {
+        method = null;
+        uri = null;
+        protocol = null;
+        remoteAddress = null;
+        listener = null;
+    }
+}
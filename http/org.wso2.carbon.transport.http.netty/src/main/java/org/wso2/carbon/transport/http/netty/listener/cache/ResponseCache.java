@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.IllegalReferenceCountException;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-cache of the responses of a listener for a few hot endpoints. Responses are kept fully encoded in off-heap
+ * buffers for a short time, and hits are written straight from the event loop without going through the application.
+ * <p>
+ * Only GET requests under the configured path prefixes are served from the cache, keyed on their path and query, the
+ * accepted encodings and the request headers the response varies on. Only 200 responses which are neither private nor
+ * set cookies are stored, for the configured time to live or their max-age if shorter. Once an entry expires, it is
+ * still served for the stale-while-revalidate period while a single request refreshes it.
+ */
+public class ResponseCache {
+
+    private final String[] pathPrefixes;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final int maxEntries;
+    private final int maxBodySize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param pathPrefixes comma separated path prefixes of the cacheable endpoints.
+     * @param ttl          time to live of the responses in milliseconds.
+     * @param staleTtl     time in milliseconds an expired response is still served while it is refreshed.
+     * @param maxEntries   maximum number of cached responses.
+     * @param maxBodySize  maximum size of a cached response body in bytes.
+     */
+    public ResponseCache(String pathPrefixes, long ttl, long staleTtl, int maxEntries, int maxBodySize) {
+        this.pathPrefixes = pathPrefixes.trim().split("\\s*,\\s*");
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleTtl);
+        this.maxEntries = maxEntries;
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @param request request received by the listener.
+     * @return whether the response of the request may be served from or stored in the cache.
+     */
+    boolean isCacheable(HttpRequest request) {
+        if (request.method() != HttpMethod.GET || request.protocolVersion() != HttpVersion.HTTP_1_1
+                || !HttpUtil.isKeepAlive(request) || request.headers().contains(HttpHeaderNames.AUTHORIZATION)) {
+            return false;
+        }
+        String uri = request.uri();
+        for (String pathPrefix : pathPrefixes) {
+            if (uri.startsWith(pathPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param request cacheable request.
+     * @return key of the request in the cache.
+     */
+    String key(HttpRequest request) {
+        // Virtual hosts of a listener may answer the same path differently
+        String key = request.headers().get(HttpHeaderNames.HOST, "").toLowerCase(Locale.ENGLISH) + request.uri();
+        String acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        return acceptEncoding == null ? key : key + '\n' + acceptEncoding;
+    }
+
+    /**
+     * Look up the response of a request.
+     *
+     * @param key     key of the request.
+     * @param request the request.
+     * @return the response holding a retained duplicate of its encoded bytes to write, or null if the request has to
+     * go through the application, either because there is no fresh response or to refresh a stale one.
+     */
+    CachedResponse lookup(String key, HttpRequest request) {
+        if (request.headers().containsValue(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE, true)) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.matches(request)) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.expiry > staleNanos) {
+            remove(key, entry);
+            return null;
+        }
+        if (now - entry.expiry > 0 && entry.startRevalidation(now, ttlNanos)) {
+            // This request refreshes the entry, while others are still served the stale response
+            return null;
+        }
+        try {
+            return new CachedResponse(entry.encoded.retainedDuplicate(), entry.bodySize);
+        } catch (IllegalReferenceCountException e) {
+            // Evicted and released by another event loop in the meantime
+            return null;
+        }
+    }
+
+    /**
+     * @param response response of a cacheable request.
+     * @return time to live of the response in nanoseconds, or 0 if it must not be stored.
+     */
+    long timeToLive(HttpResponse response) {
+        HttpHeaders headers = response.headers();
+        if (!HttpResponseStatus.OK.equals(response.status()) || headers.contains(HttpHeaderNames.SET_COOKIE)
+                || !HttpUtil.isKeepAlive(response) || "*".equals(headers.get(HttpHeaderNames.VARY))) {
+            return 0;
+        }
+        long ttl = ttlNanos;
+        for (String directive : headers.getAll(HttpHeaderNames.CACHE_CONTROL)) {
+            for (String value : directive.split(",")) {
+                value = value.trim().toLowerCase(Locale.ENGLISH);
+                if (value.equals("no-store") || value.equals("no-cache") || value.equals("private")) {
+                    return 0;
+                }
+                if (value.startsWith("max-age=")) {
+                    try {
+                        ttl = Math.min(ttl, TimeUnit.SECONDS.toNanos(Long.parseLong(value.substring(8))));
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return ttl;
+    }
+
+    /**
+     * @return maximum size of a cached response body in bytes.
+     */
+    int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Encode and store a response.
+     *
+     * @param key      key of the request.
+     * @param request  the request.
+     * @param response full response to the request, which is released.
+     * @param ttl      time to live of the response in nanoseconds.
+     */
+    void store(String key, HttpRequest request, FullHttpResponse response, long ttl) {
+        if (!entries.containsKey(key) && entries.size() >= maxEntries && !evictExpired()) {
+            response.release();
+            return;
+        }
+        HttpUtil.setTransferEncodingChunked(response, false);
+        int bodySize = response.content().readableBytes();
+        HttpUtil.setContentLength(response, bodySize);
+        String[] varyNames = varyNames(response.headers().get(HttpHeaderNames.VARY));
+        String[] varyValues = new String[varyNames.length];
+        for (int i = 0; i < varyNames.length; i++) {
+            varyValues[i] = request.headers().get(varyNames[i]);
+        }
+
+        EmbeddedChannel encoder = new EmbeddedChannel(new HttpResponseEncoder());
+        encoder.writeOutbound(response);
+        ByteBuf encoded = Unpooled.directBuffer();
+        ByteBuf part;
+        while ((part = encoder.readOutbound()) != null) {
+            encoded.writeBytes(part);
+            part.release();
+        }
+        encoder.finishAndReleaseAll();
+
+        Entry previous = entries.put(key, new Entry(encoded, bodySize, System.nanoTime() + ttl, varyNames,
+                varyValues));
+        if (previous != null) {
+            previous.encoded.release();
+        }
+    }
+
+    /**
+     * Release all cached responses.
+     */
+    public void clear() {
+        entries.forEach(this::remove);
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            entry.encoded.release();
+        }
+    }
+
+    private boolean evictExpired() {
+        boolean evicted = false;
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> cached = iterator.next();
+            if (now - cached.getValue().expiry > staleNanos) {
+                remove(cached.getKey(), cached.getValue());
+                evicted = true;
+            }
+        }
+        return evicted;
+    }
+
+    private static String[] varyNames(String vary) {
+        if (vary == null || vary.trim().isEmpty()) {
+            return new String[0];
+        }
+        return vary.trim().split("\\s*,\\s*");
+    }
+
+    /**
+     * Encoded response along with the request header values it varies on.
+     */
+    private static class Entry {
+
+        private final ByteBuf encoded;
+        private final int bodySize;
+        private final long expiry;
+        private final String[] varyNames;
+        private final String[] varyValues;
+        private long revalidationStarted;
+        private boolean revalidating;
+
+        Entry(ByteBuf encoded, int bodySize, long expiry, String[] varyNames, String[] varyValues) {
+            this.encoded = encoded;
+            this.bodySize = bodySize;
+            this.expiry = expiry;
+            this.varyNames = varyNames;
+            this.varyValues = varyValues;
+        }
+
+        boolean matches(HttpRequest request) {
+            for (int i = 0; i < varyNames.length; i++) {
+                String value = request.headers().get(varyNames[i]);
+                if (value == null ? varyValues[i] != null : !value.equals(varyValues[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // A refresh which does not complete within a time to live, e.g. as the response was not cacheable, is retried
+        synchronized boolean startRevalidation(long now, long ttlNanos) {
+            if (revalidating && now - revalidationStarted < ttlNanos) {
+                return false;
+            }
+            revalidating = true;
+            revalidationStarted = now;
+            return true;
+        }
+    }
+
+    /**
+     * Response served from the cache.
+     */
+    static final class CachedResponse {
+
+        // Retained duplicate of the encoded response, released once it is written out
+        final ByteBuf encoded;
+        final int bodySize;
+
+        CachedResponse(ByteBuf encoded, int bodySize) {
+            this.encoded = encoded;
+            this.bodySize = bodySize;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.cache;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLogHandler;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Serves the requests of a listener connection from its {@link ResponseCache}, and stores the responses of cacheable
+ * requests which miss it. Hits are written as encoded bytes below the HTTP encoder, so they neither reach the
+ * application nor allocate carbon messages. They are recorded in the access log through the handler of the connection.
+ * <p>
+ * A hit is only served while no earlier request of the connection is waiting for or receiving its response, so that
+ * responses of pipelined requests stay in order.
+ */
+public class ResponseCacheHandler extends ChannelDuplexHandler {
+
+    // Marks a request in flight whose response is not stored
+    private static final Capture NOT_CACHED = new Capture(null, null);
+
+    private final ResponseCache responseCache;
+    private final AccessLogHandler accessLogHandler;
+    private final Queue<Capture> inFlight = new ArrayDeque<>();
+    private Capture capturing;
+    private boolean discardingContent;
+    private boolean interimResponse;
+    private boolean responding;
+
+    public ResponseCacheHandler(ResponseCache responseCache) {
+        this(responseCache, null);
+    }
+
+    /**
+     * @param responseCache    cache of the listener.
+     * @param accessLogHandler access log handler of the connection, which records the requests served from the
+     *                         cache, as they do not reach it. Null if the listener has no access log.
+     */
+    public ResponseCacheHandler(ResponseCache responseCache, AccessLogHandler accessLogHandler) {
+        this.responseCache = responseCache;
+        this.accessLogHandler = accessLogHandler;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (discardingContent && msg instanceof HttpContent) {
+            // Content of a request which was served from the cache
+            discardingContent = !(msg instanceof LastHttpContent);
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            if (responseCache.isCacheable(request)) {
+                String key = responseCache.key(request);
+                if (inFlight.isEmpty() && !responding && serveFromCache(ctx, key, request)) {
+                    discardingContent = !(msg instanceof LastHttpContent);
+                    ReferenceCountUtil.release(msg);
+                    return;
+                }
+                inFlight.add(new Capture(key, request));
+            } else {
+                inFlight.add(NOT_CACHED);
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    private boolean serveFromCache(ChannelHandlerContext ctx, String key, HttpRequest request) {
+        ChannelHandlerContext encoderCtx = ctx.pipeline().context(HttpResponseEncoder.class);
+        if (encoderCtx == null) {
+            return false;
+        }
+        ResponseCache.CachedResponse response = responseCache.lookup(key, request);
+        if (response == null) {
+            return false;
+        }
+        ChannelFuture written = encoderCtx.writeAndFlush(response.encoded);
+        if (accessLogHandler != null) {
+            accessLogHandler.recordAnswered(ctx.channel(), request, HttpResponseStatus.OK.code(), response.bodySize,
+                    written);
+        }
+        return true;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse) {
+            HttpResponse response = (HttpResponse) msg;
+            interimResponse = response.status().codeClass() == HttpStatusClass.INFORMATIONAL;
+            if (!interimResponse) {
+                responding = true;
+                startCapture(response);
+            }
+        }
+        if (msg instanceof HttpContent && !interimResponse) {
+            if (capturing != null) {
+                capture((HttpContent) msg);
+            }
+            if (msg instanceof LastHttpContent) {
+                responding = false;
+                completeCapture();
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    private void startCapture(HttpResponse response) {
+        Capture capture = inFlight.poll();
+        if (capture == null || capture == NOT_CACHED) {
+            return;
+        }
+        long ttl = responseCache.timeToLive(response);
+        if (ttl > 0) {
+            capture.start(response, ttl);
+            capturing = capture;
+        }
+    }
+
+    private void capture(HttpContent content) {
+        if (capturing.body.readableBytes() + content.content().readableBytes() > responseCache.getMaxBodySize()) {
+            capturing.body.release();
+            capturing = null;
+            return;
+        }
+        // Copied, since the content is released once it is written out
+        capturing.body.addComponent(true, Unpooled.copiedBuffer(content.content()));
+    }
+
+    private void completeCapture() {
+        if (capturing == null) {
+            return;
+        }
+        Capture capture = capturing;
+        capturing = null;
+        DefaultFullHttpResponse fullResponse = new DefaultFullHttpResponse(capture.response.protocolVersion(),
+                capture.response.status(), capture.body);
+        fullResponse.headers().set(capture.response.headers());
+        responseCache.store(capture.key, capture.request, fullResponse, capture.ttl);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (capturing != null) {
+            capturing.body.release();
+            capturing = null;
+        }
+        inFlight.clear();
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Cacheable request in flight, and its response while it is being written out.
+     */
+    private static class Capture {
+
+        private final String key;
+        private final HttpRequest request;
+        private HttpResponse response;
+        private CompositeByteBuf body;
+        private long ttl;
+
+        Capture(String key, HttpRequest request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        void start(HttpResponse response, long ttl) {
+            this.response = response;
+            this.ttl = ttl;
+            this.body = Unpooled.compositeBuffer();
+        }
+    }
+}
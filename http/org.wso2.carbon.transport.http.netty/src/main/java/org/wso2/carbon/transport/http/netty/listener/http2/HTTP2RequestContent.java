@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import org.wso2.carbon.transport.http.netty.message.FlowControlledContent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Content of a DATA frame of a request, which returns its bytes to the flow control window of the stream once the
+ * consumer of the request takes it.
+ */
+class HTTP2RequestContent extends DefaultHttpContent implements FlowControlledContent {
+
+    private final HTTP2SourceHandler sourceHandler;
+    private final int streamId;
+    private final int length;
+    private final AtomicBoolean consumed = new AtomicBoolean();
+
+    HTTP2RequestContent(ByteBuf content, HTTP2SourceHandler sourceHandler, int streamId) {
+        super(content);
+        this.sourceHandler = sourceHandler;
+        this.streamId = streamId;
+        this.length = content.readableBytes();
+    }
+
+    @Override
+    public void consumed() {
+        if (consumed.compareAndSet(false, true)) {
+            sourceHandler.consumeBytes(streamId, length);
+        }
+    }
+}
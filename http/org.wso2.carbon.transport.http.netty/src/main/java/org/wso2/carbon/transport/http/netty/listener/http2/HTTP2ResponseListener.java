@@ -0,0 +1,113 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.BatchedContentWriter;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+/**
+ * {@code HTTP2ResponseListener} writes the response of a request back on the stream the request was received on.
+ */
+public class HTTP2ResponseListener implements HttpConnectorListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2ResponseListener.class);
+
+    private HTTP2SourceHandler sourceHandler;
+    private ChannelHandlerContext ctx;
+    private int streamId;
+    private HandlerExecutor handlerExecutor;
+
+    public HTTP2ResponseListener(HTTP2SourceHandler sourceHandler, ChannelHandlerContext ctx, int streamId) {
+        this.sourceHandler = sourceHandler;
+        this.ctx = ctx;
+        this.streamId = streamId;
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+    }
+
+    @Override
+    public void onMessage(HTTPCarbonMessage httpResponseMessage) {
+        Util.prepareBuiltMessageForTransfer(httpResponseMessage);
+        Util.runOnEventLoop(ctx.channel().eventLoop(), () -> {
+            if (handlerExecutor != null) {
+                handlerExecutor.executeAtSourceResponseReceiving(httpResponseMessage);
+            }
+            HttpResponse response = Util.createHttpResponse(httpResponseMessage);
+            // Connection specific headers such as transfer-encoding are dropped in the conversion
+            Http2Headers http2Headers = HttpConversionUtil.toHttp2Headers(response, true);
+            sourceHandler.encoder().writeHeaders(ctx, streamId, http2Headers, 0, false, ctx.newPromise());
+            sourceHandler.closeIfExpired();
+
+            // Content is written to the stream in batches, with one flush per batch
+            BatchedContentWriter contentWriter = new BatchedContentWriter(new StreamContentSink(),
+                    ctx.channel().eventLoop(), future -> {
+                if (handlerExecutor != null) {
+                    handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
+                }
+            });
+            httpResponseMessage.getHttpContentAsync().setMessageListener(contentWriter::write);
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Couldn't send the response on stream " + streamId, throwable);
+    }
+
+    /**
+     * Writes the content of the response as DATA frames of the stream, and its trailing headers as a HEADERS frame.
+     */
+    private class StreamContentSink implements BatchedContentWriter.ContentSink {
+
+        @Override
+        public ChannelFuture write(HttpObject httpObject) {
+            HttpContent httpContent = (HttpContent) httpObject;
+            boolean endOfStream = Util.isLastHttpContent(httpContent);
+            HttpHeaders trailingHeaders = endOfStream ? ((LastHttpContent) httpContent).trailingHeaders() : null;
+            boolean hasTrailers = trailingHeaders != null && !trailingHeaders.isEmpty();
+            // The encoder releases the buffer it is given, the content itself is released through its wrapper
+            ChannelFuture future = sourceHandler.encoder().writeData(ctx, streamId, httpContent.content().retain(),
+                    0, endOfStream && !hasTrailers, ctx.newPromise());
+            httpContent.release();
+            if (hasTrailers) {
+                Http2Headers trailers = HttpConversionUtil.toHttp2Headers(trailingHeaders, true);
+                future = sourceHandler.encoder().writeHeaders(ctx, streamId, trailers, 0, true, ctx.newPromise());
+            }
+            return future;
+        }
+
+        @Override
+        public void flush() {
+            sourceHandler.flush(ctx);
+        }
+    }
+}
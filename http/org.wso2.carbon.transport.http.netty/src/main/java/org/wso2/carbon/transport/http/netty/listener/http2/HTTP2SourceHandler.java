@@ -20,14 +20,18 @@ package org.wso2.carbon.transport.http.netty.listener.http2;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
-import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
@@ -36,58 +40,95 @@ import io.netty.handler.codec.http2.Http2Flags;
 import io.netty.handler.codec.http2.Http2FrameListener;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Settings;
-import io.netty.util.AsciiString;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.PlatformDependent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.carbon.messaging.CarbonMessageProcessor;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.listener.RequestClassifier;
+import org.wso2.carbon.transport.http.netty.listener.RequestDispatcher;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
-import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
 
 import java.net.InetSocketAddress;
 import java.util.Map;
-
-import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import java.util.concurrent.Executor;
 
 /**
- * Class {@code HTTP2SourceHandler} will read the Http2 binary frames sent from client through the channel
- * and build carbon messages and sent to message processor.
+ * Class {@code HTTP2SourceHandler} will read the Http2 binary frames sent from client through the channel,
+ * build carbon messages per stream and notify the registered {@code HttpConnectorListener}.
  *
- * WE HAVE TO REVISIT THE ENTIRE IMPLEMENTATION INCLUDING THE COMMENTED CODE
+ * Request bodies are streamed into the carbon message as DATA frames arrive. The bytes of a DATA frame are returned to
+ * the flow control window as the consumer of the request takes its content, so that a client uploading faster than
+ * the request is read is throttled on its stream instead of having the whole body buffered. Padding is returned right
+ * away.
  */
 public final class HTTP2SourceHandler extends Http2ConnectionHandler implements Http2FrameListener {
 
     private static final Logger log = LoggerFactory.getLogger(HTTP2SourceHandler.class);
+    private static final int HTTP_UPGRADE_STREAM_ID = 1;
     /**
      * streamIdRequestMap contains mapping of http carbon messages to streamid to support multiplexing capability of.
      * http2 tcp connections
      */
     private Map<Integer, HTTPCarbonMessage> streamIdRequestMap = PlatformDependent.newConcurrentHashMap();
-    private ConnectionManager connectionManager;
+    private ServerConnectorFuture serverConnectorFuture;
+    private String interfaceId;
     private ListenerConfiguration listenerConfiguration;
+    private HandlerExecutor handlerExecutor;
     private ChannelHandlerContext ctx;
+    private ConnectionLifetime connectionLifetime;
+    private RequestDispatcher requestDispatcher;
+    private Executor dispatchExecutor;
+    private RequestClassifier requestClassifier;
 
     HTTP2SourceHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-                       Http2Settings initialSettings, ConnectionManager connectionManager, ListenerConfiguration
-                               listenerConfiguration) {
+                       Http2Settings initialSettings, ServerConnectorFuture serverConnectorFuture,
+                       String interfaceId, ListenerConfiguration listenerConfiguration,
+                       RequestDispatcher requestDispatcher, RequestClassifier requestClassifier) {
         super(decoder, encoder, initialSettings);
+        this.serverConnectorFuture = serverConnectorFuture;
+        this.interfaceId = interfaceId;
         this.listenerConfiguration = listenerConfiguration;
-        this.connectionManager = connectionManager;
+        this.requestDispatcher = requestDispatcher;
+        this.requestClassifier = requestClassifier;
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                streamIdRequestMap.remove(stream.id());
+            }
+        });
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         super.handlerAdded(ctx);
         this.ctx = ctx;
+        this.connectionLifetime = ServerBootstrapConfiguration.getInstance().newConnectionLifetime();
+        if (requestDispatcher != null) {
+            this.dispatchExecutor = requestDispatcher.newStreamExecutor(ctx.channel());
+        }
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtSourceConnectionInitiation(Integer.toString(ctx.hashCode()));
+        }
     }
 
     /**
-     * This method handles the cleartext HTTP upgrade event. If an upgrade occurred, sends a simple response via HTTP/2
-     * on stream 1 (the stream specifically reserved for cleartext HTTP upgrade).
+     * This method handles the cleartext HTTP upgrade event. If an upgrade occurred, the HTTP/1.1 request which carried
+     * the upgrade is dispatched as stream 1 (the stream specifically reserved for cleartext HTTP upgrade), and its
+     * response is sent via HTTP/2.
      *
      * @param ctx Channel context
      * @param evt Event
@@ -96,11 +137,18 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof HttpServerUpgradeHandler.UpgradeEvent) {
-            // Write an HTTP/2 response to the upgrade request
-            Http2Headers headers =
-                    new DefaultHttp2Headers().status(OK.codeAsText())
-                            .set(new AsciiString(Constants.UPGRADE_RESPONSE_HEADER), new AsciiString("true"));
-            encoder().writeHeaders(ctx, 1, headers, 0, true, ctx.newPromise());
+            FullHttpRequest upgradeRequest = ((HttpServerUpgradeHandler.UpgradeEvent) evt).upgradeRequest();
+            HTTPCarbonMessage cMsg = notifyRequestListener(HTTP_UPGRADE_STREAM_ID, toUpgradedRequest(upgradeRequest));
+            if (upgradeRequest.content().isReadable()) {
+                cMsg.addHttpContent(new DefaultHttpContent(upgradeRequest.content().retain()));
+            }
+            cMsg.addHttpContent(LastHttpContent.EMPTY_LAST_CONTENT);
+            if (handlerExecutor != null) {
+                handlerExecutor.executeAtSourceRequestSending(cMsg);
+            }
+        } else if (evt instanceof IdleStateEvent) {
+            ctx.close();
+            return;
         }
         super.userEventTriggered(ctx, evt);
     }
@@ -110,28 +158,68 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
             throws Http2Exception {
 
         HTTPCarbonMessage cMsg = streamIdRequestMap.get(streamId);
-        if (cMsg != null) {
-            cMsg.addHttpContent(new DefaultLastHttpContent(data.retain()));
-            if (endOfStream) {
-                cMsg.setEndOfMsgAdded(true);
-//                if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//                    HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestSending(cMsg);
-//                }
+        if (cMsg == null) {
+            return data.readableBytes() + padding;
+        }
+        if (data.isReadable()) {
+            cMsg.addHttpContent(new HTTP2RequestContent(data.retain(), this, streamId));
+        }
+        if (endOfStream) {
+            cMsg.addHttpContent(LastHttpContent.EMPTY_LAST_CONTENT);
+            if (handlerExecutor != null) {
+                handlerExecutor.executeAtSourceRequestSending(cMsg);
             }
+        } else {
+            readBodyOfDispatchedRequest();
         }
-        return data.readableBytes() + padding;
+        return padding;
+    }
+
+    /**
+     * Return the bytes of a DATA frame to the flow control window of the stream, once its content is consumed.
+     *
+     * @param streamId stream the bytes were received on.
+     * @param bytes    number of consumed bytes.
+     */
+    void consumeBytes(int streamId, int bytes) {
+        Util.runOnEventLoop(ctx.channel().eventLoop(), () -> returnBytesToWindow(streamId, bytes));
     }
 
+    private void returnBytesToWindow(int streamId, int bytes) {
+        // Closed streams have their unconsumed bytes returned to the connection window by the flow controller
+        Http2Stream stream = connection().stream(streamId);
+        if (stream == null) {
+            return;
+        }
+        try {
+            if (decoder().flowController().consumeBytes(stream, bytes)) {
+                flush(ctx);
+            }
+        } catch (Http2Exception e) {
+            onError(ctx, e);
+        }
+    }
 
     public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
                               Http2Headers headers, int padding, boolean endOfStream) throws Http2Exception {
 
-        HTTPCarbonMessage cMsg = publishToMessageProcessor(streamId, headers);
-        if (endOfStream) {
-            cMsg.setEndOfMsgAdded(true);
-//            if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//                HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestSending(cMsg);
-//            }
+        HTTPCarbonMessage cMsg = streamIdRequestMap.get(streamId);
+        if (cMsg != null) {
+            // Trailing headers of a request whose body is already being streamed
+            LastHttpContent lastHttpContent = new DefaultLastHttpContent();
+            HttpConversionUtil.addHttp2ToHttpHeaders(streamId, headers, lastHttpContent.trailingHeaders(),
+                    HttpVersion.HTTP_1_1, true, true);
+            cMsg.addHttpContent(lastHttpContent);
+        } else {
+            cMsg = notifyRequestListener(streamId, toHttpRequest(streamId, headers));
+            if (endOfStream) {
+                cMsg.addHttpContent(LastHttpContent.EMPTY_LAST_CONTENT);
+            } else {
+                readBodyOfDispatchedRequest();
+            }
+        }
+        if (endOfStream && handlerExecutor != null) {
+            handlerExecutor.executeAtSourceRequestSending(cMsg);
         }
     }
 
@@ -143,119 +231,151 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (Http2CodecUtil.getEmbeddedHttp2Exception(cause) != null) {
+            // Protocol errors are answered with RST_STREAM or GOAWAY by the connection handler
+            super.exceptionCaught(ctx, cause);
+            return;
+        }
         if (ctx != null && ctx.channel().isActive()) {
             ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
         }
+        serverConnectorFuture.notifyErrorListener(cause);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         // Stop the connector timer
         ctx.close();
-        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-            HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-                    .executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
+        streamIdRequestMap.clear();
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
+            handlerExecutor = null;
         }
-//        connectionManager.notifyChannelInactive();
+        super.channelInactive(ctx);
     }
 
-
     /**
      * Carbon Message is published to registered message processor and Message Processor should return transport.
      * thread immediately
      *
-     * @param streamId Stream id of HTTP2 request received
-     * @param headers  HTTP2 Headers
+     * @param streamId    Stream id of HTTP2 request received
+     * @param httpRequest HTTP request converted from the HTTP2 headers
      * @return HTTPCarbonMessage
      */
-    private HTTPCarbonMessage publishToMessageProcessor(int streamId, Http2Headers headers) {
-        HTTPCarbonMessage cMsg = setupCarbonMessage(streamId, headers);
-//        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//            HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestReceiving(cMsg);
-//        }
-
-        boolean continueRequest = true;
-
-//        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//
-//            continueRequest = HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-//                    .executeRequestContinuationValidator(cMsg, carbonMessage -> {
-//                        CarbonCallback responseCallback = (CarbonCallback) cMsg
-//                                .getProperty(org.wso2.carbon.messaging.Constants.CALL_BACK);
-//                        responseCallback.done(carbonMessage);
-//                    });
-//
-//        }
-        if (continueRequest) {
-            CarbonMessageProcessor carbonMessageProcessor = HTTPTransportContextHolder.getInstance()
-                    .getMessageProcessor(listenerConfiguration.getMessageProcessorId());
-            if (carbonMessageProcessor != null) {
+    private HTTPCarbonMessage notifyRequestListener(int streamId, HttpRequest httpRequest) {
+        HTTPCarbonMessage cMsg = setupCarbonMessage(streamId, httpRequest);
+        connectionLifetime.recordRequest();
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtSourceRequestReceiving(cMsg);
+        }
+
+        if (serverConnectorFuture != null) {
+            Runnable notification = () -> {
                 try {
-//                    carbonMessageProcessor.receive(cMsg, new HTTP2ResponseCallback(ctx, streamId));
+                    cMsg.getHTTPConnectorFuture()
+                            .setHttpConnectorListener(new HTTP2ResponseListener(this, ctx, streamId));
+                    serverConnectorFuture.notifyHttpListener(cMsg);
                 } catch (Exception e) {
-                    log.error("Error while submitting HTTPCarbonMessage to CarbonMessageProcessor", e);
+                    log.error("Error while notifying listeners", e);
                 }
+            };
+            Object priorityLane = cMsg.getProperty(Constants.PRIORITY_LANE);
+            if (dispatchExecutor != null && priorityLane instanceof Integer) {
+                dispatchExecutor.execute(RequestDispatcher.prioritize(notification, (Integer) priorityLane));
+            } else if (dispatchExecutor != null) {
+                // Streams run independently, so that a slow stream does not hold back the others
+                dispatchExecutor.execute(notification);
             } else {
-                log.error("Cannot find registered MessageProcessor for forward the message");
+                notification.run();
             }
+        } else {
+            log.error("Cannot find registered listener to forward the message");
         }
 
         return cMsg;
     }
 
+    /**
+     * Keep reading the body of a stream while reads are suspended for the dispatch queue, as the request of the stream
+     * may be running already with its handler waiting for the body.
+     */
+    private void readBodyOfDispatchedRequest() {
+        if (dispatchExecutor != null && ReadSuspension.DISPATCH_QUEUE.isSuspending(ctx.channel())) {
+            ReadSuspension.DISPATCH_QUEUE.read(ctx.channel());
+        }
+    }
+
     /**
      * Setup carbon message for HTTP2 request.
      *
-     * @param streamId Stream id of HTTP2 request received
-     * @param headers  HTTP2 Headers
+     * @param streamId    Stream id of HTTP2 request received
+     * @param httpRequest HTTP request converted from the HTTP2 headers
      * @return HTTPCarbonMessage
      */
-    protected HTTPCarbonMessage setupCarbonMessage(int streamId, Http2Headers headers) {
-
-        // Construct new HTTP carbon message and put into stream id request map
-        // TODO: This fix is temporary and we need to revisit this and the entire http2 implementation.
-        HTTPCarbonMessage cMsg = new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
-                HttpMethod.GET, ""));
-        cMsg.setProperty(Constants.PORT, ((InetSocketAddress) ctx.channel().remoteAddress()).getPort());
-        cMsg.setProperty(Constants.HOST, ((InetSocketAddress) ctx.channel().remoteAddress()).getHostName());
+    protected HTTPCarbonMessage setupCarbonMessage(int streamId, HttpRequest httpRequest) {
+        HTTPCarbonMessage cMsg = new HttpCarbonRequest(httpRequest);
+        cMsg.setProperty(Constants.CHNL_HNDLR_CTX, ctx);
         cMsg.setProperty(Constants.SCHEME, listenerConfiguration.getScheme());
         cMsg.setProperty(Constants.HTTP_VERSION, Constants.HTTP2_VERSION);
-        cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT,
-                ((InetSocketAddress) ctx.channel().localAddress()).getPort());
-        cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, listenerConfiguration.getId());
+        cMsg.setProperty(Constants.HTTP_METHOD, httpRequest.method().name());
+        cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, interfaceId);
         cMsg.setProperty(org.wso2.carbon.messaging.Constants.PROTOCOL, Constants.HTTP_SCHEME);
-        if (listenerConfiguration.getSslConfig() != null) {
-            cMsg.setProperty(Constants.IS_SECURED_CONNECTION, true);
-        } else {
-            cMsg.setProperty(Constants.IS_SECURED_CONNECTION, false);
-        }
+        cMsg.setProperty(Constants.IS_SECURED_CONNECTION, ctx.pipeline().get(Constants.SSL_HANDLER) != null);
         cMsg.setProperty(Constants.LOCAL_ADDRESS, ctx.channel().localAddress());
-        cMsg.setProperty(Constants.LOCAL_NAME, ((InetSocketAddress) ctx.channel().localAddress()).getHostName());
         cMsg.setProperty(Constants.REMOTE_ADDRESS, ctx.channel().remoteAddress());
-        cMsg.setProperty(Constants.REMOTE_HOST, ((InetSocketAddress) ctx.channel().remoteAddress()).getHostName());
-        cMsg.setProperty(Constants.REMOTE_PORT, ((InetSocketAddress) ctx.channel().remoteAddress()).getPort());
-        ChannelHandler handler = ctx.handler();
-        cMsg.setProperty(Constants.CHANNEL_ID, ((HTTP2SourceHandler) handler).getListenerConfiguration().getId());
-        cMsg.setProperty(Constants.STREAM_ID, streamId);
-        if (headers.path() != null) {
-            String path = headers.getAndRemove(Constants.HTTP2_PATH).toString();
-            cMsg.setProperty(Constants.TO, path);
-            cMsg.setProperty(Constants.REQUEST_URL, path);
+        if (ctx.channel().localAddress() instanceof InetSocketAddress) {
+            // Host and port properties are not available on connections accepted on a Unix domain socket
+            InetSocketAddress localAddress = (InetSocketAddress) ctx.channel().localAddress();
+            InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
+            cMsg.setProperty(Constants.PORT, remoteAddress.getPort());
+            cMsg.setProperty(Constants.HOST, remoteAddress.getHostName());
+            cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT, localAddress.getPort());
+            cMsg.setProperty(Constants.LOCAL_NAME, localAddress.getHostName());
+            cMsg.setProperty(Constants.REMOTE_HOST, remoteAddress.getHostName());
+            cMsg.setProperty(Constants.REMOTE_PORT, remoteAddress.getPort());
         }
-        if (headers.method() != null) {
-            String method = headers.getAndRemove(Constants.HTTP2_METHOD).toString();
-            cMsg.setProperty(Constants.HTTP_METHOD, method);
+        cMsg.setProperty(Constants.CHANNEL_ID, listenerConfiguration.getId());
+        cMsg.setProperty(Constants.STREAM_ID, streamId);
+        cMsg.setProperty(Constants.TO, httpRequest.uri());
+        cMsg.setProperty(Constants.REQUEST_URL, httpRequest.uri());
+        if (requestClassifier != null) {
+            cMsg.setProperty(Constants.PRIORITY_LANE, requestClassifier.classify(httpRequest));
         }
-        // Remove PseudoHeaderNames from headers
-        headers.getAndRemove(Constants.HTTP2_AUTHORITY);
-        headers.getAndRemove(Constants.HTTP2_SCHEME);
 
-        // Copy Http2 headers to carbon message
-        headers.forEach(k -> cMsg.setHeader(k.getKey().toString(), k.getValue().toString()));
         streamIdRequestMap.put(streamId, cMsg);
         return cMsg;
     }
 
+    private HttpRequest toHttpRequest(int streamId, Http2Headers headers) throws Http2Exception {
+        HttpRequest httpRequest = HttpConversionUtil.toHttpRequest(streamId, headers, true);
+        // Extension headers of the conversion must not leak to the backend when the request is passed through
+        httpRequest.headers().remove(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+        httpRequest.headers().remove(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text());
+        return httpRequest;
+    }
+
+    private HttpRequest toUpgradedRequest(FullHttpRequest upgradeRequest) {
+        HttpRequest httpRequest = new DefaultHttpRequest(upgradeRequest.protocolVersion(), upgradeRequest.method(),
+                upgradeRequest.uri());
+        httpRequest.headers().set(upgradeRequest.headers());
+        // Headers of the upgrade are specific to the HTTP/1.1 connection
+        httpRequest.headers().remove(HttpHeaderNames.UPGRADE);
+        httpRequest.headers().remove(HttpHeaderNames.CONNECTION);
+        httpRequest.headers().remove(Http2CodecUtil.HTTP_UPGRADE_SETTINGS_HEADER);
+        return httpRequest;
+    }
+
+    /**
+     * Shut the connection down gracefully once it exceeds its maximum age or number of requests. The GOAWAY makes the
+     * client open new streams on another connection, while the active streams of this connection complete.
+     */
+    void closeIfExpired() {
+        if (connectionLifetime.isExpired() && !connection().goAwaySent()) {
+            // Closed through the pipeline, so that the connection handler sends the GOAWAY
+            ctx.channel().close();
+        }
+    }
+
     @Override
     public void onPriorityRead(ChannelHandlerContext ctx, int streamId, int streamDependency,
                                short weight, boolean exclusive) {
@@ -263,6 +383,9 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
 
     @Override
     public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+        if (log.isDebugEnabled()) {
+            log.debug("Stream " + streamId + " reset by the client with error code " + errorCode);
+        }
     }
 
     @Override
@@ -313,4 +436,3 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     }
 
 }
-
@@ -19,26 +19,59 @@ package org.wso2.carbon.transport.http.netty.listener.http2;
 
 
 import io.netty.handler.codec.http2.AbstractHttp2ConnectionHandlerBuilder;
-import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2Settings;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
-import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.RequestClassifier;
+import org.wso2.carbon.transport.http.netty.listener.RequestDispatcher;
 
 /**
- * {@code HTTP2SourceHandlerBuilder} is used to build the http2 response handler with frame listener and connection
- * manager.
+ * {@code HTTP2SourceHandlerBuilder} is used to build the http2 source handler with frame listener and the
+ * SETTINGS of the listener.
  */
 public final class HTTP2SourceHandlerBuilder
         extends AbstractHttp2ConnectionHandlerBuilder<HTTP2SourceHandler, HTTP2SourceHandlerBuilder> {
 
-    private ConnectionManager connectionManager;
+    private ServerConnectorFuture serverConnectorFuture;
+    private String interfaceId;
     private ListenerConfiguration listenerConfiguration;
+    private RequestDispatcher requestDispatcher;
+    private RequestClassifier requestClassifier;
 
-    public HTTP2SourceHandlerBuilder(ConnectionManager connectionManager, ListenerConfiguration listenerConfiguration) {
+    public HTTP2SourceHandlerBuilder(ServerConnectorFuture serverConnectorFuture, String interfaceId,
+                                     ListenerConfiguration listenerConfiguration) {
+        this.serverConnectorFuture = serverConnectorFuture;
+        this.interfaceId = interfaceId;
         this.listenerConfiguration = listenerConfiguration;
-        this.connectionManager = connectionManager;
+        server(true);
+        Http2Settings settings = initialSettings();
+        if (listenerConfiguration.getHttp2MaxConcurrentStreams() > 0) {
+            settings.maxConcurrentStreams(listenerConfiguration.getHttp2MaxConcurrentStreams());
+        }
+        if (listenerConfiguration.getHttp2InitialWindowSize() > 0) {
+            settings.initialWindowSize(listenerConfiguration.getHttp2InitialWindowSize());
+        }
+    }
+
+    /**
+     * @param requestDispatcher dispatches requests to the listener off the I/O thread, null to notify the listener on
+     *                          the I/O thread.
+     * @return this builder.
+     */
+    public HTTP2SourceHandlerBuilder requestDispatcher(RequestDispatcher requestDispatcher) {
+        this.requestDispatcher = requestDispatcher;
+        return this;
+    }
+
+    /**
+     * @param requestClassifier classifies requests into priority lanes, null if requests are not prioritized.
+     * @return this builder.
+     */
+    public HTTP2SourceHandlerBuilder requestClassifier(RequestClassifier requestClassifier) {
+        this.requestClassifier = requestClassifier;
+        return this;
     }
 
     @Override
@@ -49,10 +82,9 @@ public final class HTTP2SourceHandlerBuilder
     @Override
     protected HTTP2SourceHandler build(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
                                        Http2Settings initialSettings) {
-        HTTP2SourceHandler handler = new HTTP2SourceHandler(decoder, encoder, initialSettings, connectionManager,
-                listenerConfiguration);
+        HTTP2SourceHandler handler = new HTTP2SourceHandler(decoder, encoder, initialSettings, serverConnectorFuture,
+                interfaceId, listenerConfiguration, requestDispatcher, requestClassifier);
         frameListener(handler);
-        connection(new DefaultHttp2Connection(true));
         return handler;
     }
 }
@@ -0,0 +1,114 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.util.AsciiString;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.listener.HTTPServerChannelInitializer;
+
+import java.util.List;
+
+/**
+ * {@code HTTPCleartextNegotiationHandler} enables HTTP/2 without TLS (h2c) on a listener. A connection which starts
+ * with the HTTP/2 connection preface is served with HTTP/2 straight away (prior knowledge). Any other connection gets
+ * the HTTP/1.1 pipeline, which can still be switched to HTTP/2 by a request carrying {@code Upgrade: h2c}.
+ */
+public class HTTPCleartextNegotiationHandler extends ByteToMessageDecoder {
+
+    private static final ByteBuf CONNECTION_PREFACE = Unpooled.unreleasableBuffer(
+            Http2CodecUtil.connectionPrefaceBuf());
+    /**
+     * Upper bound of the body of a request which carries an h2c upgrade, as it is aggregated before switching.
+     */
+    private static final int MAX_UPGRADE_CONTENT_LENGTH = 65536;
+
+    private HTTPServerChannelInitializer channelInitializer;
+    private ListenerConfiguration listenerConfiguration;
+
+    public HTTPCleartextNegotiationHandler(HTTPServerChannelInitializer channelInitializer,
+                                           ListenerConfiguration listenerConfiguration) {
+        this.channelInitializer = channelInitializer;
+        this.listenerConfiguration = listenerConfiguration;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int prefaceLength = CONNECTION_PREFACE.readableBytes();
+        int bytesToCompare = Math.min(in.readableBytes(), prefaceLength);
+
+        if (!ByteBufUtil.equals(CONNECTION_PREFACE, CONNECTION_PREFACE.readerIndex(), in, in.readerIndex(),
+                bytesToCompare)) {
+            configureHttp1Pipeline(ctx.pipeline());
+            // Bytes accumulated so far are handed over to the HTTP/1.1 decoder on removal
+            ctx.pipeline().remove(this);
+        } else if (bytesToCompare == prefaceLength) {
+            ctx.pipeline().replace(this, Constants.HTTP2_SOURCE_HANDLER, newHttp2SourceHandler());
+        }
+        // Otherwise wait for the rest of the connection preface
+    }
+
+    private void configureHttp1Pipeline(ChannelPipeline pipeline) {
+        pipeline.addLast("encoder", new HttpResponseEncoder());
+        channelInitializer.configureHTTPPipeline(pipeline);
+
+        HttpServerUpgradeHandler.UpgradeCodecFactory upgradeCodecFactory = protocol -> {
+            if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                return new Http2ServerUpgradeCodec(Constants.HTTP2_SOURCE_HANDLER, newHttp2SourceHandler());
+            }
+            return null;
+        };
+        pipeline.addAfter("decoder", Constants.HTTP2_UPGRADE_HANDLER,
+                new HttpServerUpgradeHandler(HTTPCleartextNegotiationHandler::removeHttp1Handlers,
+                        upgradeCodecFactory, MAX_UPGRADE_CONTENT_LENGTH));
+    }
+
+    /**
+     * Remove the HTTP/1.1 codec and the handlers behind the upgrade handler, once the switching response is written.
+     *
+     * @param upgradeHandlerCtx context of the upgrade handler, which removes itself after the upgrade
+     */
+    private static void removeHttp1Handlers(ChannelHandlerContext upgradeHandlerCtx) {
+        ChannelPipeline pipeline = upgradeHandlerCtx.pipeline();
+        ChannelHandler upgradeHandler = upgradeHandlerCtx.handler();
+        while (pipeline.last() != upgradeHandler) {
+            pipeline.removeLast();
+        }
+        pipeline.remove("decoder");
+        pipeline.remove("encoder");
+    }
+
+    private HTTP2SourceHandler newHttp2SourceHandler() {
+        return new HTTP2SourceHandlerBuilder(channelInitializer.getServerConnectorFuture(),
+                channelInitializer.getInterfaceId(), listenerConfiguration)
+                .requestDispatcher(channelInitializer.getRequestDispatcher())
+                .requestClassifier(channelInitializer.getRequestClassifier()).build();
+    }
+}
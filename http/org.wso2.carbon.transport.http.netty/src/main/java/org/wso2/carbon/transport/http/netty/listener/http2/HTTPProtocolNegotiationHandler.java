@@ -21,22 +21,12 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
-import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
-import io.netty.handler.stream.ChunkedWriteHandler;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
-import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
-import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
-import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
-import org.wso2.carbon.transport.http.netty.listener.CustomHttpObjectAggregator;
-import org.wso2.carbon.transport.http.netty.listener.CustomHttpRequestDecoder;
-import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
-import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.listener.HTTPServerChannelInitializer;
 
 /**
  * {@code HTTPProtocolNegotiationHandler}  negotiates with the client if HTTP2 or HTTP is going to be used. Once
@@ -44,17 +34,14 @@ import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManage
  */
 public class HTTPProtocolNegotiationHandler extends ApplicationProtocolNegotiationHandler {
 
-    private static final Logger log = LoggerFactory.getLogger(HTTPProtocolNegotiationHandler.class);
-    protected ConnectionManager connectionManager;
-    protected ListenerConfiguration listenerConfiguration;
-    protected RequestSizeValidationConfiguration requestSizeValidationConfig;
+    private HTTPServerChannelInitializer channelInitializer;
+    private ListenerConfiguration listenerConfiguration;
 
-    public HTTPProtocolNegotiationHandler(ConnectionManager connectionManager, ListenerConfiguration
-            listenerConfiguration) {
+    public HTTPProtocolNegotiationHandler(HTTPServerChannelInitializer channelInitializer,
+                                          ListenerConfiguration listenerConfiguration) {
         super(ApplicationProtocolNames.HTTP_1_1);
+        this.channelInitializer = channelInitializer;
         this.listenerConfiguration = listenerConfiguration;
-        this.connectionManager = connectionManager;
-        this.requestSizeValidationConfig = listenerConfiguration.getRequestSizeValidationConfig();
     }
 
     @Override
@@ -65,30 +52,17 @@ public class HTTPProtocolNegotiationHandler extends ApplicationProtocolNegotiati
         ChannelPipeline p = ctx.pipeline();
         // handles pipeline for HTTP/2 requests after SSL handshake
         if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
-            ctx.pipeline().addLast("http2-handler", new HTTP2SourceHandlerBuilder(connectionManager,
-                    listenerConfiguration).build());
+            p.addLast(Constants.HTTP2_SOURCE_HANDLER,
+                    new HTTP2SourceHandlerBuilder(channelInitializer.getServerConnectorFuture(),
+                            channelInitializer.getInterfaceId(), listenerConfiguration)
+                            .requestDispatcher(channelInitializer.getRequestDispatcher())
+                            .requestClassifier(channelInitializer.getRequestClassifier()).build());
             return;
         }
         // handles pipeline for HTTP/1 requests after SSL handshake
         if (ApplicationProtocolNames.HTTP_1_1.equals(protocol)) {
             p.addLast("encoder", new HttpResponseEncoder());
-            if (requestSizeValidationConfig.isHeaderSizeValidation()) {
-                p.addLast("decoder", new CustomHttpRequestDecoder(requestSizeValidationConfig));
-            } else {
-                p.addLast("decoder", new HttpRequestDecoder());
-            }
-            if (requestSizeValidationConfig.isRequestSizeValidation()) {
-                p.addLast("custom-aggregator", new CustomHttpObjectAggregator(requestSizeValidationConfig));
-            }
-            p.addLast("compressor", new HttpContentCompressor());
-            p.addLast("chunkWriter", new ChunkedWriteHandler());
-            try {
-                // TODO: Properly fix this part once we start HTTP2 integration
-                p.addLast("handler", new SourceHandler(
-                        new HttpWsServerConnectorFuture(null), null));
-            } catch (Exception e) {
-                log.error("Cannot Create SourceHandler ", e);
-            }
+            channelInitializer.configureHTTPPipeline(p);
             return;
         }
 
@@ -101,14 +75,4 @@ public class HTTPProtocolNegotiationHandler extends ApplicationProtocolNegotiati
             ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
         }
     }
-
-    @Override
-    public void channelActive(final ChannelHandlerContext ctx) throws Exception {
-        // Start the server connection Timer
-        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-            HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-                    .executeAtSourceConnectionInitiation(Integer.toString(ctx.hashCode()));
-        }
-    }
 }
-
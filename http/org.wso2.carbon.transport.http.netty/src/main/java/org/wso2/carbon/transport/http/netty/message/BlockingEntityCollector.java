@@ -47,6 +47,9 @@ public class BlockingEntityCollector implements EntityCollector {
     private AtomicBoolean endOfMsgAdded;
     private AtomicBoolean isConsumed;
     private BlockingQueue<HttpContent> httpContentQueue;
+    // Guards waiting for content to arrive while peeking; producers signal only when someone waits
+    private final Object contentArrival = new Object();
+    private volatile int prefixWaiters;
 
     public BlockingEntityCollector(int soTimeOut) {
         this.soTimeOut = soTimeOut;
@@ -60,6 +63,7 @@ public class BlockingEntityCollector implements EntityCollector {
         try {
             isConsumed.set(false);
             httpContentQueue.add(httpContent);
+            signalContentArrival();
         } catch (Exception e) {
             LOG.error("Cannot put content to queue", e);
         }
@@ -69,6 +73,7 @@ public class BlockingEntityCollector implements EntityCollector {
         try {
             if (!isConsumed.get() || !alreadyRead.get()) {
                 HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                notifyConsumed(httpContent);
 
                 if (httpContent instanceof LastHttpContent) {
                     isConsumed.set(true);
@@ -87,6 +92,27 @@ public class BlockingEntityCollector implements EntityCollector {
     public void addMessageBody(ByteBuffer msgBody) {
         isConsumed.set(false);
         httpContentQueue.add(new DefaultHttpContent(Unpooled.copiedBuffer(msgBody)));
+        signalContentArrival();
+    }
+
+    /**
+     * Let flow controlled content return its bytes to the window of its sender, as the content is taken by the
+     * consumer of the message.
+     *
+     * @param httpContent content taken from the message, may be null.
+     */
+    static void notifyConsumed(HttpContent httpContent) {
+        if (httpContent instanceof FlowControlledContent) {
+            ((FlowControlledContent) httpContent).consumed();
+        }
+    }
+
+    private void signalContentArrival() {
+        if (prefixWaiters > 0) {
+            synchronized (contentArrival) {
+                contentArrival.notifyAll();
+            }
+        }
     }
 
     public ByteBuf getMessageBody() {
@@ -112,6 +138,7 @@ public class BlockingEntityCollector implements EntityCollector {
                         break;
                     }
 
+                    notifyConsumed(httpContent);
                     if (httpContent instanceof LastHttpContent) {
                         isEndOfMessageProcessed = true;
                         isConsumed.set(true);
@@ -144,6 +171,7 @@ public class BlockingEntityCollector implements EntityCollector {
                         isEndOfMessageProcessed = true;
                         isConsumed.set(true);
                     }
+                    notifyConsumed(httpContent);
                     httpContent.release();
                 } catch (InterruptedException e) {
                     LOG.error("Error while getting full message body", e);
@@ -158,6 +186,8 @@ public class BlockingEntityCollector implements EntityCollector {
         while (!isEndOfMessageProcessed) {
             try {
                 HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                // The whole payload is held to measure it, hence its sender must not wait for it to be read
+                notifyConsumed(httpContent);
                 if ((httpContent instanceof LastHttpContent)) {
                     isEndOfMessageProcessed = true;
                 }
@@ -191,12 +221,68 @@ public class BlockingEntityCollector implements EntityCollector {
     public void setEndOfMsgAdded(boolean endOfMsgAdded) {
         this.endOfMsgAdded.compareAndSet(false, endOfMsgAdded);
         this.httpContentQueue.add(new DefaultLastHttpContent());
+        signalContentArrival();
     }
 
     public HttpContent peek() {
         return this.httpContentQueue.peek();
     }
 
+    public ByteBuffer peek(int maxBytes) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(soTimeOut);
+        synchronized (contentArrival) {
+            prefixWaiters++;
+            try {
+                while (!isPrefixAvailable(maxBytes)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        LOG.debug("Timed out while waiting for the first {} bytes of the entity", maxBytes);
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(contentArrival, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("Error while waiting for the first bytes of the entity", e);
+            } finally {
+                prefixWaiters--;
+            }
+        }
+        return copyPrefix(maxBytes);
+    }
+
+    private boolean isPrefixAvailable(int maxBytes) {
+        if (maxBytes == 0) {
+            return true;
+        }
+        int available = 0;
+        for (HttpContent httpContent : httpContentQueue) {
+            available += httpContent.content().readableBytes();
+            if (available >= maxBytes || httpContent instanceof LastHttpContent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ByteBuffer copyPrefix(int maxBytes) {
+        // Copied rather than sliced, since the queued buffers are released once they are written out
+        ByteBuffer prefix = ByteBuffer.allocate(maxBytes);
+        for (HttpContent httpContent : httpContentQueue) {
+            ByteBuf content = httpContent.content();
+            int length = Math.min(content.readableBytes(), prefix.remaining());
+            ByteBuffer chunk = prefix.duplicate();
+            chunk.limit(chunk.position() + length);
+            content.getBytes(content.readerIndex(), chunk);
+            prefix.position(prefix.position() + length);
+            if (!prefix.hasRemaining() || httpContent instanceof LastHttpContent) {
+                break;
+            }
+        }
+        prefix.flip();
+        return prefix.asReadOnlyBuffer();
+    }
+
     @Deprecated
     public synchronized void release() {
     }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.message;
+
+/**
+ * Publishes the body of a message to a {@link BodySubscriber} as demand is signalled.
+ * Mirrors the Reactive Streams Publisher contract so it can be adapted to java.util.concurrent.Flow.
+ */
+public interface BodyPublisher {
+
+    /**
+     * Subscribe to the body. A body can be consumed only once, hence only one subscriber is allowed.
+     * @param subscriber subscriber which receives the body.
+     */
+    void subscribe(BodySubscriber subscriber);
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the body of a message from a {@link BodyPublisher}.
+ * Mirrors the Reactive Streams Subscriber contract so it can be adapted to java.util.concurrent.Flow.
+ */
+public interface BodySubscriber {
+
+    /**
+     * Invoked once before any other signal. No data is delivered until demand is signalled on the subscription.
+     * @param subscription subscription used to request data or cancel.
+     */
+    void onSubscribe(BodySubscription subscription);
+
+    /**
+     * Invoked for each chunk of the body, never more times than the requested demand.
+     * @param byteBuffer chunk of the body.
+     */
+    void onNext(ByteBuffer byteBuffer);
+
+    /**
+     * Invoked when the body could not be read completely.
+     * @param throwable cause of the failure.
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Invoked when the entire body is delivered.
+     */
+    void onComplete();
+}
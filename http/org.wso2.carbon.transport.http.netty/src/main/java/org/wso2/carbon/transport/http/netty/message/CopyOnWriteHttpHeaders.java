@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headers of an outbound message, which are read from the headers of the carbon message it is created of until they
+ * are changed. The first change takes a copy of the headers, so that handlers which change the headers of the outbound
+ * message on its way out, e.g. the content compressor, do not change the headers of the carbon message.
+ * <p>
+ * Outbound messages are written on the event loop of their connection, hence the copy is not guarded.
+ */
+final class CopyOnWriteHttpHeaders extends HttpHeaders {
+
+    private HttpHeaders headers;
+    private boolean copied;
+
+    CopyOnWriteHttpHeaders(HttpHeaders headers) {
+        this.headers = headers;
+    }
+
+    private HttpHeaders writableHeaders() {
+        if (!copied) {
+            headers = headers.copy();
+            copied = true;
+        }
+        return headers;
+    }
+
+    @Override
+    public String get(String name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public String get(CharSequence name, String defaultValue) {
+        return headers.get(name, defaultValue);
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        return headers.getInt(name);
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        return headers.getInt(name, defaultValue);
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        return headers.getShort(name);
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        return headers.getShort(name, defaultValue);
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        return headers.getTimeMillis(name);
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        return headers.getTimeMillis(name, defaultValue);
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return headers.getAll(name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        return headers.getAll(name);
+    }
+
+    @Override
+    public List<Map.Entry<String, String>> entries() {
+        return headers.entries();
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return headers.contains(name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return headers.contains(name);
+    }
+
+    @Override
+    public boolean contains(String name, String value, boolean ignoreCase) {
+        return headers.contains(name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
+        return headers.contains(name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean containsValue(CharSequence name, CharSequence value, boolean ignoreCase) {
+        return headers.containsValue(name, value, ignoreCase);
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        return headers.iterator();
+    }
+
+    @Override
+    public Iterator<Map.Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        return headers.iteratorCharSequence();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headers.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return headers.size();
+    }
+
+    @Override
+    public Set<String> names() {
+        return headers.names();
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        writableHeaders().add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        writableHeaders().add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        writableHeaders().add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        writableHeaders().add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(HttpHeaders httpHeaders) {
+        if (httpHeaders == this) {
+            throw new IllegalArgumentException("can't add to itself.");
+        }
+        writableHeaders().add(httpHeaders);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        writableHeaders().addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        writableHeaders().addShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        writableHeaders().set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        writableHeaders().set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        writableHeaders().set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Iterable<?> values) {
+        writableHeaders().set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(HttpHeaders httpHeaders) {
+        if (httpHeaders != this) {
+            writableHeaders().set(httpHeaders);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setAll(HttpHeaders httpHeaders) {
+        if (httpHeaders != this) {
+            writableHeaders().setAll(httpHeaders);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        writableHeaders().setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        writableHeaders().setShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        if (headers.contains(name)) {
+            writableHeaders().remove(name);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        if (headers.contains(name)) {
+            writableHeaders().remove(name);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        // Nothing of the shared headers is kept, hence they are not copied
+        headers = new DefaultHttpHeaders();
+        copied = true;
+        return this;
+    }
+
+    @Override
+    public HttpHeaders copy() {
+        return headers.copy();
+    }
+}
@@ -114,4 +114,13 @@ public interface EntityCollector {
      * Peek the head of the queue
      */
     HttpContent peek();
+
+    /**
+     * Peek the first bytes of the entity without removing them from the queue. Waits until the given number of
+     * bytes or the end of the entity is received, hence it must not be called from the event loop which receives
+     * the entity.
+     * @param maxBytes maximum number of bytes to return
+     * @return read-only buffer holding the first bytes of the entity
+     */
+    ByteBuffer peek(int maxBytes);
 }
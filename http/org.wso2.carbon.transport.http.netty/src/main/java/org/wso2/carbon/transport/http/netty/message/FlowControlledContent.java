@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.message;
+
+/**
+ * Content whose bytes count against a flow control window of its sender, such as the DATA of an HTTP/2 stream.
+ *
+ * The message notifies the content once its consumer takes it from the message, be it through
+ * {@link HTTPCarbonMessage#getHttpContent()} or a listener of {@link HTTPCarbonMessage#getHttpContentAsync()}, so
+ * that the sender gets more credit only as fast as the consumer reads. The content may be notified more than once and
+ * must act on the first notification only.
+ */
+public interface FlowControlledContent {
+
+    /**
+     * Notified when the consumer of the message takes the content.
+     */
+    void consumed();
+}
@@ -19,9 +19,12 @@
 package org.wso2.carbon.transport.http.netty.message;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
@@ -30,6 +33,7 @@ import io.netty.handler.codec.http.HttpResponse;
 import org.wso2.carbon.messaging.MessageDataSource;
 import org.wso2.carbon.messaging.MessageUtil;
 import org.wso2.carbon.messaging.exceptions.MessagingException;
+import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
@@ -48,27 +52,22 @@ import java.util.stream.Collectors;
 public class HTTPCarbonMessage {
 
     protected HttpMessage httpMessage;
-    private EntityCollector blockingEntityCollector;
+    // Set once the headers are handed to an outbound message, which are then copied before they are changed
+    private volatile boolean headersShared;
+    // Created on first use, as is the server connector future, which only requests of listeners need
+    private volatile EntityCollector blockingEntityCollector;
+    // Guards the lazy creation, apart from the monitor of the message which the content methods hold while they wait
+    private final Object lazyInitLock = new Object();
     private Map<String, Object> properties = new HashMap<>();
 
     private MessagingException messagingException = null;
     private MessageDataSource messageDataSource;
-    private ServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+    private volatile ServerConnectorFuture serverConnectorFuture;
     private MessageFuture messageFuture;
+    private BodyPublisher bodyPublisher;
 
     public HTTPCarbonMessage(HttpMessage httpMessage) {
-        int soTimeOut = 60;
-        BootstrapConfiguration clientBootstrapConfig = BootstrapConfiguration.getInstance();
-        if (clientBootstrapConfig != null) {
-            soTimeOut = clientBootstrapConfig.getSocketTimeout();
-        } else {
-            ServerBootstrapConfiguration serverBootstrapConfiguration = ServerBootstrapConfiguration.getInstance();
-            if (serverBootstrapConfiguration != null) {
-                soTimeOut = serverBootstrapConfiguration.getSoTimeOut();
-            }
-        }
         this.httpMessage = httpMessage;
-        setBlockingEntityCollector(new BlockingEntityCollector(soTimeOut));
     }
 
     /**
@@ -80,7 +79,7 @@ public class HTTPCarbonMessage {
         if (this.messageFuture != null) {
             this.messageFuture.notifyMessageListener(httpContent);
         } else {
-            this.blockingEntityCollector.addHttpContent(httpContent);
+            getBlockingEntityCollector().addHttpContent(httpContent);
         }
     }
 
@@ -90,7 +89,7 @@ public class HTTPCarbonMessage {
      * @return HttpContent.
      */
     public HttpContent getHttpContent() {
-        return this.blockingEntityCollector.getHttpContent();
+        return getBlockingEntityCollector().getHttpContent();
     }
 
     public synchronized MessageFuture getHttpContentAsync() {
@@ -98,9 +97,31 @@ public class HTTPCarbonMessage {
         return this.messageFuture;
     }
 
+    /**
+     * Returns the body as a publisher of byte buffers. Content is read from the channel only as the subscriber
+     * signals demand, so arbitrarily large bodies can be consumed with bounded memory.
+     *
+     * @return publisher of the message body.
+     */
+    public synchronized BodyPublisher getBodyPublisher() {
+        if (this.bodyPublisher == null) {
+            this.bodyPublisher = new HttpBodyPublisher(this);
+        }
+        return this.bodyPublisher;
+    }
+
+    /**
+     * Use the given publisher as the source of the message body.
+     *
+     * @param publisher publisher of the message body.
+     */
+    public void setBodyPublisher(BodyPublisher publisher) {
+        publisher.subscribe(new HttpBodySubscriber(this));
+    }
+
     @Deprecated
     public ByteBuf getMessageBody() {
-        return blockingEntityCollector.getMessageBody();
+        return getBlockingEntityCollector().getMessageBody();
     }
 
     /**
@@ -109,7 +130,7 @@ public class HTTPCarbonMessage {
      * @return entire payload.
      */
     public List<ByteBuffer> getFullMessageBody() {
-        return blockingEntityCollector.getFullMessageBody();
+        return getBlockingEntityCollector().getFullMessageBody();
     }
 
     /**
@@ -118,7 +139,8 @@ public class HTTPCarbonMessage {
      * @return true or false.
      */
     public boolean isEmpty() {
-        return blockingEntityCollector.isEmpty();
+        EntityCollector entityCollector = blockingEntityCollector;
+        return entityCollector == null || entityCollector.isEmpty();
     }
 
     /**
@@ -126,34 +148,36 @@ public class HTTPCarbonMessage {
      * @return the length.
      */
     public int getFullMessageLength() {
-        return blockingEntityCollector.getFullMessageLength();
+        return getBlockingEntityCollector().getFullMessageLength();
     }
 
     @Deprecated
     public boolean isEndOfMsgAdded() {
-        return blockingEntityCollector.isEndOfMsgAdded();
+        EntityCollector entityCollector = blockingEntityCollector;
+        return entityCollector != null && entityCollector.isEndOfMsgAdded();
     }
 
     @Deprecated
     public void addMessageBody(ByteBuffer msgBody) {
-        blockingEntityCollector.addMessageBody(msgBody);
+        getBlockingEntityCollector().addMessageBody(msgBody);
     }
 
     private void markMessageEnd() {
-        blockingEntityCollector.markMessageEnd();
+        getBlockingEntityCollector().markMessageEnd();
     }
 
     @Deprecated
     public void setEndOfMsgAdded(boolean endOfMsgAdded) {
-        blockingEntityCollector.setEndOfMsgAdded(endOfMsgAdded);
+        getBlockingEntityCollector().setEndOfMsgAdded(endOfMsgAdded);
     }
 
     public boolean isAlreadyRead() {
-        return blockingEntityCollector.isAlreadyRead();
+        EntityCollector entityCollector = blockingEntityCollector;
+        return entityCollector != null && entityCollector.isAlreadyRead();
     }
 
     public void setAlreadyRead(boolean alreadyRead) {
-        blockingEntityCollector.setAlreadyRead(alreadyRead);
+        getBlockingEntityCollector().setAlreadyRead(alreadyRead);
     }
 
     /**
@@ -162,7 +186,38 @@ public class HTTPCarbonMessage {
      * @return all headers.
      */
     public HttpHeaders getHeaders() {
-        return this.httpMessage.headers();
+        return writableHeaders();
+    }
+
+    /**
+     * Hand the headers over to an outbound message without copying them. The message takes its own copy of the
+     * headers before they are changed afterwards, so that the changes do not leak into the outbound message. The
+     * outbound message in turn copies them before handlers on its way out change them, so that those changes do not
+     * leak into the message.
+     *
+     * @return headers for the outbound message, which read the headers of the message until they are changed.
+     */
+    public HttpHeaders shareHeaders() {
+        headersShared = true;
+        return new CopyOnWriteHttpHeaders(httpMessage.headers());
+    }
+
+    private HttpHeaders writableHeaders() {
+        if (headersShared) {
+            httpMessage = copyHttpMessage(httpMessage.headers().copy());
+            headersShared = false;
+        }
+        return httpMessage.headers();
+    }
+
+    private HttpMessage copyHttpMessage(HttpHeaders httpHeaders) {
+        if (httpMessage instanceof HttpRequest) {
+            HttpRequest httpRequest = (HttpRequest) httpMessage;
+            return new DefaultHttpRequest(httpRequest.protocolVersion(), httpRequest.method(), httpRequest.uri(),
+                    httpHeaders);
+        }
+        HttpResponse httpResponse = (HttpResponse) httpMessage;
+        return new DefaultHttpResponse(httpResponse.protocolVersion(), httpResponse.status(), httpHeaders);
     }
 
     /**
@@ -171,7 +226,7 @@ public class HTTPCarbonMessage {
      * @param key name of the header.
      * @return value of the header.
      */
-    public String getHeader(String key) {
+    public String getHeader(CharSequence key) {
         return httpMessage.headers().get(key);
     }
 
@@ -181,8 +236,8 @@ public class HTTPCarbonMessage {
      * @param key header name.
      * @param value header value.
      */
-    public void setHeader(String key, String value) {
-        this.httpMessage.headers().set(key, value);
+    public void setHeader(CharSequence key, String value) {
+        writableHeaders().set(key, value);
     }
 
     /**
@@ -191,7 +246,7 @@ public class HTTPCarbonMessage {
      * @param httpHeaders set of headers that needs to be set.
      */
     public void setHeaders(HttpHeaders httpHeaders) {
-        this.httpMessage.headers().setAll(httpHeaders);
+        writableHeaders().setAll(httpHeaders);
     }
 
     /**
@@ -199,8 +254,8 @@ public class HTTPCarbonMessage {
      *
      * @param key header name.
      */
-    public void removeHeader(String key) {
-        httpMessage.headers().remove(key);
+    public void removeHeader(CharSequence key) {
+        writableHeaders().remove(key);
     }
 
     public Object getProperty(String key) {
@@ -249,13 +304,12 @@ public class HTTPCarbonMessage {
         this.messagingException = messagingException;
     }
 
-    private void setBlockingEntityCollector(BlockingEntityCollector blockingEntityCollector) {
-        this.blockingEntityCollector = blockingEntityCollector;
-    }
-
     @Deprecated
     public void release() {
-        blockingEntityCollector.release();
+        EntityCollector entityCollector = blockingEntityCollector;
+        if (entityCollector != null) {
+            entityCollector.release();
+        }
     }
 
     /**
@@ -264,11 +318,20 @@ public class HTTPCarbonMessage {
      * @return serverConnectorFuture.
      */
     public ServerConnectorFuture getHTTPConnectorFuture() {
-        return this.serverConnectorFuture;
+        ServerConnectorFuture connectorFuture = serverConnectorFuture;
+        if (connectorFuture == null) {
+            synchronized (lazyInitLock) {
+                if (serverConnectorFuture == null) {
+                    serverConnectorFuture = new HttpWsServerConnectorFuture();
+                }
+                connectorFuture = serverConnectorFuture;
+            }
+        }
+        return connectorFuture;
     }
 
     public void respond(HTTPCarbonMessage httpCarbonMessage) throws ServerConnectorException {
-        serverConnectorFuture.notifyHttpListener(httpCarbonMessage);
+        getHTTPConnectorFuture().notifyHttpListener(httpCarbonMessage);
     }
 
     /**
@@ -287,30 +350,18 @@ public class HTTPCarbonMessage {
 
     private HTTPCarbonMessage getNewHttpCarbonMessage() {
         HttpMessage newHttpMessage;
-        HttpHeaders httpHeaders;
+        // Copied in bulk, without materializing the headers as string entries
+        HttpHeaders httpHeaders = this.httpMessage.headers().copy();
         if (this.httpMessage instanceof HttpRequest) {
             HttpRequest httpRequest = (HttpRequest) this.httpMessage;
             newHttpMessage = new DefaultHttpRequest(this.httpMessage.protocolVersion(),
-                    ((HttpRequest) this.httpMessage).method(), httpRequest.uri());
-
-            httpHeaders = new DefaultHttpHeaders();
-            List<Map.Entry<String, String>> headerList = this.httpMessage.headers().entries();
-            for (Map.Entry<String, String> entry : headerList) {
-                httpHeaders.set(entry.getKey(), entry.getValue());
-            }
+                    ((HttpRequest) this.httpMessage).method(), httpRequest.uri(), httpHeaders);
         } else {
             HttpResponse httpResponse = (HttpResponse) this.httpMessage;
-            newHttpMessage = new DefaultFullHttpResponse(this.httpMessage.protocolVersion(), httpResponse.status());
-
-            httpHeaders = new DefaultHttpHeaders();
-            List<Map.Entry<String, String>> headerList = this.httpMessage.headers().entries();
-            for (Map.Entry<String, String> entry : headerList) {
-                httpHeaders.set(entry.getKey(), entry.getValue());
-            }
+            newHttpMessage = new DefaultFullHttpResponse(this.httpMessage.protocolVersion(), httpResponse.status(),
+                    Unpooled.buffer(0), httpHeaders, new DefaultHttpHeaders());
         }
-        HTTPCarbonMessage httpCarbonMessage = new HTTPCarbonMessage(newHttpMessage);
-        httpCarbonMessage.setHeaders(httpHeaders);
-        return httpCarbonMessage;
+        return new HTTPCarbonMessage(newHttpMessage);
     }
 
     /**
@@ -343,7 +394,7 @@ public class HTTPCarbonMessage {
      * Before a set a new set of payload, we need remove the existing ones.
      */
     public void waitAndReleaseAllEntities() {
-        blockingEntityCollector.waitAndReleaseAllEntities();
+        getBlockingEntityCollector().waitAndReleaseAllEntities();
     }
 
     @Override
@@ -352,14 +403,60 @@ public class HTTPCarbonMessage {
     }
 
     public EntityCollector getBlockingEntityCollector() {
-        return blockingEntityCollector;
+        EntityCollector entityCollector = blockingEntityCollector;
+        if (entityCollector == null) {
+            synchronized (lazyInitLock) {
+                if (blockingEntityCollector == null) {
+                    blockingEntityCollector = new BlockingEntityCollector(getSoTimeOut());
+                }
+                entityCollector = blockingEntityCollector;
+            }
+        }
+        return entityCollector;
+    }
+
+    private static int getSoTimeOut() {
+        BootstrapConfiguration clientBootstrapConfig = BootstrapConfiguration.getInstance();
+        if (clientBootstrapConfig != null) {
+            return clientBootstrapConfig.getSocketTimeout();
+        }
+        ServerBootstrapConfiguration serverBootstrapConfiguration = ServerBootstrapConfiguration.getInstance();
+        if (serverBootstrapConfiguration != null) {
+            return serverBootstrapConfiguration.getSoTimeOut();
+        }
+        return 60;
     }
 
     /**
      * Peek the head of the queue
      */
     public HttpContent peek() {
-        return this.blockingEntityCollector.peek();
+        return getBlockingEntityCollector().peek();
+    }
+
+    /**
+     * Returns the first bytes of the payload without consuming them, so that a routing decision can be made on them
+     * while the entire payload is still streamed to its destination. Waits until the given number of bytes or the
+     * end of the payload is received, bounded by the socket timeout. Content must not have been consumed through
+     * {@link #getHttpContentAsync()} or {@link #getBodyPublisher()} when peeking.
+     * <p>
+     * The payload is received by the event loop of the connection, hence peeking must not be done from that event
+     * loop, e.g. from a listener which is notified without a dispatch executor. Peeking from the event loop fails
+     * rather than stalling the connection until the socket timeout.
+     *
+     * @param maxBytes maximum number of bytes to return.
+     * @return read-only buffer holding up to maxBytes of the payload.
+     * @throws IllegalStateException if called from the event loop of the connection of the message.
+     */
+    public ByteBuffer peek(int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Number of bytes to peek cannot be negative: " + maxBytes);
+        }
+        Object ctx = getProperty(Constants.CHNL_HNDLR_CTX);
+        if (ctx instanceof ChannelHandlerContext && ((ChannelHandlerContext) ctx).channel().eventLoop().inEventLoop()) {
+            throw new IllegalStateException("Cannot peek the payload from the event loop which receives it");
+        }
+        return getBlockingEntityCollector().peek(maxBytes);
     }
 
     public synchronized void removeHttpContentAsyncFuture() {
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+import org.wso2.carbon.transport.http.netty.common.Util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the content of a {@link HTTPCarbonMessage} according to subscriber demand.
+ *
+ * While subscribed, auto read is disabled on the channel the message arrives on and a read is issued only when
+ * the subscriber has outstanding demand and no buffered content, so at most one read worth of content is held in
+ * memory regardless of the body size.
+ */
+public class HttpBodyPublisher implements BodyPublisher {
+
+    private final HTTPCarbonMessage httpCarbonMessage;
+    private final Channel channel;
+    private final Queue<HttpContent> pendingContent = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger drainCount = new AtomicInteger();
+    private volatile BodySubscriber subscriber;
+    private volatile boolean lastContentReceived = false;
+    private volatile boolean done = false;
+
+    public HttpBodyPublisher(HTTPCarbonMessage httpCarbonMessage) {
+        this.httpCarbonMessage = httpCarbonMessage;
+        ChannelHandlerContext ctx = (ChannelHandlerContext) httpCarbonMessage.getProperty(Constants.CHNL_HNDLR_CTX);
+        this.channel = ctx != null ? ctx.channel() : null;
+    }
+
+    @Override
+    public void subscribe(BodySubscriber bodySubscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            bodySubscriber.onSubscribe(new BodySubscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            bodySubscriber.onError(new IllegalStateException("Message body is already subscribed"));
+            return;
+        }
+        this.subscriber = bodySubscriber;
+        if (channel != null) {
+            ReadSuspension.BODY_DEMAND.suspend(channel);
+        }
+        bodySubscriber.onSubscribe(new HttpBodySubscription());
+        httpCarbonMessage.getHttpContentAsync().setMessageListener(this::onContent);
+    }
+
+    private void onContent(HttpContent httpContent) {
+        if (done) {
+            httpContent.release();
+            return;
+        }
+        if (Util.isLastHttpContent(httpContent)) {
+            lastContentReceived = true;
+        }
+        pendingContent.add(httpContent);
+        drain();
+    }
+
+    private void drain() {
+        if (drainCount.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!done) {
+                HttpContent httpContent = pendingContent.peek();
+                // Content without data, such as an empty last content, does not need demand
+                if (httpContent == null || (demand.get() == 0 && httpContent.content().isReadable())) {
+                    break;
+                }
+                emit(pendingContent.poll());
+            }
+            if (done) {
+                releasePendingContent();
+            }
+            missed = drainCount.addAndGet(-missed);
+        } while (missed != 0);
+
+        if (!done && !lastContentReceived && demand.get() > 0 && pendingContent.isEmpty() && channel != null) {
+            ReadSuspension.BODY_DEMAND.read(channel);
+        }
+    }
+
+    private void emit(HttpContent httpContent) {
+        ByteBuf content = httpContent.content();
+        try {
+            if (content.isReadable()) {
+                ByteBuffer byteBuffer = ByteBuffer.allocate(content.readableBytes());
+                content.readBytes(byteBuffer);
+                byteBuffer.flip();
+                demand.decrementAndGet();
+                subscriber.onNext(byteBuffer);
+            }
+        } finally {
+            httpContent.release();
+        }
+        if (Util.isLastHttpContent(httpContent)) {
+            finish(true);
+            subscriber.onComplete();
+        }
+    }
+
+    private void finish(boolean contentConsumed) {
+        done = true;
+        if (contentConsumed) {
+            httpCarbonMessage.removeHttpContentAsyncFuture();
+        }
+        // Otherwise the listener stays registered to release the content that is still arriving
+        if (channel != null) {
+            ReadSuspension.BODY_DEMAND.resume(channel);
+        }
+    }
+
+    private void releasePendingContent() {
+        HttpContent httpContent;
+        while ((httpContent = pendingContent.poll()) != null) {
+            httpContent.release();
+        }
+    }
+
+    private class HttpBodySubscription implements BodySubscription {
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                finish(false);
+                subscriber.onError(new IllegalArgumentException("Requested demand must be positive, but was " + n));
+                drain();
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = demand.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, updated));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!done) {
+                finish(false);
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.messaging.exceptions.MessagingException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Subscribes to a {@link BodyPublisher} and feeds the received chunks into a {@link HTTPCarbonMessage}.
+ * Chunks are requested one at a time so the publisher is never asked for more than has been handed over.
+ */
+public class HttpBodySubscriber implements BodySubscriber {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpBodySubscriber.class);
+
+    private final HTTPCarbonMessage httpCarbonMessage;
+    private BodySubscription subscription;
+
+    public HttpBodySubscriber(HTTPCarbonMessage httpCarbonMessage) {
+        this.httpCarbonMessage = httpCarbonMessage;
+    }
+
+    @Override
+    public void onSubscribe(BodySubscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer byteBuffer) {
+        httpCarbonMessage.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(byteBuffer)));
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        LOG.error("Error while reading the message body from the publisher", throwable);
+        httpCarbonMessage.setMessagingException(
+                new MessagingException("Error while reading the message body from the publisher", throwable, 101500));
+        httpCarbonMessage.addHttpContent(new DefaultLastHttpContent());
+    }
+
+    @Override
+    public void onComplete() {
+        httpCarbonMessage.addHttpContent(new DefaultLastHttpContent());
+    }
+}
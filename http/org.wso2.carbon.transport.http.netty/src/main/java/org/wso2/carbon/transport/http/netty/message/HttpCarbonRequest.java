@@ -27,22 +27,19 @@ import io.netty.handler.codec.http.HttpVersion;
  */
 public class HttpCarbonRequest extends HTTPCarbonMessage {
 
-    private HttpRequest httpRequest;
-
     public HttpCarbonRequest(HttpRequest httpRequest) {
         super(httpRequest);
-        this.httpRequest = (HttpRequest) this.httpMessage;
     }
 
     public void setHttpVersion(HttpVersion httpVersion) {
-        this.httpRequest.setProtocolVersion(httpVersion);
+        ((HttpRequest) this.httpMessage).setProtocolVersion(httpVersion);
     }
 
     public void setHttpMethod(HttpMethod httpMethod) {
-        this.httpRequest.setMethod(httpMethod);
+        ((HttpRequest) this.httpMessage).setMethod(httpMethod);
     }
 
     public void setUri(String uri) {
-        this.httpRequest.setUri(uri);
+        ((HttpRequest) this.httpMessage).setUri(uri);
     }
 }
@@ -26,14 +26,11 @@ import io.netty.handler.codec.http.HttpResponseStatus;
  */
 public class HttpCarbonResponse extends HTTPCarbonMessage {
 
-    private HttpResponse httpResponse;
-
     public HttpCarbonResponse(HttpResponse httpResponse) {
         super(httpResponse);
-        this.httpResponse = (HttpResponse) this.httpMessage;
     }
 
     public void setStatus(HttpResponseStatus httpResponseStatus) {
-        this.httpResponse.setStatus(httpResponseStatus);
+        ((HttpResponse) this.httpMessage).setStatus(httpResponseStatus);
     }
 }
@@ -53,6 +53,7 @@ public class MessageFuture {
 
     public synchronized void notifyMessageListener(HttpContent httpContent) {
         if (this.messageListener != null) {
+            BlockingEntityCollector.notifyConsumed(httpContent);
             this.messageListener.onMessage(httpContent);
         } else {
             pendingPayload.add(httpContent);
@@ -15,10 +15,11 @@
 
 package org.wso2.carbon.transport.http.netty.sender;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpRequestEncoder;
 import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.proxy.HttpProxyHandler;
 import io.netty.handler.ssl.SslHandler;
@@ -27,7 +28,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
-import org.wso2.carbon.transport.http.netty.listener.CustomHttpContentCompressor;
 import org.wso2.carbon.transport.http.netty.listener.HTTPTraceLoggingHandler;
 
 import javax.net.ssl.SSLEngine;
@@ -35,7 +35,7 @@ import javax.net.ssl.SSLEngine;
 /**
  * A class that responsible for initialize target server pipeline.
  */
-public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
+public class HTTPClientInitializer extends ChannelInitializer<Channel> {
 
     private static final Logger log = LoggerFactory.getLogger(HTTPClientInitializer.class);
 
@@ -46,6 +46,9 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ProxyServerConfiguration proxyServerConfiguration;
+    private int flushConsolidationThreshold;
+    private boolean flushConsolidationWhenNoReadInProgress;
+    private ResponseDecompressionMode responseDecompressionMode;
 
     public HTTPClientInitializer(SSLEngine sslEngine, boolean httpTraceLogEnabled, boolean chunkDisabled
             , boolean followRedirect, int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
@@ -58,28 +61,35 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
     }
 
     @Override
-    protected void initChannel(SocketChannel ch) throws Exception {
+    protected void initChannel(Channel ch) throws Exception {
         // Add the generic handlers to the pipeline
         // e.g. SSL handler
+        if (flushConsolidationThreshold > 0) {
+            ch.pipeline().addLast(Constants.FLUSH_CONSOLIDATION_HANDLER,
+                    new FlushConsolidationHandler(flushConsolidationThreshold,
+                            flushConsolidationWhenNoReadInProgress));
+        }
         if (proxyServerConfiguration != null) {
+            HttpProxyHandler proxyHandler;
             if (proxyServerConfiguration.getProxyUsername() != null
                     && proxyServerConfiguration.getProxyPassword() != null) {
-                ch.pipeline().addLast("proxyServer",
-                        new HttpProxyHandler(proxyServerConfiguration.getInetSocketAddress(),
-                                proxyServerConfiguration.getProxyUsername(),
-                                proxyServerConfiguration.getProxyPassword()));
+                proxyHandler = new HttpProxyHandler(proxyServerConfiguration.getInetSocketAddress(),
+                        proxyServerConfiguration.getProxyUsername(), proxyServerConfiguration.getProxyPassword());
             } else {
-                ch.pipeline()
-                        .addLast("proxyServer", new HttpProxyHandler(proxyServerConfiguration.getInetSocketAddress()));
+                proxyHandler = new HttpProxyHandler(proxyServerConfiguration.getInetSocketAddress());
             }
+            ch.pipeline().addLast(Constants.PROXY_TUNNEL_TIMER, new ProxyTunnelTimer(proxyHandler));
+            ch.pipeline().addLast("proxyServer", proxyHandler);
         }
         if (sslEngine != null) {
             log.debug("adding ssl handler");
             ch.pipeline().addLast("ssl", new SslHandler(this.sslEngine));
         }
-        ch.pipeline().addLast("compressor", new CustomHttpContentCompressor(chunkDisabled));
         ch.pipeline().addLast("decoder", new HttpResponseDecoder());
         ch.pipeline().addLast("encoder", new HttpRequestEncoder());
+        if (responseDecompressionMode != null && responseDecompressionMode != ResponseDecompressionMode.NONE) {
+            ch.pipeline().addLast("decompressor", new HttpResponseDecompressor(responseDecompressionMode));
+        }
         ch.pipeline().addLast("chunkWriter", new ChunkedWriteHandler());
         if (httpTraceLogEnabled) {
             ch.pipeline().addLast(Constants.HTTP_TRACE_LOG_HANDLER,
@@ -97,6 +107,15 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
         ch.pipeline().addLast(Constants.TARGET_HANDLER, handler);
     }
 
+    public void setFlushConsolidation(int flushConsolidationThreshold, boolean whenNoReadInProgress) {
+        this.flushConsolidationThreshold = flushConsolidationThreshold;
+        this.flushConsolidationWhenNoReadInProgress = whenNoReadInProgress;
+    }
+
+    public void setResponseDecompressionMode(ResponseDecompressionMode responseDecompressionMode) {
+        this.responseDecompressionMode = responseDecompressionMode;
+    }
+
     public TargetHandler getTargetHandler() {
         return handler;
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContentDecoder;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.util.Locale;
+
+/**
+ * Decompresses the gzip and deflate responses of target servers chunk by chunk, so that applications see the plain
+ * entity. Requests which do not say which encodings they accept advertise gzip and deflate.
+ *
+ * @see ResponseDecompressionMode
+ */
+public class HttpResponseDecompressor
+        extends CombinedChannelDuplexHandler<HttpContentDecoder, ChannelOutboundHandlerAdapter> {
+
+    private static final String ADVERTISED_ENCODINGS = HttpHeaderValues.GZIP + ", " + HttpHeaderValues.DEFLATE;
+
+    private final boolean passThrough;
+    // Accept-Encoding of the request in flight whose accepted encodings are passed through, null to decompress all
+    private String passedThroughEncodings;
+
+    public HttpResponseDecompressor(ResponseDecompressionMode mode) {
+        this.passThrough = mode == ResponseDecompressionMode.PASS_THROUGH;
+        init(new ResponseDecoder(), new AcceptEncodingAdvertiser());
+    }
+
+    /**
+     * Inflates the responses for which the request in flight asked.
+     */
+    private class ResponseDecoder extends HttpContentDecoder {
+
+        @Override
+        protected EmbeddedChannel newContentDecoder(String contentEncoding) {
+            if (passedThroughEncodings != null && isAccepted(passedThroughEncodings, contentEncoding)) {
+                return null;
+            }
+            boolean gzip;
+            if (HttpHeaderValues.GZIP.contentEqualsIgnoreCase(contentEncoding)
+                    || HttpHeaderValues.X_GZIP.contentEqualsIgnoreCase(contentEncoding)) {
+                gzip = true;
+            } else if (HttpHeaderValues.DEFLATE.contentEqualsIgnoreCase(contentEncoding)
+                    || HttpHeaderValues.X_DEFLATE.contentEqualsIgnoreCase(contentEncoding)) {
+                gzip = false;
+            } else {
+                return null;
+            }
+            return new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                    ctx.channel().config(), new PooledInflateDecoder(gzip));
+        }
+    }
+
+    /**
+     * @param acceptEncoding  Accept-Encoding of a request.
+     * @param contentEncoding Content-Encoding of the response.
+     * @return whether the encoding is one the Accept-Encoding accepts with a non-zero quality.
+     */
+    static boolean isAccepted(String acceptEncoding, String contentEncoding) {
+        String encoding = normalize(contentEncoding);
+        Boolean acceptedByWildcard = null;
+        for (String accepted : acceptEncoding.split(",")) {
+            String[] parameters = accepted.split(";");
+            String coding = normalize(parameters[0]);
+            if (coding.equals(encoding)) {
+                return hasQuality(parameters);
+            } else if (coding.equals("*")) {
+                acceptedByWildcard = hasQuality(parameters);
+            }
+        }
+        // A coding named explicitly takes precedence over the wildcard
+        return acceptedByWildcard != null && acceptedByWildcard;
+    }
+
+    private static String normalize(String coding) {
+        String normalized = coding.trim().toLowerCase(Locale.ENGLISH);
+        return normalized.startsWith("x-") ? normalized.substring(2) : normalized;
+    }
+
+    private static boolean hasQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim()) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decides whether the response to a request is to be decompressed, advertising gzip and deflate on a copy of the
+     * request if it does not carry an Accept-Encoding.
+     */
+    private class AcceptEncodingAdvertiser extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (!(msg instanceof HttpRequest)) {
+                ctx.write(msg, promise);
+                return;
+            }
+            HttpRequest request = (HttpRequest) msg;
+            String acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+            if (acceptEncoding != null) {
+                passedThroughEncodings = passThrough ? acceptEncoding : null;
+                ctx.write(request, promise);
+                return;
+            }
+            passedThroughEncodings = null;
+            // The headers may be those of the application's message, which is not to be changed
+            if (request instanceof FullHttpRequest) {
+                FullHttpRequest fullRequest = (FullHttpRequest) request;
+                request = fullRequest.replace(fullRequest.content());
+            } else {
+                request = new DefaultHttpRequest(request.protocolVersion(), request.method(), request.uri(),
+                        request.headers().copy());
+            }
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, ADVERTISED_ENCODINGS);
+            ctx.write(request, promise);
+        }
+    }
+}
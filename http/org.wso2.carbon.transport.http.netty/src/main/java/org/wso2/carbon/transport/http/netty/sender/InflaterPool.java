@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.Inflater;
+
+/**
+ * Inflaters kept per I/O thread for reuse, as each of them holds native zlib state which is costly to set up.
+ */
+final class InflaterPool {
+
+    private static final int MAX_POOLED_INFLATERS = 16;
+
+    private static final FastThreadLocal<Deque<Inflater>> ZLIB_INFLATERS = new FastThreadLocal<Deque<Inflater>>() {
+        @Override
+        protected Deque<Inflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private static final FastThreadLocal<Deque<Inflater>> RAW_INFLATERS = new FastThreadLocal<Deque<Inflater>>() {
+        @Override
+        protected Deque<Inflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private InflaterPool() {
+    }
+
+    /**
+     * @param nowrap true for raw deflate data, false for data with a zlib header and trailer.
+     * @return an inflater of the current thread, or a new one if it has none to spare.
+     */
+    static Inflater acquire(boolean nowrap) {
+        Inflater inflater = inflaters(nowrap).pollFirst();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * @param inflater inflater taken from {@link #acquire(boolean)} on the current thread.
+     * @param nowrap   the same as when the inflater was acquired.
+     */
+    static void release(Inflater inflater, boolean nowrap) {
+        Deque<Inflater> inflaters = inflaters(nowrap);
+        if (inflaters.size() < MAX_POOLED_INFLATERS) {
+            inflater.reset();
+            inflaters.offerFirst(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+
+    private static Deque<Inflater> inflaters(boolean nowrap) {
+        return nowrap ? RAW_INFLATERS.get() : ZLIB_INFLATERS.get();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.compression.DecompressionException;
+
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Inflates a gzip or deflate entity as its chunks arrive, with an inflater borrowed from the {@link InflaterPool} for
+ * as long as the compressed data lasts.
+ */
+final class PooledInflateDecoder extends ByteToMessageDecoder {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+
+    private enum State {
+        HEADER, BODY, TRAILER, DONE
+    }
+
+    private final boolean gzip;
+    private final CRC32 crc = new CRC32();
+    private State state = State.HEADER;
+    private Inflater inflater;
+    private boolean nowrap;
+    private long inflatedBytes;
+
+    /**
+     * @param gzip true for a gzip entity, false for a deflate one.
+     */
+    PooledInflateDecoder(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (state == State.HEADER) {
+            if (!readHeader(in)) {
+                return;
+            }
+            inflater = InflaterPool.acquire(nowrap);
+            state = State.BODY;
+        }
+        if (state == State.BODY) {
+            inflate(ctx, in, out);
+            if (!inflater.finished()) {
+                return;
+            }
+            releaseInflater();
+            state = gzip ? State.TRAILER : State.DONE;
+        }
+        if (state == State.TRAILER) {
+            if (in.readableBytes() < GZIP_TRAILER_LENGTH) {
+                return;
+            }
+            if (in.readIntLE() != (int) crc.getValue() || in.readIntLE() != (int) inflatedBytes) {
+                throw new DecompressionException("CRC or size mismatch in the gzip trailer");
+            }
+            state = State.DONE;
+        }
+        // Anything after the compressed data is ignored
+        in.skipBytes(in.readableBytes());
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        releaseInflater();
+        super.handlerRemoved0(ctx);
+    }
+
+    private boolean readHeader(ByteBuf in) {
+        if (!gzip) {
+            if (in.readableBytes() < 2) {
+                return false;
+            }
+            int cmf = in.getUnsignedByte(in.readerIndex());
+            int flg = in.getUnsignedByte(in.readerIndex() + 1);
+            // Some servers send raw deflate data for the deflate encoding, without the zlib header
+            nowrap = (cmf & 0x0f) != 8 || ((cmf << 8) | flg) % 31 != 0;
+            return true;
+        }
+        if (in.readableBytes() < 10) {
+            return false;
+        }
+        in.markReaderIndex();
+        if (in.readUnsignedShortLE() != GZIP_MAGIC || in.readUnsignedByte() != 8) {
+            throw new DecompressionException("Input is not in the gzip format");
+        }
+        int flags = in.readUnsignedByte();
+        // Modification time, extra flags and operating system
+        in.skipBytes(6);
+        if ((flags & FEXTRA) != 0 && !skipExtraField(in)
+                || (flags & FNAME) != 0 && !skipZeroTerminated(in)
+                || (flags & FCOMMENT) != 0 && !skipZeroTerminated(in)
+                || (flags & FHCRC) != 0 && !skip(in, 2)) {
+            in.resetReaderIndex();
+            return false;
+        }
+        nowrap = true;
+        return true;
+    }
+
+    private void inflate(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws DataFormatException {
+        int readable = in.readableBytes();
+        if (readable == 0) {
+            return;
+        }
+        if (in.hasArray()) {
+            inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readable);
+        } else {
+            byte[] input = new byte[readable];
+            in.getBytes(in.readerIndex(), input);
+            inflater.setInput(input);
+        }
+        ByteBuf inflated = ctx.alloc().heapBuffer(readable << 1);
+        boolean success = false;
+        try {
+            while (!inflater.finished() && !inflater.needsInput()) {
+                inflated.ensureWritable(readable);
+                int offset = inflated.arrayOffset() + inflated.writerIndex();
+                int length = inflater.inflate(inflated.array(), offset, inflated.writableBytes());
+                if (length == 0 && inflater.needsDictionary()) {
+                    throw new DecompressionException("Preset dictionaries are not supported");
+                }
+                if (gzip) {
+                    crc.update(inflated.array(), offset, length);
+                }
+                inflated.writerIndex(inflated.writerIndex() + length);
+                inflatedBytes += length;
+            }
+            in.skipBytes(readable - inflater.getRemaining());
+            success = true;
+        } finally {
+            if (success && inflated.isReadable()) {
+                out.add(inflated);
+            } else {
+                inflated.release();
+            }
+        }
+    }
+
+    private void releaseInflater() {
+        if (inflater != null) {
+            InflaterPool.release(inflater, nowrap);
+            inflater = null;
+        }
+    }
+
+    private static boolean skipExtraField(ByteBuf in) {
+        return in.readableBytes() >= 2 && skip(in, in.readUnsignedShortLE());
+    }
+
+    private static boolean skipZeroTerminated(ByteBuf in) {
+        int end = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) 0);
+        return end >= 0 && skip(in, end - in.readerIndex() + 1);
+    }
+
+    private static boolean skip(ByteBuf in, int length) {
+        if (in.readableBytes() < length) {
+            return false;
+        }
+        in.skipBytes(length);
+        return true;
+    }
+}
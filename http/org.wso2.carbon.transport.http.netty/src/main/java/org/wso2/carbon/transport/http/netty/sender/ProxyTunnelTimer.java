@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.proxy.ProxyHandler;
+import org.wso2.carbon.transport.http.netty.common.ProxyTunnelStatistics;
+
+/**
+ * Measures the time a proxy handler takes to set up the tunnel of a target connection, once the connection to the
+ * proxy is up. The tunnel is set up once in the lifetime of a pooled connection.
+ */
+class ProxyTunnelTimer extends ChannelInboundHandlerAdapter {
+
+    private final ProxyHandler proxyHandler;
+
+    ProxyTunnelTimer(ProxyHandler proxyHandler) {
+        this.proxyHandler = proxyHandler;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        long startTime = System.nanoTime();
+        proxyHandler.connectFuture().addListener(future -> ProxyTunnelStatistics.getInstance()
+                .record(System.nanoTime() - startTime, future.isSuccess()));
+        ctx.pipeline().remove(this);
+        ctx.fireChannelActive();
+    }
+}
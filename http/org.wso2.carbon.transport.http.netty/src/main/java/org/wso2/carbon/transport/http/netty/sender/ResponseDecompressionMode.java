@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+/**
+ * How the client connector treats compressed responses of target servers.
+ */
+public enum ResponseDecompressionMode {
+
+    /**
+     * Responses are handed over as the target server sent them.
+     */
+    NONE,
+
+    /**
+     * Requests without an Accept-Encoding advertise gzip and deflate, and gzip and deflate responses are decompressed.
+     */
+    DECOMPRESS,
+
+    /**
+     * Like {@link #DECOMPRESS}, except that the responses to requests which carry an Accept-Encoding of their own are
+     * handed over as they are if that Accept-Encoding accepts their Content-Encoding, since the client which sent it
+     * can take the encoded entity. Responses in other encodings are still decompressed.
+     */
+    PASS_THROUGH
+}
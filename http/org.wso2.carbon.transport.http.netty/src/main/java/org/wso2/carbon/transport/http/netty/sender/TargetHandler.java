@@ -90,6 +90,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
                             handlerExecutor.executeAtTargetResponseSending(targetRespMsg);
                         }
                         targetChannel.getChannel().pipeline().remove(Constants.IDLE_STATE_HANDLER);
+                        Util.decorrelateChannelsForBackPressure(targetChannel.getChannel());
                         connectionManager.returnChannel(targetChannel);
                     }
                 }
@@ -109,6 +110,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
                 org.wso2.carbon.messaging.Constants.DIRECTION_RESPONSE);
         HttpResponse httpResponse = (HttpResponse) msg;
         targetRespMsg.setProperty(Constants.HTTP_STATUS_CODE, httpResponse.getStatus().code());
+        targetRespMsg.setProperty(Constants.CHNL_HNDLR_CTX, ctx);
 
         //copy required properties for service chaining from incoming carbon message to the response carbon message
         //copy shared worker pool
@@ -129,6 +131,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
             LOG.debug("Channel " + ctx.channel().id() + " gets inactive so closing it from Target handler.");
         }
         ctx.close();
+        Util.decorrelateChannelsForBackPressure(ctx.channel());
         connectionManager.invalidateTargetChannel(targetChannel);
 
         if (handlerExecutor != null) {
@@ -137,6 +140,13 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // Throttle the client channel when the backend is slower than the client
+        Util.applyBackPressure(ctx.channel(), false);
+        super.channelWritabilityChanged(ctx);
+    }
+
     public void setHttpResponseFuture(HttpResponseFuture httpResponseFuture) {
         this.httpResponseFuture = httpResponseFuture;
     }
@@ -178,6 +188,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
                     LOG.debug("Timeout occurred in Targethandler. Channel ID : " + ctx.channel().id());
                 }
                 targetChannel.getChannel().pipeline().remove(Constants.IDLE_STATE_HANDLER);
+                Util.decorrelateChannelsForBackPressure(ctx.channel());
                 targetChannel.setRequestWritten(false);
                 httpResponseFuture.notifyHttpListener(new ClientConnectorException(
                         HttpResponseStatus.GATEWAY_TIMEOUT.reasonPhrase(), HttpResponseStatus.GATEWAY_TIMEOUT.code()));
@@ -19,7 +19,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.sender.ResponseDecompressionMode;
 
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -35,6 +37,12 @@ public class BootstrapConfiguration {
 
     private int connectTimeOut, receiveBufferSize, sendBufferSize, socketTimeout;
 
+    private int writeBufferHighWaterMark, writeBufferLowWaterMark, flushConsolidationThreshold;
+
+    private boolean flushConsolidationWhenNoReadInProgress;
+
+    private ResponseDecompressionMode responseDecompressionMode;
+
     private BootstrapConfiguration(Map<String, Object> properties) {
 
         connectTimeOut = Util.getIntProperty(
@@ -57,6 +65,24 @@ public class BootstrapConfiguration {
         socketReuse = Util.getBooleanProperty(
                 properties, Constants.CLIENT_BOOTSTRAP_SO_REUSE, false);
 
+        writeBufferHighWaterMark = Util.getIntProperty(properties,
+                Constants.CLIENT_BOOTSTRAP_WRITE_BUFFER_HIGH_WATER_MARK,
+                Constants.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK);
+
+        writeBufferLowWaterMark = Util.getIntProperty(properties,
+                Constants.CLIENT_BOOTSTRAP_WRITE_BUFFER_LOW_WATER_MARK,
+                Constants.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK);
+
+        flushConsolidationThreshold = Util.getIntProperty(properties,
+                Constants.CLIENT_BOOTSTRAP_FLUSH_CONSOLIDATION_THRESHOLD,
+                Constants.DEFAULT_FLUSH_CONSOLIDATION_THRESHOLD);
+
+        flushConsolidationWhenNoReadInProgress = Util.getBooleanProperty(properties,
+                Constants.CLIENT_BOOTSTRAP_FLUSH_CONSOLIDATION_WHEN_NO_READ, false);
+
+        responseDecompressionMode = ResponseDecompressionMode.valueOf(Util.getStringProperty(properties,
+                Constants.CLIENT_RESPONSE_DECOMPRESSION, "none").toUpperCase(Locale.ENGLISH));
+
         logger.debug(Constants.CLIENT_BOOTSTRAP_TCP_NO_DELY + ": " + tcpNoDelay);
         logger.debug(Constants.CLIENT_BOOTSTRAP_CONNECT_TIME_OUT + ":" + connectTimeOut);
         logger.debug(Constants.CLIENT_BOOTSTRAP_RECEIVE_BUFFER_SIZE + ":" + receiveBufferSize);
@@ -64,6 +90,10 @@ public class BootstrapConfiguration {
         logger.debug(Constants.CLIENT_BOOTSTRAP_SO_TIMEOUT + ":" + socketTimeout);
         logger.debug(Constants.CLIENT_BOOTSTRAP_KEEPALIVE + ":" + keepAlive);
         logger.debug(Constants.CLIENT_BOOTSTRAP_SO_REUSE + ":" + socketReuse);
+        logger.debug(Constants.CLIENT_BOOTSTRAP_WRITE_BUFFER_HIGH_WATER_MARK + ":" + writeBufferHighWaterMark);
+        logger.debug(Constants.CLIENT_BOOTSTRAP_WRITE_BUFFER_LOW_WATER_MARK + ":" + writeBufferLowWaterMark);
+        logger.debug(Constants.CLIENT_BOOTSTRAP_FLUSH_CONSOLIDATION_THRESHOLD + ":" + flushConsolidationThreshold);
+        logger.debug(Constants.CLIENT_RESPONSE_DECOMPRESSION + ":" + responseDecompressionMode);
     }
 
     public boolean isTcpNoDelay() {
@@ -94,6 +124,26 @@ public class BootstrapConfiguration {
         return socketTimeout;
     }
 
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getFlushConsolidationThreshold() {
+        return flushConsolidationThreshold;
+    }
+
+    public boolean isFlushConsolidationWhenNoReadInProgress() {
+        return flushConsolidationWhenNoReadInProgress;
+    }
+
+    public ResponseDecompressionMode getResponseDecompressionMode() {
+        return responseDecompressionMode;
+    }
+
     public static BootstrapConfiguration getInstance() {
         return bootstrapConfig;
     }
@@ -23,6 +23,8 @@ import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.exceptions.MessagingException;
+import org.wso2.carbon.transport.http.netty.common.BatchedContentWriter;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.HttpRoute;
 import org.wso2.carbon.transport.http.netty.common.Util;
@@ -56,6 +58,7 @@ public class TargetChannel {
     private boolean isRequestWritten = false;
     private boolean chunkDisabled = false;
     private HandlerExecutor handlerExecutor;
+    private ConnectionLifetime connectionLifetime;
 
     public TargetChannel(HTTPClientInitializer httpClientInitializer, ChannelFuture channelFuture) {
         this.httpClientInitializer = httpClientInitializer;
@@ -108,6 +111,21 @@ public class TargetChannel {
         this.isRequestWritten = isRequestWritten;
     }
 
+    public ConnectionLifetime getConnectionLifetime() {
+        return connectionLifetime;
+    }
+
+    public void setConnectionLifetime(ConnectionLifetime connectionLifetime) {
+        this.connectionLifetime = connectionLifetime;
+    }
+
+    /**
+     * @return true if the channel exceeds its maximum age or number of requests, and is not to be reused.
+     */
+    public boolean isExpired() {
+        return connectionLifetime != null && connectionLifetime.isExpired();
+    }
+
     public void setChunkDisabled(boolean chunkDisabled) {
         this.chunkDisabled = chunkDisabled;
     }
@@ -138,6 +156,13 @@ public class TargetChannel {
         }
     }
 
+    public void setCorrelationForBackPressure() {
+        SourceHandler srcHandler = this.getCorrelatedSource();
+        if (srcHandler != null && srcHandler.getInboundChannelContext() != null) {
+            Util.correlateChannelsForBackPressure(srcHandler.getInboundChannelContext().channel(), this.channel);
+        }
+    }
+
     public void setConnectionManager(ConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
     }
@@ -154,21 +179,20 @@ public class TargetChannel {
             HttpRequest httpRequest = Util.createHttpRequest(httpCarbonRequest);
 
             this.setRequestWritten(true);
+            if (connectionLifetime != null) {
+                connectionLifetime.recordRequest();
+            }
             this.getChannel().write(httpRequest);
 
-            httpCarbonRequest.getHttpContentAsync().setMessageListener(httpContent ->
-                    this.channel.eventLoop().execute(() -> {
-                if (Util.isLastHttpContent(httpContent)) {
-                    this.getChannel().writeAndFlush(httpContent);
-                    httpCarbonRequest.removeHttpContentAsyncFuture();
-
-                    if (handlerExecutor != null) {
-                        handlerExecutor.executeAtTargetRequestSending(httpCarbonRequest);
-                    }
-                } else {
-                    this.getChannel().write(httpContent);
+            BatchedContentWriter contentWriter = new BatchedContentWriter(this.channel, this.channel.eventLoop(),
+                    future -> {
+                httpCarbonRequest.removeHttpContentAsyncFuture();
+
+                if (handlerExecutor != null) {
+                    handlerExecutor.executeAtTargetRequestSending(httpCarbonRequest);
                 }
-            }));
+            });
+            httpCarbonRequest.getHttpContentAsync().setMessageListener(contentWriter::write);
         } catch (Exception e) {
             String msg;
             if (e instanceof NullPointerException) {
@@ -18,11 +18,13 @@ package org.wso2.carbon.transport.http.netty.sender.channel.pool;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopThreadFactory;
 import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.UnixDomainSockets;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
 import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
@@ -40,18 +42,31 @@ public class ConnectionManager {
     private PoolConfiguration poolConfiguration;
     private PoolManagementPolicy poolManagementPolicy;
     private final Map<String, GenericObjectPool> connGlobalPool;
-    private EventLoopGroup targetEventLoopGroup;
+    private EventLoopGroup domainSocketEventGroup;
+    private final int clientEventGroupSize;
+    private final PriorityLanes priorityLanes;
+    private final Map<String, PriorityBorrowGate> borrowGates = new ConcurrentHashMap<>();
+    private final Map<String, PoolWarmer> poolWarmers = new ConcurrentHashMap<>();
+    private final int warmupConnectsPerSecond;
     private static volatile ConnectionManager connectionManager;
 
-    private ConnectionManager(PoolConfiguration poolConfiguration, Map<String, Object> transportProperties) {
+    private ConnectionManager(PoolConfiguration poolConfiguration, Map<String, Object> transportProperties,
+            EventLoopGroup clientEventGroup) {
         this.poolConfiguration = poolConfiguration;
         if (poolConfiguration.getNumberOfPools() == 1) {
             this.poolManagementPolicy = PoolManagementPolicy.LOCK_DEFAULT_POOLING;
         }
         connGlobalPool = new ConcurrentHashMap<>();
-        clientEventGroup = new NioEventLoopGroup(
-                Util.getIntProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE, 4));
-        targetEventLoopGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        priorityLanes = PriorityLanes.parse(Util.getStringProperty(transportProperties, Constants.PRIORITY_LANES,
+                null));
+        warmupConnectsPerSecond = Util.getIntProperty(transportProperties,
+                Constants.CLIENT_WARMUP_CONNECTS_PER_SECOND, 10);
+        clientEventGroupSize = Util.getIntProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE,
+                4);
+        String clientCpus = Util.getStringProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_CPUS,
+                null);
+        this.clientEventGroup = clientEventGroup != null ? clientEventGroup
+                : new NioEventLoopGroup(clientEventGroupSize, new EventLoopThreadFactory("http-client", clientCpus));
     }
 
     private GenericObjectPool createPoolForRoute(PoolableTargetChannelFactory poolableTargetChannelFactory) {
@@ -68,6 +83,22 @@ public class ConnectionManager {
     }
 
     public static void init(Map<String, Object> transportProperties) {
+        init(transportProperties, null);
+    }
+
+    /**
+     * Initialize the connection manager, if it is not initialized yet. The manager is shared by the JVM, hence the
+     * event loops given by later calls are ignored.
+     *
+     * @param transportProperties transport properties of the pool
+     * @param clientEventGroup    event loops for the connections of requests which do not come through a listener,
+     *                            e.g. the worker group of the listeners, null to create a group of its own, which
+     *                            is sized and pinned to CPUs as per client.bootstrap.worker.group.size and
+     *                            client.bootstrap.worker.group.cpus.
+     *                            Connections of requests which come through a listener use the event loop of the
+     *                            listener connection, so that proxying the request does not hop threads.
+     */
+    public static void init(Map<String, Object> transportProperties, EventLoopGroup clientEventGroup) {
         if (connectionManager == null) {
             synchronized (ConnectionManager.class) {
                 if (connectionManager == null) {
@@ -76,7 +107,8 @@ public class ConnectionManager {
                         PoolConfiguration.createPoolConfiguration(transportProperties);
                         poolConfiguration = PoolConfiguration.getInstance();
                     }
-                    connectionManager = new ConnectionManager(poolConfiguration, transportProperties);
+                    connectionManager = new ConnectionManager(poolConfiguration, transportProperties,
+                            clientEventGroup);
                 }
             }
         }
@@ -93,13 +125,39 @@ public class ConnectionManager {
     public TargetChannel borrowTargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler, SSLConfig sslConfig,
             boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
             ProxyServerConfiguration proxyServerConfiguration) throws Exception {
+        return borrowTargetChannel(httpRoute, sourceHandler, sslConfig, httpTraceLogEnabled, chunkDisabled,
+                followRedirect, maxRedirectCount, proxyServerConfiguration, -1);
+    }
+
+    /**
+     * Borrow a target channel for a request of the given priority lane. Once the pool of a route shared by listener
+     * connections is exhausted, waiting requests get the returned connections in proportion to the weights of their
+     * lanes, if priority lanes are configured through the priority.lanes transport property.
+     *
+     * @param priorityLane index of the priority lane of the request, -1 if it is not classified
+     * @return the target channel which is requested for given parameters.
+     * @throws Exception to notify any errors occur during retrieving the target channel
+     * @see #borrowTargetChannel(HttpRoute, SourceHandler, SSLConfig, boolean, boolean, boolean, int,
+     * ProxyServerConfiguration)
+     */
+    public TargetChannel borrowTargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler, SSLConfig sslConfig,
+            boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
+            ProxyServerConfiguration proxyServerConfiguration, int priorityLane) throws Exception {
         GenericObjectPool trgHlrConnPool;
+        // Pool of the route which is shared by listener connections, null if each connection has a pool of its own
+        GenericObjectPool sharedPool = null;
 
         if (sourceHandler != null) {
             EventLoopGroup group;
             ChannelHandlerContext ctx = sourceHandler.getInboundChannelContext();
             group = ctx.channel().eventLoop();
-            Class cl = ctx.channel().getClass();
+            boolean epollEventLoop = UnixDomainSockets.isEpollChannel(ctx.channel());
+            if (httpRoute.isUnixDomainSocket() && !epollEventLoop) {
+                // Domain socket channels cannot be registered with the NIO event loop of the source channel
+                group = getDomainSocketEventGroup();
+                epollEventLoop = true;
+            }
+            Class cl = UnixDomainSockets.getClientChannelClass(httpRoute, epollEventLoop);
 
             if (poolManagementPolicy == PoolManagementPolicy.LOCK_DEFAULT_POOLING) {
                 // This is faster than the above one (about 2k difference)
@@ -116,49 +174,130 @@ public class ConnectionManager {
                 Map<String, GenericObjectPool> srcHlrConnPool = sourceHandler.getTargetChannelPool();
                 trgHlrConnPool = srcHlrConnPool.get(httpRoute.toString());
                 if (trgHlrConnPool == null) {
-                    synchronized (this) {
-                        if (!this.connGlobalPool.containsKey(httpRoute.toString())) {
-                            PoolableTargetChannelFactory poolableTargetChannelFactory =
-                                    new PoolableTargetChannelFactory(
-                                            httpRoute, group, cl, sslConfig, httpTraceLogEnabled, chunkDisabled
-                                            , followRedirect, maxRedirectCount, proxyServerConfiguration);
-                            trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory);
-                            this.connGlobalPool.put(httpRoute.toString(), trgHlrConnPool);
-                        }
-                        trgHlrConnPool = this.connGlobalPool.get(httpRoute.toString());
-                        trgHlrConnPool = createPoolForRoutePerSrcHndlr(trgHlrConnPool);
-                    }
+                    trgHlrConnPool = createPoolForRoutePerSrcHndlr(getGlobalPool(httpRoute, group, cl, sslConfig,
+                            httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount,
+                            proxyServerConfiguration));
                     srcHlrConnPool.put(httpRoute.toString(), trgHlrConnPool);
                 }
+                sharedPool = this.connGlobalPool.get(httpRoute.toString());
             }
         } else {
-            Class cl = NioSocketChannel.class;
-            EventLoopGroup group = clientEventGroup;
-            synchronized (this) {
-                if (!this.connGlobalPool.containsKey(httpRoute.toString())) {
-                    PoolableTargetChannelFactory poolableTargetChannelFactory =
-                            new PoolableTargetChannelFactory(httpRoute, group, cl, sslConfig, httpTraceLogEnabled
-                                    , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
-                    trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory);
-                    this.connGlobalPool.put(httpRoute.toString(), trgHlrConnPool);
-                }
-                trgHlrConnPool = this.connGlobalPool.get(httpRoute.toString());
-            }
+            Class cl = UnixDomainSockets.getClientChannelClass(httpRoute, httpRoute.isUnixDomainSocket());
+            EventLoopGroup group = httpRoute.isUnixDomainSocket() ? getDomainSocketEventGroup() : clientEventGroup;
+            trgHlrConnPool = getGlobalPool(httpRoute, group, cl, sslConfig, httpTraceLogEnabled, chunkDisabled,
+                    followRedirect, maxRedirectCount, proxyServerConfiguration);
+            sharedPool = trgHlrConnPool;
         }
 
-        TargetChannel targetChannel = (TargetChannel) trgHlrConnPool.borrowObject();
+        TargetChannel targetChannel;
+        if (priorityLanes != null && priorityLane >= 0 && sharedPool != null) {
+            PriorityBorrowGate borrowGate = borrowGates.computeIfAbsent(httpRoute.toString(),
+                    route -> new PriorityBorrowGate(priorityLanes));
+            targetChannel = (TargetChannel) borrowGate.borrow(trgHlrConnPool, sharedPool,
+                    Math.min(priorityLane, priorityLanes.getDefaultLane()), poolConfiguration.getMaxWait());
+        } else {
+            targetChannel = (TargetChannel) trgHlrConnPool.borrowObject();
+        }
         targetChannel.setCorrelatedSource(sourceHandler);
         targetChannel.setConnectionManager(this);
+        refillPool(httpRoute);
         return targetChannel;
     }
 
+    /**
+     * Open connections of a route ahead of traffic, and keep at least the given number of them idle in the pool of
+     * the route which is shared by listener connections. Connections are opened on an event loop of the client, at
+     * most client.warmup.connects.per.second of them a second, and the pool is refilled as connections are borrowed
+     * or closed. In between, the evictor of the pool keeps the idle connections and refills the pool. If
+     * client.connection.pool.count is 1, listener connections have pools of their own, and only requests which do not
+     * come through a listener benefit from it.
+     * <p>
+     * The manager is shared by the JVM, hence a route may be warmed up by several owners, e.g. client connectors. The
+     * route is kept warm with the largest number of idle connections they ask for, until the last of them stops.
+     *
+     * @param owner   owner of the warm-up, which stops it through {@link #stopWarmUp(Object, HttpRoute)}
+     * @param minIdle number of idle connections to keep in the pool of the route
+     * @see #borrowTargetChannel(HttpRoute, SourceHandler, SSLConfig, boolean, boolean, boolean, int,
+     * ProxyServerConfiguration)
+     */
+    public void warmUp(Object owner, HttpRoute httpRoute, SSLConfig sslConfig, boolean httpTraceLogEnabled,
+            boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
+            ProxyServerConfiguration proxyServerConfiguration, int minIdle) {
+        Class cl = UnixDomainSockets.getClientChannelClass(httpRoute, httpRoute.isUnixDomainSocket());
+        EventLoopGroup group = httpRoute.isUnixDomainSocket() ? getDomainSocketEventGroup() : clientEventGroup;
+        GenericObjectPool pool = getGlobalPool(httpRoute, group, cl, sslConfig, httpTraceLogEnabled, chunkDisabled,
+                followRedirect, maxRedirectCount, proxyServerConfiguration);
+        // Computed under the lock of the route, so that a warmer is not closed by its last owner as another joins it
+        PoolWarmer poolWarmer = poolWarmers.compute(httpRoute.toString(), (route, warmer) -> {
+            PoolWarmer routeWarmer = warmer != null ? warmer
+                    : new PoolWarmer(pool, group.next(), warmupConnectsPerSecond);
+            routeWarmer.addOwner(owner, minIdle);
+            return routeWarmer;
+        });
+        poolWarmer.refill();
+    }
+
+    /**
+     * Stop keeping idle connections of a route ahead of traffic for the given owner. Once no owner keeps the route
+     * warm, its idle connections are evicted as those of any other route.
+     *
+     * @see #warmUp(Object, HttpRoute, SSLConfig, boolean, boolean, boolean, int, ProxyServerConfiguration, int)
+     */
+    public void stopWarmUp(Object owner, HttpRoute httpRoute) {
+        poolWarmers.computeIfPresent(httpRoute.toString(),
+                (route, warmer) -> warmer.removeOwner(owner) ? null : warmer);
+    }
+
+    private synchronized GenericObjectPool getGlobalPool(HttpRoute httpRoute, EventLoopGroup group, Class cl,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect,
+            int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
+        GenericObjectPool pool = this.connGlobalPool.get(httpRoute.toString());
+        if (pool == null) {
+            PoolableTargetChannelFactory poolableTargetChannelFactory =
+                    new PoolableTargetChannelFactory(httpRoute, group, cl, sslConfig, httpTraceLogEnabled
+                            , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+            pool = createPoolForRoute(poolableTargetChannelFactory);
+            this.connGlobalPool.put(httpRoute.toString(), pool);
+        }
+        return pool;
+    }
+
+    private void refillPool(HttpRoute httpRoute) {
+        if (!poolWarmers.isEmpty()) {
+            PoolWarmer poolWarmer = poolWarmers.get(httpRoute.toString());
+            if (poolWarmer != null) {
+                poolWarmer.refill();
+            }
+        }
+    }
+
+    private synchronized EventLoopGroup getDomainSocketEventGroup() {
+        if (domainSocketEventGroup == null) {
+            domainSocketEventGroup = UnixDomainSockets.newEventLoopGroup(clientEventGroupSize);
+        }
+        return domainSocketEventGroup;
+    }
+
     //Add connection to Pool back
     public void returnChannel(TargetChannel targetChannel) throws Exception {
+        if (targetChannel.isExpired()) {
+            // Evicted so that the route gets a fresh connection, possibly to another backend instance
+            invalidateTargetChannel(targetChannel);
+            return;
+        }
         targetChannel.setRequestWritten(false);
         if (targetChannel.getCorrelatedSource() != null) {
             Map<String, GenericObjectPool> objectPoolMap = targetChannel.getCorrelatedSource().getTargetChannelPool();
             releaseChannelToPool(targetChannel, objectPoolMap.get(targetChannel.getHttpRoute().toString()));
         }
+        signalBorrowGate(targetChannel);
+    }
+
+    private void signalBorrowGate(TargetChannel targetChannel) {
+        PriorityBorrowGate borrowGate = borrowGates.get(targetChannel.getHttpRoute().toString());
+        if (borrowGate != null) {
+            borrowGate.signal();
+        }
     }
 
     private void releaseChannelToPool(TargetChannel targetChannel, GenericObjectPool pool) throws Exception {
@@ -184,6 +323,8 @@ public class ConnectionManager {
                 throw new Exception("Cannot invalidate channel from pool", e);
             }
         }
+        signalBorrowGate(targetChannel);
+        refillPool(targetChannel.getHttpRoute());
     }
 
     /**
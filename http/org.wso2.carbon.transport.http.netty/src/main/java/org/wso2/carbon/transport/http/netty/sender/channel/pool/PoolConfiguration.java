@@ -18,6 +18,7 @@ package org.wso2.carbon.transport.http.netty.sender.channel.pool;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
 
@@ -56,6 +57,10 @@ public class PoolConfiguration {
 
     private long setMaxWait = 60000L;
 
+    private int maxConnectionAge;
+
+    private int maxRequestsPerConnection;
+
     private PoolConfiguration(Map<String, Object> transportProperties) {
 
         numberOfPools = Util.getIntProperty(transportProperties, Constants.NUMBER_OF_POOLS, 0);
@@ -81,6 +86,10 @@ public class PoolConfiguration {
         eventGroupExecutorThreads = Util.getIntProperty(
                 transportProperties, Constants.MAX_WAIT_FOR_CLIENT_CONNECTION_POOL, 60000);
 
+        maxConnectionAge = Util.getIntProperty(transportProperties, Constants.MAX_CONNECTION_AGE, 0);
+
+        maxRequestsPerConnection = Util.getIntProperty(transportProperties, Constants.MAX_REQUESTS_PER_CONNECTION, 0);
+
         logger.debug(Constants.NUMBER_OF_POOLS + ": " + numberOfPools);
         logger.debug(Constants.MAX_ACTIVE_CONNECTIONS_PER_POOL + ":" + maxActivePerPool);
         logger.debug(Constants.MIN_IDLE_CONNECTIONS_PER_POOL + ":" + maxIdlePerPool);
@@ -148,4 +157,19 @@ public class PoolConfiguration {
     public long getMaxWait() {
         return setMaxWait;
     }
+
+    public int getMaxConnectionAge() {
+        return maxConnectionAge;
+    }
+
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    /**
+     * @return lifetime of a new pooled connection, as per the configured maximum age and number of requests.
+     */
+    public ConnectionLifetime newConnectionLifetime() {
+        return new ConnectionLifetime(maxConnectionAge, maxRequestsPerConnection);
+    }
 }
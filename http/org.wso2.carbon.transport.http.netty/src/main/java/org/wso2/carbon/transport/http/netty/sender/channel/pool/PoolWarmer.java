@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.EventLoop;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a minimum number of idle connections in the pool of a route, opening them ahead of traffic so that requests
+ * do not wait for TCP and TLS setup. Connections are opened on an event loop, at most a given number a second, so
+ * that refilling a pool does not flood the target with connection attempts. Between borrows, the evictor of the pool
+ * keeps its minIdle connections, evicting only the idle connections beyond them, and refills the pool once idle
+ * connections went away.
+ * <p>
+ * A pool may be kept warm for several owners, e.g. client connectors which warm up the same route. The warmer keeps
+ * the largest number of idle connections any of them asks for, and hands the pool back to its own settings once the
+ * last of them stops.
+ */
+class PoolWarmer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolWarmer.class);
+
+    private final GenericObjectPool pool;
+    private final EventLoop eventLoop;
+    private final int connectsPerSecond;
+    private final AtomicBoolean refillPending = new AtomicBoolean();
+    // Settings of the pool before it was warmed, which are restored once it is not warmed anymore
+    private final int poolMinIdle;
+    private final long minEvictableIdleTime;
+    private final long softMinEvictableIdleTime;
+    // Number of idle connections each owner asks for
+    private final Map<Object, Integer> ownerMinIdles = new HashMap<>();
+    private volatile int minIdle;
+    private volatile boolean closed;
+    private volatile ScheduledFuture<?> scheduledRefill;
+
+    /**
+     * @param pool              pool of the route
+     * @param eventLoop         event loop the connections are opened on
+     * @param connectsPerSecond maximum number of connections opened a second
+     */
+    PoolWarmer(GenericObjectPool pool, EventLoop eventLoop, int connectsPerSecond) {
+        this.pool = pool;
+        this.eventLoop = eventLoop;
+        this.connectsPerSecond = connectsPerSecond;
+        this.poolMinIdle = pool.getMinIdle();
+        this.minEvictableIdleTime = pool.getMinEvictableIdleTimeMillis();
+        this.softMinEvictableIdleTime = pool.getSoftMinEvictableIdleTimeMillis();
+    }
+
+    /**
+     * Keep the pool warm for the given owner. An owner which asks again replaces the number it asked for before.
+     *
+     * @param owner   owner of the warm-up, e.g. a client connector
+     * @param minIdle number of idle connections the owner asks for
+     */
+    synchronized void addOwner(Object owner, int minIdle) {
+        ownerMinIdles.put(owner, minIdle);
+        setMinIdle(Collections.max(ownerMinIdles.values()));
+    }
+
+    /**
+     * Stop keeping the pool warm for the given owner. The warmer is closed once no owner is left.
+     *
+     * @param owner owner of the warm-up
+     * @return true if the warmer is closed, as the owner was the last one
+     */
+    synchronized boolean removeOwner(Object owner) {
+        ownerMinIdles.remove(owner);
+        if (ownerMinIdles.isEmpty()) {
+            close();
+            return true;
+        }
+        setMinIdle(Collections.max(ownerMinIdles.values()));
+        return false;
+    }
+
+    /**
+     * @param minIdle number of idle connections to keep, which the evictor of the pool keeps as well
+     */
+    private void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+        pool.setMinIdle(Math.max(poolMinIdle, getTargetIdle()));
+        // Idle connections beyond minIdle are still evicted after the idle time of the pool
+        pool.setSoftMinEvictableIdleTimeMillis(minEvictableIdleTime);
+        pool.setMinEvictableIdleTimeMillis(-1);
+    }
+
+    /**
+     * Refill the pool on the event loop, if it has fewer idle connections than it should.
+     */
+    void refill() {
+        if (!closed && pool.getNumIdle() < getTargetIdle() && refillPending.compareAndSet(false, true)) {
+            eventLoop.execute(this);
+        }
+    }
+
+    /**
+     * Stop refilling the pool, and hand the idle connections back to the eviction settings of the pool.
+     */
+    void close() {
+        closed = true;
+        ScheduledFuture<?> refill = scheduledRefill;
+        if (refill != null) {
+            refill.cancel(false);
+        }
+        pool.setMinIdle(poolMinIdle);
+        pool.setMinEvictableIdleTimeMillis(minEvictableIdleTime);
+        pool.setSoftMinEvictableIdleTimeMillis(softMinEvictableIdleTime);
+    }
+
+    @Override
+    public void run() {
+        refillPending.set(false);
+        if (closed) {
+            return;
+        }
+        int connects = Math.min(getTargetIdle() - pool.getNumIdle(), connectsPerSecond);
+        for (int i = 0; i < connects; i++) {
+            if (pool.getMaxActive() >= 0 && pool.getNumActive() + pool.getNumIdle() >= pool.getMaxActive()) {
+                return;
+            }
+            try {
+                // The connection is made in the background and joins the pool as an idle connection right away
+                pool.addObject();
+            } catch (Exception e) {
+                log.warn("Could not open a connection ahead of traffic", e);
+                return;
+            }
+        }
+        if (pool.getNumIdle() < getTargetIdle()) {
+            scheduledRefill = eventLoop.schedule(this::refill, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private int getTargetIdle() {
+        // Connections beyond the maximum idle connections would be closed as soon as they are added
+        return pool.getMaxIdle() < 0 ? minIdle : Math.min(minIdle, pool.getMaxIdle());
+    }
+}
@@ -19,6 +19,7 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import org.apache.commons.pool.PoolableObjectFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +31,6 @@ import org.wso2.carbon.transport.http.netty.sender.HTTPClientInitializer;
 import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 
-import java.net.InetSocketAddress;
 import javax.net.ssl.SSLEngine;
 
 /**
@@ -73,10 +73,12 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
         HTTPClientInitializer httpClientInitializer = instantiateAndConfigClientInitializer(clientBootstrap,
                 clientSslEngine);
         clientBootstrap.handler(httpClientInitializer);
-        ChannelFuture channelFuture = clientBootstrap
-                .connect(new InetSocketAddress(httpRoute.getHost(), httpRoute.getPort()));
+        ChannelFuture channelFuture = clientBootstrap.connect(httpRoute.getSocketAddress());
         TargetChannel targetChannel = new TargetChannel(httpClientInitializer, channelFuture);
+        // So that a connection which was opened ahead of traffic and failed does not validate while idle
+        channelFuture.addListener(future -> targetChannel.setChannel(channelFuture.channel()));
         targetChannel.setHttpRoute(httpRoute);
+        targetChannel.setConnectionLifetime(PoolConfiguration.getInstance().newConnectionLifetime());
         log.debug("Created channel: {}", httpRoute);
         return targetChannel;
     }
@@ -94,8 +96,13 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
 
     @Override
     public boolean validateObject(Object o) {
-        if (((TargetChannel) o).getChannel() != null) {
-            boolean answer = ((TargetChannel) o).getChannel().isActive();
+        TargetChannel targetChannel = (TargetChannel) o;
+        if (targetChannel.isExpired()) {
+            log.debug("Channel exceeded its maximum age or number of requests: {}", o);
+            return false;
+        }
+        if (targetChannel.getChannel() != null) {
+            boolean answer = targetChannel.getChannel().isActive();
             log.debug("Validating channel: {} -> {}", o, answer);
             return answer;
         }
@@ -104,7 +111,10 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
 
     @Override
     public void activateObject(Object o) throws Exception {
-
+        // Checked on every borrow, as idle channels age whether or not the pool validates on borrow
+        if (((TargetChannel) o).isExpired()) {
+            throw new Exception("Channel exceeded its maximum age or number of requests: " + o);
+        }
     }
 
     @Override
@@ -118,10 +128,15 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
         Bootstrap clientBootstrap = new Bootstrap();
         clientBootstrap.channel(eventLoopClass);
         clientBootstrap.group(eventLoopGroup);
-        clientBootstrap.option(ChannelOption.SO_KEEPALIVE, bootstrapConfiguration.isKeepAlive());
-        clientBootstrap.option(ChannelOption.TCP_NODELAY, bootstrapConfiguration.isTcpNoDelay());
-        clientBootstrap.option(ChannelOption.SO_REUSEADDR, bootstrapConfiguration.isSocketReuse());
+        if (!httpRoute.isUnixDomainSocket()) {
+            clientBootstrap.option(ChannelOption.SO_KEEPALIVE, bootstrapConfiguration.isKeepAlive());
+            clientBootstrap.option(ChannelOption.TCP_NODELAY, bootstrapConfiguration.isTcpNoDelay());
+            clientBootstrap.option(ChannelOption.SO_REUSEADDR, bootstrapConfiguration.isSocketReuse());
+        }
         clientBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, bootstrapConfiguration.getConnectTimeOut());
+        clientBootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(bootstrapConfiguration.getWriteBufferLowWaterMark(),
+                        bootstrapConfiguration.getWriteBufferHighWaterMark()));
         return clientBootstrap;
     }
 
@@ -142,9 +157,12 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
             SSLEngine sslEngine) {
         HTTPClientInitializer httpClientInitializer = new HTTPClientInitializer(sslEngine, httpTraceLogEnabled
                 , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+        BootstrapConfiguration bootstrapConfiguration = BootstrapConfiguration.getInstance();
+        httpClientInitializer.setFlushConsolidation(bootstrapConfiguration.getFlushConsolidationThreshold(),
+                bootstrapConfiguration.isFlushConsolidationWhenNoReadInProgress());
+        httpClientInitializer.setResponseDecompressionMode(bootstrapConfiguration.getResponseDecompressionMode());
         if (log.isDebugEnabled()) {
-            log.debug("Created new TCP client bootstrap connecting to {}:{} with options: {}", httpRoute.getHost(),
-                    httpRoute.getPort(), clientBootstrap);
+            log.debug("Created new client bootstrap connecting to {} with options: {}", httpRoute, clientBootstrap);
         }
         return httpClientInitializer;
     }
@@ -44,7 +44,7 @@ public class PoolableTargetChannelFactoryPerSrcHndlr implements PoolableObjectFa
 
     @Override
     public void destroyObject(Object o) throws Exception {
-        if (((TargetChannel) o).getChannel().isActive()) {
+        if (((TargetChannel) o).getChannel().isActive() && !((TargetChannel) o).isExpired()) {
             if (log.isDebugEnabled()) {
                 log.debug("Original Channel " + ((TargetChannel) o).getChannel().id() + " is returned to the pool. ");
             }
@@ -59,8 +59,13 @@ public class PoolableTargetChannelFactoryPerSrcHndlr implements PoolableObjectFa
 
     @Override
     public boolean validateObject(Object o) {
-        if (((TargetChannel) o).getChannel() != null) {
-            boolean answer = ((TargetChannel) o).getChannel().isActive();
+        TargetChannel targetChannel = (TargetChannel) o;
+        if (targetChannel.isExpired()) {
+            log.debug("Channel exceeded its maximum age or number of requests: {}", o);
+            return false;
+        }
+        if (targetChannel.getChannel() != null) {
+            boolean answer = targetChannel.getChannel().isActive();
             log.debug("Validating channel: {} -> {}", o, answer);
             return answer;
         }
@@ -68,7 +73,12 @@ public class PoolableTargetChannelFactoryPerSrcHndlr implements PoolableObjectFa
     }
 
     @Override
-    public void activateObject(Object o) throws Exception {}
+    public void activateObject(Object o) throws Exception {
+        // Checked on every borrow, as idle channels age whether or not the pool validates on borrow
+        if (((TargetChannel) o).isExpired()) {
+            throw new Exception("Channel exceeded its maximum age or number of requests: " + o);
+        }
+    }
 
     @Override
     public void passivateObject(Object o) throws Exception {}
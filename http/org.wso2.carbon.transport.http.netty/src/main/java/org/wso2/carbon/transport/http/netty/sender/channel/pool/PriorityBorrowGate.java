@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders the borrowers of the connections of a route by their priority lane once the pool of the route is exhausted.
+ * As connections are returned, waiting borrowers are let through in proportion to the weights of their lanes, rather
+ * than in the order they arrived.
+ */
+class PriorityBorrowGate {
+
+    private final PriorityLanes.Selector selector;
+    private final int[] waiting;
+    // Lane whose waiting borrower takes the capacity which became available, -1 if it is not granted yet
+    private int turn = -1;
+    // Borrowers let through which have not got their connection yet, whose capacity is taken
+    private int granted;
+
+    PriorityBorrowGate(PriorityLanes priorityLanes) {
+        this.selector = priorityLanes.newSelector();
+        this.waiting = new int[priorityLanes.size()];
+    }
+
+    /**
+     * Borrow a connection for a request of the given lane.
+     *
+     * @param pool       pool to borrow from.
+     * @param sharedPool pool of the route shared by all listener connections, which bounds the number of connections.
+     * @param lane       priority lane of the request.
+     * @param maxWait    maximum time to wait in milliseconds, 0 or less to wait indefinitely.
+     * @return the connection.
+     * @throws Exception if the connection could not be borrowed.
+     */
+    Object borrow(GenericObjectPool pool, GenericObjectPool sharedPool, int lane, long maxWait) throws Exception {
+        awaitTurn(pool, sharedPool, lane, maxWait);
+        try {
+            // Borrowed outside the monitor, so that creating a connection does not hold back the other borrowers
+            return pool.borrowObject();
+        } finally {
+            borrowed();
+        }
+    }
+
+    private synchronized void awaitTurn(GenericObjectPool pool, GenericObjectPool sharedPool, int lane, long maxWait)
+            throws InterruptedException {
+        if (turn < 0 && !hasWaiters() && hasCapacity(pool, sharedPool)) {
+            granted++;
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWait);
+        waiting[lane]++;
+        try {
+            while (true) {
+                if (turn < 0 && hasCapacity(pool, sharedPool)) {
+                    turn = selector.next(waiting);
+                }
+                if (turn == lane) {
+                    turn = -1;
+                    granted++;
+                    // Others re-check, as there may be capacity left for the next lane
+                    notifyAll();
+                    return;
+                }
+                if (maxWait > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new NoSuchElementException("Timeout waiting for a connection");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } else {
+                    wait();
+                }
+            }
+        } finally {
+            waiting[lane]--;
+            if (turn == lane && waiting[lane] == 0) {
+                // The granted borrower gave up
+                turn = -1;
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void borrowed() {
+        granted--;
+        if (hasWaiters()) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wake up waiting borrowers, once a connection is returned to the pool or evicted from it.
+     */
+    synchronized void signal() {
+        if (hasWaiters()) {
+            notifyAll();
+        }
+    }
+
+    private boolean hasWaiters() {
+        for (int count : waiting) {
+            if (count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasCapacity(GenericObjectPool pool, GenericObjectPool sharedPool) {
+        if (sharedPool.getMaxActive() < 0) {
+            return true;
+        }
+        // Connections idle in the pool of a listener connection are active in the shared pool
+        int capacity = sharedPool.getNumIdle() + Math.max(sharedPool.getMaxActive() - sharedPool.getNumActive(), 0);
+        if (pool != sharedPool) {
+            capacity += pool.getNumIdle();
+        }
+        return capacity > granted;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A multiplexed HTTP/2 connection to a route.
+ *
+ * Requests reserve a stream before they are written, so that no more requests than the SETTINGS_MAX_CONCURRENT_STREAMS
+ * of the server are in flight on the connection. Once a GOAWAY is received the connection is drained: no new streams
+ * are reserved and the connection is closed when the last stream completes.
+ */
+public class HTTP2ClientChannel {
+
+    private final HttpRoute httpRoute;
+    private final String scheme;
+    private final Promise<HTTP2ClientChannel> connectPromise = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
+    private final AtomicInteger reservedStreams = new AtomicInteger();
+    private volatile Channel channel;
+    private volatile HTTP2TargetHandler targetHandler;
+    private final ConnectionLifetime connectionLifetime;
+    private volatile boolean draining;
+
+    HTTP2ClientChannel(HttpRoute httpRoute, String scheme, ConnectionLifetime connectionLifetime) {
+        this.httpRoute = httpRoute;
+        this.scheme = scheme;
+        this.connectionLifetime = connectionLifetime;
+    }
+
+    /**
+     * Reserve a stream for a request.
+     *
+     * @return true if the connection has capacity for one more stream.
+     */
+    boolean reserveStream() {
+        if (!draining && connectionLifetime.isExpired()) {
+            // Retired so that the route gets a fresh connection, possibly to another backend instance
+            drain();
+        }
+        while (true) {
+            int reserved = reservedStreams.get();
+            if (draining || reserved >= getMaxConcurrentStreams()) {
+                return false;
+            }
+            if (reservedStreams.compareAndSet(reserved, reserved + 1)) {
+                connectionLifetime.recordRequest();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the stream reserved for a request, once the stream is closed.
+     */
+    void releaseStream() {
+        if (reservedStreams.decrementAndGet() == 0 && draining && channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Stop using the connection for new requests and close it once the active streams complete.
+     */
+    void drain() {
+        draining = true;
+        if (reservedStreams.get() == 0 && channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write a request on a new stream of the connection. A stream must be reserved beforehand.
+     *
+     * @param httpCarbonRequest  request to be written.
+     * @param httpResponseFuture future to be notified with the response.
+     * @param responseTimeout    time to wait for the response in milliseconds, 0 to wait indefinitely.
+     */
+    public void writeRequest(HTTPCarbonMessage httpCarbonRequest, HttpResponseFuture httpResponseFuture,
+                             int responseTimeout) {
+        channel.eventLoop().execute(
+                () -> targetHandler.writeRequest(httpCarbonRequest, httpResponseFuture, responseTimeout));
+    }
+
+    void connectionEstablished(Channel channel, HTTP2TargetHandler targetHandler) {
+        this.channel = channel;
+        this.targetHandler = targetHandler;
+        connectPromise.trySuccess(this);
+    }
+
+    void connectionFailed(Throwable cause) {
+        draining = true;
+        connectPromise.tryFailure(cause);
+    }
+
+    Future<HTTP2ClientChannel> getConnectFuture() {
+        return connectPromise;
+    }
+
+    private int getMaxConcurrentStreams() {
+        HTTP2TargetHandler handler = targetHandler;
+        return handler != null ? handler.getMaxConcurrentStreams() : HTTP2TargetHandler.DEFAULT_MAX_CONCURRENT_STREAMS;
+    }
+
+    public HttpRoute getHttpRoute() {
+        return httpRoute;
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+
+/**
+ * A class that responsible for initialize HTTP/2 target handlers.
+ *
+ * Over TLS, HTTP/2 is negotiated through ALPN. In cleartext the connection starts with the HTTP/2 preface, assuming
+ * prior knowledge of HTTP/2 support at the server.
+ */
+public class HTTP2ClientInitializer extends ChannelInitializer<Channel> {
+
+    private HTTP2ClientChannel clientChannel;
+    private SslContext sslContext;
+
+    public HTTP2ClientInitializer(HTTP2ClientChannel clientChannel, SslContext sslContext) {
+        this.clientChannel = clientChannel;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    protected void initChannel(Channel ch) throws Exception {
+        ChannelPipeline pipeline = ch.pipeline();
+        if (sslContext == null) {
+            pipeline.addLast(Constants.HTTP2_TARGET_HANDLER, new HTTP2TargetHandlerBuilder(clientChannel).build());
+            return;
+        }
+        HttpRoute httpRoute = clientChannel.getHttpRoute();
+        pipeline.addLast(Constants.SSL_HANDLER, sslContext.newHandler(ch.alloc(), httpRoute.getHost(),
+                httpRoute.getPort()));
+        pipeline.addLast(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER,
+                new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                    @Override
+                    protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                        if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                            ctx.pipeline().addLast(Constants.HTTP2_TARGET_HANDLER,
+                                    new HTTP2TargetHandlerBuilder(clientChannel).build());
+                            return;
+                        }
+                        clientChannel.connectionFailed(new IllegalStateException(
+                                "HTTP/2 is not supported by " + httpRoute + ", negotiated protocol: " + protocol));
+                        ctx.close();
+                    }
+                });
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopThreadFactory;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.UnixDomainSockets;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A class which manages the multiplexed HTTP/2 connections of each route.
+ *
+ * Requests share the existing connections of a route as long as they have stream capacity. A new connection is only
+ * created when every connection of the route is at its SETTINGS_MAX_CONCURRENT_STREAMS or draining. Connections are
+ * shared only by senders of the same scheme and, over TLS, of the same trust store and client certificate.
+ */
+public class HTTP2ConnectionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2ConnectionManager.class);
+
+    private static volatile HTTP2ConnectionManager connectionManager;
+
+    private final Map<String, List<HTTP2ClientChannel>> routeConnections = new ConcurrentHashMap<>();
+    private final EventLoopGroup clientEventGroup;
+    private final int clientEventGroupSize;
+    private EventLoopGroup domainSocketEventGroup;
+    private final int maxConnectionAge;
+    private final int maxRequestsPerConnection;
+
+    private HTTP2ConnectionManager(Map<String, Object> transportProperties, EventLoopGroup clientEventGroup) {
+        clientEventGroupSize = Util.getIntProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE,
+                4);
+        String clientCpus = Util.getStringProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_CPUS,
+                null);
+        this.clientEventGroup = clientEventGroup != null ? clientEventGroup
+                : new NioEventLoopGroup(clientEventGroupSize, new EventLoopThreadFactory("http-client", clientCpus));
+        maxConnectionAge = Util.getIntProperty(transportProperties, Constants.MAX_CONNECTION_AGE, 0);
+        maxRequestsPerConnection = Util.getIntProperty(transportProperties, Constants.MAX_REQUESTS_PER_CONNECTION, 0);
+    }
+
+    public static HTTP2ConnectionManager getInstance() {
+        return connectionManager;
+    }
+
+    public static void init(Map<String, Object> transportProperties) {
+        init(transportProperties, null);
+    }
+
+    /**
+     * Initialize the connection manager, if it is not initialized yet. The manager is shared by the JVM, hence the
+     * event loops given by later calls are ignored.
+     *
+     * @param transportProperties transport properties of the connections
+     * @param clientEventGroup    event loops for the connections of requests which do not come through a listener,
+     *                            null to create a group of its own, which is sized and pinned to CPUs as per
+     *                            client.bootstrap.worker.group.size and client.bootstrap.worker.group.cpus
+     */
+    public static void init(Map<String, Object> transportProperties, EventLoopGroup clientEventGroup) {
+        if (connectionManager == null) {
+            synchronized (HTTP2ConnectionManager.class) {
+                if (connectionManager == null) {
+                    connectionManager = new HTTP2ConnectionManager(transportProperties, clientEventGroup);
+                }
+            }
+        }
+    }
+
+    /**
+     * Borrow a connection with a reserved stream for a request.
+     *
+     * @param httpRoute      BE address
+     * @param sslContext     SSL context with ALPN, null for cleartext connections
+     * @param tlsIdentity    identity of the SSL configuration the context is built of, as given by
+     *                       {@link #getTlsIdentity(SSLConfig)}. Ignored for cleartext connections.
+     * @param inboundChannel listener channel of the request, a new connection is served by its event loop. Null if
+     *                       the request does not come through a listener.
+     * @return the future which is notified when the connection is ready to write the request.
+     */
+    public Future<HTTP2ClientChannel> borrowChannel(HttpRoute httpRoute, SslContext sslContext, String tlsIdentity,
+                                                    Channel inboundChannel) {
+        List<HTTP2ClientChannel> connections = routeConnections.computeIfAbsent(
+                getConnectionKey(httpRoute, sslContext, tlsIdentity), key -> new CopyOnWriteArrayList<>());
+        synchronized (connections) {
+            for (HTTP2ClientChannel clientChannel : connections) {
+                if (clientChannel.reserveStream()) {
+                    return clientChannel.getConnectFuture();
+                }
+            }
+            HTTP2ClientChannel clientChannel = createChannel(httpRoute, sslContext, inboundChannel, connections);
+            clientChannel.reserveStream();
+            connections.add(clientChannel);
+            return clientChannel.getConnectFuture();
+        }
+    }
+
+    /**
+     * Identify an SSL configuration by what a connection made with it is trusted and authenticated as, i.e. its trust
+     * store, its key store which holds the client certificate, and the protocols, cipher suites and server names it
+     * negotiates. Passwords are left out.
+     *
+     * @param sslConfig SSL configuration of a sender
+     * @return the identity, which is equal for configurations whose connections are interchangeable.
+     */
+    public static String getTlsIdentity(SSLConfig sslConfig) {
+        return getPath(sslConfig.getTrustStore()) + "|" + getPath(sslConfig.getKeyStore()) + "|"
+                + sslConfig.getTlsStoreType() + "|" + sslConfig.getSslProtocol() + "|"
+                + Arrays.toString(sslConfig.getEnableProtocols()) + "|" + Arrays.toString(sslConfig.getCipherSuites())
+                + "|" + Arrays.toString(sslConfig.getServerNames());
+    }
+
+    private static String getPath(File file) {
+        return file != null ? file.getAbsolutePath() : "";
+    }
+
+    static String getConnectionKey(HttpRoute httpRoute, SslContext sslContext, String tlsIdentity) {
+        if (sslContext == null) {
+            return Constants.HTTP_SCHEME + "://" + httpRoute;
+        }
+        return Constants.HTTPS_SCHEME + "://" + httpRoute + "#" + tlsIdentity;
+    }
+
+    private HTTP2ClientChannel createChannel(HttpRoute httpRoute, SslContext sslContext, Channel inboundChannel,
+                                             List<HTTP2ClientChannel> connections) {
+        HTTP2ClientChannel clientChannel = new HTTP2ClientChannel(httpRoute,
+                sslContext != null ? Constants.HTTPS_SCHEME : Constants.HTTP_SCHEME,
+                new ConnectionLifetime(maxConnectionAge, maxRequestsPerConnection));
+        BootstrapConfiguration bootstrapConfiguration = BootstrapConfiguration.getInstance();
+        boolean domainSocket = httpRoute.isUnixDomainSocket();
+        EventLoopGroup group;
+        boolean epollEventLoop;
+        if (inboundChannel != null && (!domainSocket || UnixDomainSockets.isEpollChannel(inboundChannel))) {
+            // Served by the event loop of the request which opens it, so that proxying it does not hop threads
+            group = inboundChannel.eventLoop();
+            epollEventLoop = UnixDomainSockets.isEpollChannel(inboundChannel);
+        } else {
+            group = domainSocket ? getDomainSocketEventGroup() : clientEventGroup;
+            epollEventLoop = domainSocket;
+        }
+        Bootstrap clientBootstrap = new Bootstrap()
+                .group(group)
+                .channel(UnixDomainSockets.getClientChannelClass(httpRoute, epollEventLoop))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, bootstrapConfiguration.getConnectTimeOut())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                        new WriteBufferWaterMark(bootstrapConfiguration.getWriteBufferLowWaterMark(),
+                                bootstrapConfiguration.getWriteBufferHighWaterMark()))
+                .handler(new HTTP2ClientInitializer(clientChannel, sslContext));
+        if (!domainSocket) {
+            clientBootstrap.option(ChannelOption.SO_KEEPALIVE, bootstrapConfiguration.isKeepAlive())
+                    .option(ChannelOption.TCP_NODELAY, bootstrapConfiguration.isTcpNoDelay())
+                    .option(ChannelOption.SO_REUSEADDR, bootstrapConfiguration.isSocketReuse());
+        }
+
+        ChannelFuture channelFuture = clientBootstrap.connect(httpRoute.getSocketAddress());
+        channelFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                clientChannel.connectionFailed(future.cause());
+            }
+        });
+        channelFuture.channel().closeFuture().addListener(future -> {
+            connections.remove(clientChannel);
+            clientChannel.connectionFailed(new ClientConnectorException("Connection closed, " + httpRoute));
+        });
+        log.debug("Created HTTP/2 connection: {}", httpRoute);
+        return clientChannel;
+    }
+
+    private synchronized EventLoopGroup getDomainSocketEventGroup() {
+        if (domainSocketEventGroup == null) {
+            domainSocketEventGroup = UnixDomainSockets.newEventLoopGroup(clientEventGroupSize);
+        }
+        return domainSocketEventGroup;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Flags;
+import io.netty.handler.codec.http2.Http2FrameListener;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class responsible for writing requests as HTTP/2 streams and handling the responses coming from BE.
+ *
+ * All the state of the handler is accessed from the event loop of the connection only. Response bodies are flow
+ * controlled by their consumers, the bytes of a DATA frame are returned to the window once the content is taken from
+ * the response message.
+ */
+public class HTTP2TargetHandler extends Http2ConnectionHandler implements Http2FrameListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2TargetHandler.class);
+
+    // Assumed until the server announces its SETTINGS_MAX_CONCURRENT_STREAMS
+    static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
+    private final Map<Integer, OutboundStream> outboundStreams = new HashMap<>();
+    private HTTP2ClientChannel clientChannel;
+    private HandlerExecutor handlerExecutor;
+    private ChannelHandlerContext ctx;
+    private volatile int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+
+    HTTP2TargetHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings,
+                       HTTP2ClientChannel clientChannel) {
+        super(decoder, encoder, initialSettings);
+        this.clientChannel = clientChannel;
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                OutboundStream outboundStream = removeStream(stream.id());
+                if (outboundStream != null) {
+                    onOutboundStreamClosed(stream.id(), outboundStream);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        this.ctx = ctx;
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtTargetConnectionInitiation(Integer.toString(ctx.hashCode()));
+        }
+        clientChannel.connectionEstablished(ctx.channel(), this);
+    }
+
+    /**
+     * Write the request on a new stream.
+     *
+     * @param httpCarbonRequest  request to be written.
+     * @param httpResponseFuture future to be notified with the response.
+     * @param responseTimeout    time to wait for the response in milliseconds, 0 to wait indefinitely.
+     */
+    void writeRequest(HTTPCarbonMessage httpCarbonRequest, HttpResponseFuture httpResponseFuture,
+                      int responseTimeout) {
+        int streamId = connection().local().incrementAndGetNextStreamId();
+        OutboundStream outboundStream = new OutboundStream(httpCarbonRequest, httpResponseFuture);
+        outboundStreams.put(streamId, outboundStream);
+        if (streamId < 0) {
+            // Stream ids of the connection are exhausted, hence a new connection is needed
+            clientChannel.drain();
+            failStream(streamId, new ClientConnectorException("No more streams available on the connection to "
+                    + clientChannel.getHttpRoute(), HttpResponseStatus.SERVICE_UNAVAILABLE.code()));
+            return;
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtTargetRequestReceiving(httpCarbonRequest);
+        }
+
+        HttpRequest httpRequest = Util.createHttpRequest(httpCarbonRequest);
+        // Headers are shared with the carbon message, hence the pseudo headers are set on the converted copy only
+        Http2Headers http2Headers = HttpConversionUtil.toHttp2Headers(httpRequest.headers(), true);
+        http2Headers.method(httpRequest.method().asciiName())
+                .path(httpRequest.uri())
+                .scheme(clientChannel.getScheme())
+                .authority(clientChannel.getHttpRoute().getHost() + ":" + clientChannel.getHttpRoute().getPort());
+        ChannelPromise promise = ctx.newPromise();
+        promise.addListener(future -> {
+            if (!future.isSuccess()) {
+                failStream(streamId, future.cause());
+            }
+        });
+        encoder().writeHeaders(ctx, streamId, http2Headers, 0, false, promise);
+        flush(ctx);
+
+        if (responseTimeout > 0) {
+            outboundStream.timeoutFuture = ctx.executor().schedule(() -> onResponseTimeout(streamId),
+                    responseTimeout, TimeUnit.MILLISECONDS);
+        }
+        httpCarbonRequest.getHttpContentAsync().setMessageListener(httpContent ->
+                ctx.executor().execute(() -> writeContent(streamId, outboundStream, httpContent)));
+    }
+
+    private void writeContent(int streamId, OutboundStream outboundStream, HttpContent httpContent) {
+        if (outboundStreams.get(streamId) != outboundStream) {
+            // Stream is already closed
+            httpContent.release();
+            return;
+        }
+        boolean endOfStream = Util.isLastHttpContent(httpContent);
+        boolean hasTrailers = endOfStream && !((LastHttpContent) httpContent).trailingHeaders().isEmpty();
+        encoder().writeData(ctx, streamId, httpContent.content(), 0, endOfStream && !hasTrailers, ctx.newPromise());
+        if (hasTrailers) {
+            Http2Headers trailers = HttpConversionUtil.toHttp2Headers(
+                    ((LastHttpContent) httpContent).trailingHeaders(), true);
+            encoder().writeHeaders(ctx, streamId, trailers, 0, true, ctx.newPromise());
+        }
+        flush(ctx);
+        if (endOfStream && handlerExecutor != null) {
+            handlerExecutor.executeAtTargetRequestSending(outboundStream.request);
+        }
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                              boolean endOfStream) throws Http2Exception {
+        OutboundStream outboundStream = outboundStreams.get(streamId);
+        if (outboundStream == null) {
+            return;
+        }
+        if (outboundStream.response == null) {
+            HttpResponse httpResponse = HttpConversionUtil.toHttpResponse(streamId, headers, true);
+            if (httpResponse.status().codeClass() == HttpStatusClass.INFORMATIONAL && !endOfStream) {
+                // Interim responses such as 100-continue are not passed on
+                return;
+            }
+            httpResponse.headers().remove(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+            outboundStream.response = setUpCarbonMessage(ctx, httpResponse, outboundStream.request);
+            try {
+                outboundStream.responseFuture.notifyHttpListener(outboundStream.response);
+            } catch (Exception e) {
+                log.error("Error while notifying response to listener ", e);
+            }
+            if (endOfStream) {
+                completeResponse(outboundStream, LastHttpContent.EMPTY_LAST_CONTENT);
+            }
+        } else {
+            LastHttpContent trailers = new DefaultLastHttpContent();
+            HttpConversionUtil.addHttp2ToHttpHeaders(streamId, headers, trailers.trailingHeaders(),
+                    HttpVersion.HTTP_1_1, true, false);
+            completeResponse(outboundStream, trailers);
+        }
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int streamDependency,
+                              short weight, boolean exclusive, int padding, boolean endOfStream)
+            throws Http2Exception {
+        onHeadersRead(ctx, streamId, headers, padding, endOfStream);
+    }
+
+    @Override
+    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream)
+            throws Http2Exception {
+        OutboundStream outboundStream = outboundStreams.get(streamId);
+        if (outboundStream == null || outboundStream.response == null) {
+            return data.readableBytes() + padding;
+        }
+        if (data.isReadable()) {
+            // Returned to the flow control window as the consumer takes the content, so a slow consumer throttles
+            // the server on this stream instead of buffering the whole body
+            outboundStream.response.addHttpContent(new HTTP2ResponseContent(data.retain(), this, streamId));
+        }
+        if (endOfStream) {
+            completeResponse(outboundStream, LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+        return padding;
+    }
+
+    /**
+     * Return the bytes of a DATA frame to the flow control window of the stream, once its content is consumed.
+     *
+     * @param streamId stream the bytes were received on.
+     * @param bytes    number of consumed bytes.
+     */
+    void consumeBytes(int streamId, int bytes) {
+        Util.runOnEventLoop(ctx.channel().eventLoop(), () -> returnBytesToWindow(streamId, bytes));
+    }
+
+    private void returnBytesToWindow(int streamId, int bytes) {
+        // Closed streams have their unconsumed bytes returned to the connection window by the flow controller
+        Http2Stream stream = connection().stream(streamId);
+        if (stream == null) {
+            return;
+        }
+        try {
+            if (decoder().flowController().consumeBytes(stream, bytes)) {
+                flush(ctx);
+            }
+        } catch (Http2Exception e) {
+            onError(ctx, e);
+        }
+    }
+
+    private void completeResponse(OutboundStream outboundStream, LastHttpContent lastHttpContent) {
+        outboundStream.cancelTimeout();
+        outboundStream.responseCompleted = true;
+        outboundStream.response.addHttpContent(lastHttpContent);
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtTargetResponseSending(outboundStream.response);
+        }
+    }
+
+    private HTTPCarbonMessage setUpCarbonMessage(ChannelHandlerContext ctx, HttpResponse httpResponse,
+                                                 HTTPCarbonMessage request) {
+        HTTPCarbonMessage response = new HttpCarbonResponse(httpResponse);
+        response.setProperty(org.wso2.carbon.messaging.Constants.DIRECTION,
+                org.wso2.carbon.messaging.Constants.DIRECTION_RESPONSE);
+        response.setProperty(Constants.HTTP_STATUS_CODE, httpResponse.status().code());
+        response.setProperty(Constants.CHNL_HNDLR_CTX, ctx);
+        response.setProperty(Constants.EXECUTOR_WORKER_POOL, request.getProperty(Constants.EXECUTOR_WORKER_POOL));
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtTargetResponseReceiving(response);
+        }
+        return response;
+    }
+
+    private void onResponseTimeout(int streamId) {
+        OutboundStream outboundStream = outboundStreams.get(streamId);
+        if (outboundStream == null || outboundStream.responseCompleted) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Timeout occurred in HTTP2TargetHandler. Stream ID : " + streamId);
+        }
+        outboundStream.timedOut = true;
+        resetStream(ctx, streamId, Http2Error.CANCEL.code(), ctx.newPromise());
+        flush(ctx);
+    }
+
+    private void onOutboundStreamClosed(int streamId, OutboundStream outboundStream) {
+        outboundStream.cancelTimeout();
+        if (outboundStream.responseCompleted) {
+            return;
+        }
+        if (outboundStream.response == null) {
+            HttpResponseStatus status = outboundStream.timedOut ?
+                    HttpResponseStatus.GATEWAY_TIMEOUT : HttpResponseStatus.BAD_GATEWAY;
+            String reason = outboundStream.timedOut ? status.reasonPhrase() :
+                    "Stream " + streamId + " closed before a response was received from " + clientChannel
+                            .getHttpRoute();
+            outboundStream.responseFuture.notifyHttpListener(new ClientConnectorException(reason, status.code()));
+        } else {
+            log.warn("Stream " + streamId + " closed before the response was completely received from "
+                    + clientChannel.getHttpRoute());
+            outboundStream.response.addHttpContent(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+    }
+
+    private void failStream(int streamId, Throwable cause) {
+        OutboundStream outboundStream = removeStream(streamId);
+        if (outboundStream != null) {
+            outboundStream.cancelTimeout();
+            outboundStream.responseFuture.notifyHttpListener(cause);
+        }
+    }
+
+    private OutboundStream removeStream(int streamId) {
+        OutboundStream outboundStream = outboundStreams.remove(streamId);
+        if (outboundStream != null) {
+            clientChannel.releaseStream();
+        }
+        return outboundStream;
+    }
+
+    @Override
+    public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+        Long maxStreams = settings.maxConcurrentStreams();
+        if (maxStreams != null) {
+            maxConcurrentStreams = (int) Math.min(maxStreams, Integer.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public void onGoAwayRead(ChannelHandlerContext ctx, int lastStreamId, long errorCode, ByteBuf debugData) {
+        if (log.isDebugEnabled()) {
+            log.debug("GOAWAY received from " + clientChannel.getHttpRoute() + " with last stream id "
+                    + lastStreamId + " and error code " + errorCode);
+        }
+        // Streams above the last stream id are closed by the connection and their requests are failed
+        clientChannel.drain();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (log.isDebugEnabled()) {
+            log.debug("Channel " + ctx.channel().id() + " gets inactive so closing it from HTTP2 Target handler.");
+        }
+        clientChannel.drain();
+        super.channelInactive(ctx);
+        if (handlerExecutor != null) {
+            handlerExecutor.executeAtTargetConnectionTermination(Integer.toString(ctx.hashCode()));
+            handlerExecutor = null;
+        }
+    }
+
+    @Override
+    public void onPriorityRead(ChannelHandlerContext ctx, int streamId, int streamDependency, short weight,
+                               boolean exclusive) {
+    }
+
+    @Override
+    public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+        if (log.isDebugEnabled()) {
+            log.debug("Stream " + streamId + " reset by " + clientChannel.getHttpRoute() + " with error code "
+                    + errorCode);
+        }
+    }
+
+    @Override
+    public void onSettingsAckRead(ChannelHandlerContext ctx) {
+    }
+
+    @Override
+    public void onPingRead(ChannelHandlerContext ctx, ByteBuf data) {
+    }
+
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, ByteBuf data) {
+    }
+
+    @Override
+    public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId, int promisedStreamId,
+                                  Http2Headers headers, int padding) {
+    }
+
+    @Override
+    public void onWindowUpdateRead(ChannelHandlerContext ctx, int streamId, int windowSizeIncrement) {
+    }
+
+    @Override
+    public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId, Http2Flags flags,
+                               ByteBuf payload) {
+    }
+
+    int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /**
+     * State of a request written on a stream.
+     */
+    private static class OutboundStream {
+
+        private final HTTPCarbonMessage request;
+        private final HttpResponseFuture responseFuture;
+        private HTTPCarbonMessage response;
+        private ScheduledFuture<?> timeoutFuture;
+        private boolean responseCompleted;
+        private boolean timedOut;
+
+        OutboundStream(HTTPCarbonMessage request, HttpResponseFuture responseFuture) {
+            this.request = request;
+            this.responseFuture = responseFuture;
+        }
+
+        void cancelTimeout() {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.handler.codec.http2.AbstractHttp2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Settings;
+
+/**
+ * {@code HTTP2TargetHandlerBuilder} is used to build the http2 target handler of a client connection.
+ */
+public final class HTTP2TargetHandlerBuilder
+        extends AbstractHttp2ConnectionHandlerBuilder<HTTP2TargetHandler, HTTP2TargetHandlerBuilder> {
+
+    private HTTP2ClientChannel clientChannel;
+
+    public HTTP2TargetHandlerBuilder(HTTP2ClientChannel clientChannel) {
+        this.clientChannel = clientChannel;
+        server(false);
+        initialSettings().pushEnabled(false);
+    }
+
+    @Override
+    public HTTP2TargetHandler build() {
+        return super.build();
+    }
+
+    @Override
+    protected HTTP2TargetHandler build(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
+                                       Http2Settings initialSettings) {
+        HTTP2TargetHandler handler = new HTTP2TargetHandler(decoder, encoder, initialSettings, clientChannel);
+        frameListener(handler);
+        return handler;
+    }
+}
@@ -25,7 +25,6 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -60,7 +59,7 @@ public class WebSocketClient {
     private static final Logger log = LoggerFactory.getLogger(WebSocketClient.class);
 
     private WebSocketTargetHandler handler;
-    private EventLoopGroup group;
+    private final EventLoopGroup group;
 
     private final String url;
     private final String subProtocols;
@@ -77,15 +76,18 @@ public class WebSocketClient {
      * @param idleTimeout Idle timeout of the connection.
      * @param headers any specific headers which need to send to the server.
      * @param connectorListener connector listener to notify incoming messages.
+     * @param group event loops shared with the other connectors, which serve the connection.
      */
     public WebSocketClient(String url, String target, String subProtocols, int idleTimeout,
-                           Map<String, String> headers, WebSocketConnectorListener connectorListener) {
+                           Map<String, String> headers, WebSocketConnectorListener connectorListener,
+                           EventLoopGroup group) {
         this.url = url;
         this.target = target;
         this.subProtocols = subProtocols;
         this.idleTimeout = idleTimeout;
         this.headers = headers;
         this.connectorListener = connectorListener;
+        this.group = group;
     }
 
     /**
@@ -126,7 +128,6 @@ public class WebSocketClient {
                 sslCtx = null;
             }
 
-            group = new NioEventLoopGroup();
             HttpHeaders httpHeaders = new DefaultHttpHeaders();
 
             // Adding custom headers to the handshake request.
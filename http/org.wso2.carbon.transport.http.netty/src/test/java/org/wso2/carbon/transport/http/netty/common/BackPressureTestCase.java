@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for coupling the reads of a channel to the write buffer water marks of its correlated peer.
+ */
+public class BackPressureTestCase {
+
+    private EmbeddedChannel sourceChannel;
+    private EmbeddedChannel targetChannel;
+    private int sourceReadCount;
+
+    @BeforeMethod
+    public void setUp() {
+        sourceReadCount = 0;
+        sourceChannel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void read(ChannelHandlerContext ctx) throws Exception {
+                sourceReadCount++;
+                super.read(ctx);
+            }
+        });
+        targetChannel = new EmbeddedChannel();
+        targetChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(4, 8));
+        Util.correlateChannelsForBackPressure(sourceChannel, targetChannel);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        sourceChannel.finishAndReleaseAll();
+        targetChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testSourceReadsFollowTargetWritability() {
+        long pauseCount = BackPressureStatistics.getInstance().getSourceReadPauseCount();
+        long resumeCount = BackPressureStatistics.getInstance().getSourceReadResumeCount();
+
+        fillOutboundBuffer();
+        assertFalse(sourceChannel.config().isAutoRead());
+        assertTrue(BackPressureStatistics.getInstance().getSourceReadPauseCount() > pauseCount);
+
+        drainOutboundBuffer();
+        assertTrue(sourceChannel.config().isAutoRead());
+        assertTrue(BackPressureStatistics.getInstance().getSourceReadResumeCount() > resumeCount);
+    }
+
+    @Test
+    public void testDrainedPeerDoesNotResumeReadsPausedForAnotherReason() {
+        fillOutboundBuffer();
+        ReadSuspension.PIPELINING.suspend(sourceChannel);
+
+        drainOutboundBuffer();
+        assertFalse(sourceChannel.config().isAutoRead());
+
+        ReadSuspension.PIPELINING.resume(sourceChannel);
+        assertTrue(sourceChannel.config().isAutoRead());
+    }
+
+    @Test
+    public void testDecorrelationResumesReads() {
+        fillOutboundBuffer();
+        Util.decorrelateChannelsForBackPressure(targetChannel);
+        assertTrue(sourceChannel.config().isAutoRead());
+        assertFalse(ReadSuspension.BACK_PRESSURE.isSuspending(sourceChannel));
+    }
+
+    @Test
+    public void testReadOnDemandWaitsForOtherReasons() {
+        ReadSuspension.BODY_DEMAND.suspend(sourceChannel);
+        ReadSuspension.BACK_PRESSURE.suspend(sourceChannel);
+        int readCount = sourceReadCount;
+        ReadSuspension.BODY_DEMAND.read(sourceChannel);
+        assertEquals(sourceReadCount, readCount);
+
+        ReadSuspension.BACK_PRESSURE.resume(sourceChannel);
+        // Only the body subscriber still holds reads, so the read it asked for is issued but auto read stays off
+        assertEquals(sourceReadCount, readCount + 1);
+        assertFalse(sourceChannel.config().isAutoRead());
+        assertTrue(ReadSuspension.BODY_DEMAND.isSuspending(sourceChannel));
+
+        ReadSuspension.BODY_DEMAND.resume(sourceChannel);
+        assertTrue(sourceChannel.config().isAutoRead());
+    }
+
+    private void fillOutboundBuffer() {
+        targetChannel.write(Unpooled.wrappedBuffer(new byte[16]));
+        assertFalse(targetChannel.isWritable());
+        Util.applyBackPressure(targetChannel, false);
+    }
+
+    private void drainOutboundBuffer() {
+        targetChannel.flush();
+        assertTrue(targetChannel.isWritable());
+        Util.applyBackPressure(targetChannel, false);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for handing over outbound content to the event loop in batches.
+ */
+public class BatchedContentWriterTestCase {
+
+    private EmbeddedChannel channel;
+    private BatchedContentWriter contentWriter;
+    private List<ChannelFuture> lastContentFutures;
+    private int flushCount;
+
+    @BeforeMethod
+    public void setUp() {
+        flushCount = 0;
+        lastContentFutures = new ArrayList<>();
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(ChannelHandlerContext ctx) throws Exception {
+                flushCount++;
+                super.flush(ctx);
+            }
+        });
+        contentWriter = new BatchedContentWriter(channel, channel.eventLoop(), lastContentFutures::add);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testContentIsWrittenInOneBatch() {
+        contentWriter.write(content("first"));
+        contentWriter.write(content("second"));
+        contentWriter.write(content("third"));
+        assertNull(channel.readOutbound());
+
+        channel.runPendingTasks();
+        assertEquals(flushCount, 1);
+        assertEquals(readContent(), "first");
+        assertEquals(readContent(), "second");
+        assertEquals(readContent(), "third");
+        assertTrue(lastContentFutures.isEmpty());
+    }
+
+    @Test
+    public void testLastContentIsFlushedWithItsListener() {
+        contentWriter.write(content("first"));
+        contentWriter.write(new DefaultLastHttpContent(Unpooled.copiedBuffer("last", StandardCharsets.UTF_8)));
+
+        channel.runPendingTasks();
+        // The last content is flushed along with the chunks before it
+        assertEquals(flushCount, 1);
+        assertEquals(lastContentFutures.size(), 1);
+        assertTrue(lastContentFutures.get(0).isSuccess());
+        assertEquals(readContent(), "first");
+        assertEquals(readContent(), "last");
+    }
+
+    @Test
+    public void testContentAddedAfterDrainIsWrittenInNextBatch() {
+        contentWriter.write(content("first"));
+        channel.runPendingTasks();
+        contentWriter.write(content("second"));
+        channel.runPendingTasks();
+
+        assertEquals(flushCount, 2);
+        assertEquals(readContent(), "first");
+        assertEquals(readContent(), "second");
+    }
+
+    @Test
+    public void testHeadersAreHeldBackUntilTheFirstBatch() {
+        HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        contentWriter.writeHeaders(httpResponse, 0);
+        assertNull(channel.readOutbound());
+
+        contentWriter.write(content("body"));
+        channel.runPendingTasks();
+        assertEquals(channel.readOutbound(), httpResponse);
+        assertEquals(readContent(), "body");
+    }
+
+    @Test
+    public void testSmallResponseIsCombinedWithItsHeaders() {
+        HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        httpResponse.headers().set("X-Test", "combined");
+        contentWriter.writeHeaders(httpResponse, 16);
+        ReleaseTrackingContent first = new ReleaseTrackingContent("first");
+        contentWriter.write(first);
+        contentWriter.write(new DefaultLastHttpContent(Unpooled.copiedBuffer("last", StandardCharsets.UTF_8)));
+
+        channel.runPendingTasks();
+        FullHttpResponse fullHttpResponse = channel.readOutbound();
+        try {
+            assertEquals(fullHttpResponse.headers().get("X-Test"), "combined");
+            assertEquals(fullHttpResponse.content().toString(StandardCharsets.UTF_8), "firstlast");
+        } finally {
+            fullHttpResponse.release();
+        }
+        assertNull(channel.readOutbound());
+        assertEquals(flushCount, 1);
+        assertEquals(lastContentFutures.size(), 1);
+        // The content is released through its wrapper rather than its buffer
+        assertTrue(first.released);
+    }
+
+    @Test
+    public void testLargeResponseIsNotCombinedWithItsHeaders() {
+        HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        contentWriter.writeHeaders(httpResponse, 4);
+        contentWriter.write(content("first"));
+        contentWriter.write(new DefaultLastHttpContent());
+
+        channel.runPendingTasks();
+        assertEquals(channel.readOutbound(), httpResponse);
+        assertEquals(readContent(), "first");
+        assertEquals(readContent(), "");
+        assertEquals(lastContentFutures.size(), 1);
+    }
+
+    @Test
+    public void testIncompleteBodyIsNotCombinedWithItsHeaders() {
+        HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        contentWriter.writeHeaders(httpResponse, 16);
+        contentWriter.write(content("first"));
+
+        channel.runPendingTasks();
+        assertEquals(channel.readOutbound(), httpResponse);
+        assertEquals(readContent(), "first");
+        assertTrue(lastContentFutures.isEmpty());
+        assertFalse(channel.outboundMessages().iterator().hasNext());
+    }
+
+    private HttpContent content(String data) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(data, StandardCharsets.UTF_8));
+    }
+
+    private String readContent() {
+        HttpContent httpContent = channel.readOutbound();
+        try {
+            return httpContent.content().toString(StandardCharsets.UTF_8);
+        } finally {
+            httpContent.release();
+        }
+    }
+
+    /**
+     * Content which records whether it was released through its wrapper.
+     */
+    private static class ReleaseTrackingContent extends DefaultHttpContent {
+
+        private boolean released;
+
+        ReleaseTrackingContent(String data) {
+            super(Unpooled.copiedBuffer(data, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean release() {
+            released = true;
+            return super.release();
+        }
+    }
+}
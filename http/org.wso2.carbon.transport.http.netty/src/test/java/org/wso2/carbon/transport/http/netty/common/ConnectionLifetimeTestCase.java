@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for retiring connections by their age and number of requests.
+ */
+public class ConnectionLifetimeTestCase {
+
+    @Test
+    public void testExpiryByNumberOfRequests() {
+        ConnectionLifetime connectionLifetime = new ConnectionLifetime(0, 2);
+        connectionLifetime.recordRequest();
+        assertFalse(connectionLifetime.isExpired());
+        connectionLifetime.recordRequest();
+        assertTrue(connectionLifetime.isExpired());
+    }
+
+    @Test
+    public void testExpiryByAge() throws InterruptedException {
+        ConnectionLifetime connectionLifetime = new ConnectionLifetime(10, 0);
+        Thread.sleep(20);
+        assertTrue(connectionLifetime.isExpired());
+    }
+
+    @Test
+    public void testUnlimitedLifetime() {
+        ConnectionLifetime connectionLifetime = new ConnectionLifetime(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            connectionLifetime.recordRequest();
+        }
+        assertFalse(connectionLifetime.isExpired());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for naming and pinning event loop threads.
+ */
+public class EventLoopThreadFactoryTestCase {
+
+    @Test
+    public void testThreadNames() {
+        EventLoopThreadFactory threadFactory = new EventLoopThreadFactory("http-io");
+        Thread first = threadFactory.newThread(() -> { });
+        Thread second = threadFactory.newThread(() -> { });
+        assertTrue(first.getName().startsWith("http-io-"));
+        assertTrue(first.getName().endsWith("-1"));
+        assertTrue(second.getName().endsWith("-2"));
+        assertTrue(first instanceof FastThreadLocalThread);
+    }
+
+    @Test
+    public void testThreadNamesAreUniqueAcrossGroups() {
+        Thread first = new EventLoopThreadFactory("http-client").newThread(() -> { });
+        Thread second = new EventLoopThreadFactory("http-client").newThread(() -> { });
+        assertNotEquals(first.getName(), second.getName());
+        assertEquals(first.getName().substring(0, "http-client-".length()), "http-client-");
+    }
+
+    @Test
+    public void testThreadsArePinnedWhenTheyStart() throws InterruptedException {
+        List<BitSet> pinned = new ArrayList<>();
+        boolean[] ran = new boolean[1];
+        EventLoopThreadFactory threadFactory = new EventLoopThreadFactory("http-io", "0-2, 5", cpus -> {
+            pinned.add(cpus);
+            return true;
+        });
+        Thread thread = threadFactory.newThread(() -> ran[0] = true);
+        assertTrue(pinned.isEmpty());
+        thread.start();
+        thread.join();
+        assertTrue(ran[0]);
+        BitSet expected = new BitSet();
+        expected.set(0, 3);
+        expected.set(5);
+        assertEquals(pinned.size(), 1);
+        assertEquals(pinned.get(0), expected);
+    }
+
+    @Test
+    public void testThreadsAreNotPinnedWithoutCpuList() throws InterruptedException {
+        boolean[] pinned = new boolean[1];
+        Thread thread = new EventLoopThreadFactory("http-io", " ", cpus -> pinned[0] = true).newThread(() -> { });
+        thread.start();
+        thread.join();
+        assertFalse(pinned[0]);
+    }
+
+    @Test
+    public void testThreadRunsWhenPinningFails() throws InterruptedException {
+        boolean[] ran = new boolean[1];
+        Thread thread = new EventLoopThreadFactory("http-client", "0", cpus -> false).newThread(() -> ran[0] = true);
+        thread.start();
+        thread.join();
+        assertTrue(ran[0]);
+    }
+
+    @Test
+    public void testPlatformAffinityRunsThread() throws InterruptedException {
+        boolean[] ran = new boolean[1];
+        Thread thread = new EventLoopThreadFactory("http-client", "0").newThread(() -> ran[0] = true);
+        thread.start();
+        thread.join();
+        assertTrue(ran[0]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCpuList() {
+        new EventLoopThreadFactory("http-acceptor", "0-3;8");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDescendingCpuRange() {
+        new EventLoopThreadFactory("http-acceptor", "3-0");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for parsing priority lanes and sharing work among them by their weights.
+ */
+public class PriorityLanesTestCase {
+
+    @Test
+    public void testParse() {
+        PriorityLanes priorityLanes = PriorityLanes.parse("critical:4, default:2 ,bulk:1");
+        assertEquals(priorityLanes.size(), 3);
+        assertEquals(priorityLanes.indexOf("default"), 1);
+        assertEquals(priorityLanes.indexOf("unknown"), -1);
+        assertEquals(priorityLanes.getDefaultLane(), 2);
+        assertNull(PriorityLanes.parse(" "));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidWeight() {
+        PriorityLanes.parse("critical:high");
+    }
+
+    @Test
+    public void testLanesAreSelectedByWeight() {
+        PriorityLanes.Selector selector = PriorityLanes.parse("critical:4,default:2,bulk:1").newSelector();
+        int[] pending = {100, 100, 100};
+        int[] selected = new int[3];
+        for (int i = 0; i < 70; i++) {
+            selected[selector.next(pending)]++;
+        }
+        assertEquals(selected[0], 40);
+        assertEquals(selected[1], 20);
+        assertEquals(selected[2], 10);
+    }
+
+    @Test
+    public void testIdleLanesAreSkipped() {
+        PriorityLanes.Selector selector = PriorityLanes.parse("critical:4,bulk:1").newSelector();
+        assertEquals(selector.next(new int[]{0, 1}), 1);
+        assertEquals(selector.next(new int[]{0, 0}), -1);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.epoll.Epoll;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
+import org.wso2.carbon.transport.http.netty.contentaware.listeners.EchoMessageListener;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.contract.HttpWsConnectorFactory;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HTTPConnectorUtil;
+import org.wso2.carbon.transport.http.netty.message.HttpMessageDataStreamer;
+import org.wso2.carbon.transport.http.netty.util.HTTPConnectorListener;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Tests a request round trip between the client connector and a listener bound to a Unix domain socket.
+ */
+public class UnixDomainSocketTestCase {
+
+    private static final String TEST_VALUE = "Test Message";
+
+    private File socketDirectory;
+    private String socketPath;
+    private ServerConnector serverConnector;
+    private HttpClientConnector httpClientConnector;
+
+    @BeforeClass
+    public void setup() throws IOException, InterruptedException {
+        if (!Epoll.isAvailable()) {
+            throw new SkipException("Unix domain sockets need the native epoll transport");
+        }
+        socketDirectory = Files.createTempDirectory("uds-test").toFile();
+        socketPath = new File(socketDirectory, "listener.sock").getAbsolutePath();
+
+        TransportsConfiguration transportsConfiguration =
+                TestUtil.getConfiguration("/simple-test-config" + File.separator + "netty-transports.yml");
+        if (ServerBootstrapConfiguration.getInstance() == null) {
+            ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+        HttpWsConnectorFactory factory = new HttpWsConnectorFactoryImpl();
+
+        ListenerConfiguration listenerConfiguration = ListenerConfiguration.getDefault();
+        listenerConfiguration.setUnixDomainSocketPath(socketPath);
+        serverConnector = factory.createServerConnector(ServerBootstrapConfiguration.getInstance(),
+                listenerConfiguration);
+        ServerConnectorFuture future = serverConnector.start();
+        future.setHttpConnectorListener(new EchoMessageListener());
+        future.sync();
+
+        httpClientConnector = factory.createHttpClientConnector(
+                HTTPConnectorUtil.getTransportProperties(transportsConfiguration),
+                HTTPConnectorUtil.getSenderConfiguration(transportsConfiguration, Constants.HTTP_SCHEME));
+    }
+
+    @Test
+    public void testRequestRoundTrip() throws InterruptedException {
+        HTTPCarbonMessage msg = new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.POST, "/"));
+        msg.setProperty(Constants.HOST, TestUtil.TEST_HOST);
+        msg.setProperty(Constants.PORT, TestUtil.TEST_HTTP_SERVER_PORT);
+        msg.setProperty(Constants.PROTOCOL, Constants.HTTP_SCHEME);
+        msg.setProperty(Constants.HTTP_METHOD, "POST");
+        msg.setProperty(Constants.UNIX_DOMAIN_SOCKET_PATH, socketPath);
+        msg.addHttpContent(new DefaultLastHttpContent(
+                Unpooled.copiedBuffer(TEST_VALUE, StandardCharsets.UTF_8)));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        HTTPConnectorListener listener = new HTTPConnectorListener(latch);
+        HttpResponseFuture responseFuture = httpClientConnector.send(msg);
+        responseFuture.setHttpConnectorListener(listener);
+        latch.await(5, TimeUnit.SECONDS);
+
+        HTTPCarbonMessage response = listener.getHttpResponseMessage();
+        assertNotNull(response);
+        String result = new BufferedReader(new InputStreamReader(new HttpMessageDataStreamer(response)
+                .getInputStream())).lines().collect(Collectors.joining("\n"));
+        assertEquals(result, TEST_VALUE);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        if (serverConnector != null) {
+            serverConnector.stop();
+        }
+        if (socketDirectory != null) {
+            new File(socketPath).delete();
+            socketDirectory.delete();
+        }
+    }
+}
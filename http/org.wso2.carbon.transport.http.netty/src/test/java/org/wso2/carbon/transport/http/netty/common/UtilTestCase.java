@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for creating outbound messages which share the headers of carbon messages.
+ */
+public class UtilTestCase {
+
+    @Test
+    public void testRequestKeepsHeadersOfCreation() {
+        HttpCarbonRequest message = new HttpCarbonRequest(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        message.setProperty(Constants.HTTP_METHOD, HttpMethod.GET.name());
+        message.setHeader(HttpHeaderNames.HOST, "localhost");
+
+        HttpRequest request = Util.createHttpRequest(message);
+        message.setHeader(HttpHeaderNames.HOST, "example.com");
+        message.removeHeader(HttpHeaderNames.HOST);
+        message.getHeaders().add("X-Added", "true");
+        message.setUri("/changed");
+
+        assertEquals(request.uri(), "/");
+        assertEquals(request.headers().get(HttpHeaderNames.HOST), "localhost");
+        assertNull(request.headers().get("X-Added"));
+        assertNull(message.getHeader(HttpHeaderNames.HOST));
+        assertEquals(message.getHeader("X-Added"), "true");
+
+        HttpRequest nextRequest = Util.createHttpRequest(message);
+        assertNull(nextRequest.headers().get(HttpHeaderNames.HOST));
+        assertEquals(nextRequest.headers().get("X-Added"), "true");
+    }
+
+    @Test
+    public void testResponseKeepsHeadersOfCreation() {
+        HTTPCarbonMessage message = new HTTPCarbonMessage(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        message.setHeader(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+
+        HttpResponse response = Util.createHttpResponse(message, true);
+        message.setHeader(HttpHeaderNames.CONTENT_TYPE, "application/json");
+
+        assertEquals(response.headers().get(HttpHeaderNames.CONTENT_TYPE), "text/plain");
+        assertEquals(response.headers().get(HttpHeaderNames.CONNECTION), Constants.CONNECTION_CLOSE);
+        assertEquals(message.getHeader(HttpHeaderNames.CONTENT_TYPE), "application/json");
+        assertEquals(message.getHeader(HttpHeaderNames.CONNECTION), Constants.CONNECTION_CLOSE);
+    }
+
+    @Test
+    public void testChangesOfResponseLeaveMessage() {
+        HTTPCarbonMessage message = new HTTPCarbonMessage(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        message.setHeader(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        message.setHeader(HttpHeaderNames.CONTENT_LENGTH, "10");
+
+        HttpResponse response = Util.createHttpResponse(message, false);
+        assertEquals(response.headers().get(HttpHeaderNames.CONTENT_TYPE), "text/plain");
+        response.headers().remove(HttpHeaderNames.CONTENT_LENGTH);
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+
+        assertNull(response.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        assertEquals(response.headers().get(HttpHeaderNames.CONTENT_TYPE), "text/plain");
+        assertEquals(message.getHeader(HttpHeaderNames.CONTENT_LENGTH), "10");
+        assertNull(message.getHeader(HttpHeaderNames.CONTENT_ENCODING));
+    }
+}
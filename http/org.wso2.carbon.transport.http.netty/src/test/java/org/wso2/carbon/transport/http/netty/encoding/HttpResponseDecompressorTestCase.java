@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.encoding;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.sender.HttpResponseDecompressor;
+import org.wso2.carbon.transport.http.netty.sender.ResponseDecompressionMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for decompressing the responses of target servers in the client connector.
+ */
+public class HttpResponseDecompressorTestCase {
+
+    private static final String ENTITY = new String(new char[1000]).replace("\0", "Compressible entity. ");
+
+    @Test
+    public void testGzipResponseIsDecompressedInChunks() throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseDecompressor(
+                ResponseDecompressionMode.DECOMPRESS));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+
+        channel.writeOutbound(request);
+        HttpRequest sent = channel.readOutbound();
+        assertEquals(sent.headers().get(HttpHeaderNames.ACCEPT_ENCODING), "gzip, deflate");
+        assertFalse(request.headers().contains(HttpHeaderNames.ACCEPT_ENCODING));
+
+        HttpResponse response = receive(channel, gzip(ENTITY.getBytes(CharsetUtil.UTF_8)), "gzip", 100);
+        assertNull(response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(readEntity(channel), ENTITY);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRawDeflateResponseIsDecompressed() throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseDecompressor(
+                ResponseDecompressionMode.DECOMPRESS));
+        channel.writeOutbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        channel.readOutbound();
+
+        receive(channel, rawDeflate(ENTITY.getBytes(CharsetUtil.UTF_8)), "deflate", 64);
+        assertEquals(readEntity(channel), ENTITY);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testResponseIsPassedThroughToClientAcceptingEncoding() throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseDecompressor(
+                ResponseDecompressionMode.PASS_THROUGH));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        channel.writeOutbound(request);
+        channel.readOutbound();
+
+        byte[] compressed = gzip(ENTITY.getBytes(CharsetUtil.UTF_8));
+        HttpResponse response = receive(channel, compressed, "gzip", compressed.length);
+        assertEquals(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), "gzip");
+        HttpContent content = channel.readInbound();
+        assertEquals(content.content(), Unpooled.wrappedBuffer(compressed));
+        content.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testResponseInEncodingNotAcceptedIsDecompressed() throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseDecompressor(
+                ResponseDecompressionMode.PASS_THROUGH));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "deflate, gzip;q=0");
+        channel.writeOutbound(request);
+        channel.readOutbound();
+
+        HttpResponse response = receive(channel, gzip(ENTITY.getBytes(CharsetUtil.UTF_8)), "gzip", 100);
+        assertNull(response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(readEntity(channel), ENTITY);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testHeadersOfFullRequestAreNotChanged() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseDecompressor(
+                ResponseDecompressionMode.DECOMPRESS));
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                Unpooled.copiedBuffer("payload", CharsetUtil.UTF_8));
+
+        channel.writeOutbound(request);
+        FullHttpRequest sent = channel.readOutbound();
+        assertEquals(sent.headers().get(HttpHeaderNames.ACCEPT_ENCODING), "gzip, deflate");
+        assertEquals(sent.content().toString(CharsetUtil.UTF_8), "payload");
+        assertFalse(request.headers().contains(HttpHeaderNames.ACCEPT_ENCODING));
+        sent.release();
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpResponse receive(EmbeddedChannel channel, byte[] entity, String encoding, int chunkSize) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, entity.length);
+        channel.writeInbound(response);
+        for (int offset = 0; offset < entity.length; offset += chunkSize) {
+            ByteBuf chunk = Unpooled.wrappedBuffer(entity, offset, Math.min(chunkSize, entity.length - offset));
+            channel.writeInbound(new DefaultHttpContent(chunk));
+        }
+        channel.writeInbound(new DefaultLastHttpContent());
+        return channel.readInbound();
+    }
+
+    private static String readEntity(EmbeddedChannel channel) {
+        ByteBuf entity = Unpooled.buffer();
+        HttpContent content;
+        do {
+            content = channel.readInbound();
+            entity.writeBytes(content.content());
+            content.release();
+        } while (!(content instanceof LastHttpContent));
+        String value = entity.toString(CharsetUtil.UTF_8);
+        entity.release();
+        return value;
+    }
+
+    private static byte[] gzip(byte[] entity) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(entity);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] rawDeflate(byte[] entity) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+            out.write(entity);
+        }
+        return compressed.toByteArray();
+    }
+}
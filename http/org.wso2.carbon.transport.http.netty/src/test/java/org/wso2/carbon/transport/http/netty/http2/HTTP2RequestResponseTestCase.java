@@ -6,7 +6,7 @@
  * in compliance with the License.
  * You may obtain a copy of the License at
  *
- * http://www.apache.org/licenses/LICENSE-2.0
+ *    http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -18,95 +18,92 @@
 
 package org.wso2.carbon.transport.http.netty.http2;
 
-//import io.netty.buffer.ByteBuf;
-//import io.netty.handler.codec.http.DefaultFullHttpRequest;
-//import io.netty.handler.codec.http.HttpHeaderNames;
-//import org.slf4j.Logger;
-//import org.slf4j.LoggerFactory;
-//import org.testng.annotations.AfterClass;
-//import org.testng.annotations.BeforeClass;
-//import org.testng.annotations.Test;
-//import org.wso2.carbon.messaging.CarbonMessageProcessor;
-//import org.wso2.carbon.messaging.exceptions.ServerConnectorException;
-//import org.wso2.carbon.transport.http.netty.common.Constants;
-//import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
-//import org.wso2.carbon.transport.http.netty.config.YAMLTransportConfigurationBuilder;
-//import org.wso2.carbon.transport.http.netty.util.TestUtil;
-//import org.wso2.carbon.transport.http.netty.util.client.http2.HTTP2Client;
-//import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
-//
-//import java.util.List;
-//
-//import static io.netty.handler.codec.http.HttpMethod.GET;
-//import static io.netty.handler.codec.http.HttpMethod.POST;
-//import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
-//import static org.testng.AssertJUnit.assertEquals;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.messaging.exceptions.ServerConnectorException;
+import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
+import org.wso2.carbon.transport.http.netty.config.YAMLTransportConfigurationBuilder;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.encoding.ContentReadingListener;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.client.http2.HTTP2Client;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.EchoServerInitializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
 
 /**
- * A test class for http2 transport.
+ * A test class for dispatching cleartext HTTP/2 requests of a listener.
  */
 public class HTTP2RequestResponseTestCase {
 
-//    private static final Logger log = LoggerFactory.getLogger(HTTP2RequestResponseTestCase.class);
-//    private List<HTTPServerConnector> serverConnectors;
-//    private HttpServer httpServer;
-//    HTTP2Client http2Client = null;
-//    private CarbonMessageProcessor carbonMessageProcessor;
-//
-//    @BeforeClass
-//    public void setUp() throws Exception {
-//        TransportsConfiguration configuration = YAMLTransportConfigurationBuilder
-//                .build("src/test/resources/simple-test-config/http2/netty-transports.yml");
-//        carbonMessageProcessor = new HTTP2MessageProcessor();
-//        serverConnectors = TestUtil.startConnectors(configuration, carbonMessageProcessor);
-//        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_SERVER_PORT, HTTP2MessageProcessor.TEST_VALUE, Constants
-//                .TEXT_PLAIN);
-//        http2Client = new HTTP2Client(false, "localhost", 8490);
-//    }
-//
-//    @Test
-//    public void http2GetRequestResponseTest() throws Exception {
-//        try {
-//            // Send Get http2 request and get response
-//            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, GET, "/");
-//            int send = http2Client.send(request);
-//            String response = http2Client.getResponse(send);
-//            assertEquals(HTTP2MessageProcessor.TEST_VALUE, response);
-//        } catch (Exception ex) {
-//            TestUtil.handleException("Error while sending http2 request ", ex);
-//        }
-//    }
-//
-//    @Test
-//    public void http2PostRequestResponseTest() throws Exception {
-//        try {
-//            // Send Post http2 request and get response
-//            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, POST, "/");
-//            String json = HTTP2MessageProcessor.TEST_VALUE;
-//            request.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
-//            request.headers().set(HttpHeaderNames.ACCEPT, "text/plain");
-//            ByteBuf buffer = request.content().clear();
-//            int p0 = buffer.writerIndex();
-//            buffer.writeBytes(json.getBytes());
-//            int p1 = buffer.writerIndex();
-//            request.headers().set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(p1 - p0));
-//
-//            int send = http2Client.send(request);
-//            String response = http2Client.getResponse(send);
-//            assertEquals(HTTP2MessageProcessor.TEST_VALUE, response);
-//        } catch (Exception ex) {
-//            TestUtil.handleException("Error while sending http2 request ", ex);
-//        }
-//    }
-//
-//
-//    @AfterClass
-//    public void cleanUp() throws ServerConnectorException {
-//        TestUtil.cleanUp(serverConnectors, httpServer);
-//        if (http2Client != null) {
-//            http2Client.close();
-//        }
-//        TestUtil.removeMessageProcessor(carbonMessageProcessor);
-//    }
+    private static final String TEST_VALUE = "Test Message";
+
+    private List<ServerConnector> serverConnectors;
+    private HttpServer httpServer;
+    private HTTP2Client http2Client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        TransportsConfiguration configuration = YAMLTransportConfigurationBuilder
+                .build("src/test/resources/simple-test-config/http2/netty-transports.yml");
+        serverConnectors = TestUtil.startConnectors(configuration, new ContentReadingListener());
+        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_HTTP_SERVER_PORT, new EchoServerInitializer());
+        http2Client = new HTTP2Client(false, TestUtil.TEST_HOST, TestUtil.TEST_DEFAULT_INTERFACE_PORT);
+    }
+
+    @Test
+    public void testGetRequest() throws Exception {
+        int streamId = http2Client.send(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        assertEquals(http2Client.getResponse(streamId), "Altered  content");
+    }
+
+    @Test
+    public void testPostRequest() throws Exception {
+        int streamId = http2Client.send(newPostRequest(TEST_VALUE));
+        assertEquals(http2Client.getResponse(streamId), "Altered " + TEST_VALUE + " content");
+    }
+
+    @Test
+    public void testConcurrentStreams() throws Exception {
+        int firstStreamId = http2Client.send(newPostRequest("first"));
+        int secondStreamId = http2Client.send(newPostRequest("second"));
+        assertEquals(http2Client.getResponse(secondStreamId), "Altered second content");
+        assertEquals(http2Client.getResponse(firstStreamId), "Altered first content");
+    }
+
+    @Test
+    public void testRequestLargerThanInitialWindow() throws Exception {
+        // The upload stalls unless the listener returns the received bytes to the flow control windows
+        char[] body = new char[Http2CodecUtil.DEFAULT_WINDOW_SIZE * 4];
+        Arrays.fill(body, 'a');
+        String payload = new String(body);
+        int streamId = http2Client.send(newPostRequest(payload));
+        assertEquals(http2Client.getResponse(streamId), "Altered " + payload + " content");
+    }
+
+    @AfterClass
+    public void cleanUp() throws ServerConnectorException {
+        http2Client.close();
+        TestUtil.cleanUp(serverConnectors, httpServer);
+    }
 
+    private FullHttpRequest newPostRequest(String payload) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8));
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        return request;
+    }
 }
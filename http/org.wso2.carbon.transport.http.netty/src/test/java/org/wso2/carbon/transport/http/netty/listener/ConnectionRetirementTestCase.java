@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for retiring a listener connection once it serves its maximum number of requests.
+ */
+public class ConnectionRetirementTestCase {
+
+    @BeforeClass
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(Constants.SERVER_BOOTSTRAP_CONNECTION_MAX_REQUESTS, 2);
+        ServerBootstrapConfiguration.createBootStrapConfiguration(properties);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+    }
+
+    @Test
+    public void testConnectionIsClosedAfterResponseOfLastRequest() throws Exception {
+        List<HTTPCarbonMessage> requests = new ArrayList<>();
+        HttpWsServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+        serverConnectorFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                requests.add(httpMessage);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        EmbeddedChannel channel = new EmbeddedChannel(new SourceHandler(serverConnectorFuture, "test"));
+
+        // Pipelined ahead of the responses, the third request is beyond the limit of the connection
+        channel.writeInbound(newRequest(), newRequest(), newRequest());
+        assertEquals(requests.size(), 2);
+        assertFalse(channel.config().isAutoRead());
+
+        requests.get(0).respond(newResponse());
+        channel.runPendingTasks();
+        HttpResponse firstResponse = readResponse(channel);
+        assertNull(firstResponse.headers().get(HttpHeaderNames.CONNECTION));
+        assertTrue(channel.isOpen());
+
+        requests.get(1).respond(newResponse());
+        channel.runPendingTasks();
+        HttpResponse lastResponse = readResponse(channel);
+        assertEquals(lastResponse.headers().get(HttpHeaderNames.CONNECTION), Constants.CONNECTION_CLOSE);
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    private static DefaultFullHttpRequest newRequest() {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+    }
+
+    private static HTTPCarbonMessage newResponse() {
+        HTTPCarbonMessage response = new HTTPCarbonMessage(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        response.setProperty(Constants.HTTP_STATUS_CODE, HttpResponseStatus.OK.code());
+        response.addHttpContent(new DefaultLastHttpContent());
+        return response;
+    }
+
+    private static HttpResponse readResponse(EmbeddedChannel channel) {
+        HttpResponse response = null;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            if (msg instanceof HttpResponse) {
+                response = (HttpResponse) msg;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        return response;
+    }
+}
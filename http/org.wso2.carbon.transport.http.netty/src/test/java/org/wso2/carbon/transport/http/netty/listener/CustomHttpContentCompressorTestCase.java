@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.config.CompressionConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the compression policy and the precompressed body cache of listeners.
+ */
+public class CustomHttpContentCompressorTestCase {
+
+    @Test
+    public void testSmallBodyIsNotCompressed() {
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor(new CompressionConfiguration(),
+                null));
+
+        ByteBuf body = send(channel, "example.com", "/", createResponse("text/plain", 100, (byte) 0, null));
+
+        assertEquals(body.readableBytes(), 100);
+        body.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDeniedContentTypeIsNotCompressed() {
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor(new CompressionConfiguration(),
+                null));
+
+        ByteBuf body = send(channel, "example.com", "/", createResponse("image/png", 4096, (byte) 0, null));
+
+        assertEquals(body.readableBytes(), 4096);
+        body.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testCompressedBodyIsServedFromCache() {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(16, 1024 * 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor(new CompressionConfiguration(),
+                cache));
+
+        ByteBuf compressed = send(channel, "example.com", "/a",
+                createResponse("text/plain; charset=utf-8", 4096, (byte) 0, "\"v1\""));
+        assertTrue(compressed.readableBytes() < 4096);
+        ByteBuf cached = cache.get(PrecompressedBodyCache.key("example.com /a", "\"v1\"", "gzip"));
+        assertEquals(cached, compressed);
+        cached.release();
+
+        // A body the cache would not have produced, so only the cached bytes can match
+        ByteBuf served = send(channel, "Example.com", "/a",
+                createResponse("text/plain; charset=utf-8", 4096, (byte) 'a', "\"v1\""));
+        assertEquals(served, compressed);
+        compressed.release();
+        served.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testOtherResourcesMissTheCache() {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(16, 1024 * 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor(new CompressionConfiguration(),
+                cache));
+
+        ByteBuf compressed = send(channel, "example.com", "/a",
+                createResponse("text/plain", 4096, (byte) 0, "\"v1\""));
+        ByteBuf otherUri = send(channel, "example.com", "/b",
+                createResponse("text/plain", 4096, (byte) 'a', "\"v1\""));
+        ByteBuf otherHost = send(channel, "example.org", "/a",
+                createResponse("text/plain", 4096, (byte) 'a', "\"v1\""));
+
+        assertNotEquals(otherUri, compressed);
+        assertNotEquals(otherHost, compressed);
+        assertEquals(otherHost, otherUri);
+        compressed.release();
+        otherUri.release();
+        otherHost.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testWeakEtagIsNotCached() {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(16, 1024 * 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor(new CompressionConfiguration(),
+                cache));
+
+        ByteBuf compressed = send(channel, "example.com", "/a", createResponse("text/plain", 4096, (byte) 0,
+                "W/\"v1\""));
+        assertTrue(compressed.readableBytes() < 4096);
+        assertNull(cache.get(PrecompressedBodyCache.key("example.com /a", "W/\"v1\"", "gzip")));
+        compressed.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testCompressionLeavesHeadersOfCarbonMessage() {
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomHttpContentCompressor());
+        HTTPCarbonMessage message = new HTTPCarbonMessage(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        message.setHeader(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        message.setHeader(HttpHeaderNames.CONTENT_LENGTH, "4096");
+
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        channel.writeInbound(request);
+        ((DefaultFullHttpRequest) channel.readInbound()).release();
+        channel.writeOutbound(Util.createHttpResponse(message, false),
+                new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[4096])));
+
+        HttpResponse response = channel.readOutbound();
+        assertEquals(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), "gzip");
+        assertNull(response.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        assertNull(message.getHeader(HttpHeaderNames.CONTENT_ENCODING));
+        assertNull(message.getHeader(HttpHeaderNames.TRANSFER_ENCODING));
+        assertEquals(message.getHeader(HttpHeaderNames.CONTENT_LENGTH), "4096");
+        assertEquals(message.getHeader(HttpHeaderNames.CONTENT_TYPE), "text/plain");
+        channel.finishAndReleaseAll();
+    }
+
+    private static FullHttpResponse createResponse(String contentType, int length, byte fill, String etag) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, fill);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.wrappedBuffer(body));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, length);
+        if (etag != null) {
+            response.headers().set(HttpHeaderNames.ETAG, etag);
+        }
+        return response;
+    }
+
+    private static ByteBuf send(EmbeddedChannel channel, String host, String uri, FullHttpResponse response) {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+        request.headers().set(HttpHeaderNames.HOST, host);
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        channel.writeInbound(request);
+        ((DefaultFullHttpRequest) channel.readInbound()).release();
+        channel.writeOutbound(response);
+
+        ByteBuf body = Unpooled.buffer();
+        Object msg = channel.readOutbound();
+        assertTrue(msg instanceof HttpResponse);
+        while (msg != null) {
+            if (msg instanceof HttpContent) {
+                body.writeBytes(((HttpContent) msg).content());
+                ((HttpContent) msg).release();
+            }
+            if (msg instanceof LastHttpContent) {
+                assertNull(channel.readOutbound());
+                return body;
+            }
+            msg = channel.readOutbound();
+        }
+        fail("Response is not complete");
+        return body;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for ordering the responses of pipelined requests.
+ */
+public class PipelinedResponseQueueTestCase {
+
+    @Test
+    public void testResponsesAreWrittenInRequestOrder() {
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(new EmbeddedChannel(), 0);
+        List<Long> written = new ArrayList<>();
+        long first = responseQueue.nextRequestSequence();
+        long second = responseQueue.nextRequestSequence();
+        long third = responseQueue.nextRequestSequence();
+
+        responseQueue.schedule(third, () -> written.add(third));
+        responseQueue.schedule(second, () -> written.add(second));
+        assertTrue(written.isEmpty());
+
+        responseQueue.schedule(first, () -> written.add(first));
+        assertEquals(written.size(), 1);
+        responseQueue.complete(first);
+        responseQueue.complete(second);
+        responseQueue.complete(third);
+
+        assertEquals(written.get(0).longValue(), first);
+        assertEquals(written.get(1).longValue(), second);
+        assertEquals(written.get(2).longValue(), third);
+    }
+
+    @Test
+    public void testReadIsSuspendedAtPipeliningLimit() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(channel, 2);
+
+        long first = responseQueue.nextRequestSequence();
+        assertTrue(channel.config().isAutoRead());
+        responseQueue.nextRequestSequence();
+        assertFalse(channel.config().isAutoRead());
+
+        responseQueue.schedule(first, () -> { });
+        responseQueue.complete(first);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testPipeliningLimitHoldsAgainstOtherResumes() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(channel, 1);
+        ReadSuspension.BACK_PRESSURE.suspend(channel);
+
+        long first = responseQueue.nextRequestSequence();
+        ReadSuspension.BACK_PRESSURE.resume(channel);
+        assertFalse(channel.config().isAutoRead());
+
+        responseQueue.schedule(first, () -> { });
+        responseQueue.complete(first);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testRejectionReplacesParkedResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(channel, 0);
+        List<String> written = new ArrayList<>();
+        long first = responseQueue.nextRequestSequence();
+        long second = responseQueue.nextRequestSequence();
+
+        responseQueue.schedule(second, () -> written.add("response"));
+        responseQueue.reject(second, () -> written.add("rejection"));
+        responseQueue.schedule(first, () -> { });
+        responseQueue.complete(first);
+        responseQueue.schedule(second, () -> written.add("late response"));
+
+        assertEquals(written.size(), 1);
+        assertEquals(written.get(0), "rejection");
+    }
+
+    @Test
+    public void testRejectionDuringResponseClosesAfterIt() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(channel, 0);
+        List<String> written = new ArrayList<>();
+        long first = responseQueue.nextRequestSequence();
+
+        responseQueue.schedule(first, () -> written.add("response"));
+        responseQueue.reject(first, () -> written.add("rejection"));
+        assertTrue(channel.isOpen());
+
+        responseQueue.complete(first);
+        assertEquals(written.size(), 1);
+        assertEquals(written.get(0), "response");
+        assertFalse(channel.isOpen());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for deciding on requests which expect 100-continue through
+ * {@link HttpConnectorListener#validateRequestContinuation(HTTPCarbonMessage)}.
+ */
+public class RequestContinuationTestCase {
+
+    private final List<HTTPCarbonMessage> requests = new ArrayList<>();
+    private HTTPCarbonMessage rejectResponse;
+    private EmbeddedChannel channel;
+
+    @BeforeClass
+    public void setupBootstrapConfiguration() {
+        if (ServerBootstrapConfiguration.getInstance() == null) {
+            ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+    }
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        requests.clear();
+        rejectResponse = null;
+        HttpWsServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+        serverConnectorFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                requests.add(httpMessage);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public HTTPCarbonMessage validateRequestContinuation(HTTPCarbonMessage httpRequest) {
+                return rejectResponse;
+            }
+        });
+        channel = new EmbeddedChannel(new SourceHandler(serverConnectorFuture, "test"));
+    }
+
+    @Test
+    public void testAcceptedRequestIsContinued() {
+        channel.writeInbound(newContinueRequest());
+
+        assertEquals(readResponseStatuses(), Arrays.asList(HttpResponseStatus.CONTINUE));
+        assertEquals(requests.size(), 1);
+        assertNull(requests.get(0).getHeader(HttpHeaderNames.EXPECT));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRejectedRequestIsNotDispatched() {
+        rejectResponse = newResponse(HttpResponseStatus.EXPECTATION_FAILED);
+        channel.writeInbound(newContinueRequest());
+        channel.runPendingTasks();
+
+        assertEquals(readResponseStatuses(), Arrays.asList(HttpResponseStatus.EXPECTATION_FAILED));
+        assertTrue(requests.isEmpty());
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRejectedRequestRetiresConnection() throws Exception {
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/earlier"));
+        rejectResponse = newResponse(HttpResponseStatus.EXPECTATION_FAILED);
+        channel.writeInbound(newContinueRequest());
+        assertTrue(ReadSuspension.CONNECTION_EXPIRY.isSuspending(channel));
+
+        // Pipelined after the rejected request, hence never served
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/later"));
+        assertEquals(requests.size(), 1);
+
+        requests.get(0).respond(newResponse(HttpResponseStatus.OK));
+        channel.runPendingTasks();
+        assertEquals(readResponseStatuses(),
+                Arrays.asList(HttpResponseStatus.OK, HttpResponseStatus.EXPECTATION_FAILED));
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testContinueWaitsForEarlierResponses() throws Exception {
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/earlier"));
+        channel.writeInbound(newContinueRequest());
+        assertTrue(readResponseStatuses().isEmpty());
+
+        requests.get(0).respond(newResponse(HttpResponseStatus.OK));
+        channel.runPendingTasks();
+        assertEquals(readResponseStatuses(), Arrays.asList(HttpResponseStatus.OK, HttpResponseStatus.CONTINUE));
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpRequest newContinueRequest() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/continue");
+        request.headers().set(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE);
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, 5);
+        return request;
+    }
+
+    private static HTTPCarbonMessage newResponse(HttpResponseStatus status) {
+        HTTPCarbonMessage response = new HTTPCarbonMessage(new DefaultHttpResponse(HttpVersion.HTTP_1_1, status));
+        response.setProperty(Constants.HTTP_STATUS_CODE, status.code());
+        response.addHttpContent(new DefaultLastHttpContent());
+        return response;
+    }
+
+    private List<HttpResponseStatus> readResponseStatuses() {
+        List<HttpResponseStatus> statuses = new ArrayList<>();
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            if (msg instanceof HttpResponse) {
+                statuses.add(((HttpResponse) msg).status());
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for dispatching the requests of listener connections to a worker executor.
+ */
+public class RequestDispatcherTestCase {
+
+    @Test
+    public void testRequestsOfConnectionRunInOrder() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            RequestDispatcher dispatcher = new RequestDispatcher(workers, 0);
+            Executor connectionExecutor = dispatcher.newConnectionExecutor(new EmbeddedChannel());
+            List<Integer> dispatched = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch latch = new CountDownLatch(100);
+            for (int i = 0; i < 100; i++) {
+                int request = i;
+                connectionExecutor.execute(() -> {
+                    dispatched.add(request);
+                    latch.countDown();
+                });
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(dispatched.get(i).intValue(), i);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadIsSuspendedBeyondQueueDepth() {
+        List<Runnable> scheduled = new ArrayList<>();
+        RequestDispatcher dispatcher = new RequestDispatcher(scheduled::add, 1);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        Executor connectionExecutor = dispatcher.newConnectionExecutor(channel);
+
+        connectionExecutor.execute(() -> { });
+        assertTrue(channel.config().isAutoRead());
+        connectionExecutor.execute(() -> { });
+        assertFalse(channel.config().isAutoRead());
+        assertEquals(dispatcher.getQueueDepth(), 2);
+        // Both requests are run by the single drain task of the connection
+        assertEquals(scheduled.size(), 1);
+
+        scheduled.get(0).run();
+        channel.runPendingTasks();
+        assertEquals(dispatcher.getQueueDepth(), 0);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testDispatchQueueKeepsOtherReadSuspensions() {
+        List<Runnable> scheduled = new ArrayList<>();
+        RequestDispatcher dispatcher = new RequestDispatcher(scheduled::add, 1);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        Executor connectionExecutor = dispatcher.newConnectionExecutor(channel);
+
+        connectionExecutor.execute(() -> { });
+        connectionExecutor.execute(() -> { });
+        assertTrue(ReadSuspension.DISPATCH_QUEUE.isSuspending(channel));
+        ReadSuspension.BACK_PRESSURE.suspend(channel);
+
+        scheduled.get(0).run();
+        channel.runPendingTasks();
+        assertFalse(ReadSuspension.DISPATCH_QUEUE.isSuspending(channel));
+        assertFalse(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testStreamsOfConnectionRunIndependently() {
+        List<Runnable> scheduled = new ArrayList<>();
+        RequestDispatcher dispatcher = new RequestDispatcher(scheduled::add, 0);
+        Executor streamExecutor = dispatcher.newStreamExecutor(new EmbeddedChannel());
+        List<String> dispatched = new ArrayList<>();
+
+        streamExecutor.execute(() -> dispatched.add("slow stream"));
+        streamExecutor.execute(() -> dispatched.add("fast stream"));
+        // Each stream is handed to a worker of its own
+        assertEquals(scheduled.size(), 2);
+
+        scheduled.get(1).run();
+        assertEquals(dispatched, Collections.singletonList("fast stream"));
+        scheduled.get(0).run();
+        assertEquals(dispatcher.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void testWorkersPickRequestsByPriorityLane() {
+        List<Runnable> scheduled = new ArrayList<>();
+        RequestDispatcher dispatcher = new RequestDispatcher(scheduled::add, 0,
+                PriorityLanes.parse("critical:2,bulk:1"));
+        List<String> dispatched = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.newConnectionExecutor(new EmbeddedChannel()).execute(() -> dispatched.add("bulk"));
+        }
+        for (int i = 0; i < 3; i++) {
+            dispatcher.newConnectionExecutor(new EmbeddedChannel())
+                    .execute(RequestDispatcher.prioritize(() -> dispatched.add("critical"), 0));
+        }
+
+        // Bulk requests arrived first, yet free workers mostly pick critical ones
+        scheduled.forEach(Runnable::run);
+        assertEquals(dispatched, Arrays.asList("critical", "bulk", "critical", "critical", "bulk", "bulk"));
+    }
+}
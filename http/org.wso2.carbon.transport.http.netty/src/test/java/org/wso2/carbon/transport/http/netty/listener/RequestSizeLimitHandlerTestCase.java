@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
+import org.wso2.carbon.transport.http.netty.config.TransportProperty;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for enforcing the request size limit on streamed requests.
+ */
+public class RequestSizeLimitHandlerTestCase {
+
+    private static final int MAX_SIZE = 10;
+
+    @Test
+    public void testRequestRejectedByContentLength() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestSizeLimitHandler(createConfig()));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, MAX_SIZE + 1);
+
+        channel.writeInbound(request);
+
+        assertNull(channel.readInbound());
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(response.status(), HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        response.release();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testStreamedRequestRejectedOnceLimitExceeded() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestSizeLimitHandler(createConfig()));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        HttpUtil.setTransferEncodingChunked(request, true);
+
+        channel.writeInbound(request, new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[MAX_SIZE])));
+        assertTrue(channel.readInbound() instanceof HttpRequest);
+        HttpContent content = channel.readInbound();
+        content.release();
+
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[1])));
+        LastHttpContent lastHttpContent = channel.readInbound();
+        assertTrue(lastHttpContent.decoderResult().isFailure());
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(response.status(), HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        response.release();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testRejectionWaitsForEarlierResponses() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestSizeLimitHandler(createConfig()));
+        PipelinedResponseQueue responseQueue = new PipelinedResponseQueue(channel, 0);
+        channel.attr(Constants.PIPELINED_RESPONSE_QUEUE).set(responseQueue);
+        long earlierRequest = responseQueue.nextRequestSequence();
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, MAX_SIZE + 1);
+
+        channel.writeInbound(request);
+        assertNull(channel.readInbound());
+        assertNull(channel.readOutbound());
+
+        responseQueue.schedule(earlierRequest, () -> channel.writeAndFlush("earlier response"));
+        responseQueue.complete(earlierRequest);
+        assertEquals(channel.readOutbound(), "earlier response");
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(response.status(), HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        response.release();
+        assertFalse(channel.isOpen());
+    }
+
+    private static RequestSizeValidationConfiguration createConfig() {
+        Set<TransportProperty> transportProperties = new HashSet<>();
+        transportProperties.add(createProperty("request.size.validation", true));
+        transportProperties.add(createProperty("request.size.validation.maximum.value", MAX_SIZE));
+        return new RequestSizeValidationConfiguration(transportProperties);
+    }
+
+    private static TransportProperty createProperty(String name, Object value) {
+        TransportProperty transportProperty = new TransportProperty();
+        transportProperty.setName(name);
+        transportProperty.setValue(value);
+        return transportProperty;
+    }
+}
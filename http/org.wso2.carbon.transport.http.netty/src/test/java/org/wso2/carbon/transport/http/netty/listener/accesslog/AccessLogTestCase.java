@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.accesslog;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for recording the requests of listener connections into an access log.
+ */
+public class AccessLogTestCase {
+
+    @Test
+    public void testPipelinedRequestsAreLoggedWithTheirResponses() throws IOException {
+        Path path = Files.createTempDirectory("access-log").resolve("access.log");
+        AccessLog accessLog = new AccessLog(path, AccessLogFormat.JSON, 16, 0, 0);
+        EmbeddedChannel channel = new EmbeddedChannel(new AccessLogHandler(accessLog, "localhost:9090"));
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/orders",
+                Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8)));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/health"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CREATED,
+                Unpooled.copiedBuffer("created", StandardCharsets.UTF_8)));
+        channel.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeOutbound(new DefaultLastHttpContent());
+        releaseAll(channel);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(lines.size(), 2);
+        assertTrue(lines.get(0).contains("\"method\":\"POST\",\"uri\":\"/orders\""), lines.get(0));
+        assertTrue(lines.get(0).contains("\"status\":201,\"requestBytes\":2,\"responseBytes\":7"), lines.get(0));
+        assertTrue(lines.get(1).contains("\"uri\":\"/health\""), lines.get(1));
+        assertTrue(lines.get(1).contains("\"status\":200"), lines.get(1));
+    }
+
+    @Test
+    public void testRecordsAreDroppedOnceClosed() throws IOException {
+        Path path = Files.createTempDirectory("access-log").resolve("access.log");
+        AccessLog accessLog = new AccessLog(path, AccessLogFormat.COMMON, 2, 0, 0);
+        accessLog.close();
+
+        EmbeddedChannel channel = new EmbeddedChannel(new AccessLogHandler(accessLog, "localhost:9090"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        releaseAll(channel);
+        assertEquals(accessLog.getDroppedRecords(), 1);
+    }
+
+    @Test
+    public void testRotationCountsEncodedBytes() throws IOException {
+        Path path = Files.createTempDirectory("access-log").resolve("access.log");
+        AccessLog accessLog = new AccessLog(path, AccessLogFormat.COMMON, 16, 600, 1);
+        EmbeddedChannel channel = new EmbeddedChannel(new AccessLogHandler(accessLog, "localhost:9090"));
+        StringBuilder uri = new StringBuilder("/");
+        for (int i = 0; i < 200; i++) {
+            uri.append('\u00e9');
+        }
+
+        // Each line is about 260 characters, yet about 460 bytes in the file
+        for (int i = 0; i < 2; i++) {
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri.toString()));
+            channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        }
+        releaseAll(channel);
+        accessLog.close();
+
+        Path rotated = Paths.get(path + ".1");
+        assertTrue(Files.exists(rotated));
+        assertTrue(Files.size(path) <= 600, "Size of the current file: " + Files.size(path));
+        assertTrue(Files.size(rotated) <= 600, "Size of the rotated file: " + Files.size(rotated));
+    }
+
+    private void releaseAll(EmbeddedChannel channel) {
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+        while ((msg = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
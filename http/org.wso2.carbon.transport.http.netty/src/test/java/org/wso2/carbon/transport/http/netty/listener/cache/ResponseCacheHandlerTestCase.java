@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLog;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLogFormat;
+import org.wso2.carbon.transport.http.netty.listener.accesslog.AccessLogHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for serving hot responses of a listener from its micro-cache.
+ */
+public class ResponseCacheHandlerTestCase {
+
+    @Test
+    public void testHitIsServedWithoutReachingTheApplication() {
+        ResponseCache responseCache = new ResponseCache("/hot", 60000, 0, 16, 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(),
+                new ResponseCacheHandler(responseCache));
+
+        channel.writeInbound(request("/hot?id=1", "en"));
+        FullHttpRequest miss = channel.readInbound();
+        assertNotNull(miss);
+        miss.release();
+        channel.writeOutbound(response("hello", "Accept-Language"));
+        String encoded = readOutbound(channel);
+
+        channel.writeInbound(request("/hot?id=1", "en"));
+        assertNull(channel.readInbound());
+        assertEquals(readOutbound(channel), encoded);
+        assertTrue(encoded.endsWith("hello"));
+        responseCache.clear();
+    }
+
+    @Test
+    public void testVariantsAndOtherPathsMiss() {
+        ResponseCache responseCache = new ResponseCache("/hot", 60000, 0, 16, 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(),
+                new ResponseCacheHandler(responseCache));
+
+        channel.writeInbound(request("/hot", "en"));
+        ReferenceCountUtil.release(channel.readInbound());
+        channel.writeOutbound(response("hello", "Accept-Language"));
+        readOutbound(channel);
+
+        channel.writeInbound(request("/hot", "fr"));
+        FullHttpRequest otherVariant = channel.readInbound();
+        assertNotNull(otherVariant);
+        otherVariant.release();
+        channel.writeOutbound(response("bonjour", "Accept-Language"));
+        readOutbound(channel);
+
+        channel.writeInbound(request("/cold", "en"));
+        FullHttpRequest otherPath = channel.readInbound();
+        assertNotNull(otherPath);
+        otherPath.release();
+        responseCache.clear();
+    }
+
+    @Test
+    public void testOtherHostsMiss() {
+        ResponseCache responseCache = new ResponseCache("/hot", 60000, 0, 16, 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(),
+                new ResponseCacheHandler(responseCache));
+
+        FullHttpRequest request = request("/hot", "en");
+        request.headers().set(HttpHeaderNames.HOST, "shop.example.com");
+        channel.writeInbound(request);
+        ReferenceCountUtil.release(channel.readInbound());
+        channel.writeOutbound(response("shop", "Accept-Language"));
+        readOutbound(channel);
+
+        FullHttpRequest otherHostRequest = request("/hot", "en");
+        otherHostRequest.headers().set(HttpHeaderNames.HOST, "blog.example.com");
+        channel.writeInbound(otherHostRequest);
+        FullHttpRequest otherHost = channel.readInbound();
+        assertNotNull(otherHost);
+        otherHost.release();
+        responseCache.clear();
+    }
+
+    @Test
+    public void testHitsAreAccessLogged() throws IOException {
+        ResponseCache responseCache = new ResponseCache("/hot", 60000, 0, 16, 1024);
+        Path path = Files.createTempDirectory("access-log").resolve("access.log");
+        AccessLog accessLog = new AccessLog(path, AccessLogFormat.COMMON, 16, 0, 0);
+        AccessLogHandler accessLogHandler = new AccessLogHandler(accessLog, "localhost:9090");
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(),
+                new ResponseCacheHandler(responseCache, accessLogHandler), accessLogHandler);
+
+        channel.writeInbound(request("/hot", "en"));
+        ReferenceCountUtil.release(channel.readInbound());
+        channel.writeOutbound(response("hello", "Accept-Language"));
+        readOutbound(channel);
+        channel.writeInbound(request("/hot", "en"));
+        assertNull(channel.readInbound());
+        readOutbound(channel);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(lines.size(), 2);
+        assertTrue(lines.get(1).endsWith("\"GET /hot HTTP/1.1\" 200 5"), lines.get(1));
+        responseCache.clear();
+    }
+
+    private FullHttpRequest request(String uri, String language) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+        request.headers().set(HttpHeaderNames.ACCEPT_LANGUAGE, language);
+        return request;
+    }
+
+    private FullHttpResponse response(String body, String vary) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        response.headers().set(HttpHeaderNames.VARY, vary);
+        return response;
+    }
+
+    private String readOutbound(EmbeddedChannel channel) {
+        StringBuilder encoded = new StringBuilder();
+        ByteBuf part;
+        while ((part = channel.readOutbound()) != null) {
+            encoded.append(part.toString(StandardCharsets.UTF_8));
+            part.release();
+        }
+        return encoded.toString();
+    }
+}
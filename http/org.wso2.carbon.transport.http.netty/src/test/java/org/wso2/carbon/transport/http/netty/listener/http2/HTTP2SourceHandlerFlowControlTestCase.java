@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Stream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Tests for flow controlling the request bodies of HTTP/2 streams by the consumers of the requests.
+ */
+public class HTTP2SourceHandlerFlowControlTestCase {
+
+    private static final int REQUEST_SIZE = 200000;
+    private static final int STREAM_ID = 3;
+
+    private EmbeddedChannel clientChannel;
+    private EmbeddedChannel serverChannel;
+    private Http2ConnectionHandler clientHandler;
+    private final AtomicReference<HTTPCarbonMessage> request = new AtomicReference<>();
+
+    @BeforeClass
+    public void setupBootstrapConfiguration() {
+        if (ServerBootstrapConfiguration.getInstance() == null) {
+            ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+    }
+
+    @BeforeMethod
+    public void setup() {
+        request.set(null);
+        HttpWsServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+        serverConnectorFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                request.set(httpMessage);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        HTTP2SourceHandler sourceHandler = new HTTP2SourceHandlerBuilder(serverConnectorFuture, "test",
+                new ListenerConfiguration("test", "localhost", 0)).build();
+        clientHandler = new Http2ConnectionHandlerBuilder().server(false).frameListener(new Http2FrameAdapter())
+                .build();
+        serverChannel = new EmbeddedChannel(sourceHandler);
+        clientChannel = new EmbeddedChannel(clientHandler);
+        pump();
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        clientChannel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRequestIsReceivedOnlyAsConsumed() {
+        ChannelHandlerContext ctx = clientChannel.pipeline().firstContext();
+        clientHandler.encoder().writeHeaders(ctx, STREAM_ID, new DefaultHttp2Headers().method("POST").path("/")
+                .scheme("http"), 0, false, ctx.newPromise());
+        clientHandler.encoder().writeData(ctx, STREAM_ID, Unpooled.buffer(REQUEST_SIZE).writeZero(REQUEST_SIZE), 0,
+                true, ctx.newPromise());
+        clientHandler.flush(ctx);
+        pump();
+
+        HTTPCarbonMessage cMsg = request.get();
+        assertNotNull(cMsg);
+        Http2Stream clientStream = clientHandler.connection().stream(STREAM_ID);
+        // Nothing is returned to the window before the request is read
+        assertEquals(clientHandler.encoder().flowController().windowSize(clientStream), 0);
+
+        int received = 0;
+        boolean lastContentReceived = false;
+        while (!lastContentReceived) {
+            assertFalse(cMsg.isEmpty(), "Request body stalled after " + received + " bytes");
+            HttpContent httpContent = cMsg.getHttpContent();
+            received += httpContent.content().readableBytes();
+            lastContentReceived = httpContent instanceof LastHttpContent;
+            httpContent.release();
+            pump();
+        }
+        assertEquals(received, REQUEST_SIZE);
+    }
+
+    private void pump() {
+        boolean transferred = true;
+        while (transferred) {
+            transferred = transfer(clientChannel, serverChannel) | transfer(serverChannel, clientChannel);
+        }
+    }
+
+    private static boolean transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        boolean transferred = false;
+        Object msg;
+        while ((msg = from.readOutbound()) != null) {
+            to.writeInbound(msg);
+            transferred = true;
+        }
+        return transferred;
+    }
+}
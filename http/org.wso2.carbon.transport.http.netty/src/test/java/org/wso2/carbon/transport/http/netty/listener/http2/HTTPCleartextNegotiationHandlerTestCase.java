@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameTypes;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.HTTPServerChannelInitializer;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for choosing between HTTP/2 and HTTP/1.1 on a cleartext connection.
+ */
+public class HTTPCleartextNegotiationHandlerTestCase {
+
+    private final List<HTTPCarbonMessage> requests = new ArrayList<>();
+    private EmbeddedChannel channel;
+
+    @BeforeClass
+    public void setupBootstrapConfiguration() {
+        if (ServerBootstrapConfiguration.getInstance() == null) {
+            ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+    }
+
+    @BeforeMethod
+    public void setup() {
+        requests.clear();
+        HttpWsServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+        serverConnectorFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                requests.add(httpMessage);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        HTTPServerChannelInitializer channelInitializer = new HTTPServerChannelInitializer();
+        channelInitializer.setServerConnectorFuture(serverConnectorFuture);
+        channelInitializer.setInterfaceId("test");
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER,
+                new HTTPCleartextNegotiationHandler(channelInitializer,
+                        new ListenerConfiguration("test", "localhost", 0)));
+    }
+
+    @Test
+    public void testPriorKnowledgePrefaceSwitchesToHttp2() {
+        ByteBuf preface = Http2CodecUtil.connectionPrefaceBuf();
+        // Split preface, which is only decided on once complete
+        channel.writeInbound(preface.readRetainedSlice(10));
+        assertNotNull(channel.pipeline().get(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER));
+
+        channel.writeInbound(preface, newSettingsFrame());
+        assertNull(channel.pipeline().get(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER));
+        assertNotNull(channel.pipeline().get(Constants.HTTP2_SOURCE_HANDLER));
+        assertNull(channel.pipeline().get("decoder"));
+        ByteBuf settings = channel.readOutbound();
+        assertEquals(settings.getByte(settings.readerIndex() + 3), Http2FrameTypes.SETTINGS);
+        settings.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testUpgradeRequestSwitchesToHttp2() {
+        channel.writeInbound(toByteBuf("GET /upgrade HTTP/1.1\r\nHost: localhost\r\n"
+                + "Connection: Upgrade, HTTP2-Settings\r\nUpgrade: h2c\r\nHTTP2-Settings: AAMAAABkAAQAAP__\r\n\r\n"));
+
+        ByteBuf switchingResponse = channel.readOutbound();
+        assertTrue(switchingResponse.toString(StandardCharsets.US_ASCII)
+                .startsWith("HTTP/1.1 101 Switching Protocols"));
+        switchingResponse.release();
+        assertNotNull(channel.pipeline().get(Constants.HTTP2_SOURCE_HANDLER));
+        assertNull(channel.pipeline().get("decoder"));
+        assertNull(channel.pipeline().get("encoder"));
+        assertNull(channel.pipeline().get(Constants.HTTP_SOURCE_HANDLER));
+        assertEquals(requests.size(), 1);
+        assertEquals(requests.get(0).getProperty(Constants.TO), "/upgrade");
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPlainHttp1RequestIsServedWithHttp1() {
+        channel.writeInbound(toByteBuf("GET /plain HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+
+        assertNull(channel.pipeline().get(Constants.HTTP_PROTOCOL_NEGOTIATION_HANDLER));
+        assertNull(channel.pipeline().get(Constants.HTTP2_SOURCE_HANDLER));
+        assertNotNull(channel.pipeline().get("decoder"));
+        assertNotNull(channel.pipeline().get(Constants.HTTP2_UPGRADE_HANDLER));
+        assertNotNull(channel.pipeline().get(Constants.HTTP_SOURCE_HANDLER));
+        assertEquals(requests.size(), 1);
+        assertEquals(requests.get(0).getProperty(Constants.TO), "/plain");
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf newSettingsFrame() {
+        // Empty SETTINGS frame on the connection stream
+        return Unpooled.wrappedBuffer(new byte[] { 0, 0, 0, Http2FrameTypes.SETTINGS, 0, 0, 0, 0, 0 });
+    }
+
+    private static ByteBuf toByteBuf(String content) {
+        return Unpooled.copiedBuffer(content, StandardCharsets.US_ASCII);
+    }
+}
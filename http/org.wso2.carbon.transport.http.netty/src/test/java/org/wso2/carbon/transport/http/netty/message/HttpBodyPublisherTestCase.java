@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.ReadSuspension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for consuming and producing message bodies through {@link BodyPublisher}.
+ */
+public class HttpBodyPublisherTestCase {
+
+    @Test
+    public void testContentIsDeliveredOnlyOnDemand() {
+        HTTPCarbonMessage message = createMessage();
+        message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("first", StandardCharsets.UTF_8)));
+        message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("second", StandardCharsets.UTF_8)));
+        message.addHttpContent(new DefaultLastHttpContent());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        message.getBodyPublisher().subscribe(subscriber);
+        assertTrue(subscriber.chunks.isEmpty());
+
+        subscriber.subscription.request(1);
+        assertEquals(subscriber.chunks.size(), 1);
+        assertEquals(subscriber.chunks.get(0), "first");
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        assertEquals(subscriber.chunks.size(), 2);
+        assertEquals(subscriber.chunks.get(1), "second");
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() {
+        HTTPCarbonMessage message = createMessage();
+        message.getBodyPublisher().subscribe(new RecordingSubscriber());
+
+        RecordingSubscriber secondSubscriber = new RecordingSubscriber();
+        message.getBodyPublisher().subscribe(secondSubscriber);
+        assertTrue(secondSubscriber.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testPublisherAsBodySource() {
+        HTTPCarbonMessage source = createMessage();
+        source.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("payload", StandardCharsets.UTF_8)));
+        source.addHttpContent(new DefaultLastHttpContent());
+
+        HTTPCarbonMessage target = createMessage();
+        target.setBodyPublisher(source.getBodyPublisher());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        target.getBodyPublisher().subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(subscriber.chunks.size(), 1);
+        assertEquals(subscriber.chunks.get(0), "payload");
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testFinishedSubscriptionKeepsOtherReadSuspensions() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        HTTPCarbonMessage message = createMessage();
+        message.setProperty(Constants.CHNL_HNDLR_CTX, channel.pipeline().firstContext());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        message.getBodyPublisher().subscribe(subscriber);
+        assertFalse(channel.config().isAutoRead());
+
+        ReadSuspension.BACK_PRESSURE.suspend(channel);
+        subscriber.subscription.cancel();
+        assertFalse(channel.config().isAutoRead());
+
+        ReadSuspension.BACK_PRESSURE.resume(channel);
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+
+    private HTTPCarbonMessage createMessage() {
+        return new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+    }
+
+    private static class RecordingSubscriber implements BodySubscriber {
+
+        private BodySubscription subscription;
+        private List<String> chunks = new ArrayList<>();
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(BodySubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer byteBuffer) {
+            chunks.add(StandardCharsets.UTF_8.decode(byteBuffer).toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for peeking the first bytes of the payload without consuming it.
+ */
+public class HttpCarbonMessagePeekTestCase {
+
+    @Test
+    public void testPeekSpansContentsWithoutConsumingThem() {
+        HTTPCarbonMessage message = createMessage();
+        message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("{\"ty", StandardCharsets.UTF_8)));
+        message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("pe\":1}", StandardCharsets.UTF_8)));
+
+        ByteBuffer prefix = message.peek(7);
+        assertTrue(prefix.isReadOnly());
+        assertEquals(StandardCharsets.UTF_8.decode(prefix).toString(), "{\"type\"");
+
+        assertEquals(message.getHttpContent().content().toString(StandardCharsets.UTF_8), "{\"ty");
+        assertEquals(message.getHttpContent().content().toString(StandardCharsets.UTF_8), "pe\":1}");
+    }
+
+    @Test
+    public void testPeekWaitsForContent() throws InterruptedException {
+        HTTPCarbonMessage message = createMessage();
+        Thread producer = new Thread(() -> {
+            message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("<root", StandardCharsets.UTF_8)));
+            message.addHttpContent(new DefaultLastHttpContent(Unpooled.copiedBuffer("/>", StandardCharsets.UTF_8)));
+        });
+        producer.start();
+
+        ByteBuffer prefix = message.peek(64);
+        producer.join();
+        assertEquals(StandardCharsets.UTF_8.decode(prefix).toString(), "<root/>");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPeekFailsOnEventLoop() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        HTTPCarbonMessage message = createMessage();
+        message.setProperty(Constants.CHNL_HNDLR_CTX, channel.pipeline().firstContext());
+        message.addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer("{", StandardCharsets.UTF_8)));
+
+        // The rest of the payload could never be read while the event loop waits for it
+        message.peek(64);
+    }
+
+    private HTTPCarbonMessage createMessage() {
+        return new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the collaborators of HTTPCarbonMessage, which are created as they are first used.
+ */
+public class HttpCarbonMessageTestCase {
+
+    @Test
+    public void testConnectorFutureIsSharedOnceCreated() throws Exception {
+        HTTPCarbonMessage message = createMessage();
+        CompletableFuture<ServerConnectorFuture> otherThread =
+                CompletableFuture.supplyAsync(message::getHTTPConnectorFuture);
+
+        ServerConnectorFuture connectorFuture = message.getHTTPConnectorFuture();
+        assertSame(otherThread.get(), connectorFuture);
+        assertSame(message.getHTTPConnectorFuture(), connectorFuture);
+    }
+
+    @Test
+    public void testMessageWithoutPayloadIsReleased() {
+        HTTPCarbonMessage message = createMessage();
+        message.release();
+        assertTrue(message.isEmpty());
+    }
+
+    @Test
+    public void testMessageWithoutPayloadIsQueried() {
+        HTTPCarbonMessage message = createMessage();
+        assertTrue(message.isEmpty());
+        assertFalse(message.isAlreadyRead());
+        assertFalse(message.isEndOfMsgAdded());
+    }
+
+    @Test
+    public void testLengthWaitsForPayloadYetToArrive() throws Exception {
+        HTTPCarbonMessage message = createMessage();
+        CompletableFuture<Integer> length = CompletableFuture.supplyAsync(message::getFullMessageLength);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(length.isDone());
+
+        message.addHttpContent(new DefaultLastHttpContent(Unpooled.copiedBuffer("payload", StandardCharsets.UTF_8)));
+        assertEquals(length.get(5, TimeUnit.SECONDS).intValue(), 7);
+    }
+
+    @Test
+    public void testReleaseWaitsForPayloadYetToArrive() throws Exception {
+        HTTPCarbonMessage message = createMessage();
+        CompletableFuture<Void> released = CompletableFuture.runAsync(message::waitAndReleaseAllEntities);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(released.isDone());
+
+        message.addHttpContent(new DefaultLastHttpContent(Unpooled.copiedBuffer("payload", StandardCharsets.UTF_8)));
+        released.get(5, TimeUnit.SECONDS);
+        assertTrue(message.isEmpty());
+    }
+
+    @Test
+    public void testCollaboratorsAreCreatedWhileMessageIsLocked() throws Exception {
+        HTTPCarbonMessage message = createMessage();
+        synchronized (message) {
+            CompletableFuture<EntityCollector> collector =
+                    CompletableFuture.supplyAsync(message::getBlockingEntityCollector);
+            CompletableFuture<ServerConnectorFuture> connectorFuture =
+                    CompletableFuture.supplyAsync(message::getHTTPConnectorFuture);
+            assertNotNull(collector.get(5, TimeUnit.SECONDS));
+            assertNotNull(connectorFuture.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testPayloadIsCollectedOnFirstContent() {
+        HTTPCarbonMessage message = createMessage();
+        message.addHttpContent(new DefaultLastHttpContent(Unpooled.copiedBuffer("payload", StandardCharsets.UTF_8)));
+
+        assertEquals(message.getFullMessageLength(), 7);
+        assertEquals(message.getHttpContent().content().toString(StandardCharsets.UTF_8), "payload");
+    }
+
+    private static HTTPCarbonMessage createMessage() {
+        return new HTTPCarbonMessage(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.passthrough;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HTTPConnectorUtil;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.MockServerInitializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.HashMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that a request proxied by a listener is sent to the backend on the event loop of the listener connection.
+ */
+public class SharedEventLoopTestCase {
+
+    private static final String TEST_VALUE = "Test Message";
+    private static final int LISTENER_PORT = 8491;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private ServerConnector serverConnector;
+    private HttpServer httpServer;
+    private volatile Thread requestThread;
+    private volatile Thread responseThread;
+
+    @BeforeClass
+    public void setUp() {
+        TransportsConfiguration transportsConfiguration =
+                TestUtil.getConfiguration("/simple-test-config" + File.separator + "netty-transports.yml");
+        if (ServerBootstrapConfiguration.getInstance() == null) {
+            ServerBootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("shared-acceptor"));
+        workerGroup = new NioEventLoopGroup(2, new DefaultThreadFactory("shared-io"));
+        HttpWsConnectorFactoryImpl factory = new HttpWsConnectorFactoryImpl(bossGroup, workerGroup);
+
+        HttpClientConnector clientConnector = factory.createHttpClientConnector(
+                HTTPConnectorUtil.getTransportProperties(transportsConfiguration),
+                HTTPConnectorUtil.getSenderConfiguration(transportsConfiguration, Constants.HTTP_SCHEME));
+        ListenerConfiguration listenerConfiguration = ListenerConfiguration.getDefault();
+        listenerConfiguration.setPort(LISTENER_PORT);
+        serverConnector = factory.createServerConnector(ServerBootstrapConfiguration.getInstance(),
+                listenerConfiguration);
+        ServerConnectorFuture future = serverConnector.start();
+        future.setHttpConnectorListener(new ProxyingListener(clientConnector));
+
+        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_HTTP_SERVER_PORT,
+                new MockServerInitializer(TEST_VALUE, Constants.TEXT_PLAIN, 200));
+    }
+
+    @Test
+    public void testBackendConnectionRunsOnListenerEventLoop() throws IOException {
+        URI baseURI = URI.create(String.format("http://%s:%d", TestUtil.TEST_HOST, LISTENER_PORT));
+        HttpURLConnection urlConn = TestUtil.request(baseURI, "/", HttpMethod.GET.name(), true);
+        assertEquals(TestUtil.getContent(urlConn), TEST_VALUE);
+        urlConn.disconnect();
+
+        assertNotNull(requestThread);
+        assertTrue(requestThread.getName().startsWith("shared-io"));
+        // The backend response is read on the event loop which read the request, without a thread hop
+        assertEquals(responseThread, requestThread);
+    }
+
+    @AfterClass
+    public void cleanUp() throws InterruptedException {
+        serverConnector.stop();
+        httpServer.shutdown();
+        bossGroup.shutdownGracefully().sync();
+        workerGroup.shutdownGracefully().sync();
+    }
+
+    private class ProxyingListener implements HttpConnectorListener {
+
+        private final HttpClientConnector clientConnector;
+
+        ProxyingListener(HttpClientConnector clientConnector) {
+            this.clientConnector = clientConnector;
+        }
+
+        @Override
+        public void onMessage(HTTPCarbonMessage httpRequest) {
+            requestThread = Thread.currentThread();
+            httpRequest.setProperty(Constants.HOST, TestUtil.TEST_HOST);
+            httpRequest.setProperty(Constants.PORT, TestUtil.TEST_HTTP_SERVER_PORT);
+            clientConnector.send(httpRequest).setHttpConnectorListener(new HttpConnectorListener() {
+                @Override
+                public void onMessage(HTTPCarbonMessage httpResponse) {
+                    responseThread = Thread.currentThread();
+                    try {
+                        httpRequest.respond(httpResponse);
+                    } catch (Exception e) {
+                        onError(e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.ProxyTunnelStatistics;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
 import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
 import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
@@ -58,6 +59,7 @@ import java.util.stream.Collectors;
 
 import static org.mockserver.integration.ClientAndProxy.startClientAndProxy;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.AssertJUnit.assertNotNull;
 
 /**
@@ -136,6 +138,7 @@ public class ProxyServerTestCase {
                     new InputStreamReader(new HttpMessageDataStreamer(response).getInputStream())).lines()
                     .collect(Collectors.joining("\n"));
             assertEquals(testValue, result);
+            assertTrue(ProxyTunnelStatistics.getInstance().getTunnelCount() > 0);
         } catch (Exception e) {
             TestUtil.handleException("Exception occurred while running testProxyServer", e);
         }
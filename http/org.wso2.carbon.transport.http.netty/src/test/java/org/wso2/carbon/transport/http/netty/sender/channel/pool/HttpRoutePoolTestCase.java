@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+
+/**
+ * Tests for pooling the connections of routes through proxies apart from other connections to the same endpoint.
+ */
+public class HttpRoutePoolTestCase {
+
+    private final List<HttpRoute> routes = new ArrayList<>();
+
+    @Test
+    public void testDirectAndProxiedRoutesHaveSeparatePools() throws UnknownHostException {
+        ConnectionManager.init(new HashMap<>());
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        ProxyServerConfiguration proxy = new ProxyServerConfiguration("localhost", 15427);
+        ProxyServerConfiguration proxyOfUser = new ProxyServerConfiguration("localhost", 15427);
+        proxyOfUser.setProxyUsername("user");
+
+        HttpRoute direct = new HttpRoute("route.pool.test", 80);
+        HttpRoute proxied = new HttpRoute("route.pool.test", 80, proxy);
+        HttpRoute proxiedAsUser = new HttpRoute("route.pool.test", 80, proxyOfUser);
+        for (HttpRoute route : new HttpRoute[] {direct, proxied, proxiedAsUser}) {
+            routes.add(route);
+            // No idle connections are asked for, so the pool of the route is created without connecting
+            connectionManager.warmUp(this, route, null, false, false, false, 5, route.getProxyServerConfiguration(),
+                    0);
+        }
+
+        Map<String, GenericObjectPool> pools = connectionManager.getTargetChannelPool();
+        GenericObjectPool directPool = pools.get(direct.toString());
+        GenericObjectPool proxiedPool = pools.get(proxied.toString());
+        GenericObjectPool proxiedAsUserPool = pools.get(proxiedAsUser.toString());
+        assertNotNull(directPool);
+        assertNotNull(proxiedPool);
+        assertNotNull(proxiedAsUserPool);
+        assertNotSame(proxiedPool, directPool);
+        assertNotSame(proxiedAsUserPool, directPool);
+        assertNotSame(proxiedAsUserPool, proxiedPool);
+        assertEquals(proxiedAsUser.toString(), "route.pool.test-80-via-user@localhost-15427");
+    }
+
+    @AfterClass
+    public void cleanUp() throws Exception {
+        for (HttpRoute route : routes) {
+            ConnectionManager.getInstance().stopWarmUp(this, route);
+            GenericObjectPool pool = ConnectionManager.getInstance().getTargetChannelPool().remove(route.toString());
+            if (pool != null) {
+                pool.close();
+            }
+        }
+    }
+}
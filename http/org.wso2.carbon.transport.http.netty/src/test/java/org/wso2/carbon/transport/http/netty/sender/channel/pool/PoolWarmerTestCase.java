@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for keeping idle connections in the pool of a route ahead of traffic.
+ */
+public class PoolWarmerTestCase {
+
+    private EventLoop eventLoop;
+
+    @BeforeClass
+    public void setup() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @Test
+    public void testPoolIsRefilledAtConnectRate() throws Exception {
+        GenericObjectPool pool = createPool();
+        PoolWarmer poolWarmer = new PoolWarmer(pool, eventLoop, 2);
+        poolWarmer.addOwner(this, 3);
+
+        poolWarmer.refill();
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(pool.getNumIdle(), 2);
+
+        TimeUnit.MILLISECONDS.sleep(1500);
+        assertEquals(pool.getNumIdle(), 3);
+
+        pool.borrowObject();
+        poolWarmer.refill();
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(pool.getNumIdle(), 3);
+        assertEquals(pool.getNumActive(), 1);
+    }
+
+    @Test
+    public void testPoolIsNotFilledBeyondMaxIdle() throws Exception {
+        GenericObjectPool pool = createPool();
+        pool.setMaxIdle(1);
+        PoolWarmer poolWarmer = new PoolWarmer(pool, eventLoop, 10);
+        poolWarmer.addOwner(this, 3);
+
+        poolWarmer.refill();
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(pool.getNumIdle(), 1);
+    }
+
+    @Test
+    public void testEvictorKeepsMinIdleConnections() {
+        GenericObjectPool pool = createPool();
+        pool.setMinEvictableIdleTimeMillis(30000);
+        PoolWarmer poolWarmer = new PoolWarmer(pool, eventLoop, 10);
+
+        poolWarmer.addOwner(this, 3);
+        assertEquals(pool.getMinIdle(), 3);
+        assertEquals(pool.getMinEvictableIdleTimeMillis(), -1);
+        assertEquals(pool.getSoftMinEvictableIdleTimeMillis(), 30000);
+    }
+
+    @Test
+    public void testClosedWarmerStopsRefilling() throws Exception {
+        GenericObjectPool pool = createPool();
+        pool.setMinEvictableIdleTimeMillis(30000);
+        PoolWarmer poolWarmer = new PoolWarmer(pool, eventLoop, 1);
+        poolWarmer.addOwner(this, 3);
+
+        poolWarmer.refill();
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(pool.getNumIdle(), 1);
+
+        poolWarmer.close();
+        TimeUnit.MILLISECONDS.sleep(1500);
+        assertEquals(pool.getNumIdle(), 1);
+        assertEquals(pool.getMinIdle(), 0);
+        assertEquals(pool.getMinEvictableIdleTimeMillis(), 30000);
+    }
+
+    @Test
+    public void testPoolIsKeptWarmUntilTheLastOwnerStops() {
+        GenericObjectPool pool = createPool();
+        pool.setMinEvictableIdleTimeMillis(30000);
+        PoolWarmer poolWarmer = new PoolWarmer(pool, eventLoop, 10);
+        Object firstOwner = new Object();
+        Object secondOwner = new Object();
+
+        poolWarmer.addOwner(firstOwner, 3);
+        poolWarmer.addOwner(secondOwner, 5);
+        assertEquals(pool.getMinIdle(), 5);
+
+        assertFalse(poolWarmer.removeOwner(secondOwner));
+        assertEquals(pool.getMinIdle(), 3);
+        assertEquals(pool.getMinEvictableIdleTimeMillis(), -1);
+
+        assertTrue(poolWarmer.removeOwner(firstOwner));
+        assertEquals(pool.getMinIdle(), 0);
+        assertEquals(pool.getMinEvictableIdleTimeMillis(), 30000);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        eventLoop.shutdownGracefully();
+    }
+
+    private static GenericObjectPool createPool() {
+        return new GenericObjectPool(new BasePoolableObjectFactory() {
+            @Override
+            public Object makeObject() {
+                return new Object();
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+
+/**
+ * Tests for evicting pooled channels which exceed their maximum age, regardless of the validation settings of the pool.
+ */
+public class PooledChannelExpiryTestCase {
+
+    private static final int MAX_AGE_MILLIS = 10;
+
+    @Test
+    public void testExpiredIdleChannelIsNotBorrowed() throws Exception {
+        GenericObjectPool routePool = new GenericObjectPool(new BasePoolableObjectFactory() {
+            @Override
+            public Object makeObject() {
+                TargetChannel targetChannel = new TargetChannel(null, null);
+                targetChannel.setChannel(new EmbeddedChannel());
+                targetChannel.setConnectionLifetime(new ConnectionLifetime(MAX_AGE_MILLIS, 0));
+                return targetChannel;
+            }
+
+            @Override
+            public void destroyObject(Object obj) {
+                ((TargetChannel) obj).getChannel().close();
+            }
+        });
+        GenericObjectPool sourcePool = new GenericObjectPool(new PoolableTargetChannelFactoryPerSrcHndlr(routePool));
+        sourcePool.setTestOnBorrow(false);
+
+        TargetChannel expiringChannel = (TargetChannel) sourcePool.borrowObject();
+        sourcePool.returnObject(expiringChannel);
+        Thread.sleep(MAX_AGE_MILLIS * 5);
+
+        TargetChannel borrowedChannel = (TargetChannel) sourcePool.borrowObject();
+        assertNotSame(borrowedChannel, expiringChannel);
+        assertFalse(expiringChannel.getChannel().isOpen());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.PriorityLanes;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for letting the borrowers of the connections of a route through by their priority lanes.
+ */
+public class PriorityBorrowGateTestCase {
+
+    @Test
+    public void testSlowBorrowDoesNotHoldBackOthers() throws Exception {
+        CountDownLatch firstCreating = new CountDownLatch(1);
+        CountDownLatch firstCreated = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        GenericObjectPool pool = new GenericObjectPool(new BasePoolableObjectFactory() {
+            @Override
+            public Object makeObject() throws Exception {
+                if (created.incrementAndGet() == 1) {
+                    // Connecting to the backend takes a while
+                    firstCreating.countDown();
+                    firstCreated.await();
+                }
+                return new Object();
+            }
+        });
+        pool.setMaxActive(2);
+        PriorityBorrowGate borrowGate = new PriorityBorrowGate(PriorityLanes.parse("critical:2,bulk:1"));
+
+        Thread slowBorrower = new Thread(() -> {
+            try {
+                borrowGate.borrow(pool, pool, 1, 0);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        slowBorrower.start();
+        try {
+            assertTrue(firstCreating.await(5, TimeUnit.SECONDS));
+            assertNotNull(borrowGate.borrow(pool, pool, 0, 5000));
+        } finally {
+            firstCreated.countDown();
+            slowBorrower.join();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+
+import java.io.File;
+import javax.net.ssl.SSLException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+/**
+ * Tests for telling apart the HTTP/2 connections which senders may share.
+ */
+public class HTTP2ConnectionManagerTestCase {
+
+    @Test
+    public void testSchemesDoNotShareConnections() throws SSLException {
+        HttpRoute route = new HttpRoute("localhost", 8443);
+        SslContext sslContext = SslContextBuilder.forClient().build();
+        String tlsIdentity = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("client.jks", "truststore.jks"));
+
+        assertNotEquals(HTTP2ConnectionManager.getConnectionKey(route, null, null),
+                HTTP2ConnectionManager.getConnectionKey(route, sslContext, tlsIdentity));
+    }
+
+    @Test
+    public void testTrustStoresAndClientCertificatesDoNotShareConnections() throws SSLException {
+        HttpRoute route = new HttpRoute("localhost", 8443);
+        SslContext sslContext = SslContextBuilder.forClient().build();
+        String tlsIdentity = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("client.jks", "truststore.jks"));
+        String otherTrustStore = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("client.jks", "other.jks"));
+        String otherClientCert = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("other.jks", "truststore.jks"));
+
+        assertNotEquals(HTTP2ConnectionManager.getConnectionKey(route, sslContext, otherTrustStore),
+                HTTP2ConnectionManager.getConnectionKey(route, sslContext, tlsIdentity));
+        assertNotEquals(HTTP2ConnectionManager.getConnectionKey(route, sslContext, otherClientCert),
+                HTTP2ConnectionManager.getConnectionKey(route, sslContext, tlsIdentity));
+    }
+
+    @Test
+    public void testEqualConfigurationsShareConnections() throws SSLException {
+        HttpRoute route = new HttpRoute("localhost", 8443);
+        String tlsIdentity = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("client.jks", "truststore.jks"));
+        String sameIdentity = HTTP2ConnectionManager.getTlsIdentity(newSslConfig("client.jks", "truststore.jks"));
+
+        assertEquals(HTTP2ConnectionManager.getConnectionKey(route, SslContextBuilder.forClient().build(),
+                sameIdentity), HTTP2ConnectionManager.getConnectionKey(route, SslContextBuilder.forClient().build(),
+                tlsIdentity));
+    }
+
+    private static SSLConfig newSslConfig(String keyStore, String trustStore) {
+        SSLConfig sslConfig = new SSLConfig(new File(keyStore), "wso2carbon");
+        sslConfig.setTrustStore(new File(trustStore));
+        sslConfig.setTrustStorePass("wso2carbon");
+        return sslConfig;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Stream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.ConnectionLifetime;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseFutureImpl;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Tests for flow controlling the response bodies of HTTP/2 streams by the consumers of the responses.
+ */
+public class HTTP2TargetHandlerFlowControlTestCase {
+
+    private static final int RESPONSE_SIZE = 200000;
+
+    private EmbeddedChannel clientChannel;
+    private EmbeddedChannel serverChannel;
+    private HTTP2TargetHandler targetHandler;
+    private Http2ConnectionHandler serverHandler;
+    private final AtomicInteger requestStreamId = new AtomicInteger();
+
+    @BeforeMethod
+    public void setup() {
+        targetHandler = new HTTP2TargetHandlerBuilder(new HTTP2ClientChannel(new HttpRoute("localhost", 8490), "http",
+                new ConnectionLifetime(0, 0))).build();
+        serverHandler = new Http2ConnectionHandlerBuilder().server(true).frameListener(new Http2FrameAdapter() {
+            @Override
+            public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                                      boolean endOfStream) {
+                requestStreamId.set(streamId);
+            }
+        }).build();
+        clientChannel = new EmbeddedChannel(targetHandler);
+        serverChannel = new EmbeddedChannel(serverHandler);
+        pump();
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        clientChannel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testResponseIsReceivedOnlyAsConsumed() {
+        HTTPCarbonMessage response = sendRequestAndRespond();
+        Http2Stream serverStream = serverHandler.connection().stream(requestStreamId.get());
+        assertEquals(serverHandler.encoder().flowController().windowSize(serverStream), 0);
+
+        int received = 0;
+        boolean lastContentReceived = false;
+        while (!lastContentReceived) {
+            assertFalse(response.isEmpty(), "Response body stalled after " + received + " bytes");
+            HttpContent httpContent = response.getHttpContent();
+            received += httpContent.content().readableBytes();
+            lastContentReceived = httpContent instanceof LastHttpContent;
+            httpContent.release();
+            pump();
+        }
+        assertEquals(received, RESPONSE_SIZE);
+        response.release();
+    }
+
+    private HTTPCarbonMessage sendRequestAndRespond() {
+        HTTPCarbonMessage request = new HTTPCarbonMessage(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        request.setProperty(Constants.HTTP_METHOD, HttpMethod.GET.name());
+        request.setProperty(Constants.TO, "/");
+        request.addHttpContent(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        AtomicReference<HTTPCarbonMessage> response = new AtomicReference<>();
+        HttpResponseFutureImpl responseFuture = new HttpResponseFutureImpl();
+        responseFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                response.set(httpMessage);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        targetHandler.writeRequest(request, responseFuture, 0);
+        pump();
+
+        ChannelHandlerContext ctx = serverChannel.pipeline().firstContext();
+        ByteBuf body = Unpooled.buffer(RESPONSE_SIZE).writeZero(RESPONSE_SIZE);
+        serverHandler.encoder().writeHeaders(ctx, requestStreamId.get(), new DefaultHttp2Headers().status("200"), 0,
+                false, ctx.newPromise());
+        serverHandler.encoder().writeData(ctx, requestStreamId.get(), body, 0, true, ctx.newPromise());
+        serverHandler.flush(ctx);
+        pump();
+        assertNotNull(response.get());
+        return response.get();
+    }
+
+    private void pump() {
+        boolean transferred = true;
+        while (transferred) {
+            transferred = transfer(clientChannel, serverChannel) | transfer(serverChannel, clientChannel);
+        }
+    }
+
+    private static boolean transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        boolean transferred = false;
+        Object msg;
+        while ((msg = from.readOutbound()) != null) {
+            to.writeInbound(msg);
+            transferred = true;
+        }
+        return transferred;
+    }
+}